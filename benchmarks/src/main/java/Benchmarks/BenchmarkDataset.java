@@ -0,0 +1,162 @@
+package Benchmarks;
+
+import Config.DatabaseConnection;
+import Config.SqlScript;
+import Dao.MascotaDAO;
+import Dao.MicrochipDAO;
+import Models.Mascota;
+import Models.Microchip;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prepara la base de datos de benchmarks a partir de script_datos_test.sql.
+ *
+ * Flujo de seedFromTestData():
+ * 0. Verifica que db.url apunte a un esquema de benchmarks (requireDedicatedSchema())
+ * 1. Si ya hay al menos bench.scale mascotas activas, no hace nada (reutiliza el dataset entre benchmarks)
+ * 2. Vacía mascotas y microchips con TRUNCATE (reinicia AUTO_INCREMENT, necesario porque
+ *    script_datos_test.sql referencia los microchips por ID 1..15)
+ * 3. Ejecuta script_datos_test.sql
+ * 4. Replica las filas activas del script hasta llegar a bench.scale mascotas, con insertarBatch();
+ *    cada copia lleva un microchip propio con codigo "codigoBase-n" (la mitad de las copias)
+ *
+ * System properties:
+ * - bench.scale (10000): cantidad de mascotas activas
+ * - bench.testData (../script_datos_test.sql): ruta del script base
+ * - bench.allowDestructive (false): permite vaciar un esquema cuyo nombre no termina en "_bench"
+ *
+ * Requiere un MySQL local con el esquema de script_creacion.sql (db.url, db.user, db.password).
+ * IMPORTANTE: borra los datos del esquema; usar uno dedicado (p. ej. gestion_mascotas_bench).
+ */
+public final class BenchmarkDataset {
+    /** Cantidad de mascotas activas del dataset. */
+    public static final int SCALE = Integer.getInteger("bench.scale", 10_000);
+
+    private static final Path TEST_DATA = Path.of(System.getProperty("bench.testData", "../script_datos_test.sql"));
+    private static final boolean ALLOW_DESTRUCTIVE = Boolean.getBoolean("bench.allowDestructive");
+
+    private BenchmarkDataset() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Garantiza que la BD tenga al menos SCALE mascotas activas.
+     *
+     * @throws Exception Si falla el script o la carga por lotes
+     */
+    public static synchronized void seedFromTestData() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            requireDedicatedSchema(conn);
+        }
+        if (countActiveMascotas() >= SCALE) {
+            return;
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            try {
+                stmt.execute("TRUNCATE TABLE mascotas");
+                stmt.execute("TRUNCATE TABLE microchips");
+            } finally {
+                stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+            SqlScript.execute(conn, TEST_DATA);
+        }
+
+        MicrochipDAO microchipDAO = new MicrochipDAO();
+        MascotaDAO mascotaDAO = new MascotaDAO(microchipDAO);
+        List<Mascota> base = mascotaDAO.getAll();
+        if (base.isEmpty()) {
+            throw new IllegalStateException("script_datos_test.sql no dejó mascotas activas para replicar");
+        }
+
+        int faltantes = SCALE - base.size();
+        int lote = 10_000;
+        for (int desde = 0; desde < faltantes; desde += lote) {
+            int hasta = Math.min(desde + lote, faltantes);
+            List<Microchip> microchips = new ArrayList<>();
+            List<Mascota> mascotas = new ArrayList<>(hasta - desde);
+            for (int n = desde; n < hasta; n++) {
+                Mascota modelo = base.get(n % base.size());
+                Microchip microchip = null;
+                if (n % 2 == 0) {
+                    String codigoBase = modelo.getMicrochip() != null ? modelo.getMicrochip().getCodigo() : "MC-B";
+                    microchip = new Microchip(0, codigoBase + "-" + n, modelo.getFechaNacimiento(), "Vet Benchmark", null);
+                    microchips.add(microchip);
+                }
+                mascotas.add(new Mascota(0, modelo.getNombre(), modelo.getEspecie(), modelo.getRaza(),
+                        modelo.getFechaNacimiento(), modelo.getDuenio() + " " + n, microchip));
+            }
+            microchipDAO.insertarBatch(microchips);
+            mascotaDAO.insertarBatch(mascotas);
+        }
+    }
+
+    /**
+     * Se niega a seguir si el esquema de la conexión no es de benchmarks: los benchmarks
+     * vacían tablas y quitan índices. Acepta un esquema cuyo nombre termina en "_bench",
+     * o cualquiera con -Dbench.allowDestructive=true.
+     *
+     * @param conn Conexión al esquema (NO se cierra en este método)
+     * @throws IllegalStateException Si el esquema no es dedicado y no se permitió explícitamente
+     * @throws SQLException Si falla la consulta de DATABASE()
+     */
+    public static void requireDedicatedSchema(Connection conn) throws SQLException {
+        String esquema;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT DATABASE()")) {
+            esquema = rs.next() ? rs.getString(1) : null;
+        }
+        if (ALLOW_DESTRUCTIVE || (esquema != null && esquema.endsWith("_bench"))) {
+            return;
+        }
+        throw new IllegalStateException("Los benchmarks borran datos y db.url apunta al esquema '" + esquema
+                + "'. Usar un esquema cuyo nombre termine en _bench o pasar -Dbench.allowDestructive=true");
+    }
+
+    /**
+     * IDs de todas las mascotas activas (para elegir claves aleatorias en los benchmarks).
+     */
+    public static int[] activeMascotaIds() throws Exception {
+        return queryInts("SELECT id FROM mascotas WHERE eliminado = FALSE ORDER BY id");
+    }
+
+    /**
+     * Codigos de todos los microchips activos.
+     */
+    public static String[] activeCodigos() throws Exception {
+        List<String> codigos = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT codigo FROM microchips WHERE eliminado = FALSE ORDER BY id")) {
+            while (rs.next()) {
+                codigos.add(rs.getString(1));
+            }
+        }
+        return codigos.toArray(new String[0]);
+    }
+
+    private static int countActiveMascotas() throws Exception {
+        int[] count = queryInts("SELECT COUNT(*) FROM mascotas WHERE eliminado = FALSE");
+        return count.length == 0 ? 0 : count[0];
+    }
+
+    private static int[] queryInts(String sql) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            List<Integer> values = new ArrayList<>();
+            while (rs.next()) {
+                values.add(rs.getInt(1));
+            }
+            return values.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
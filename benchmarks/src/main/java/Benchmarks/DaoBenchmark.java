@@ -0,0 +1,100 @@
+package Benchmarks;
+
+import Dao.MascotaDAO;
+import Dao.MicrochipDAO;
+import Models.Mascota;
+import Models.Microchip;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de lectura de los DAOs contra MySQL (dataset de BenchmarkDataset).
+ *
+ * Se usan los DAOs reales, sin los decoradores de caché de entidades, para medir
+ * el camino completo: pool → PreparedStatement → MySQL → mapeo.
+ * buscarPorCodigo() pasa por la caché propia de MicrochipDAO; para medir solo la BD
+ * ejecutar con -Ddb.cache.codigo.maxSize=0.
+ *
+ * buscarPorCodigoMicrochip() es el camino crítico de p99 (escáner en mostrador): se mide
+ * con su caché (mascotaBuscarPorCodigoMicrochip) y contra la BD con la caché deshabilitada
+ * (mascotaBuscarPorCodigoMicrochipSinCache), que es la latencia de cola ante un miss.
+ *
+ * Modo SampleTime: JMH reporta percentiles (p50, p99, p99.9) además del promedio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class DaoBenchmark {
+    /** Filtro de buscarPorNombreDuenio: "ar" aparece en varios nombres/duenios del script de prueba. */
+    @Param({"ar"})
+    public String filtro;
+
+    private MicrochipDAO microchipDAO;
+    private MascotaDAO mascotaDAO;
+    private MascotaDAO mascotaDAOSinCache;
+    private int[] ids;
+    private String[] codigos;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDataset.seedFromTestData();
+        microchipDAO = new MicrochipDAO();
+        mascotaDAO = new MascotaDAO(microchipDAO);
+        // La caché se configura al construir el DAO: una segunda instancia con maxSize=0
+        System.setProperty("db.cache.mascotaPorCodigo.maxSize", "0");
+        try {
+            mascotaDAOSinCache = new MascotaDAO(microchipDAO);
+        } finally {
+            System.clearProperty("db.cache.mascotaPorCodigo.maxSize");
+        }
+        ids = BenchmarkDataset.activeMascotaIds();
+        codigos = BenchmarkDataset.activeCodigos();
+    }
+
+    @Benchmark
+    public Mascota mascotaGetById() throws Exception {
+        return mascotaDAO.getById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Mascota> mascotaGetAll() throws Exception {
+        return mascotaDAO.getAll();
+    }
+
+    @Benchmark
+    public List<Mascota> mascotaBuscarPorNombreDuenio() throws Exception {
+        return mascotaDAO.buscarPorNombreDuenio(filtro, 0, 20);
+    }
+
+    @Benchmark
+    public Mascota mascotaBuscarPorCodigoMicrochip() throws Exception {
+        return mascotaDAO.buscarPorCodigoMicrochip(codigos[ThreadLocalRandom.current().nextInt(codigos.length)]);
+    }
+
+    @Benchmark
+    public Mascota mascotaBuscarPorCodigoMicrochipSinCache() throws Exception {
+        return mascotaDAOSinCache.buscarPorCodigoMicrochip(codigos[ThreadLocalRandom.current().nextInt(codigos.length)]);
+    }
+
+    @Benchmark
+    public Microchip microchipBuscarPorCodigo() throws Exception {
+        return microchipDAO.buscarPorCodigo(codigos[ThreadLocalRandom.current().nextInt(codigos.length)]);
+    }
+}
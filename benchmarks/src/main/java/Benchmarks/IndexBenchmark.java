@@ -0,0 +1,242 @@
+package Benchmarks;
+
+import Config.DatabaseConnection;
+import Config.SqlScript;
+import Dao.MascotaDAO;
+import Dao.MicrochipDAO;
+import Models.Mascota;
+import Models.Microchip;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Antes/después de los índices (eliminado, ...) de migrations/V002__indices_soft_delete.sql.
+ * Pensado para correr con un millón de mascotas:
+ *
+ *   java -Dbench.scale=1000000 -jar benchmarks/target/benchmarks.jar IndexBenchmark
+ *
+ * Flujo del setup (por valor de indices):
+ * 1. BenchmarkDataset.requireDedicatedSchema() (quita índices: solo en un esquema "_bench")
+ *    y seedFromTestData() (reutiliza el dataset si ya existe)
+ * 2. Marca como eliminados uno de cada 1/bench.deletedRatio mascotas y microchips activos,
+ *    intercalados por ID (sin filas eliminadas la clave primaria ya resuelve
+ *    eliminado = FALSE AND id > ? y los índices no cambian nada)
+ * 3. "sin": quita los índices; "con": los crea con las sentencias de V002 (bench.migrations)
+ * 4. ANALYZE TABLE para que el optimizador vea las estadísticas nuevas
+ * El teardown restaura las filas marcadas y vuelve a crear los índices de V002 si faltan:
+ * el esquema queda como lo deja la migración, sea cual sea el último valor de indices.
+ *
+ * Qué se espera:
+ * - getPage: con (eliminado, id) el rango arranca en la primera fila activa posterior a afterId;
+ *   sin él se recorre la clave primaria descartando eliminadas
+ * - buscarPorNombreDuenio (modo LIKE): '%x%' no usa índices, pero con (eliminado, id) se recorre
+ *   en orden de ID y se corta en la página (sin filesort). Con un filtro raro la diferencia
+ *   desaparece: hay que recorrer todo igual (para eso está db.search.mode=fulltext)
+ *
+ * System properties:
+ * - bench.deletedRatio (0.3): proporción de mascotas y microchips marcados como eliminados durante el benchmark
+ * - bench.migrations (../migrations): carpeta con V002__indices_soft_delete.sql
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class IndexBenchmark {
+    private static final double DELETED_RATIO = Double.parseDouble(System.getProperty("bench.deletedRatio", "0.3"));
+    private static final Path MIGRATION = Path.of(System.getProperty("bench.migrations", "../migrations"))
+            .resolve("V002__indices_soft_delete.sql");
+
+    /** Índices de V002, por tabla. */
+    private static final String[][] INDICES = {
+            { "microchips", "idx_microchips_eliminado_id" },
+            { "mascotas", "idx_mascotas_eliminado_id" },
+            { "mascotas", "idx_mascotas_eliminado_nombre" },
+            { "mascotas", "idx_mascotas_eliminado_duenio" },
+    };
+
+    private static final String ACTIVE_MICROCHIPS_SQL = "SELECT id FROM microchips WHERE eliminado = FALSE ORDER BY id";
+
+    /** "sin": esquema anterior a V002; "con": con los índices compuestos. */
+    @Param({"sin", "con"})
+    public String indices;
+
+    /** "ar" aparece en muchas filas (la página se llena rápido); "zzq" en ninguna (recorrido completo). */
+    @Param({"ar", "zzq"})
+    public String filtro;
+
+    private MicrochipDAO microchipDAO;
+    private MascotaDAO mascotaDAO;
+    private int[] ids;
+    private int[] microchipIds;
+    private int[] marcadas = new int[0];
+    private int[] microchipsMarcados = new int[0];
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            BenchmarkDataset.requireDedicatedSchema(conn);
+        }
+        BenchmarkDataset.seedFromTestData();
+        microchipDAO = new MicrochipDAO();
+        mascotaDAO = new MascotaDAO(microchipDAO);
+
+        int[] activas = BenchmarkDataset.activeMascotaIds();
+        marcadas = cadaN(activas, DELETED_RATIO);
+        marcar("mascotas", marcadas, true);
+        microchipsMarcados = cadaN(queryIds(ACTIVE_MICROCHIPS_SQL), DELETED_RATIO);
+        marcar("microchips", microchipsMarcados, true);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            if (indices.equals("con")) {
+                crearIndices(conn, stmt);
+            } else {
+                quitarIndices(conn, stmt);
+            }
+            stmt.execute("ANALYZE TABLE mascotas, microchips");
+        }
+
+        ids = BenchmarkDataset.activeMascotaIds();
+        microchipIds = queryIds(ACTIVE_MICROCHIPS_SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        marcar("mascotas", marcadas, false);
+        marcadas = new int[0];
+        marcar("microchips", microchipsMarcados, false);
+        microchipsMarcados = new int[0];
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            crearIndices(conn, stmt);
+            stmt.execute("ANALYZE TABLE mascotas, microchips");
+        }
+    }
+
+    @Benchmark
+    public List<Mascota> mascotaGetPage() throws Exception {
+        return mascotaDAO.getPage(ids[ThreadLocalRandom.current().nextInt(ids.length)], 20);
+    }
+
+    @Benchmark
+    public List<Mascota> mascotaBuscarPorNombreDuenio() throws Exception {
+        return mascotaDAO.buscarPorNombreDuenio(filtro, 0, 20);
+    }
+
+    @Benchmark
+    public List<Microchip> microchipGetPage() throws Exception {
+        return microchipDAO.getPage(microchipIds[ThreadLocalRandom.current().nextInt(microchipIds.length)], 20);
+    }
+
+    /**
+     * Una de cada 1/ratio posiciones, para repartir las eliminadas a lo largo de la tabla.
+     */
+    private static int[] cadaN(int[] valores, double ratio) {
+        if (ratio <= 0) {
+            return new int[0];
+        }
+        int paso = Math.max(1, (int) Math.round(1 / ratio));
+        List<Integer> elegidos = new ArrayList<>();
+        for (int i = 0; i < valores.length; i += paso) {
+            elegidos.add(valores[i]);
+        }
+        return elegidos.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Cambia eliminado en las filas dadas de la tabla, en lotes de 1000 IDs.
+     * No toca version: es un cambio del benchmark, no una modificación de la aplicación.
+     */
+    private static void marcar(String tabla, int[] filas, boolean eliminado) throws Exception {
+        int lote = 1000;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int desde = 0; desde < filas.length; desde += lote) {
+                int[] ids = Arrays.copyOfRange(filas, desde, Math.min(desde + lote, filas.length));
+                String marcas = String.join(",", Collections.nCopies(ids.length, "?"));
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE " + tabla + " SET eliminado = ? WHERE id IN (" + marcas + ")")) {
+                    stmt.setBoolean(1, eliminado);
+                    for (int i = 0; i < ids.length; i++) {
+                        stmt.setInt(i + 2, ids[i]);
+                    }
+                    stmt.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Crea los índices con V002. Si solo existen algunos, los quita antes
+     * (las sentencias de V002 agregan varios índices a la vez y fallan si alguno ya existe).
+     */
+    private static void crearIndices(Connection conn, Statement stmt) throws Exception {
+        boolean todos = true;
+        for (String[] indice : INDICES) {
+            todos &= existe(conn, indice[0], indice[1]);
+        }
+        if (todos) {
+            return;
+        }
+        quitarIndices(conn, stmt);
+        for (String sentencia : SqlScript.parse(MIGRATION)) {
+            stmt.execute(sentencia);
+        }
+    }
+
+    private static void quitarIndices(Connection conn, Statement stmt) throws Exception {
+        for (String[] indice : INDICES) {
+            if (existe(conn, indice[0], indice[1])) {
+                stmt.execute("ALTER TABLE " + indice[0] + " DROP INDEX " + indice[1]);
+            }
+        }
+    }
+
+    private static boolean existe(Connection conn, String tabla, String indice) throws Exception {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT 1 FROM information_schema.statistics WHERE table_schema = DATABASE() "
+                        + "AND table_name = ? AND index_name = ? LIMIT 1")) {
+            stmt.setString(1, tabla);
+            stmt.setString(2, indice);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static int[] queryIds(String sql) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            List<Integer> values = new ArrayList<>();
+            while (rs.next()) {
+                values.add(rs.getInt(1));
+            }
+            return values.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
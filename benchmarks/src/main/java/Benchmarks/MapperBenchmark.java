@@ -0,0 +1,78 @@
+package Benchmarks;
+
+import Dao.MascotaDAO;
+import Dao.MicrochipDAO;
+import Models.Mascota;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmark de MascotaDAO.mapResultSetToMascota() sin BD.
+ * El ResultSet es un proxy que devuelve valores fijos (fila con microchip),
+ * así se mide solo el costo del mapeo por nombre de columna.
+ * El método es privado: se accede una vez por reflexión y se invoca con un MethodHandle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private static final Map<String, Object> FILA = Map.ofEntries(
+            Map.entry("id", 42),
+            Map.entry("nombre", "Luna"),
+            Map.entry("especie", "Perro"),
+            Map.entry("raza", "Labrador"),
+            Map.entry("fecha_nacimiento", Date.valueOf("2020-04-15")),
+            Map.entry("duenio", "Carlos Gómez"),
+            Map.entry("version", 0),
+            Map.entry("microchip_id", 7),
+            Map.entry("mc_id", 7),
+            Map.entry("codigo", "MC-1001"),
+            Map.entry("fecha_implantacion", Date.valueOf("2024-01-12")),
+            Map.entry("veterinaria", "Vet Los Pinos"),
+            Map.entry("observaciones", "Implantado sin complicaciones"),
+            Map.entry("mc_version", 0));
+
+    private MascotaDAO dao;
+    private ResultSet rs;
+    private MethodHandle mapper;
+
+    @Setup
+    public void setup() throws Exception {
+        dao = new MascotaDAO(new MicrochipDAO());
+        rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getInt" -> FILA.get((String) args[0]);
+                    case "getString" -> FILA.get((String) args[0]);
+                    case "getDate" -> FILA.get((String) args[0]);
+                    case "wasNull" -> false;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        Method method = MascotaDAO.class.getDeclaredMethod("mapResultSetToMascota", ResultSet.class);
+        method.setAccessible(true);
+        mapper = MethodHandles.lookup().unreflect(method);
+    }
+
+    @Benchmark
+    public Mascota mapResultSetToMascota() throws Throwable {
+        return (Mascota) mapper.invoke(dao, rs);
+    }
+}
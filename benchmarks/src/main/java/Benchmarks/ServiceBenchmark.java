@@ -0,0 +1,56 @@
+package Benchmarks;
+
+import Dao.MascotaDAO;
+import Dao.MicrochipDAO;
+import Models.Mascota;
+import Models.Microchip;
+import Service.MascotaServiceImpl;
+import Service.MicrochipServiceImpl;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de MascotaServiceImpl.insertar() con microchip nuevo (camino de alta completo:
+ * validaciones, unicidad de codigo, insert de microchip e insert de mascota).
+ *
+ * Cada invocación inserta filas reales: el dataset crece durante la corrida.
+ * Los codigos llevan el timestamp de inicio para no chocar entre corridas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ServiceBenchmark {
+    private final AtomicLong secuencia = new AtomicLong();
+    private final String prefijo = "B" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    private MascotaServiceImpl mascotaService;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDataset.seedFromTestData();
+        MicrochipDAO microchipDAO = new MicrochipDAO();
+        mascotaService = new MascotaServiceImpl(new MascotaDAO(microchipDAO), new MicrochipServiceImpl(microchipDAO));
+    }
+
+    @Benchmark
+    public Mascota insertarConMicrochip() throws Exception {
+        long n = secuencia.incrementAndGet();
+        Microchip microchip = new Microchip(0, prefijo + n, LocalDate.now(), "Vet Benchmark", null);
+        Mascota mascota = new Mascota(0, "Bench", "Perro", null, null, "Duenio " + n, microchip);
+        mascotaService.insertar(mascota);
+        return mascota;
+    }
+}
@@ -0,0 +1,5 @@
+-- Concurrencia optimista (MascotaDAO/MicrochipDAO.actualizar): columna version en ambas tablas.
+-- Para bases creadas con una versión de script_creacion.sql anterior a la columna.
+
+ALTER TABLE microchips ADD COLUMN version INT UNSIGNED NOT NULL DEFAULT 0;
+ALTER TABLE mascotas   ADD COLUMN version INT UNSIGNED NOT NULL DEFAULT 0;
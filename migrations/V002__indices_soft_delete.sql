@@ -0,0 +1,13 @@
+-- Índices compuestos para las consultas que filtran eliminado = FALSE (ver script_creacion.sql).
+-- Creación en línea: InnoDB construye el índice sin copiar la tabla ni bloquear escrituras.
+-- Verificar el uso con: java Main.Main explain
+
+ALTER TABLE microchips
+  ADD INDEX idx_microchips_eliminado_id (eliminado, id),
+  ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE mascotas
+  ADD INDEX idx_mascotas_eliminado_id     (eliminado, id),
+  ADD INDEX idx_mascotas_eliminado_nombre (eliminado, nombre),
+  ADD INDEX idx_mascotas_eliminado_duenio (eliminado, duenio),
+  ALGORITHM=INPLACE, LOCK=NONE;
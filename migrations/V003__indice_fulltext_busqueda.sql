@@ -0,0 +1,28 @@
+-- Índice FULLTEXT de la búsqueda por nombre/duenio (-Ddb.search.mode=fulltext, ver script_creacion.sql).
+-- Parser ngram: coincidencias por subcadena sin escanear la tabla (ngram_token_size por defecto = 2).
+-- El primer FULLTEXT de una tabla no admite LOCK=NONE (InnoDB agrega la columna oculta FTS_DOC_ID):
+-- las lecturas siguen, pero las escrituras sobre mascotas esperan hasta que termine.
+--
+-- Sin stopwords: el índice toma las de la sesión al crearse, y con la lista por defecto ngram
+-- descarta los bigramas con "a", "de", "la"... ("ana", "maria" encontrarían menos que LIKE).
+-- Las bases creadas con script_creacion.sql antes de esta migración ya tienen el índice
+-- (registrado solo hasta V002), creado con stopwords: se reconstruye.
+
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+SET @ft_existe = (SELECT COUNT(*) FROM information_schema.statistics
+                  WHERE table_schema = DATABASE() AND table_name = 'mascotas'
+                    AND index_name = 'ft_mascotas_nombre_duenio');
+
+SET @ddl = IF(@ft_existe = 0, 'DO 0',
+  'ALTER TABLE mascotas DROP INDEX ft_mascotas_nombre_duenio, ALGORITHM=INPLACE, LOCK=NONE');
+
+PREPARE quitar_ft FROM @ddl;
+EXECUTE quitar_ft;
+DEALLOCATE PREPARE quitar_ft;
+
+ALTER TABLE mascotas
+  ADD FULLTEXT INDEX ft_mascotas_nombre_duenio (nombre, duenio) WITH PARSER ngram,
+  ALGORITHM=INPLACE, LOCK=SHARED;
+
+SET SESSION innodb_ft_enable_stopword = DEFAULT;
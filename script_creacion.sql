@@ -12,11 +12,20 @@ CREATE TABLE IF NOT EXISTS microchips (
   fecha_implantacion  DATE         NULL,
   veterinaria         VARCHAR(120) NULL,
   observaciones       VARCHAR(255) NULL,
+  -- Concurrencia optimista: se incrementa en cada UPDATE (MicrochipDAO.actualizar compara y setea)
+  version             INT UNSIGNED NOT NULL DEFAULT 0,
   -- CHECKS
   CONSTRAINT chk_micro_eliminado   CHECK (eliminado IN (0,1)),
-  CONSTRAINT chk_codigo_no_vacio   CHECK (TRIM(codigo) <> '')
+  CONSTRAINT chk_codigo_no_vacio   CHECK (TRIM(codigo) <> ''),
+
+  -- Listados/paginación keyset de activos (WHERE eliminado = FALSE AND id > ? ORDER BY id):
+  -- recorre solo filas activas en orden de id (migrations/V002__indices_soft_delete.sql)
+  INDEX idx_microchips_eliminado_id (eliminado, id)
 ) ENGINE=InnoDB;
 
+-- Los índices FULLTEXT toman las stopwords de la sesión al crearse (ver ft_mascotas_nombre_duenio)
+SET SESSION innodb_ft_enable_stopword = OFF;
+
 -- Tabla A: Mascota  (FK UNIQUE nullable → 1:1)
 CREATE TABLE IF NOT EXISTS mascotas (
   id               BIGINT UNSIGNED NOT NULL PRIMARY KEY AUTO_INCREMENT,
@@ -27,6 +36,8 @@ CREATE TABLE IF NOT EXISTS mascotas (
   fecha_nacimiento DATE         NULL,
   duenio           VARCHAR(120) NOT NULL,
   microchip_id     BIGINT UNSIGNED NULL UNIQUE,
+  -- Concurrencia optimista: se incrementa en cada UPDATE (MascotaDAO.actualizar compara y setea)
+  version          INT UNSIGNED NOT NULL DEFAULT 0,
 
   CONSTRAINT fk_mascotas_microchip
     FOREIGN KEY (microchip_id) REFERENCES microchips (id)
@@ -36,7 +47,22 @@ CREATE TABLE IF NOT EXISTS mascotas (
   CONSTRAINT chk_nombre_no_vacio   CHECK (TRIM(nombre)  <> ''),
   CONSTRAINT chk_especie_no_vacio  CHECK (TRIM(especie) <> ''),
   CONSTRAINT chk_duenio_no_vacio   CHECK (TRIM(duenio)  <> ''),
-  CONSTRAINT chk_mascota_eliminado CHECK (eliminado IN (0,1))
+  CONSTRAINT chk_mascota_eliminado CHECK (eliminado IN (0,1)),
+
+  -- Índices para las consultas filtradas por soft delete (migrations/V002__indices_soft_delete.sql):
+  -- - (eliminado, id): listados y paginación keyset de activos sin pasar por las eliminadas
+  -- - (eliminado, nombre) / (eliminado, duenio): igualdad o prefijo ('juan%') sobre activos.
+  --   LIKE '%x%' (modo like de buscarPorNombreDuenio) no puede posicionarse en ellos:
+  --   para subcadenas está el índice FULLTEXT
+  INDEX idx_mascotas_eliminado_id     (eliminado, id),
+  INDEX idx_mascotas_eliminado_nombre (eliminado, nombre),
+  INDEX idx_mascotas_eliminado_duenio (eliminado, duenio),
+
+  -- Búsqueda por nombre/duenio (-Ddb.search.mode=fulltext, migrations/V003__indice_fulltext_busqueda.sql):
+  -- parser ngram para coincidencias por subcadena sin escanear la tabla (ngram_token_size = 2).
+  -- Se crea sin stopwords (SET SESSION arriba): si no, ngram descarta los bigramas con
+  -- "a", "de", "la"... y la búsqueda encuentra menos que LIKE
+  FULLTEXT INDEX ft_mascotas_nombre_duenio (nombre, duenio) WITH PARSER ngram
 ) ENGINE=InnoDB;
 
 --  Trigger anti-reasignacion (una vez asignado, no cambiar a otra mascota)
@@ -54,4 +80,21 @@ BEGIN
   END IF;
 END//
 
-DELIMITER ;
\ No newline at end of file
+DELIMITER ;
+-- Historial de migraciones (Config.SchemaMigrator). Este script ya incluye los cambios de
+-- migrations/ hasta V003: se registran como línea base, sin checksum, para que el runner
+-- no los vuelva a aplicar. Al agregar una migración, sumar el cambio arriba y su fila acá.
+CREATE TABLE IF NOT EXISTS schema_migrations (
+  version      INT UNSIGNED NOT NULL PRIMARY KEY,
+  descripcion  VARCHAR(200) NOT NULL,
+  checksum     CHAR(64)     NULL,
+  aplicada_en  TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  duracion_ms  BIGINT       NOT NULL DEFAULT 0,
+  exitosa      BOOLEAN      NOT NULL,
+  error        VARCHAR(500) NULL
+) ENGINE=InnoDB;
+
+INSERT IGNORE INTO schema_migrations (version, descripcion, exitosa) VALUES
+  (1, 'columnas version (script_creacion.sql)', TRUE),
+  (2, 'indices soft delete (script_creacion.sql)', TRUE),
+  (3, 'indice fulltext busqueda (script_creacion.sql)', TRUE);
@@ -0,0 +1,732 @@
+package Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ * Reutiliza conexiones físicas para evitar el handshake TCP + autenticación MySQL
+ * que implica cada DriverManager.getConnection().
+ *
+ * Características:
+ * - Tamaño mínimo y máximo (el máximo se controla con un Semaphore)
+ * - Timeout de adquisición: si no hay conexión libre en el plazo, lanza SQLTimeoutException
+ * - Desalojo de conexiones ociosas por encima del mínimo (idle timeout)
+ * - Validación al prestar (isValid) si la conexión estuvo ociosa más de validationBypassMs
+ * - Detección de fugas: avisa por System.err si una conexión se retiene más del umbral
+ * - Caché de PreparedStatement por conexión física (statementCacheSize, 0 = desactivada)
+ *
+ * Funcionamiento:
+ * - getConnection() entrega un proxy de Connection; close() sobre el proxy
+ *   devuelve la conexión física al pool en lugar de cerrarla
+ * - Al devolverla se hace rollback si quedó una transacción abierta y se restaura autoCommit=true;
+ *   también el nivel de aislamiento y readOnly si el caller los cambió, y el fetchSize/maxRows
+ *   de las sentencias cacheadas (streamAll usa fetchSize = Integer.MIN_VALUE)
+ * - Las conexiones ociosas se guardan en orden LIFO: las más usadas quedan al frente
+ *   y las que sobran envejecen al final hasta ser desalojadas
+ *
+ * Caché de sentencias:
+ * - prepareStatement(sql) y prepareStatement(sql, autoGeneratedKeys) devuelven un proxy
+ *   de PreparedStatement; su close() limpia parámetros y lote pero deja la sentencia
+ *   abierta para el próximo préstamo de la misma conexión física
+ * - La clave es el texto SQL exacto (+ autoGeneratedKeys): como los DAOs usan constantes
+ *   (INSERT_SQL, SELECT_BY_ID_SQL, ...) cada constante ocupa una entrada por conexión
+ * - Desalojo LRU al superar statementCacheSize; la desalojada se cierra al liberarse
+ * - Si la misma SQL ya está en uso en la conexión (sentencias anidadas), se prepara una
+ *   sentencia común sin cachear
+ * - Con useServerPrepStmts=true en db.url el driver prepara en el servidor (COM_STMT_PREPARE);
+ *   mantener la sentencia abierta evita re-preparar y desasignar en cada uso
+ *
+ * Patrón: Object Pool con proxy dinámico (java.lang.reflect.Proxy)
+ */
+public final class ConnectionPool implements AutoCloseable {
+    private final String name;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final PoolConfig config;
+
+    /** Permisos de préstamo: uno por conexión posible (maxSize). */
+    private final Semaphore permits;
+
+    /** Conexiones ociosas listas para prestar (frente = usada más recientemente). */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /** Conexiones actualmente prestadas (para detección de fugas). */
+    private final Set<PooledConnection> inUse = ConcurrentHashMap.newKeySet();
+
+    /** Hilo de mantenimiento: desalojo de ociosas, relleno al mínimo y detección de fugas. */
+    private final ScheduledExecutorService housekeeper;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    /** Último error de conexión (SQLState 08 o fallo al abrir), en System.currentTimeMillis(); 0 = nunca. */
+    private volatile long lastConnectionErrorAt;
+
+    private volatile boolean closed;
+
+    /**
+     * Crea el pool y programa el mantenimiento periódico.
+     * El relleno hasta minSize se hace en segundo plano para no bloquear
+     * (ni fallar) la carga de la clase si la BD todavía no está disponible.
+     *
+     * @param name Nombre del pool (usado en logs y estadísticas)
+     * @param url URL JDBC
+     * @param user Usuario de la BD
+     * @param password Contraseña de la BD
+     * @param config Parámetros del pool
+     */
+    public ConnectionPool(String name, String url, String user, String password, PoolConfig config) {
+        this.name = name;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-" + name + "-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, config.housekeepingMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool.
+     *
+     * Flujo:
+     * 1. Espera un permiso hasta acquireTimeoutMs (si vence → SQLTimeoutException)
+     * 2. Toma una conexión ociosa; si estuvo ociosa más de validationBypassMs la valida
+     *    (las inválidas se descartan y se prueba con la siguiente)
+     * 3. Si no hay ociosas, abre una conexión física nueva
+     * 4. Retorna un proxy: su close() devuelve la conexión al pool
+     *
+     * @return Conexión prestada (el caller debe cerrarla, idealmente con try-with-resources)
+     * @throws SQLException Si el pool está cerrado, vence el timeout o falla la conexión física
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("El pool '" + name + "' está cerrado");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.acquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLTimeoutException("Timeout (" + config.acquireTimeoutMs()
+                        + " ms) esperando una conexión del pool '" + name + "'");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión del pool '" + name + "'", e);
+        }
+
+        try {
+            PooledConnection pc = takeIdleValidated();
+            if (pc == null) {
+                pc = createPhysical();
+            }
+            totalWaitNanos.addAndGet(System.nanoTime() - start);
+            borrowed.incrementAndGet();
+            pc.markBorrowed(config.leakDetectionThresholdMs() > 0);
+            inUse.add(pc);
+            return pc.newLease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve una conexión al pool (invocado desde el close() del proxy).
+     * Restaura el estado (rollback de transacción pendiente, autoCommit=true, aislamiento y
+     * readOnly de la conexión recién creada, fetchSize/maxRows de las sentencias cacheadas).
+     * Si la conexión está rota o el pool cerrado, se destruye.
+     */
+    private void release(PooledConnection pc) {
+        inUse.remove(pc);
+        try {
+            if (closed || pc.broken || pc.physical.isClosed()) {
+                destroy(pc);
+                return;
+            }
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            if (pc.sessionModified) {
+                pc.physical.setTransactionIsolation(pc.defaultIsolation);
+                pc.physical.setReadOnly(pc.defaultReadOnly);
+                pc.sessionModified = false;
+            }
+            pc.reclaimStatements();
+            pc.physical.clearWarnings();
+            pc.lastUsedAt = System.currentTimeMillis();
+            idle.offerFirst(pc);
+        } catch (SQLException e) {
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Toma la conexión ociosa más reciente y la valida si corresponde.
+     *
+     * @return Conexión válida, o null si no hay ociosas
+     */
+    private PooledConnection takeIdleValidated() {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pc.lastUsedAt <= config.validationBypassMs() || isValid(pc)) {
+                return pc;
+            }
+            validationFailures.incrementAndGet();
+            destroy(pc);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledConnection pc) {
+        try {
+            return pc.physical.isValid(config.validationTimeoutSec());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createPhysical() throws SQLException {
+        Connection physical;
+        try {
+            physical = DriverManager.getConnection(url, user, password);
+        } catch (SQLException e) {
+            lastConnectionErrorAt = System.currentTimeMillis();
+            throw e;
+        }
+        PooledConnection pc;
+        try {
+            pc = new PooledConnection(physical);
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+        totalConnections.incrementAndGet();
+        created.incrementAndGet();
+        return pc;
+    }
+
+    private void destroy(PooledConnection pc) {
+        totalConnections.decrementAndGet();
+        destroyed.incrementAndGet();
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar conexión física del pool '" + name + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tarea periódica de mantenimiento.
+     * 1. Desaloja ociosas más viejas que idleTimeoutMs mientras se supere minSize
+     * 2. Rellena hasta minSize (sin superar maxSize)
+     * 3. Reporta conexiones prestadas por más de leakDetectionThresholdMs (una vez cada una)
+     */
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > config.minSize()) {
+            PooledConnection pc = it.next();
+            if (now - pc.lastUsedAt > config.idleTimeoutMs() && idle.remove(pc)) {
+                destroy(pc);
+            }
+        }
+
+        try {
+            while (totalConnections.get() < config.minSize() && permits.tryAcquire()) {
+                try {
+                    PooledConnection pc = createPhysical();
+                    pc.lastUsedAt = System.currentTimeMillis();
+                    idle.offerLast(pc);
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("No se pudo rellenar el pool '" + name + "': " + e.getMessage());
+        }
+
+        if (config.leakDetectionThresholdMs() > 0) {
+            for (PooledConnection pc : inUse) {
+                if (!pc.leakReported && now - pc.borrowedAt > config.leakDetectionThresholdMs()) {
+                    pc.leakReported = true;
+                    leaksDetected.incrementAndGet();
+                    System.err.println("[POOL " + name + "] Posible fuga: conexión prestada hace "
+                            + (now - pc.borrowedAt) + " ms sin devolverse. Obtenida en:");
+                    if (pc.borrowTrace != null) {
+                        pc.borrowTrace.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Carga actual: conexiones prestadas más hilos esperando una.
+     * Más liviano que getStats() para decidir por cuál pool enrutar (ReplicaRouter).
+     *
+     * @return Préstamos activos + esperas
+     */
+    public int getLoad() {
+        return inUse.size() + permits.getQueueLength();
+    }
+
+    /**
+     * Momento del último error de conexión: fallo al abrir una conexión física o
+     * SQLState clase 08 durante su uso.
+     *
+     * @return System.currentTimeMillis() del último error, o 0 si nunca hubo
+     */
+    public long getLastConnectionErrorMillis() {
+        return lastConnectionErrorAt;
+    }
+
+    /**
+     * Instantánea de las estadísticas del pool.
+     *
+     * @return PoolStats con contadores acumulados y estado actual
+     */
+    public PoolStats getStats() {
+        long count = borrowed.get();
+        return new PoolStats(
+                name,
+                totalConnections.get(),
+                inUse.size(),
+                idle.size(),
+                permits.getQueueLength(),
+                config.maxSize(),
+                count,
+                created.get(),
+                destroyed.get(),
+                timeouts.get(),
+                validationFailures.get(),
+                leaksDetected.get(),
+                count == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / count,
+                config.statementCacheSize(),
+                statementHits.get(),
+                statementMisses.get(),
+                statementEvictions.get());
+    }
+
+    /**
+     * Cierra el pool: detiene el mantenimiento y cierra las conexiones ociosas.
+     * Las conexiones prestadas se cierran físicamente cuando el caller las devuelve.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+    }
+
+    /**
+     * Conexión física administrada por el pool y su metadata de uso.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsedAt;
+        private volatile long borrowedAt;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+        private volatile Throwable borrowTrace;
+
+        /** Aislamiento y readOnly con que se creó: release() los restaura si el caller los cambió. */
+        private final int defaultIsolation;
+        private final boolean defaultReadOnly;
+        /** El préstamo actual llamó a setTransactionIsolation() o setReadOnly() (ver Lease). */
+        private boolean sessionModified;
+
+        /**
+         * Sentencias preparadas abiertas sobre esta conexión, en orden de acceso (LRU).
+         * Solo la usa el hilo que tiene la conexión prestada, por eso no se sincroniza.
+         */
+        private final Map<StatementKey, CachedStatement> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+                        if (size() > config.statementCacheSize()) {
+                            statementEvictions.incrementAndGet();
+                            eldest.getValue().evict();
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+
+        private PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultIsolation = physical.getTransactionIsolation();
+            this.defaultReadOnly = physical.isReadOnly();
+        }
+
+        private void markBorrowed(boolean captureTrace) {
+            borrowedAt = System.currentTimeMillis();
+            leakReported = false;
+            borrowTrace = captureTrace ? new Throwable("Préstamo de conexión") : null;
+        }
+
+        /**
+         * Crea un proxy nuevo por cada préstamo.
+         * Así, un close() repetido sobre un proxy viejo no devuelve por error
+         * una conexión que ya fue prestada a otro caller.
+         */
+        private Connection newLease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Lease(this));
+        }
+
+        /**
+         * Obtiene la sentencia preparada de la caché o la prepara y la agrega.
+         *
+         * @param lease Proxy de Connection del préstamo actual (lo devuelve getConnection() de la sentencia)
+         * @param sql Texto SQL (normalmente una constante del DAO)
+         * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS o Statement.NO_GENERATED_KEYS
+         * @return Proxy de PreparedStatement cuyo close() la devuelve a la caché
+         * @throws SQLException Si falla la preparación
+         */
+        private PreparedStatement prepareCached(Connection lease, String sql, int autoGeneratedKeys) throws SQLException {
+            StatementKey key = new StatementKey(sql, autoGeneratedKeys);
+            CachedStatement cached = statements.get(key);
+            if (cached != null) {
+                if (cached.inUse()) {
+                    // La misma SQL sigue abierta en esta conexión: sentencia común, fuera de la caché
+                    statementMisses.incrementAndGet();
+                    return physical.prepareStatement(sql, autoGeneratedKeys);
+                }
+                statementHits.incrementAndGet();
+            } else {
+                statementMisses.incrementAndGet();
+                cached = new CachedStatement(this, physical.prepareStatement(sql, autoGeneratedKeys));
+                statements.put(key, cached);
+            }
+            return cached.borrow(lease);
+        }
+
+        /**
+         * Recupera las sentencias que el caller no cerró antes de devolver la conexión.
+         */
+        private void reclaimStatements() throws SQLException {
+            for (CachedStatement cached : statements.values()) {
+                if (cached.inUse()) {
+                    cached.giveBack();
+                }
+            }
+        }
+    }
+
+    /**
+     * Clave de la caché de sentencias.
+     */
+    private record StatementKey(String sql, int autoGeneratedKeys) {}
+
+    /**
+     * PreparedStatement física cacheada en una conexión.
+     * Cada borrow() entrega un proxy con su propio StatementLease; solo el préstamo actual
+     * opera sobre la sentencia física (ver StatementLease).
+     */
+    private final class CachedStatement {
+        private final PooledConnection owner;
+        private final PreparedStatement physical;
+        /** Valores al prepararla: giveBack() los restaura si el caller los cambió. */
+        private final int defaultFetchSize;
+        private final int defaultMaxRows;
+        private boolean evicted;
+        /** Préstamo vigente, o null si la sentencia está disponible en la caché. */
+        private StatementLease current;
+
+        private CachedStatement(PooledConnection owner, PreparedStatement physical) throws SQLException {
+            this.owner = owner;
+            this.physical = physical;
+            this.defaultFetchSize = physical.getFetchSize();
+            this.defaultMaxRows = physical.getMaxRows();
+        }
+
+        private boolean inUse() {
+            return current != null;
+        }
+
+        private PreparedStatement borrow(Connection lease) {
+            current = new StatementLease(this, lease);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    current);
+        }
+
+        private void giveBack() throws SQLException {
+            current = null;
+            if (evicted) {
+                physical.close();
+                return;
+            }
+            ResultSet rs = physical.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+            physical.clearParameters();
+            physical.clearBatch();
+            physical.clearWarnings();
+            if (physical.getFetchSize() != defaultFetchSize) {
+                physical.setFetchSize(defaultFetchSize);
+            }
+            if (physical.getMaxRows() != defaultMaxRows) {
+                physical.setMaxRows(defaultMaxRows);
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse()) {
+                try {
+                    physical.close();
+                } catch (SQLException e) {
+                    System.err.println("Error al cerrar sentencia desalojada del pool '" + name + "': " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * InvocationHandler del proxy de un préstamo de CachedStatement (uno nuevo por borrow()).
+     * Un proxy viejo guardado por un caller anterior deja de ser el préstamo vigente en cuanto
+     * se cierra, así que no puede cerrar, re-ligar ni ejecutar la sentencia ya prestada a otro.
+     * - close(): si es el préstamo vigente, cierra el ResultSet abierto y limpia parámetros y
+     *   lote; la sentencia queda disponible (o se cierra si fue desalojada mientras estaba en uso)
+     * - isClosed(): true si este préstamo ya terminó
+     * - getConnection(): el proxy de la conexión prestada, nunca la física
+     */
+    private final class StatementLease implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection lease;
+
+        private StatementLease(CachedStatement cached, Connection lease) {
+            this.cached = cached;
+            this.lease = lease;
+        }
+
+        private boolean vigente() {
+            return cached.current == this;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (vigente()) {
+                        cached.giveBack();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return !vigente() || cached.physical.isClosed();
+                }
+                case "getConnection" -> {
+                    return lease;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "CachedStatement[" + cached.physical + "]";
+                }
+                default -> { }
+            }
+            if (!vigente()) {
+                throw new SQLException("La sentencia ya fue cerrada");
+            }
+            try {
+                return method.invoke(cached.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqle && sqle.getSQLState() != null
+                        && sqle.getSQLState().startsWith("08")) {
+                    cached.owner.broken = true;
+                    lastConnectionErrorAt = System.currentTimeMillis();
+                }
+                throw cause;
+            }
+        }
+    }
+
+    /**
+     * InvocationHandler del proxy entregado al caller.
+     * - close(): devuelve la conexión al pool (idempotente)
+     * - isClosed(): true si ya se devolvió
+     * - resto: delega en la conexión física; marca la conexión como rota
+     *   ante errores de conexión (SQLState clase 08)
+     * - setTransactionIsolation()/setReadOnly(): marcan la conexión para que release() los restaure
+     * - prepareStatement(sql) y prepareStatement(sql, autoGeneratedKeys): pasan por la
+     *   caché de sentencias de la conexión física si está habilitada
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pc;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private Lease(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (returned.compareAndSet(false, true)) {
+                        release(pc);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned.get() || pc.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + name + "]" + (returned.get() ? " (devuelta)" : "");
+                }
+                default -> { }
+            }
+            if (returned.get()) {
+                throw new SQLException("La conexión ya fue devuelta al pool '" + name + "'");
+            }
+            if (method.getName().equals("setTransactionIsolation") || method.getName().equals("setReadOnly")) {
+                pc.sessionModified = true;
+            }
+            if (config.statementCacheSize() > 0 && method.getName().equals("prepareStatement")) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return pc.prepareCached((Connection) proxy, (String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (types.length == 2 && types[1] == int.class) {
+                    return pc.prepareCached((Connection) proxy, (String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqle && sqle.getSQLState() != null
+                        && sqle.getSQLState().startsWith("08")) {
+                    pc.broken = true;
+                    lastConnectionErrorAt = System.currentTimeMillis();
+                }
+                throw cause;
+            }
+        }
+    }
+
+    /**
+     * Parámetros de configuración del pool.
+     *
+     * @param minSize Conexiones que se mantienen abiertas aunque estén ociosas
+     * @param maxSize Máximo de conexiones físicas simultáneas
+     * @param acquireTimeoutMs Espera máxima para obtener una conexión
+     * @param idleTimeoutMs Tiempo ocioso tras el cual se desaloja una conexión (sobre minSize)
+     * @param validationBypassMs Si la conexión se usó hace menos que esto, no se valida al prestar
+     * @param validationTimeoutSec Timeout de Connection.isValid()
+     * @param leakDetectionThresholdMs Tiempo de préstamo que dispara el aviso de fuga (0 = desactivado)
+     * @param housekeepingMs Período de la tarea de mantenimiento
+     * @param statementCacheSize Sentencias preparadas cacheadas por conexión física (0 = desactivada)
+     */
+    public record PoolConfig(int minSize, int maxSize, long acquireTimeoutMs, long idleTimeoutMs,
+                             long validationBypassMs, int validationTimeoutSec,
+                             long leakDetectionThresholdMs, long housekeepingMs,
+                             int statementCacheSize) {
+        public PoolConfig {
+            if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+                throw new IllegalStateException("Tamaños de pool inválidos: min=" + minSize + ", max=" + maxSize);
+            }
+            if (acquireTimeoutMs <= 0 || idleTimeoutMs <= 0 || housekeepingMs <= 0 || validationTimeoutSec <= 0) {
+                throw new IllegalStateException("Los timeouts del pool deben ser mayores a 0");
+            }
+            if (statementCacheSize < 0) {
+                throw new IllegalStateException("El tamaño de la caché de sentencias no puede ser negativo");
+            }
+        }
+    }
+
+    /**
+     * Estadísticas del pool en un instante dado.
+     */
+    public record PoolStats(String name, int total, int active, int idle, int waiting, int maxSize,
+                            long borrowed, long created, long destroyed, long timeouts,
+                            long validationFailures, long leaksDetected, double avgAcquireMs,
+                            int statementCacheSize, long statementHits, long statementMisses,
+                            long statementEvictions) {
+        /**
+         * @return Proporción de prepareStatement() resueltos con una sentencia ya preparada (0.0 a 1.0)
+         */
+        public double statementHitRate() {
+            long total = statementHits + statementMisses;
+            return total == 0 ? 0.0 : (double) statementHits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Pool %s: total=%d (activas=%d, ociosas=%d, max=%d), esperando=%d, préstamos=%d, "
+                    + "creadas=%d, destruidas=%d, timeouts=%d, validaciones fallidas=%d, fugas=%d, "
+                    + "espera promedio=%.3f ms | sentencias (máx %d/conexión): hits=%d, misses=%d, "
+                    + "desalojos=%d, hit rate=%.1f%%",
+                    name, total, active, idle, maxSize, waiting, borrowed, created, destroyed,
+                    timeouts, validationFailures, leaksDetected, avgAcquireMs,
+                    statementCacheSize, statementHits, statementMisses, statementEvictions,
+                    statementHitRate() * 100);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de acceso a datos: dónde se va el tiempo entre el servicio y MySQL.
+ *
+ * Tres niveles, cada uno con cantidad, latencia (LatencyHistogram), filas y errores:
+ * - Operación de DAO ("MascotaDAO.getById"): la registran los decoradores InstrumentedMascotaDAO
+ *   e InstrumentedMicrochipDAO, tal como la ve el servicio (incluye aciertos de caché)
+ * - Sentencia SQL por constante ("MascotaDAO.SELECT_BY_ID_SQL"): la registra InstrumentedConnection
+ *   alrededor de cada execute*; las filas son las leídas del ResultSet o las afectadas por el UPDATE/batch
+ * - Obtención de conexión: la registra DatabaseConnection.getConnection() (espera del pool incluida)
+ *
+ * Exportación:
+ * - toPrometheus(): texto Prometheus (summary + counters), servido por HttpApiServer en /metrics
+ * - registerMBean(): MXBean "Config:type=DaoMetrics" en el MBeanServer de la plataforma (jconsole, VisualVM)
+ *
+ * Configuración via system properties:
+ * - db.metrics.enabled (true): false desactiva todo (sin decoradores ni proxies)
+ * - db.metrics.sql (true): false desactiva solo el nivel de sentencias, que envuelve
+ *   Connection/Statement/ResultSet en proxies (un costo fijo por llamada JDBC)
+ *
+ * Las sentencias se nombran por su constante: cada DAO llama a registerSqlConstants()
+ * en su bloque static. Las SQL no registradas se agrupan como "otra".
+ *
+ * Los decoradores marcan la operación en curso del hilo (enterOperation/exitOperation)
+ * para que el log de sentencias lentas (SqlTrace) sepa qué operación originó cada SQL.
+ *
+ * Patrón: Utility class con estado estático (como DatabaseConnection)
+ */
+public final class DaoMetrics {
+    /** Nombre de las sentencias que no corresponden a ninguna constante registrada. */
+    public static final String SQL_NO_REGISTRADA = "otra";
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.metrics.enabled", "true"));
+    private static final boolean SQL_ENABLED = ENABLED && Boolean.parseBoolean(System.getProperty("db.metrics.sql", "true"));
+
+    private static final ConcurrentMap<String, Metric> OPERACIONES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Metric> SENTENCIAS = new ConcurrentHashMap<>();
+    private static final Metric ACQUIRE = new Metric();
+
+    /** Texto SQL → "Clase.CONSTANTE". Las constantes son el mismo String en cada llamada. */
+    private static final ConcurrentMap<String, String> NOMBRES_SQL = new ConcurrentHashMap<>();
+
+    /** Operación de DAO en curso en el hilo (para atribuirle las sentencias en SqlTrace). */
+    private static final ThreadLocal<String> OPERACION_ACTUAL = new ThreadLocal<>();
+
+    private DaoMetrics() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * @return true si las métricas están activas (db.metrics.enabled)
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return true si se miden las sentencias SQL (db.metrics.enabled y db.metrics.sql)
+     */
+    public static boolean isSqlEnabled() {
+        return SQL_ENABLED;
+    }
+
+    /**
+     * Registra los nombres de las constantes SQL de un DAO (ver sqlConstants()).
+     * Si dos constantes tienen el mismo texto, gana la primera.
+     *
+     * @param daoClass Clase que declara las constantes
+     * @throws IllegalStateException Si no se pueden leer los campos por reflexión
+     */
+    public static void registerSqlConstants(Class<?> daoClass) {
+        sqlConstants(daoClass).forEach((campo, sql) ->
+                NOMBRES_SQL.putIfAbsent(sql, daoClass.getSimpleName() + "." + campo));
+    }
+
+    /**
+     * Constantes SQL de un DAO: todo campo static final String cuyo nombre termina en "_SQL".
+     * También la usa la herramienta de EXPLAIN (Main.ExplainCheck).
+     *
+     * @param daoClass Clase que declara las constantes
+     * @return Nombre del campo → texto SQL, en el orden de declaración
+     * @throws IllegalStateException Si no se pueden leer los campos por reflexión
+     */
+    public static Map<String, String> sqlConstants(Class<?> daoClass) {
+        Map<String, String> constantes = new LinkedHashMap<>();
+        for (Field field : daoClass.getDeclaredFields()) {
+            int mod = field.getModifiers();
+            if (!Modifier.isStatic(mod) || !Modifier.isFinal(mod)
+                    || field.getType() != String.class || !field.getName().endsWith("_SQL")) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                constantes.put(field.getName(), (String) field.get(null));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                throw new IllegalStateException("No se pudo leer " + daoClass.getSimpleName() + "." + field.getName(), e);
+            }
+        }
+        return constantes;
+    }
+
+    /**
+     * Registra el nombre de una sentencia generada en tiempo de ejecución
+     * (p. ej. los UPDATE parciales de los DAOs). Si el texto ya tiene nombre, se conserva.
+     *
+     * @param nombre Nombre a mostrar (p. ej. "MascotaDAO.UPDATE_SQL(nombre)")
+     * @param sql Texto SQL exacto que se pasará a prepareStatement()
+     */
+    public static void registerSql(String nombre, String sql) {
+        NOMBRES_SQL.putIfAbsent(sql, nombre);
+    }
+
+    /**
+     * Nombre de constante de una sentencia SQL.
+     *
+     * @param sql Texto SQL tal como se pasó a prepareStatement()/executeQuery()
+     * @return "Clase.CONSTANTE", o SQL_NO_REGISTRADA si no corresponde a ninguna
+     */
+    public static String sqlName(String sql) {
+        return sql == null ? SQL_NO_REGISTRADA : NOMBRES_SQL.getOrDefault(sql, SQL_NO_REGISTRADA);
+    }
+
+    /**
+     * Marca el inicio de una operación de DAO en el hilo actual.
+     * Las operaciones anidadas (un decorador que llama a otro) quedan con la más interna.
+     *
+     * @param operacion Nombre de la operación
+     * @return Operación anterior, a restaurar con exitOperation()
+     */
+    public static String enterOperation(String operacion) {
+        String anterior = OPERACION_ACTUAL.get();
+        OPERACION_ACTUAL.set(operacion);
+        return anterior;
+    }
+
+    /**
+     * Restaura la operación que estaba en curso antes de enterOperation().
+     *
+     * @param anterior Valor devuelto por enterOperation()
+     */
+    public static void exitOperation(String anterior) {
+        if (anterior == null) {
+            OPERACION_ACTUAL.remove();
+        } else {
+            OPERACION_ACTUAL.set(anterior);
+        }
+    }
+
+    /**
+     * @return Operación de DAO en curso en el hilo actual, o null si no hay
+     */
+    public static String currentOperation() {
+        return OPERACION_ACTUAL.get();
+    }
+
+    /**
+     * Registra una llamada a una operación de DAO.
+     *
+     * @param operacion Nombre de la operación ("MascotaDAO.getById")
+     * @param nanos Duración de la llamada
+     * @param filas Entidades devueltas o escritas
+     * @param error true si la llamada lanzó una excepción
+     */
+    public static void recordOperation(String operacion, long nanos, long filas, boolean error) {
+        OPERACIONES.computeIfAbsent(operacion, k -> new Metric()).record(nanos, filas, error);
+    }
+
+    /**
+     * Suma filas a una operación ya registrada (p. ej. streamAll, cuyas filas se conocen al cerrar el Stream).
+     *
+     * @param operacion Nombre de la operación
+     * @param filas Filas a sumar
+     */
+    public static void addOperationRows(String operacion, long filas) {
+        OPERACIONES.computeIfAbsent(operacion, k -> new Metric()).rows.add(filas);
+    }
+
+    /**
+     * Registra una ejecución de sentencia (llamado por InstrumentedConnection).
+     */
+    static void recordStatement(String sql, long nanos, long filas, boolean error) {
+        SENTENCIAS.computeIfAbsent(sqlName(sql), k -> new Metric()).record(nanos, filas, error);
+    }
+
+    /**
+     * Suma filas leídas de un ResultSet a su sentencia (llamado por InstrumentedConnection).
+     */
+    static void addStatementRows(String sql, long filas) {
+        SENTENCIAS.computeIfAbsent(sqlName(sql), k -> new Metric()).rows.add(filas);
+    }
+
+    /**
+     * Registra una obtención de conexión (llamado por DatabaseConnection).
+     */
+    static void recordConnectionAcquire(long nanos, boolean error) {
+        ACQUIRE.record(nanos, error ? 0 : 1, error);
+    }
+
+    /**
+     * @return Instantáneas por operación de DAO, ordenadas por nombre
+     */
+    public static Map<String, MetricSnapshot> getOperationSnapshots() {
+        return snapshots(OPERACIONES);
+    }
+
+    /**
+     * @return Instantáneas por constante SQL, ordenadas por nombre
+     */
+    public static Map<String, MetricSnapshot> getStatementSnapshots() {
+        return snapshots(SENTENCIAS);
+    }
+
+    /**
+     * @return Instantánea de la obtención de conexiones (filas = conexiones obtenidas)
+     */
+    public static MetricSnapshot getConnectionAcquireSnapshot() {
+        return ACQUIRE.snapshot();
+    }
+
+    private static Map<String, MetricSnapshot> snapshots(Map<String, Metric> metrics) {
+        Map<String, MetricSnapshot> snapshots = new TreeMap<>();
+        metrics.forEach((nombre, m) -> snapshots.put(nombre, m.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Todas las métricas en formato de texto Prometheus (latencias en segundos).
+     *
+     * @return Texto listo para servir en un endpoint /metrics
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        appendFamily(sb, "dao_operation", "operation", getOperationSnapshots(), "operación de DAO");
+        appendFamily(sb, "dao_statement", "statement", getStatementSnapshots(), "sentencia SQL");
+
+        MetricSnapshot acquire = getConnectionAcquireSnapshot();
+        sb.append("# HELP db_connection_acquire_duration_seconds Espera para obtener una conexión\n");
+        sb.append("# TYPE db_connection_acquire_duration_seconds summary\n");
+        acquire.latency().appendPrometheus(sb, "db_connection_acquire_duration_seconds", "");
+        sb.append("# HELP db_connection_acquire_errors_total Fallos al obtener una conexión\n");
+        sb.append("# TYPE db_connection_acquire_errors_total counter\n");
+        sb.append("db_connection_acquire_errors_total ").append(acquire.errors()).append('\n');
+        return sb.toString();
+    }
+
+    private static void appendFamily(StringBuilder sb, String prefijo, String labelName,
+                                     Map<String, MetricSnapshot> snapshots, String descripcion) {
+        sb.append("# HELP ").append(prefijo).append("_duration_seconds Latencia por ").append(descripcion).append('\n');
+        sb.append("# TYPE ").append(prefijo).append("_duration_seconds summary\n");
+        snapshots.forEach((nombre, s) ->
+                s.latency().appendPrometheus(sb, prefijo + "_duration_seconds", prometheusLabel(labelName, nombre)));
+        sb.append("# HELP ").append(prefijo).append("_rows_total Filas por ").append(descripcion).append('\n');
+        sb.append("# TYPE ").append(prefijo).append("_rows_total counter\n");
+        snapshots.forEach((nombre, s) -> sb.append(prefijo).append("_rows_total{")
+                .append(prometheusLabel(labelName, nombre)).append("} ").append(s.rows()).append('\n'));
+        sb.append("# HELP ").append(prefijo).append("_errors_total Errores por ").append(descripcion).append('\n');
+        sb.append("# TYPE ").append(prefijo).append("_errors_total counter\n");
+        snapshots.forEach((nombre, s) -> sb.append(prefijo).append("_errors_total{")
+                .append(prometheusLabel(labelName, nombre)).append("} ").append(s.errors()).append('\n'));
+    }
+
+    /**
+     * Par label="valor" con el valor escapado según el formato de texto Prometheus.
+     *
+     * @param name Nombre del label
+     * @param value Valor (se escapan \, " y saltos de línea)
+     * @return Texto name="valor"
+     */
+    public static String prometheusLabel(String name, String value) {
+        String escapado = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return String.format(Locale.ROOT, "%s=\"%s\"", name, escapado);
+    }
+
+    /**
+     * Registra el MXBean "Config:type=DaoMetrics" en el MBeanServer de la plataforma.
+     * Idempotente; no hace nada si las métricas están desactivadas.
+     *
+     * @throws IllegalStateException Si el registro falla por otro motivo que ya estar registrado
+     */
+    public static void registerMBean() {
+        if (!ENABLED) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new Bean(), new ObjectName("Config:type=DaoMetrics"));
+        } catch (InstanceAlreadyExistsException e) {
+            // Ya registrado (p. ej. por otro modo de Main): nada que hacer
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudo registrar el MBean de métricas: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Vista JMX de las métricas. Los records se exponen como CompositeData
+     * y los mapas como TabularData (clave = nombre de operación o sentencia).
+     */
+    public interface DaoMetricsMXBean {
+        Map<String, MetricSnapshot> getOperations();
+        Map<String, MetricSnapshot> getStatements();
+        MetricSnapshot getConnectionAcquire();
+        String getPrometheusText();
+    }
+
+    private static final class Bean implements DaoMetricsMXBean {
+        @Override
+        public Map<String, MetricSnapshot> getOperations() {
+            return getOperationSnapshots();
+        }
+
+        @Override
+        public Map<String, MetricSnapshot> getStatements() {
+            return getStatementSnapshots();
+        }
+
+        @Override
+        public MetricSnapshot getConnectionAcquire() {
+            return getConnectionAcquireSnapshot();
+        }
+
+        @Override
+        public String getPrometheusText() {
+            return toPrometheus();
+        }
+    }
+
+    /**
+     * Contadores de una operación, sentencia o de la obtención de conexiones.
+     * Lock-free: se actualiza desde muchos hilos a la vez.
+     */
+    private static final class Metric {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long nanos, long filas, boolean error) {
+            latency.record(nanos);
+            if (filas > 0) {
+                rows.add(filas);
+            }
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        private MetricSnapshot snapshot() {
+            return new MetricSnapshot(rows.sum(), errors.sum(), latency.snapshot());
+        }
+    }
+
+    /**
+     * Estado de una métrica en un instante dado.
+     *
+     * @param rows Filas acumuladas
+     * @param errors Llamadas que terminaron con excepción
+     * @param latency Cantidad de llamadas y percentiles de latencia
+     */
+    public record MetricSnapshot(long rows, long errors, LatencyHistogram.Snapshot latency) {
+        /**
+         * @return Cantidad de llamadas registradas
+         */
+        public long count() {
+            return latency.count();
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package Config;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import Config.ConnectionPool.PoolConfig;
+import Config.ConnectionPool.PoolStats;
 
 /**
  * Clase utilitaria para gestionar conexiones a la base de datos MySQL.
@@ -19,6 +27,54 @@ import java.sql.SQLException;
  *
  * Override mediante system properties:
  * - java -Ddb.url=... -Ddb.user=... -Ddb.password=...
+ *
+ * Pool de conexiones (ConnectionPool), activo por defecto:
+ * - db.pool.enabled (true): false vuelve a abrir una conexión nueva por llamada
+ * - db.pool.minSize (2), db.pool.maxSize (10)
+ * - db.pool.acquireTimeoutMs (30000): espera máxima por una conexión libre
+ * - db.pool.idleTimeoutMs (600000): desalojo de ociosas por encima de minSize
+ * - db.pool.validationBypassMs (500): no valida al prestar si se usó hace menos
+ * - db.pool.validationTimeoutSec (2): timeout de Connection.isValid()
+ * - db.pool.leakDetectionThresholdMs (0 = desactivado): aviso de conexión retenida
+ * - db.pool.housekeepingMs (30000): período de mantenimiento
+ * - db.pool.statementCacheSize (64): PreparedStatement cacheadas por conexión física
+ *   (0 = desactivada). Para que además se preparen del lado del servidor,
+ *   agregar useServerPrepStmts=true a db.url
+ *
+ * Inserciones por lote (insertarBatch en los DAOs):
+ * - db.batch.size (500): filas por executeBatch()
+ * - Para que el driver reescriba el lote en un único INSERT multi-fila,
+ *   agregar rewriteBatchedStatements=true a db.url
+ *
+ * Servicios asíncronos (AsyncExecutor en Service):
+ * - db.async.maxConcurrency (db.pool.maxSize): tareas que acceden a la BD a la vez;
+ *   el resto espera en un semáforo (sin consumir el timeout del pool)
+ *
+ * Concurrencia optimista (columna version, OptimisticRetry en Service):
+ * - db.update.maxAttempts (3): intentos de actualizarConReintentos() ante conflictos de versión
+ *
+ * Réplicas de lectura (ReplicaRouter), desactivadas si db.read.urls está vacío:
+ * - db.read.urls: URLs JDBC de las réplicas separadas por coma (requiere el pool activo)
+ * - db.read.user / db.read.password (los del primario): credenciales de las réplicas
+ * - db.read.strategy (round-robin | least-loaded)
+ * - db.read.retryMs (30000): tiempo que se saltea una réplica después de un error
+ * - db.read.stickyMs (1000): mientras el hilo tiene abierta una conexión al primario, y
+ *   durante este plazo después de su commit() o close(), sus lecturas siguen en el
+ *   primario (leer lo recién escrito)
+ * - Los métodos de solo lectura de los DAOs usan getReadConnection(); las escrituras,
+ *   las transacciones y todo lo demás, getConnection() (primario)
+ * - Los loaders de las cachés read-through leen del primario (readFromPrimary), para no
+ *   cachear durante todo el TTL una fila atrasada de una réplica
+ *
+ * Métricas de acceso a datos (DaoMetrics):
+ * - db.metrics.enabled (true), db.metrics.sql (true): ver DaoMetrics
+ * - db.trace.* (desactivado): log de sentencias lentas, ver SqlTrace
+ *
+ * Recorridos en streaming (streamAll en los DAOs):
+ * - db.stream.fetchSize (Integer.MIN_VALUE): con el valor por defecto MySQL envía
+ *   las filas de a una sin materializar el resultado en el cliente
+ * - Un valor positivo (p. ej. 1000) usa cursor del lado del servidor;
+ *   requiere agregar useCursorFetch=true a db.url
  */
 public final class DatabaseConnection {
     /** URL de conexión JDBC. Configurable via -Ddb.url */
@@ -32,6 +88,79 @@ public final class DatabaseConnection {
     /** Contraseña del usuario. Configurable via -Ddb.password */
     private static final String PASSWORD = System.getProperty("db.password", "");
 
+    /** Habilita el pool de conexiones. Configurable via -Ddb.pool.enabled */
+    private static final boolean POOL_ENABLED = Boolean.parseBoolean(System.getProperty("db.pool.enabled", "true"));
+
+    /** Parámetros del pool, leídos de las system properties db.pool.* */
+    private static final PoolConfig POOL_CONFIG = new PoolConfig(
+            intProperty("db.pool.minSize", 2),
+            intProperty("db.pool.maxSize", 10),
+            longProperty("db.pool.acquireTimeoutMs", 30_000),
+            longProperty("db.pool.idleTimeoutMs", 600_000),
+            longProperty("db.pool.validationBypassMs", 500),
+            intProperty("db.pool.validationTimeoutSec", 2),
+            longProperty("db.pool.leakDetectionThresholdMs", 0),
+            longProperty("db.pool.housekeepingMs", 30_000),
+            intProperty("db.pool.statementCacheSize", 64));
+
+    /** Filas por executeBatch() en las inserciones por lote. Configurable via -Ddb.batch.size */
+    private static final int BATCH_SIZE = intProperty("db.batch.size", 500);
+
+    /** Filas por sentencia LOAD DATA de Dao.BulkLoader. Configurable via -Ddb.bulk.chunkRows */
+    private static final int BULK_CHUNK_ROWS = intProperty("db.bulk.chunkRows", 50_000);
+
+    /** Tareas asíncronas concurrentes contra la BD. Configurable via -Ddb.async.maxConcurrency */
+    private static final int ASYNC_MAX_CONCURRENCY = intProperty("db.async.maxConcurrency", POOL_CONFIG.maxSize());
+
+    /** Intentos ante conflictos de versión. Configurable via -Ddb.update.maxAttempts */
+    private static final int UPDATE_MAX_ATTEMPTS = intProperty("db.update.maxAttempts", 3);
+
+    /** Fetch size de los recorridos en streaming. Configurable via -Ddb.stream.fetchSize */
+    private static final int STREAM_FETCH_SIZE = intProperty("db.stream.fetchSize", Integer.MIN_VALUE);
+
+    /** URLs de las réplicas de lectura (vacía = sin réplicas). Configurable via -Ddb.read.urls */
+    private static final List<String> READ_URLS = Arrays.stream(System.getProperty("db.read.urls", "").split(","))
+            .map(String::trim)
+            .filter(url -> !url.isEmpty())
+            .toList();
+
+    /** Lecturas enrutadas a réplicas: hay URLs configuradas. */
+    private static final boolean REPLICAS_ENABLED = !READ_URLS.isEmpty();
+
+    /** Estrategia de selección de réplica. Configurable via -Ddb.read.strategy */
+    private static final String READ_STRATEGY = System.getProperty("db.read.strategy", "round-robin").trim();
+
+    /** Tiempo que se saltea una réplica tras un error. Configurable via -Ddb.read.retryMs */
+    private static final long READ_RETRY_MS = longProperty("db.read.retryMs", 30_000);
+
+    /** Ventana de lectura en el primario tras usarlo. Configurable via -Ddb.read.stickyMs */
+    private static final long READ_STICKY_NANOS = longProperty("db.read.stickyMs", 1_000) * 1_000_000L;
+
+    /**
+     * Afinidad al primario del hilo actual:
+     * [0] = transacciones (TransactionManager) y conexiones al primario abiertas,
+     * [1] = System.nanoTime() del último commit()/close() de una conexión al primario.
+     * Solo se consulta si hay réplicas.
+     */
+    private static final ThreadLocal<long[]> PRIMARY_PIN = ThreadLocal.withInitial(() -> new long[] { 0, Long.MIN_VALUE });
+
+    /**
+     * Pool creado de forma perezosa (holder idiom) en el primer getConnection().
+     * Así la carga de la clase no abre conexiones ni arranca hilos si no se usan.
+     */
+    private static final class PoolHolder {
+        private static final ConnectionPool POOL = new ConnectionPool("primary", URL, USER, PASSWORD, POOL_CONFIG);
+    }
+
+    /**
+     * Router de réplicas, creado de forma perezosa en la primera lectura (holder idiom).
+     */
+    private static final class ReplicaHolder {
+        private static final ReplicaRouter ROUTER = new ReplicaRouter(READ_URLS,
+                System.getProperty("db.read.user", USER), System.getProperty("db.read.password", PASSWORD),
+                POOL_CONFIG, readStrategy(), READ_RETRY_MS);
+    }
+
     /**
      * Bloque de inicialización estática.
      * Se ejecuta UNA SOLA VEZ cuando la clase se carga en memoria.
@@ -66,11 +195,13 @@ public final class DatabaseConnection {
     }
 
     /**
-     * Obtiene una nueva conexión a la base de datos.
+     * Obtiene una conexión a la base de datos.
      *
      * Importante:
-     * - Cada llamada crea una NUEVA conexión (no hay pooling)
-     * - El caller es responsable de cerrar la conexión (usar try-with-resources)
+     * - Con el pool activo (por defecto) la conexión se toma de ConnectionPool;
+     *   con -Ddb.pool.enabled=false se crea una NUEVA conexión por llamada
+     * - El caller es responsable de cerrar la conexión (usar try-with-resources);
+     *   con pool, close() la devuelve en lugar de cerrarla físicamente
      * - La configuración ya fue validada en el bloque static
      *
      * Uso correcto:
@@ -80,11 +211,284 @@ public final class DatabaseConnection {
      * } // se cierra automáticamente
      * </pre>
      *
+     * Métricas (DaoMetrics, activas por defecto):
+     * - Registra el tiempo de obtención (espera del pool o conexión nueva) y los fallos
+     * - Con db.metrics.sql o db.trace.enabled activos, la conexión se envuelve en
+     *   InstrumentedConnection para medir cada sentencia (y registrar las lentas en SqlTrace)
+     *
      * @return Conexión JDBC activa
      * @throws SQLException Si no se puede establecer la conexión
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        Connection conn = acquire(false);
+        // Toda conexión al primario puede escribir: fija las lecturas mientras está abierta
+        // y abre la ventana de db.read.stickyMs cuando lo escrito ya es visible
+        return REPLICAS_ENABLED ? StickyConnection.wrap(conn) : conn;
+    }
+
+    /**
+     * Obtiene una conexión para una lectura que tolera datos levemente desactualizados.
+     * Sin réplicas configuradas es equivalente a getConnection().
+     *
+     * Va al primario (en lugar de a una réplica) si:
+     * - el hilo tiene una transacción abierta con TransactionManager
+     * - el hilo usó el primario hace menos de db.read.stickyMs (leer lo recién escrito)
+     * - ninguna réplica está disponible (failback, ver ReplicaRouter)
+     *
+     * IMPORTANTE: solo para SELECTs; nunca escribir con esta conexión.
+     *
+     * @return Conexión JDBC activa (réplica o primario); cerrarla igual que la de getConnection()
+     * @throws SQLException Si no se puede establecer la conexión
+     */
+    public static Connection getReadConnection() throws SQLException {
+        if (!REPLICAS_ENABLED || isPinnedToPrimary()) {
+            return acquire(false);
+        }
+        return acquire(true);
+    }
+
+    /**
+     * Fija las lecturas del hilo actual al primario (llamado por TransactionManager al iniciar).
+     * Debe equilibrarse con unpinFromPrimary().
+     */
+    public static void pinToPrimary() {
+        if (REPLICAS_ENABLED) {
+            PRIMARY_PIN.get()[0]++;
+        }
+    }
+
+    /**
+     * Libera la fijación de pinToPrimary() (al hacer commit/rollback o cerrar la transacción).
+     * Abre además la ventana de db.read.stickyMs para leer lo que se acaba de confirmar.
+     */
+    public static void unpinFromPrimary() {
+        if (REPLICAS_ENABLED) {
+            long[] pin = PRIMARY_PIN.get();
+            pin[0] = Math.max(0, pin[0] - 1);
+            pin[1] = System.nanoTime();
+        }
+    }
+
+    /**
+     * Lectura a ejecutar con readFromPrimary().
+     */
+    @FunctionalInterface
+    public interface PrimaryRead<T> {
+        T read() throws Exception;
+    }
+
+    /**
+     * Ejecuta la lectura con getReadConnection() apuntando al primario en el hilo actual,
+     * sin abrir la ventana de db.read.stickyMs.
+     * Para los loaders de cachés read-through (CachingMascotaDAO, CachingMicrochipDAO):
+     * lo leído de una réplica atrasada quedaría cacheado durante todo el TTL.
+     *
+     * @param lectura Lectura a ejecutar
+     * @return Resultado de la lectura
+     * @throws Exception La de la lectura
+     */
+    public static <T> T readFromPrimary(PrimaryRead<T> lectura) throws Exception {
+        if (!REPLICAS_ENABLED) {
+            return lectura.read();
+        }
+        long[] pin = PRIMARY_PIN.get();
+        pin[0]++;
+        try {
+            return lectura.read();
+        } finally {
+            pin[0] = Math.max(0, pin[0] - 1);
+        }
+    }
+
+    private static boolean isPinnedToPrimary() {
+        long[] pin = PRIMARY_PIN.get();
+        return pin[0] > 0 || (pin[1] != Long.MIN_VALUE && System.nanoTime() - pin[1] < READ_STICKY_NANOS);
+    }
+
+    /**
+     * Proxy de las conexiones al primario cuando hay réplicas: mantiene el hilo fijado al
+     * primario mientras la conexión está abierta y abre la ventana de db.read.stickyMs en cada
+     * commit() y al cerrarla (no al obtenerla: una escritura o transacción larga la agotaría
+     * antes de que lo escrito sea visible).
+     * Usa el PRIMARY_PIN del hilo que la obtuvo, aunque se cierre desde otro.
+     */
+    private static final class StickyConnection implements InvocationHandler {
+        private final Connection delegate;
+        private final long[] pin;
+        private boolean cerrada;
+
+        private StickyConnection(Connection delegate) {
+            this.delegate = delegate;
+            this.pin = PRIMARY_PIN.get();
+            pin[0]++;
+        }
+
+        static Connection wrap(Connection conn) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new StickyConnection(conn));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "StickyConnection[" + delegate + "]";
+                }
+                case "close" -> {
+                    try {
+                        return call(method, args);
+                    } finally {
+                        if (!cerrada) {
+                            cerrada = true;
+                            pin[0] = Math.max(0, pin[0] - 1);
+                            pin[1] = System.nanoTime();
+                        }
+                    }
+                }
+                case "commit" -> {
+                    Object resultado = call(method, args);
+                    pin[1] = System.nanoTime();
+                    return resultado;
+                }
+                default -> {
+                    return call(method, args);
+                }
+            }
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Obtiene la conexión registrando el tiempo en DaoMetrics y la envuelve para medir sentencias.
+     */
+    private static Connection acquire(boolean replica) throws SQLException {
+        Connection conn;
+        if (!DaoMetrics.isEnabled()) {
+            conn = openConnection(replica);
+        } else {
+            long inicio = System.nanoTime();
+            try {
+                conn = openConnection(replica);
+            } catch (SQLException | RuntimeException e) {
+                DaoMetrics.recordConnectionAcquire(System.nanoTime() - inicio, true);
+                throw e;
+            }
+            DaoMetrics.recordConnectionAcquire(System.nanoTime() - inicio, false);
+        }
+        return DaoMetrics.isSqlEnabled() || SqlTrace.isEnabled() ? InstrumentedConnection.wrap(conn) : conn;
+    }
+
+    private static Connection openConnection(boolean replica) throws SQLException {
+        if (replica) {
+            Connection conn = ReplicaHolder.ROUTER.getConnection();
+            if (conn != null) {
+                return conn;
+            }
+        }
+        if (!POOL_ENABLED) {
+            return DriverManager.getConnection(URL, USER, PASSWORD);
+        }
+        return PoolHolder.POOL.getConnection();
+    }
+
+    /**
+     * Tamaño de chunk para las inserciones por lote (insertarBatch).
+     *
+     * @return Filas por executeBatch()
+     */
+    public static int getBatchSize() {
+        return BATCH_SIZE;
+    }
+
+    /**
+     * Filas por sentencia LOAD DATA en las cargas masivas (BulkLoader).
+     * Cada chunk se arma en memoria antes de enviarse: acota el uso de memoria, no la transacción.
+     *
+     * @return Filas por LOAD DATA LOCAL INFILE
+     */
+    public static int getBulkChunkRows() {
+        return BULK_CHUNK_ROWS;
+    }
+
+    /**
+     * Fetch size para los recorridos en streaming (streamAll).
+     *
+     * @return Integer.MIN_VALUE (streaming fila a fila) o un tamaño de cursor positivo
+     */
+    public static int getStreamFetchSize() {
+        return STREAM_FETCH_SIZE;
+    }
+
+    /**
+     * Máximo de tareas asíncronas que acceden a la BD al mismo tiempo (AsyncExecutor).
+     * Por defecto igual a db.pool.maxSize: más tareas simultáneas solo esperarían conexión.
+     *
+     * @return Permisos del semáforo de concurrencia
+     */
+    public static int getAsyncMaxConcurrency() {
+        return ASYNC_MAX_CONCURRENCY;
+    }
+
+    /**
+     * Intentos de una actualización con reintentos (OptimisticRetry) antes de propagar el conflicto.
+     *
+     * @return Intentos totales, incluido el primero
+     */
+    public static int getUpdateMaxAttempts() {
+        return UPDATE_MAX_ATTEMPTS;
+    }
+
+    /**
+     * Estadísticas actuales del pool de conexiones.
+     *
+     * @return PoolStats del pool, o null si el pool está deshabilitado
+     */
+    public static PoolStats getPoolStats() {
+        return POOL_ENABLED ? PoolHolder.POOL.getStats() : null;
+    }
+
+    /**
+     * Estadísticas de los pools de réplicas.
+     *
+     * @return PoolStats por réplica en el orden de db.read.urls (vacía si no hay réplicas)
+     */
+    public static List<PoolStats> getReplicaStats() {
+        return REPLICAS_ENABLED ? ReplicaHolder.ROUTER.getStats() : List.of();
+    }
+
+    /**
+     * @return Lecturas que fueron al primario porque ninguna réplica estaba disponible
+     */
+    public static long getReplicaFallbacks() {
+        return REPLICAS_ENABLED ? ReplicaHolder.ROUTER.getFallbacks() : 0;
+    }
+
+    /**
+     * Cierra el pool de conexiones (llamado al salir de la aplicación).
+     * No hace nada si el pool está deshabilitado.
+     */
+    public static void shutdown() {
+        if (POOL_ENABLED) {
+            PoolHolder.POOL.close();
+        }
+        if (REPLICAS_ENABLED) {
+            ReplicaHolder.ROUTER.close();
+        }
     }
 
     /**
@@ -110,5 +514,63 @@ public final class DatabaseConnection {
         if (PASSWORD == null) {
             throw new IllegalStateException("La contraseña de la base de datos no está configurada");
         }
+        if (BATCH_SIZE <= 0) {
+            throw new IllegalStateException("db.batch.size debe ser mayor a 0");
+        }
+        if (BULK_CHUNK_ROWS <= 0) {
+            throw new IllegalStateException("db.bulk.chunkRows debe ser mayor a 0");
+        }
+        if (ASYNC_MAX_CONCURRENCY <= 0) {
+            throw new IllegalStateException("db.async.maxConcurrency debe ser mayor a 0");
+        }
+        if (UPDATE_MAX_ATTEMPTS <= 0) {
+            throw new IllegalStateException("db.update.maxAttempts debe ser mayor a 0");
+        }
+        if (REPLICAS_ENABLED && !POOL_ENABLED) {
+            throw new IllegalStateException("db.read.urls requiere el pool de conexiones (db.pool.enabled=true)");
+        }
+        if (READ_RETRY_MS <= 0 || READ_STICKY_NANOS < 0) {
+            throw new IllegalStateException("db.read.retryMs debe ser mayor a 0 y db.read.stickyMs no puede ser negativo");
+        }
+        readStrategy();
+    }
+
+    /**
+     * Estrategia de db.read.strategy.
+     *
+     * @throws IllegalStateException Si el valor no es round-robin ni least-loaded
+     */
+    private static ReplicaRouter.Strategy readStrategy() {
+        return switch (READ_STRATEGY.toLowerCase()) {
+            case "round-robin" -> ReplicaRouter.Strategy.ROUND_ROBIN;
+            case "least-loaded" -> ReplicaRouter.Strategy.LEAST_LOADED;
+            default -> throw new IllegalStateException("db.read.strategy debe ser round-robin o least-loaded: " + READ_STRATEGY);
+        };
+    }
+
+    /**
+     * Lee una system property entera con valor por defecto.
+     *
+     * @throws IllegalStateException Si el valor no es numérico
+     */
+    static int intProperty(String key, int defaultValue) {
+        return (int) longProperty(key, defaultValue);
+    }
+
+    /**
+     * Lee una system property long con valor por defecto.
+     *
+     * @throws IllegalStateException Si el valor no es numérico
+     */
+    static long longProperty(String key, long defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Valor inválido para " + key + ": " + value);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,370 @@
+package Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Proxies JDBC que miden cada sentencia para DaoMetrics y el log de sentencias lentas (SqlTrace).
+ * DatabaseConnection envuelve con wrap() la conexión que entrega (cuando db.metrics.sql
+ * o db.trace.enabled están activos).
+ *
+ * Qué se mide por sentencia (identificada por su constante SQL):
+ * - executeQuery(): latencia de la ejecución; las filas se cuentan con cada rs.next()
+ *   y se suman al cerrar el ResultSet, la sentencia o al re-ejecutarla
+ * - executeUpdate()/executeLargeUpdate(): latencia y filas afectadas
+ * - executeBatch()/executeLargeBatch(): latencia del lote y suma de filas afectadas
+ * - execute(): solo latencia
+ * - Toda excepción de un execute* cuenta como error
+ *
+ * SqlTrace: cada ejecución se muestrea por adelantado (db.trace.sampleRate). Solo en las
+ * muestreadas se copian los parámetros de los setXxx(índice, valor) de PreparedStatement;
+ * las consultas se evalúan contra el umbral al cerrar el ResultSet, cuando se conocen las filas.
+ *
+ * Las demás llamadas (getXxx, close, ...) se delegan sin medir.
+ * getConnection()/getStatement() devuelven los proxies, nunca los objetos envueltos.
+ */
+final class InstrumentedConnection implements InvocationHandler {
+    private final Connection delegate;
+
+    private InstrumentedConnection(Connection delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Envuelve una conexión para medir sus sentencias.
+     *
+     * @param conn Conexión real o proxy del pool (close() se delega tal cual)
+     * @return Proxy de Connection
+     */
+    static Connection wrap(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new InstrumentedConnection(conn));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "prepareStatement" -> {
+                PreparedStatement stmt = (PreparedStatement) call(delegate, method, args);
+                return InstrumentedStatement.wrap(PreparedStatement.class, stmt, (Connection) proxy, (String) args[0]);
+            }
+            case "createStatement" -> {
+                Statement stmt = (Statement) call(delegate, method, args);
+                return InstrumentedStatement.wrap(Statement.class, stmt, (Connection) proxy, null);
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "toString" -> {
+                return "InstrumentedConnection[" + delegate + "]";
+            }
+            default -> {
+                return call(delegate, method, args);
+            }
+        }
+    }
+
+    /**
+     * Invoca el método sobre el objeto envuelto propagando la excepción original.
+     */
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * InvocationHandler de Statement/PreparedStatement.
+     * sql es el texto preparado (PreparedStatement) o null (Statement: el texto llega en cada execute*).
+     */
+    private static final class InstrumentedStatement implements InvocationHandler {
+        private final Statement delegate;
+        private final Connection connection;
+        private final String sql;
+        private CountingResultSet abierto;
+
+        /** La próxima ejecución se informa a SqlTrace (decidido al crear y después de cada execute*). */
+        private boolean muestreada;
+        /** Parámetros ligados de la ejecución muestreada (índice 0 = parámetro 1). */
+        private Object[] parametros;
+        /** Filas agregadas con addBatch() desde el último executeBatch(). */
+        private int lote;
+
+        private InstrumentedStatement(Statement delegate, Connection connection, String sql) {
+            this.delegate = delegate;
+            this.connection = connection;
+            this.sql = sql;
+            this.muestreada = SqlTrace.sample();
+        }
+
+        private static <S extends Statement> S wrap(Class<S> type, S stmt, Connection connection, String sql) {
+            if (stmt instanceof CallableStatement) {
+                return stmt;
+            }
+            return type.cast(Proxy.newProxyInstance(
+                    type.getClassLoader(),
+                    new Class<?>[] { type },
+                    new InstrumentedStatement(stmt, connection, sql)));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "executeQuery" -> {
+                    String texto = textoDe(args);
+                    flushResultSet();
+                    Traza traza = nuevaTraza(texto, 0);
+                    long inicio = System.nanoTime();
+                    ResultSet rs;
+                    try {
+                        rs = (ResultSet) call(delegate, method, args);
+                    } catch (Throwable t) {
+                        long nanos = System.nanoTime() - inicio;
+                        recordStatement(texto, nanos, 0, true);
+                        if (traza != null) {
+                            traza.registrar(nanos, 0, 0, t);
+                        }
+                        throw t;
+                    }
+                    long nanos = System.nanoTime() - inicio;
+                    recordStatement(texto, nanos, 0, false);
+                    abierto = new CountingResultSet(rs, (Statement) proxy, texto, traza, nanos);
+                    return abierto.proxy;
+                }
+                case "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch", "execute" -> {
+                    boolean esLote = name.equals("executeBatch") || name.equals("executeLargeBatch");
+                    String texto = esLote ? sql : textoDe(args);
+                    flushResultSet();
+                    Traza traza = nuevaTraza(texto, esLote ? lote : 0);
+                    if (esLote) {
+                        lote = 0;
+                    }
+                    long inicio = System.nanoTime();
+                    Object resultado;
+                    try {
+                        resultado = call(delegate, method, args);
+                    } catch (Throwable t) {
+                        long nanos = System.nanoTime() - inicio;
+                        recordStatement(texto, nanos, 0, true);
+                        if (traza != null) {
+                            traza.registrar(nanos, 0, 0, t);
+                        }
+                        throw t;
+                    }
+                    long nanos = System.nanoTime() - inicio;
+                    long filas = filasAfectadas(resultado);
+                    recordStatement(texto, nanos, filas, false);
+                    if (traza != null) {
+                        traza.registrar(nanos, 0, filas, null);
+                    }
+                    return resultado;
+                }
+                case "addBatch" -> {
+                    lote++;
+                    return call(delegate, method, args);
+                }
+                case "clearBatch" -> {
+                    lote = 0;
+                    return call(delegate, method, args);
+                }
+                case "clearParameters" -> {
+                    parametros = null;
+                    return call(delegate, method, args);
+                }
+                case "close" -> {
+                    flushResultSet();
+                    return call(delegate, method, args);
+                }
+                case "getConnection" -> {
+                    return connection;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "InstrumentedStatement[" + delegate + "]";
+                }
+                default -> {
+                    if (muestreada && sql != null && name.startsWith("set")
+                            && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                        capturarParametro(indice, name.equals("setNull") ? null : args[1]);
+                    }
+                    return call(delegate, method, args);
+                }
+            }
+        }
+
+        /**
+         * Copia el valor de un setXxx(índice, valor) para SqlTrace.
+         */
+        private void capturarParametro(int indice, Object valor) {
+            if (indice < 1) {
+                return;
+            }
+            if (parametros == null) {
+                parametros = new Object[Math.max(indice, 8)];
+            } else if (indice > parametros.length) {
+                parametros = Arrays.copyOf(parametros, Math.max(indice, parametros.length * 2));
+            }
+            parametros[indice - 1] = valor;
+        }
+
+        /**
+         * Datos de SqlTrace de la ejecución actual (null si no está muestreada) y sorteo de la siguiente.
+         * Los parámetros se conservan: un PreparedStatement re-ejecutado sin setXxx usa los mismos.
+         */
+        private Traza nuevaTraza(String texto, int filasLote) {
+            Traza traza = null;
+            if (muestreada) {
+                int usados = parametros == null ? 0 : parametros.length;
+                while (usados > 0 && parametros[usados - 1] == null) {
+                    usados--;
+                }
+                Object[] copia = usados == 0 ? null : Arrays.copyOf(parametros, usados);
+                traza = new Traza(texto, DaoMetrics.currentOperation(), copia, filasLote);
+            }
+            muestreada = SqlTrace.sample();
+            return traza;
+        }
+
+        private static void recordStatement(String sql, long nanos, long filas, boolean error) {
+            if (DaoMetrics.isSqlEnabled()) {
+                DaoMetrics.recordStatement(sql, nanos, filas, error);
+            }
+        }
+
+        /**
+         * Texto de la sentencia: el preparado o el primer argumento de Statement.execute*(String, ...).
+         */
+        private String textoDe(Object[] args) {
+            if (sql != null) {
+                return sql;
+            }
+            return args != null && args.length > 0 && args[0] instanceof String texto ? texto : null;
+        }
+
+        private void flushResultSet() {
+            if (abierto != null) {
+                abierto.flush();
+                abierto = null;
+            }
+        }
+
+        private static long filasAfectadas(Object resultado) {
+            long filas = 0;
+            if (resultado instanceof Integer n) {
+                filas = n;
+            } else if (resultado instanceof Long n) {
+                filas = n;
+            } else if (resultado instanceof int[] lote) {
+                for (int n : lote) {
+                    filas += Math.max(0, n);
+                }
+            } else if (resultado instanceof long[] lote) {
+                for (long n : lote) {
+                    filas += Math.max(0, n);
+                }
+            }
+            return Math.max(0, filas);
+        }
+    }
+
+    /**
+     * Ejecución muestreada para SqlTrace: lo que se conoce antes del execute*.
+     * Un nulo en un parámetro intermedio puede ser setNull() o un parámetro no ligado.
+     */
+    private record Traza(String sql, String operacion, Object[] parametros, int lote) {
+        private void registrar(long ejecucionNanos, long lecturaNanos, long filas, Throwable error) {
+            SqlTrace.record(sql, operacion, parametros, lote, ejecucionNanos, lecturaNanos, filas, error);
+        }
+    }
+
+    /**
+     * InvocationHandler de ResultSet que cuenta las filas leídas.
+     * flush() suma las filas a la sentencia y completa la traza una sola vez.
+     */
+    private static final class CountingResultSet implements InvocationHandler {
+        private final ResultSet delegate;
+        private final Statement statement;
+        private final String sql;
+        private final ResultSet proxy;
+        private final Traza traza;
+        private final long ejecucionNanos;
+        private final long abiertoEn;
+        private long filas;
+        private boolean registrado;
+
+        private CountingResultSet(ResultSet delegate, Statement statement, String sql, Traza traza, long ejecucionNanos) {
+            this.delegate = delegate;
+            this.statement = statement;
+            this.sql = sql;
+            this.traza = traza;
+            this.ejecucionNanos = ejecucionNanos;
+            this.abiertoEn = System.nanoTime();
+            this.proxy = (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class },
+                    this);
+        }
+
+        private void flush() {
+            if (!registrado) {
+                registrado = true;
+                if (DaoMetrics.isSqlEnabled()) {
+                    DaoMetrics.addStatementRows(sql, filas);
+                }
+                if (traza != null) {
+                    traza.registrar(ejecucionNanos, System.nanoTime() - abiertoEn, filas, null);
+                }
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    Object hay = call(delegate, method, args);
+                    if (Boolean.TRUE.equals(hay)) {
+                        filas++;
+                    }
+                    return hay;
+                }
+                case "close" -> {
+                    flush();
+                    return call(delegate, method, args);
+                }
+                case "getStatement" -> {
+                    return statement;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    return call(delegate, method, args);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package Config;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con buckets log-lineales (estilo HdrHistogram), sin dependencias.
+ *
+ * Estructura:
+ * - Valores en nanosegundos, de 0 a Long.MAX_VALUE
+ * - Cada potencia de 2 se divide en 16 sub-buckets lineales: error relativo máximo ~6%
+ *   en cualquier rango (1 µs o 10 s se miden con la misma precisión relativa)
+ * - 960 contadores fijos: memoria constante sin importar cuántos valores se registren
+ *
+ * Concurrencia: record() es lock-free (AtomicLongArray + LongAdder); se puede llamar
+ * desde muchos hilos. snapshot() lee sin bloquear, por lo que un snapshot tomado
+ * mientras se registra puede estar levemente desfasado entre contadores.
+ *
+ * Usado por HttpApiServer (latencia por ruta) y DaoMetrics (operaciones, sentencias y conexiones).
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Registra una medición.
+     *
+     * @param nanos Duración en nanosegundos (los negativos se registran como 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Instantánea con los percentiles más usados.
+     *
+     * @return Snapshot con count, sum, max y p50/p90/p99/p99.9 (en nanosegundos)
+     */
+    public Snapshot snapshot() {
+        long[] copia = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copia[i] = counts.get(i);
+            total += copia[i];
+        }
+        long maximo = max.get();
+        return new Snapshot(total, sum.sum(), maximo,
+                percentile(copia, total, 0.50, maximo),
+                percentile(copia, total, 0.90, maximo),
+                percentile(copia, total, 0.99, maximo),
+                percentile(copia, total, 0.999, maximo));
+    }
+
+    /**
+     * Valor (cota superior del bucket) por debajo del cual está la fracción q de las mediciones.
+     */
+    private static long percentile(long[] copia, long total, double q, long maximo) {
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(q * total));
+        long acumulado = 0;
+        for (int i = 0; i < copia.length; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(highestValueIn(i), maximo);
+            }
+        }
+        return maximo;
+    }
+
+    /**
+     * Bucket de un valor: los primeros 16 son exactos (0..15); a partir de ahí,
+     * 16 sub-buckets por cada potencia de 2.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Mayor valor que cae en el bucket (inversa de indexOf).
+     */
+    static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + sub) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Estado del histograma en un instante dado (valores en nanosegundos).
+     */
+    public record Snapshot(long count, long sumNanos, long maxNanos,
+                           long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos) {
+        /**
+         * @return Promedio en nanosegundos (0 si no hay mediciones)
+         */
+        public double meanNanos() {
+            return count == 0 ? 0.0 : (double) sumNanos / count;
+        }
+
+        /**
+         * Agrega el snapshot como summary de Prometheus (cuantiles, _sum y _count, en segundos).
+         * No escribe las líneas # HELP / # TYPE, que van una sola vez por métrica.
+         *
+         * @param sb Destino
+         * @param metric Nombre de la métrica (p. ej. "http_request_duration_seconds")
+         * @param labels Labels ya formateados ("route=\"...\""), o vacío si no tiene
+         */
+        public void appendPrometheus(StringBuilder sb, String metric, String labels) {
+            String prefijo = labels.isEmpty() ? "" : labels + ",";
+            String sufijo = labels.isEmpty() ? "" : "{" + labels + "}";
+            appendQuantile(sb, metric, prefijo, "0.5", p50Nanos);
+            appendQuantile(sb, metric, prefijo, "0.9", p90Nanos);
+            appendQuantile(sb, metric, prefijo, "0.99", p99Nanos);
+            appendQuantile(sb, metric, prefijo, "0.999", p999Nanos);
+            sb.append(String.format(Locale.ROOT, "%s_sum%s %.6f", metric, sufijo, sumNanos / 1e9)).append('\n');
+            sb.append(String.format(Locale.ROOT, "%s_count%s %d", metric, sufijo, count)).append('\n');
+        }
+
+        private static void appendQuantile(StringBuilder sb, String metric, String labels, String quantile, long nanos) {
+            sb.append(String.format(Locale.ROOT, "%s{%squantile=\"%s\"} %.6f", metric, labels, quantile, nanos / 1e9)).append('\n');
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d, promedio=%.3f ms, p50=%.3f ms, p90=%.3f ms, p99=%.3f ms, p99.9=%.3f ms, max=%.3f ms",
+                    count, meanNanos() / 1e6, p50Nanos / 1e6, p90Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6, maxNanos / 1e6);
+        }
+    }
+}
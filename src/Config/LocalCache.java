@@ -0,0 +1,234 @@
+package Config;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * Caché en memoria acotada, con expiración (TTL) y caché de resultados negativos.
+ * Pensada para lecturas read-through desde los DAOs.
+ *
+ * Características:
+ * - Tamaño máximo: al superarlo se desaloja una entrada según la política
+ *   (LRU: la usada hace más tiempo; FIFO: la insertada hace más tiempo)
+ * - TTL por entrada: las entradas vencidas se tratan como miss
+ * - Resultados negativos (el loader devolvió null) con un TTL propio, normalmente más corto
+ * - Métricas de hits, misses y desalojos
+ *
+ * Concurrencia:
+ * - El mapa se protege con el monitor de la instancia
+ * - El loader se ejecuta FUERA del lock para no serializar los accesos a la BD
+ * - Un contador de invalidaciones evita guardar un valor cargado antes de
+ *   una invalidación concurrente (resultado potencialmente obsoleto)
+ *
+ * Patrón: Read-through cache
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor
+ */
+public final class LocalCache<K, V> {
+
+    /**
+     * Carga el valor de una clave ausente en la caché (normalmente una query al DAO).
+     * Puede devolver null para indicar "no existe" (resultado negativo).
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws Exception;
+    }
+
+    /**
+     * Política de desalojo al superar maxSize.
+     * - LRU: desaloja la entrada accedida hace más tiempo (conviene con lecturas repetidas de registros "calientes")
+     * - FIFO: desaloja la entrada cargada hace más tiempo (los hits no reordenan el mapa)
+     */
+    public enum EvictionPolicy { LRU, FIFO }
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final Map<K, Entry<V>> entries;
+
+    private long invalidations;
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param name Nombre de la caché (usado en estadísticas)
+     * @param maxSize Cantidad máxima de entradas (0 = caché deshabilitada)
+     * @param ttlMs Vida de una entrada con valor
+     * @param negativeTtlMs Vida de un resultado negativo (0 = no se cachean negativos)
+     */
+    public LocalCache(String name, int maxSize, long ttlMs, long negativeTtlMs) {
+        this(name, maxSize, ttlMs, negativeTtlMs, EvictionPolicy.LRU);
+    }
+
+    /**
+     * @param name Nombre de la caché (usado en estadísticas)
+     * @param maxSize Cantidad máxima de entradas (0 = caché deshabilitada)
+     * @param ttlMs Vida de una entrada con valor
+     * @param negativeTtlMs Vida de un resultado negativo (0 = no se cachean negativos)
+     * @param policy Política de desalojo
+     */
+    public LocalCache(String name, int maxSize, long ttlMs, long negativeTtlMs, EvictionPolicy policy) {
+        if (maxSize < 0 || ttlMs <= 0 || negativeTtlMs < 0) {
+            throw new IllegalStateException("Configuración inválida para la caché '" + name + "'");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, policy == EvictionPolicy.LRU) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LocalCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Crea una caché leyendo su configuración de system properties.
+     * Propiedades: {prefix}.maxSize, {prefix}.ttlMs, {prefix}.negativeTtlMs, {prefix}.policy (LRU|FIFO)
+     *
+     * @param prefix Prefijo de las propiedades (p. ej. "db.cache.codigo")
+     * @param maxSize Tamaño máximo por defecto
+     * @param ttlMs TTL por defecto
+     * @param negativeTtlMs TTL de negativos por defecto
+     * @return Caché configurada
+     */
+    public static <K, V> LocalCache<K, V> fromProperties(String prefix, int maxSize, long ttlMs, long negativeTtlMs) {
+        String policy = System.getProperty(prefix + ".policy", EvictionPolicy.LRU.name()).trim().toUpperCase();
+        try {
+            return new LocalCache<>(prefix,
+                    DatabaseConnection.intProperty(prefix + ".maxSize", maxSize),
+                    DatabaseConnection.longProperty(prefix + ".ttlMs", ttlMs),
+                    DatabaseConnection.longProperty(prefix + ".negativeTtlMs", negativeTtlMs),
+                    EvictionPolicy.valueOf(policy));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Política de desalojo inválida para " + prefix + ": " + policy);
+        }
+    }
+
+    /**
+     * Obtiene el valor de la clave, cargándolo con el loader si no está o venció.
+     *
+     * @param key Clave buscada
+     * @param loader Carga el valor desde la fuente (puede devolver null)
+     * @return Valor cacheado o recién cargado (null si no existe)
+     * @throws Exception Si el loader falla (los errores no se cachean)
+     */
+    public V get(K key, Loader<K, V> loader) throws Exception {
+        if (maxSize == 0) {
+            return loader.load(key);
+        }
+        long generation;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                if (entry.value == null) {
+                    negativeHits++;
+                } else {
+                    hits++;
+                }
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses++;
+            generation = invalidations;
+        }
+
+        V value = loader.load(key);
+
+        synchronized (this) {
+            if (generation == invalidations && (value != null || negativeTtlMs > 0)) {
+                long ttl = value != null ? ttlMs : negativeTtlMs;
+                entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttl));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Invalida una clave puntual.
+     *
+     * @param key Clave a invalidar
+     */
+    public synchronized void invalidate(K key) {
+        invalidations++;
+        entries.remove(key);
+    }
+
+    /**
+     * Invalida todas las entradas que cumplan la condición.
+     * Usado cuando la clave afectada no se conoce (p. ej. un UPDATE que cambió el codigo).
+     *
+     * @param predicate Condición sobre (clave, valor); el valor es null en entradas negativas
+     */
+    public synchronized void invalidateIf(BiPredicate<K, V> predicate) {
+        invalidations++;
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (predicate.test(e.getKey(), e.getValue().value)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    public synchronized void invalidateAll() {
+        invalidations++;
+        entries.clear();
+    }
+
+    /**
+     * Instantánea de las métricas de la caché.
+     *
+     * @return CacheStats con contadores acumulados
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(name, entries.size(), maxSize, hits, negativeHits, misses, evictions);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Métricas de una caché en un instante dado.
+     */
+    public record CacheStats(String name, int size, int maxSize, long hits, long negativeHits,
+                             long misses, long evictions) {
+        /**
+         * @return Proporción de accesos resueltos sin ir a la fuente (0.0 a 1.0)
+         */
+        public double hitRate() {
+            long total = hits + negativeHits + misses;
+            return total == 0 ? 0.0 : (double) (hits + negativeHits) / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Caché %s: tamaño=%d/%d, hits=%d (negativos=%d), misses=%d, desalojos=%d, hit rate=%.1f%%",
+                    name, size, maxSize, hits, negativeHits, misses, evictions, hitRate() * 100);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package Config;
+
+import Config.ConnectionPool.PoolConfig;
+import Config.ConnectionPool.PoolStats;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enrutamiento de lecturas a réplicas de MySQL (un ConnectionPool por réplica).
+ * Lo usa DatabaseConnection.getReadConnection(); las escrituras nunca pasan por acá.
+ *
+ * Selección (db.read.strategy):
+ * - ROUND_ROBIN: reparte en orden entre las réplicas disponibles
+ * - LEAST_LOADED: la réplica con menos préstamos activos + esperas (ConnectionPool.getLoad())
+ *
+ * Failback: una réplica se saltea durante retryMs si
+ * - falló al prestar una conexión (no levanta, credenciales, red), o
+ * - su pool registró un error de conexión (SQLState 08) en ese plazo
+ * Un timeout del pool (réplica saturada) no la marca caída: solo se prueba con la siguiente.
+ * Si ninguna réplica entrega conexión, getConnection() devuelve null y el caller usa el primario.
+ */
+final class ReplicaRouter implements AutoCloseable {
+
+    /**
+     * Estrategia de selección de réplica.
+     */
+    enum Strategy { ROUND_ROBIN, LEAST_LOADED }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Strategy strategy;
+    private final long retryMs;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /** Lecturas que terminaron en el primario porque ninguna réplica estaba disponible. */
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    /**
+     * Crea un pool por réplica (se conectan en segundo plano, como el primario).
+     *
+     * @param urls URLs JDBC de las réplicas (al menos una)
+     * @param user Usuario de las réplicas
+     * @param password Contraseña de las réplicas
+     * @param config Parámetros de cada pool
+     * @param strategy Estrategia de selección
+     * @param retryMs Tiempo que se saltea una réplica tras un error
+     */
+    ReplicaRouter(List<String> urls, String user, String password, PoolConfig config, Strategy strategy, long retryMs) {
+        for (int i = 0; i < urls.size(); i++) {
+            String nombre = "replica-" + (i + 1);
+            replicas.add(new Replica(nombre, new ConnectionPool(nombre, urls.get(i), user, password, config)));
+        }
+        this.strategy = strategy;
+        this.retryMs = retryMs;
+    }
+
+    /**
+     * Presta una conexión de alguna réplica disponible.
+     *
+     * Flujo:
+     * 1. Ordena las réplicas según la estrategia
+     * 2. Saltea las marcadas como caídas (o con error de conexión reciente en su pool)
+     * 3. Prueba cada una; un fallo que no sea timeout la marca caída por retryMs
+     *
+     * @return Conexión de réplica, o null si ninguna está disponible (usar el primario)
+     */
+    Connection getConnection() {
+        long ahora = System.currentTimeMillis();
+        for (Replica replica : candidatas()) {
+            if (replica.caida(ahora, retryMs)) {
+                continue;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLTimeoutException e) {
+                // Saturada, no caída: probar la siguiente sin marcarla
+            } catch (SQLException e) {
+                replica.marcarCaida(ahora + retryMs, e);
+            }
+        }
+        fallbacks.incrementAndGet();
+        return null;
+    }
+
+    private List<Replica> candidatas() {
+        int n = replicas.size();
+        List<Replica> orden = new ArrayList<>(n);
+        if (strategy == Strategy.LEAST_LOADED) {
+            orden.addAll(replicas);
+            orden.sort((a, b) -> Integer.compare(a.pool.getLoad(), b.pool.getLoad()));
+        } else {
+            int inicio = Math.floorMod(next.getAndIncrement(), n);
+            for (int i = 0; i < n; i++) {
+                orden.add(replicas.get((inicio + i) % n));
+            }
+        }
+        return orden;
+    }
+
+    /**
+     * @return Estadísticas de cada pool de réplica, en el orden de db.read.urls
+     */
+    List<PoolStats> getStats() {
+        List<PoolStats> stats = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            stats.add(replica.pool.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * @return Lecturas derivadas al primario por no haber réplica disponible
+     */
+    long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * Pool de una réplica y su estado de disponibilidad.
+     */
+    private static final class Replica {
+        private final String nombre;
+        private final ConnectionPool pool;
+        private volatile long caidaHasta;
+
+        private Replica(String nombre, ConnectionPool pool) {
+            this.nombre = nombre;
+            this.pool = pool;
+        }
+
+        private boolean caida(long ahora, long retryMs) {
+            long ultimoError = pool.getLastConnectionErrorMillis();
+            return ahora < caidaHasta || (ultimoError > 0 && ahora - ultimoError < retryMs);
+        }
+
+        private void marcarCaida(long hasta, SQLException e) {
+            if (System.currentTimeMillis() >= caidaHasta) {
+                System.err.println("Réplica " + nombre + " no disponible, lecturas al primario o a otra réplica: " + e.getMessage());
+            }
+            caidaHasta = hasta;
+        }
+    }
+}
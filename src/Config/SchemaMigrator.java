@@ -0,0 +1,460 @@
+package Config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Migraciones versionadas del esquema: aplica en orden los scripts V&lt;n&gt;__&lt;descripcion&gt;.sql
+ * de db.migrations.dir que todavía no figuran en la tabla schema_migrations.
+ * Main lo ejecuta al iniciar (antes del menú) y con el comando "migrate".
+ *
+ * Flujo de migrate():
+ * 0. Sin las tablas base (esquema vacío) falla sin registrar nada: primero script_creacion.sql
+ * 1. Crea schema_migrations si no existe y toma el lock GET_LOCK('schema_migrations')
+ *    (dos instancias que arrancan juntas no aplican la misma migración dos veces)
+ * 2. Valida el historial contra los archivos:
+ *    - Una migración aplicada cuyo archivo cambió (checksum SHA-256) es un error
+ *    - Una migración que falló en una ejecución anterior es un error (ver IMPORTANTE)
+ *    - Un archivo pendiente con versión menor a la última aplicada es un error (fuera de orden)
+ * 3. Historial vacío con las tablas ya creadas: línea base (db.migrations.baseline)
+ * 4. Ejecuta cada sentencia de cada migración pendiente (SqlScript.parse) e informa su tiempo;
+ *    los ALTER TABLE se intentan en línea (ver enLinea())
+ * 5. Registra la migración con su checksum y duración
+ *
+ * Línea base: script_creacion.sql ya crea el esquema completo y registra en schema_migrations
+ * (sin checksum) las versiones que incluye. Una BD creada antes de que existiera la tabla no
+ * tiene historial: db.migrations.baseline indica hasta qué versión ya está aplicada
+ * (0 = ninguna, aplicar todas). Sin esa propiedad el runner se niega a adivinar.
+ *
+ * IMPORTANTE: el DDL de MySQL hace commit implícito, así que una migración que falla a
+ * mitad de camino puede quedar aplicada en parte. Se registra con exitosa = FALSE y el
+ * error; hay que revisar el esquema, completarla o revertirla a mano y borrar esa fila.
+ *
+ * Configuración via system properties:
+ * - db.migrations.dir (migrations): carpeta de los scripts
+ * - db.migrations.onStartup (true): Main migra antes de iniciar
+ * - db.migrations.baseline (sin definir): versión ya aplicada en una BD sin historial
+ * - db.migrations.lockWaitTimeoutSec (30): espera máxima por el metadata lock de cada ALTER
+ *   (lock_wait_timeout de la sesión) y por el lock de migración. Un ALTER que espera un
+ *   metadata lock frena también las consultas que llegan detrás: mejor fallar y reintentar
+ *
+ * Patrón: Utility class (configuración estática, como DatabaseConnection)
+ */
+public final class SchemaMigrator {
+    private static final Path DIR = Path.of(System.getProperty("db.migrations.dir", "migrations"));
+    private static final boolean ON_STARTUP = Boolean.parseBoolean(System.getProperty("db.migrations.onStartup", "true"));
+    private static final int BASELINE = DatabaseConnection.intProperty("db.migrations.baseline", -1);
+    private static final int LOCK_WAIT_TIMEOUT_SEC = DatabaseConnection.intProperty("db.migrations.lockWaitTimeoutSec", 30);
+
+    private static final Pattern ARCHIVO = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern ALTER_TABLE = Pattern.compile("(?is)\\s*ALTER\\s+TABLE\\b.*");
+    private static final Pattern OPCIONES_EXPLICITAS = Pattern.compile("(?is).*\\b(ALGORITHM|LOCK)\\s*=.*|.*\\bPARTITION\\b.*");
+
+    /** MySQL rechaza el ALGORITHM/LOCK pedido para esa operación (se prueba el siguiente). */
+    private static final int ER_ALTER_OPERATION_NOT_SUPPORTED = 1845;
+    private static final int ER_ALTER_OPERATION_NOT_SUPPORTED_REASON = 1846;
+
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS schema_migrations (" +
+            "version INT UNSIGNED NOT NULL PRIMARY KEY, descripcion VARCHAR(200) NOT NULL, checksum CHAR(64) NULL, " +
+            "aplicada_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, duracion_ms BIGINT NOT NULL DEFAULT 0, " +
+            "exitosa BOOLEAN NOT NULL, error VARCHAR(500) NULL) ENGINE=InnoDB";
+
+    private static final String SELECT_HISTORY_SQL = "SELECT version, descripcion, checksum, exitosa, error " +
+            "FROM schema_migrations ORDER BY version";
+
+    private static final String INSERT_SQL = "INSERT INTO schema_migrations " +
+            "(version, descripcion, checksum, duracion_ms, exitosa, error) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String COUNT_TABLES_SQL = "SELECT COUNT(*) FROM information_schema.tables " +
+            "WHERE table_schema = DATABASE() AND table_name IN ('mascotas', 'microchips')";
+
+    private static final String LOCK_NAME = "schema_migrations";
+
+    static {
+        if (BASELINE < -1) {
+            throw new IllegalStateException("db.migrations.baseline no puede ser negativo");
+        }
+        if (LOCK_WAIT_TIMEOUT_SEC <= 0) {
+            throw new IllegalStateException("db.migrations.lockWaitTimeoutSec debe ser mayor a 0");
+        }
+    }
+
+    private SchemaMigrator() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Script de migración encontrado en la carpeta.
+     *
+     * @param version Número de versión (V&lt;n&gt;)
+     * @param descripcion Parte del nombre después de "__", con espacios
+     * @param archivo Ruta del script
+     * @param checksum SHA-256 del contenido (con fines de línea normalizados a \n)
+     */
+    public record Migracion(int version, String descripcion, Path archivo, String checksum) { }
+
+    /**
+     * Resultado de una ejecución de migrate().
+     *
+     * @param aplicadas Versiones aplicadas en esta ejecución, en orden
+     * @param versionActual Última versión registrada (0 si no hay ninguna)
+     * @param millis Duración total
+     */
+    public record Resumen(List<Integer> aplicadas, int versionActual, long millis) { }
+
+    /**
+     * @return true si Main debe migrar al iniciar (db.migrations.onStartup)
+     */
+    public static boolean isStartupEnabled() {
+        return ON_STARTUP;
+    }
+
+    /**
+     * @return Carpeta de scripts configurada (db.migrations.dir)
+     */
+    public static Path getDirectory() {
+        return DIR;
+    }
+
+    /**
+     * Migra la BD configurada en DatabaseConnection con los scripts de db.migrations.dir.
+     *
+     * @return Resumen de lo aplicado
+     * @throws IOException Si no se puede leer la carpeta o un script
+     * @throws SQLException Si falla la validación, el lock o alguna sentencia
+     */
+    public static Resumen migrate() throws IOException, SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return migrate(conn, DIR);
+        }
+    }
+
+    /**
+     * Aplica las migraciones pendientes de la carpeta sobre la conexión dada.
+     * Se espera en autocommit (como la entregan DatabaseConnection y el pool); al terminar
+     * la sesión vuelve a su lock_wait_timeout por defecto.
+     *
+     * @param conn Conexión al esquema (NO se cierra en este método)
+     * @param dir Carpeta de scripts V&lt;n&gt;__&lt;descripcion&gt;.sql
+     * @return Resumen de lo aplicado
+     * @throws IOException Si no se puede leer la carpeta o un script
+     * @throws SQLException Si falla la validación, el lock o alguna sentencia
+     */
+    public static Resumen migrate(Connection conn, Path dir) throws IOException, SQLException {
+        long inicio = System.nanoTime();
+        List<Migracion> migraciones = scan(dir);
+        if (!existenTablas(conn)) {
+            throw new SQLException("El esquema no tiene las tablas mascotas/microchips: " +
+                    "ejecute script_creacion.sql primero (las migraciones parten de ese esquema)");
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_TABLE_SQL);
+        }
+        lock(conn);
+        try {
+            NavigableMap<Integer, Registro> historial = history(conn);
+            if (historial.isEmpty()) {
+                registrarLineaBase(conn, migraciones);
+                historial = history(conn);
+            }
+            List<Migracion> pendientes = validate(migraciones, historial);
+
+            List<Integer> aplicadas = new ArrayList<>();
+            if (!pendientes.isEmpty()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET SESSION lock_wait_timeout = " + LOCK_WAIT_TIMEOUT_SEC);
+                }
+                try {
+                    for (Migracion migracion : pendientes) {
+                        apply(conn, migracion);
+                        aplicadas.add(migracion.version());
+                    }
+                } finally {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("SET SESSION lock_wait_timeout = DEFAULT");
+                    }
+                }
+            }
+
+            int actual = historial.isEmpty() ? 0 : historial.lastKey();
+            if (!aplicadas.isEmpty()) {
+                actual = Math.max(actual, aplicadas.get(aplicadas.size() - 1));
+            }
+            long millis = (System.nanoTime() - inicio) / 1_000_000;
+            if (aplicadas.isEmpty()) {
+                System.out.println("Esquema al día (versión " + actual + ")");
+            } else {
+                System.out.println("Esquema migrado a la versión " + actual + ": " + aplicadas.size()
+                        + " migraciones en " + millis + " ms");
+            }
+            return new Resumen(List.copyOf(aplicadas), actual, millis);
+        } finally {
+            unlock(conn);
+        }
+    }
+
+    /**
+     * Lista los scripts V&lt;n&gt;__&lt;descripcion&gt;.sql de la carpeta, ordenados por versión.
+     * Los demás archivos se ignoran.
+     *
+     * @param dir Carpeta de scripts
+     * @return Migraciones ordenadas por versión
+     * @throws IOException Si no se puede leer la carpeta, o hay dos archivos con la misma versión
+     */
+    public static List<Migracion> scan(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("No existe la carpeta de migraciones: " + dir.toAbsolutePath());
+        }
+        TreeMap<Integer, Migracion> porVersion = new TreeMap<>();
+        try (Stream<Path> archivos = Files.list(dir)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                Matcher m = ARCHIVO.matcher(archivo.getFileName().toString());
+                if (!m.matches()) {
+                    continue;
+                }
+                int version = Integer.parseInt(m.group(1));
+                Migracion migracion = new Migracion(version, m.group(2).replace('_', ' '), archivo, checksum(archivo));
+                Migracion otra = porVersion.put(version, migracion);
+                if (otra != null) {
+                    throw new IOException("Versión duplicada " + version + ": " + otra.archivo().getFileName()
+                            + " y " + archivo.getFileName());
+                }
+            }
+        }
+        return new ArrayList<>(porVersion.values());
+    }
+
+    /**
+     * SHA-256 del script en hexadecimal. Los fines de línea se normalizan para que un
+     * checkout con CRLF (Windows) no cuente como modificación.
+     */
+    static String checksum(Path archivo) throws IOException {
+        String contenido = Files.readString(archivo, StandardCharsets.UTF_8).replace("\r\n", "\n");
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(contenido.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Fila de schema_migrations.
+     */
+    private record Registro(int version, String descripcion, String checksum, boolean exitosa, String error) { }
+
+    private static NavigableMap<Integer, Registro> history(Connection conn) throws SQLException {
+        TreeMap<Integer, Registro> historial = new TreeMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_HISTORY_SQL)) {
+            while (rs.next()) {
+                Registro r = new Registro(rs.getInt("version"), rs.getString("descripcion"),
+                        rs.getString("checksum"), rs.getBoolean("exitosa"), rs.getString("error"));
+                historial.put(r.version(), r);
+            }
+        }
+        return historial;
+    }
+
+    /**
+     * Compara el historial con los archivos y devuelve las migraciones pendientes.
+     *
+     * @throws SQLException Si hay una migración fallida, modificada o fuera de orden
+     */
+    private static List<Migracion> validate(List<Migracion> migraciones, NavigableMap<Integer, Registro> historial) throws SQLException {
+        for (Registro r : historial.values()) {
+            if (!r.exitosa()) {
+                throw new SQLException("La migración V" + r.version() + " (" + r.descripcion() + ") falló en una "
+                        + "ejecución anterior: " + r.error() + ". Revisar el esquema (puede haber quedado aplicada "
+                        + "en parte), corregirlo y borrar su fila de schema_migrations");
+            }
+        }
+        int ultima = historial.isEmpty() ? 0 : historial.lastKey();
+        List<Migracion> pendientes = new ArrayList<>();
+        for (Migracion migracion : migraciones) {
+            Registro r = historial.get(migracion.version());
+            if (r == null) {
+                if (migracion.version() < ultima) {
+                    throw new SQLException("La migración " + migracion.archivo().getFileName() + " está fuera de orden: "
+                            + "ya se aplicó la versión " + ultima + ". Renombrarla con una versión mayor");
+                }
+                pendientes.add(migracion);
+            } else if (r.checksum() != null && !r.checksum().equals(migracion.checksum())) {
+                throw new SQLException("La migración " + migracion.archivo().getFileName() + " cambió después de "
+                        + "aplicarse (checksum distinto). Los cambios de esquema van en una migración nueva");
+            }
+        }
+        for (Registro r : historial.values()) {
+            if (migraciones.stream().noneMatch(m -> m.version() == r.version())) {
+                System.err.println("Aviso: la migración aplicada V" + r.version() + " (" + r.descripcion()
+                        + ") no tiene archivo en la carpeta de migraciones");
+            }
+        }
+        return pendientes;
+    }
+
+    /**
+     * Línea base de una BD con tablas pero sin historial (creada antes de schema_migrations):
+     * registra sin checksum las versiones hasta db.migrations.baseline.
+     *
+     * @throws SQLException Si db.migrations.baseline no está definida
+     */
+    private static void registrarLineaBase(Connection conn, List<Migracion> migraciones) throws SQLException {
+        if (BASELINE < 0) {
+            throw new SQLException("La BD ya tiene tablas pero schema_migrations está vacía. Indicar hasta qué "
+                    + "versión está aplicado el esquema con -Ddb.migrations.baseline=N (0 = aplicar todas)");
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Migracion migracion : migraciones) {
+                if (migracion.version() > BASELINE) {
+                    break;
+                }
+                stmt.setInt(1, migracion.version());
+                stmt.setString(2, migracion.descripcion() + " (línea base)");
+                stmt.setNull(3, Types.CHAR);
+                stmt.setLong(4, 0);
+                stmt.setBoolean(5, true);
+                stmt.setNull(6, Types.VARCHAR);
+                stmt.executeUpdate();
+            }
+        }
+        System.out.println("Línea base registrada en la versión " + BASELINE);
+    }
+
+    /**
+     * Ejecuta las sentencias de una migración, informando el tiempo de cada una, y la registra.
+     * Si una sentencia falla, registra la migración como fallida y relanza el error.
+     */
+    private static void apply(Connection conn, Migracion migracion) throws IOException, SQLException {
+        List<String> sentencias = SqlScript.parse(migracion.archivo());
+        System.out.println("V" + migracion.version() + " " + migracion.descripcion()
+                + " (" + sentencias.size() + " sentencias)");
+        long inicio = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            for (int i = 0; i < sentencias.size(); i++) {
+                String sql = sentencias.get(i);
+                long inicioSentencia = System.nanoTime();
+                String modo;
+                try {
+                    modo = execute(stmt, sql);
+                } catch (SQLException e) {
+                    long millis = (System.nanoTime() - inicio) / 1_000_000;
+                    String error = "sentencia " + (i + 1) + " (" + SqlScript.resumen(sql) + "): " + e.getMessage();
+                    registrar(conn, migracion, millis, false, error);
+                    throw new SQLException("Error en la migración " + migracion.archivo().getFileName() + ", " + error,
+                            e.getSQLState(), e.getErrorCode(), e);
+                }
+                System.out.println("  [" + (i + 1) + "/" + sentencias.size() + "] " + SqlScript.resumen(sql)
+                        + " — " + (System.nanoTime() - inicioSentencia) / 1_000_000 + " ms"
+                        + (modo == null ? "" : " (" + modo + ")"));
+            }
+        }
+        long millis = (System.nanoTime() - inicio) / 1_000_000;
+        registrar(conn, migracion, millis, true, null);
+        System.out.println("  V" + migracion.version() + " aplicada en " + millis + " ms");
+    }
+
+    /**
+     * Ejecuta una sentencia; un ALTER TABLE sin ALGORITHM/LOCK explícitos se prueba en línea.
+     *
+     * @return Modo usado para un ALTER TABLE en línea ("INSTANT", "INPLACE, LOCK=NONE" o
+     *         "con bloqueo" si MySQL no admitió ninguno), o null para las demás sentencias
+     */
+    private static String execute(Statement stmt, String sql) throws SQLException {
+        List<String> intentos = enLinea(sql);
+        for (String intento : intentos) {
+            try {
+                stmt.execute(sql + ", " + intento);
+                return intento.replace("ALGORITHM=", "");
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_ALTER_OPERATION_NOT_SUPPORTED
+                        && e.getErrorCode() != ER_ALTER_OPERATION_NOT_SUPPORTED_REASON) {
+                    throw e;
+                }
+            }
+        }
+        stmt.execute(sql);
+        return intentos.isEmpty() ? null : "con bloqueo";
+    }
+
+    /**
+     * Opciones a probar, en orden, para ejecutar un ALTER TABLE sin bloquear la tabla:
+     * 1. ALGORITHM=INSTANT: solo cambia metadatos (agregar columnas al final, defaults)
+     * 2. ALGORITHM=INPLACE, LOCK=NONE: reconstruye en línea, permitiendo lecturas y escrituras
+     *    (índices secundarios, la mayoría de cambios de columnas)
+     * MySQL rechaza de inmediato (error 1845/1846, sin aplicar nada) las opciones que la
+     * operación no admite; si no admite ninguna se ejecuta como está escrita (puede copiar la tabla).
+     *
+     * No aplica a otras sentencias, a ALTER TABLE que ya indican ALGORITHM o LOCK
+     * (el script decide) ni a los de particiones (las opciones van en otra posición).
+     *
+     * @return Opciones a agregar al final de la sentencia (vacía si no corresponde)
+     */
+    static List<String> enLinea(String sql) {
+        if (!ALTER_TABLE.matcher(sql).matches() || OPCIONES_EXPLICITAS.matcher(sql).matches()) {
+            return List.of();
+        }
+        return List.of("ALGORITHM=INSTANT", "ALGORITHM=INPLACE, LOCK=NONE");
+    }
+
+    private static void registrar(Connection conn, Migracion migracion, long millis, boolean exitosa, String error)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            stmt.setInt(1, migracion.version());
+            stmt.setString(2, migracion.descripcion());
+            stmt.setString(3, migracion.checksum());
+            stmt.setLong(4, millis);
+            stmt.setBoolean(5, exitosa);
+            stmt.setString(6, error == null ? null : error.length() > 500 ? error.substring(0, 500) : error);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static boolean existenTablas(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_TABLES_SQL)) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_WAIT_TIMEOUT_SEC);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Otra instancia está migrando el esquema (lock " + LOCK_NAME
+                            + " no obtenido en " + LOCK_WAIT_TIMEOUT_SEC + " s)");
+                }
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("No se pudo liberar el lock de migración: " + e.getMessage());
+        }
+    }
+}
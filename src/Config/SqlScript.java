@@ -0,0 +1,126 @@
+package Config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilidad para ejecutar scripts SQL como script_creacion.sql o script_datos_test.sql
+ * desde Java (sin el cliente mysql).
+ *
+ * Soporta:
+ * - Comentarios de línea "-- ..." (fuera de literales)
+ * - Literales entre comillas simples y dobles (un ';' dentro de un literal no corta la sentencia)
+ * - DELIMITER (necesario para triggers: DELIMITER // ... END// DELIMITER ;)
+ *
+ * Patrón: Utility class (solo métodos estáticos, no instanciable)
+ */
+public final class SqlScript {
+
+    private SqlScript() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Lee un archivo de script en UTF-8 y lo separa en sentencias.
+     *
+     * @param path Ruta del script
+     * @return Sentencias en orden, sin el delimitador final
+     * @throws IOException Si no se puede leer el archivo
+     */
+    public static List<String> parse(Path path) throws IOException {
+        return parse(Files.readString(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Separa el texto de un script en sentencias individuales.
+     *
+     * @param script Contenido del script
+     * @return Sentencias en orden, sin el delimitador final (nunca vacías)
+     */
+    public static List<String> parse(String script) {
+        List<String> sentencias = new ArrayList<>();
+        String delimitador = ";";
+        StringBuilder actual = new StringBuilder();
+        char comilla = 0;
+
+        for (String linea : script.split("\r?\n", -1)) {
+            if (comilla == 0 && actual.toString().isBlank() && linea.trim().toUpperCase().startsWith("DELIMITER ")) {
+                delimitador = linea.trim().substring("DELIMITER ".length()).trim();
+                continue;
+            }
+            int i = 0;
+            while (i < linea.length()) {
+                char c = linea.charAt(i);
+                if (comilla != 0) {
+                    actual.append(c);
+                    if (c == '\\' && i + 1 < linea.length()) {
+                        actual.append(linea.charAt(++i));
+                    } else if (c == comilla) {
+                        comilla = 0;
+                    }
+                    i++;
+                } else if (c == '\'' || c == '"') {
+                    comilla = c;
+                    actual.append(c);
+                    i++;
+                } else if (linea.startsWith("--", i)) {
+                    break;
+                } else if (linea.startsWith(delimitador, i)) {
+                    agregar(sentencias, actual);
+                    i += delimitador.length();
+                } else {
+                    actual.append(c);
+                    i++;
+                }
+            }
+            actual.append('\n');
+        }
+        agregar(sentencias, actual);
+        return sentencias;
+    }
+
+    /**
+     * Ejecuta todas las sentencias de un script sobre la conexión dada.
+     * NO maneja transacciones (el DDL de MySQL hace commit implícito).
+     *
+     * @param conn Conexión abierta (NO se cierra en este método)
+     * @param path Ruta del script
+     * @throws IOException Si no se puede leer el archivo
+     * @throws SQLException Si falla alguna sentencia (indica cuál)
+     */
+    public static void execute(Connection conn, Path path) throws IOException, SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : parse(path)) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    throw new SQLException("Error en " + path.getFileName() + " ejecutando: " + resumen(sql)
+                            + " → " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Primera línea de la sentencia (para mensajes de error).
+     */
+    static String resumen(String sql) {
+        String primera = sql.strip().lines().findFirst().orElse("");
+        return primera.length() > 80 ? primera.substring(0, 80) + "..." : primera;
+    }
+
+    private static void agregar(List<String> sentencias, StringBuilder actual) {
+        String sql = actual.toString().trim();
+        if (!sql.isEmpty()) {
+            sentencias.add(sql);
+        }
+        actual.setLength(0);
+    }
+}
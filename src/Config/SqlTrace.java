@@ -0,0 +1,197 @@
+package Config;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log de sentencias lentas (slow query log) del lado de la aplicación.
+ * Desactivado por defecto; lo alimenta InstrumentedConnection.
+ *
+ * Cada sentencia muestreada que tarda al menos el umbral se escribe en una línea con:
+ * tiempo total (ejecución + lectura del ResultSet hasta cerrarlo), filas, operación de DAO
+ * que la originó (DaoMetrics.currentOperation()), constante SQL y parámetros (redactados).
+ *
+ * Configuración via system properties:
+ * - db.trace.enabled (false): activa el log
+ * - db.trace.thresholdMs (100): umbral; 0 registra todas las sentencias muestreadas (traza completa)
+ * - db.trace.sampleRate (1.0): fracción de ejecuciones muestreadas (0 &lt; x &lt;= 1). Las no muestreadas
+ *   no capturan parámetros ni se evalúan: es el costo a bajar en el camino crítico
+ * - db.trace.params (redacted):
+ *   - redacted: números, fechas y booleanos tal cual; textos solo con su largo (nombres, duenios)
+ *   - full: también los textos (truncados a 100 caracteres), el mensaje de los errores y el texto
+ *     de las sentencias no registradas en DaoMetrics; solo para diagnóstico local
+ *   - none: solo la cantidad de parámetros
+ *   En redacted y none los errores solo muestran clase, SQLState y código (el mensaje del driver
+ *   puede incluir valores, p. ej. el codigo duplicado), y una sentencia no registrada solo su hash.
+ * - db.trace.file (vacío = System.err): archivo al que se agregan las líneas
+ *
+ * La operación de DAO solo se conoce si los decoradores de DaoMetrics están activos
+ * (db.metrics.enabled); si no, figura como "-".
+ *
+ * Patrón: Utility class (configuración estática, como DatabaseConnection)
+ */
+final class SqlTrace {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.trace.enabled", "false"));
+    private static final long THRESHOLD_NANOS = DatabaseConnection.longProperty("db.trace.thresholdMs", 100) * 1_000_000L;
+    private static final double SAMPLE_RATE = doubleProperty("db.trace.sampleRate", 1.0);
+    private static final String PARAMS_MODE = System.getProperty("db.trace.params", "redacted").trim().toLowerCase(Locale.ROOT);
+    private static final int MAX_TEXTO = 100;
+
+    /** Destino de las líneas: System.err o db.trace.file (abierto en modo append). */
+    private static final PrintStream OUT = ENABLED ? openOutput(System.getProperty("db.trace.file", "")) : System.err;
+
+    static {
+        if (THRESHOLD_NANOS < 0) {
+            throw new IllegalStateException("db.trace.thresholdMs no puede ser negativo");
+        }
+        if (SAMPLE_RATE <= 0 || SAMPLE_RATE > 1) {
+            throw new IllegalStateException("db.trace.sampleRate debe estar entre 0 (excluido) y 1");
+        }
+        if (!PARAMS_MODE.equals("redacted") && !PARAMS_MODE.equals("full") && !PARAMS_MODE.equals("none")) {
+            throw new IllegalStateException("db.trace.params debe ser redacted, full o none: " + PARAMS_MODE);
+        }
+    }
+
+    private SqlTrace() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * @return true si el log está activo (db.trace.enabled)
+     */
+    static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Decide si la próxima ejecución de una sentencia se muestrea.
+     *
+     * @return true si hay que capturar parámetros y evaluar el umbral
+     */
+    static boolean sample() {
+        return ENABLED && (SAMPLE_RATE >= 1.0 || ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE);
+    }
+
+    /**
+     * Evalúa una ejecución muestreada y la escribe si alcanza el umbral.
+     *
+     * @param sql Texto SQL
+     * @param operacion Operación de DAO que la originó (o null)
+     * @param parametros Parámetros ligados (índice 0 = parámetro 1; puede tener huecos null)
+     * @param lote Filas del lote en executeBatch (0 si no es un lote)
+     * @param ejecucionNanos Duración del execute*
+     * @param lecturaNanos Tiempo desde el execute hasta cerrar el ResultSet (0 si no hay)
+     * @param filas Filas leídas o afectadas
+     * @param error Excepción del execute*, o null
+     */
+    static void record(String sql, String operacion, Object[] parametros, int lote,
+                       long ejecucionNanos, long lecturaNanos, long filas, Throwable error) {
+        long total = ejecucionNanos + lecturaNanos;
+        if (total < THRESHOLD_NANOS) {
+            return;
+        }
+        String nombre = DaoMetrics.sqlName(sql);
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(Instant.now()).append(" [SQL lento] ")
+                .append(String.format(Locale.ROOT, "%.3f ms (ejecución %.3f ms + lectura %.3f ms)",
+                        total / 1e6, ejecucionNanos / 1e6, lecturaNanos / 1e6))
+                .append(" filas=").append(filas)
+                .append(" op=").append(operacion != null ? operacion : "-")
+                .append(" sql=").append(nombre);
+        if (lote > 0) {
+            sb.append(" lote=").append(lote);
+        }
+        sb.append(" params=").append(formatParametros(parametros));
+        boolean full = PARAMS_MODE.equals("full");
+        if (error != null) {
+            sb.append(" error=").append(error.getClass().getSimpleName());
+            if (error instanceof SQLException e) {
+                sb.append(" sqlState=").append(e.getSQLState()).append(" codigo=").append(e.getErrorCode());
+            }
+            if (full) {
+                sb.append(": ").append(error.getMessage());
+            }
+        }
+        if (DaoMetrics.SQL_NO_REGISTRADA.equals(nombre) && sql != null) {
+            if (full) {
+                sb.append(" texto=\"").append(truncar(sql.replaceAll("\\s+", " "), 200)).append('"');
+            } else {
+                sb.append(" hash=").append(Integer.toHexString(sql.hashCode()));
+            }
+        }
+        synchronized (OUT) {
+            OUT.println(sb);
+        }
+    }
+
+    /**
+     * Parámetros según db.trace.params (en un lote, los de la última fila agregada).
+     */
+    private static String formatParametros(Object[] parametros) {
+        int cantidad = parametros == null ? 0 : parametros.length;
+        if (PARAMS_MODE.equals("none")) {
+            return "[" + cantidad + " ocultos]";
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < cantidad; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(formatParametro(parametros[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String formatParametro(Object valor) {
+        if (valor == null) {
+            return "NULL";
+        }
+        if (valor instanceof Number || valor instanceof Boolean
+                || valor instanceof java.util.Date || valor instanceof LocalDate
+                || valor instanceof LocalDateTime || valor instanceof LocalTime) {
+            return valor.toString();
+        }
+        if (valor instanceof String texto) {
+            return PARAMS_MODE.equals("full")
+                    ? "'" + truncar(texto, MAX_TEXTO).replace("'", "''") + "'"
+                    : "<texto:" + texto.length() + ">";
+        }
+        return "<" + valor.getClass().getSimpleName() + ">";
+    }
+
+    private static String truncar(String texto, int max) {
+        return texto.length() <= max ? texto : texto.substring(0, max) + "...";
+    }
+
+    private static PrintStream openOutput(String archivo) {
+        if (archivo == null || archivo.isBlank()) {
+            return System.err;
+        }
+        try {
+            return new PrintStream(new FileOutputStream(archivo.trim(), true), true, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo abrir db.trace.file: " + archivo + " (" + e.getMessage() + ")");
+        }
+    }
+
+    private static double doubleProperty(String key, double defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Valor inválido para " + key + ": " + value);
+        }
+    }
+}
@@ -2,10 +2,29 @@ package Config;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Maneja una transacción sobre una conexión (try-with-resources: close() hace rollback si no hubo commit).
+ *
+ * Con réplicas de lectura configuradas, mientras la transacción está abierta las lecturas
+ * del mismo hilo van al primario (DatabaseConnection.pinToPrimary), y al terminar siguen
+ * ahí durante db.read.stickyMs para ver lo confirmado.
+ *
+ * Acciones posteriores al commit (afterCommit): los DAOs invalidan sus cachés recién
+ * cuando el cambio es visible. Invalidar antes permitiría que otro hilo vuelva a cargar
+ * la fila confirmada anterior y la deje en caché todo el TTL.
+ */
 public class TransactionManager implements AutoCloseable {
     private Connection conn;
     private boolean transactionActive;
+    private boolean pinned;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private TransactionManager anterior;
+
+    /** Transacción activa del hilo (la última iniciada), para afterCommit(). */
+    private static final ThreadLocal<TransactionManager> ACTIVA = new ThreadLocal<>();
 
     public TransactionManager(Connection conn) throws SQLException {
         if (conn == null) {
@@ -27,7 +46,15 @@ public class TransactionManager implements AutoCloseable {
             throw new SQLException("No se puede iniciar la transacción: conexión cerrada");
         }
         conn.setAutoCommit(false);
+        if (!transactionActive) {
+            anterior = ACTIVA.get();
+            ACTIVA.set(this);
+        }
         transactionActive = true;
+        if (!pinned) {
+            DatabaseConnection.pinToPrimary();
+            pinned = true;
+        }
     }
 
     public void commit() throws SQLException {
@@ -38,22 +65,51 @@ public class TransactionManager implements AutoCloseable {
             throw new SQLException("No hay una transacción activa para hacer commit");
         }
         conn.commit();
-        transactionActive = false;
+        List<Runnable> acciones = new ArrayList<>(afterCommit);
+        terminar();
+        unpin();
+        for (Runnable accion : acciones) {
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en una acción posterior al commit: " + e.getMessage());
+            }
+        }
     }
 
     public void rollback() {
         if (conn != null && transactionActive) {
             try {
                 conn.rollback();
-                transactionActive = false;
             } catch (SQLException e) {
                 System.err.println("Error durante el rollback: " + e.getMessage());
             }
+            terminar();
+        }
+        unpin();
+    }
+
+    /**
+     * Ejecuta la acción después del commit de la transacción activa del hilo sobre conn;
+     * si conn no está en una transacción de TransactionManager (autocommit), la ejecuta ya.
+     * Si la transacción hace rollback, la acción se descarta (no hubo cambios que publicar).
+     *
+     * @param conn Conexión sobre la que se escribió
+     * @param accion Acción a ejecutar (p. ej. invalidar cachés)
+     */
+    public static void afterCommit(Connection conn, Runnable accion) {
+        for (TransactionManager tx = ACTIVA.get(); tx != null; tx = tx.anterior) {
+            if (tx.conn == conn && tx.transactionActive) {
+                tx.afterCommit.add(accion);
+                return;
+            }
         }
+        accion.run();
     }
 
     @Override
     public void close() {
+        unpin();
         if (conn != null) {
             try {
                 if (transactionActive) {
@@ -70,4 +126,31 @@ public class TransactionManager implements AutoCloseable {
     public boolean isTransactionActive() {
         return transactionActive;
     }
+
+    /**
+     * Marca la transacción como terminada: descarta las acciones pendientes y devuelve
+     * ACTIVA a la transacción anterior del hilo.
+     */
+    private void terminar() {
+        if (!transactionActive) {
+            return;
+        }
+        transactionActive = false;
+        afterCommit.clear();
+        if (ACTIVA.get() == this) {
+            if (anterior != null) {
+                ACTIVA.set(anterior);
+            } else {
+                ACTIVA.remove();
+            }
+        }
+        anterior = null;
+    }
+
+    private void unpin() {
+        if (pinned) {
+            pinned = false;
+            DatabaseConnection.unpinFromPrimary();
+        }
+    }
 }
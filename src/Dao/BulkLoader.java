@@ -0,0 +1,412 @@
+package Dao;
+
+import Config.DaoMetrics;
+import Config.DatabaseConnection;
+import Config.TransactionManager;
+import Models.Base;
+import Models.Mascota;
+import Models.Microchip;
+import com.mysql.cj.jdbc.JdbcStatement;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Carga masiva de mascotas y microchips con LOAD DATA LOCAL INFILE, para migraciones
+ * de millones de filas donde incluso insertarBatch() es lento.
+ *
+ * Flujo de cargar() (una sola transacción):
+ * 1. Lee MAX(id) de ambas tablas; esa lectura fija la vista consistente de la transacción
+ *    (REPEATABLE READ, se fuerza durante la carga)
+ * 2. Arma en memoria chunks de db.bulk.chunkRows filas en el formato por defecto de LOAD DATA
+ *    (escribirFila()) y los envía con setLocalInfileInputStream(), sin archivos temporales
+ * 3. Reconcilia los IDs: SELECT id ... WHERE id &gt; MAX(id) previo ORDER BY id devuelve
+ *    exactamente las filas de esta carga, en el orden del archivo (ver IMPORTANTE)
+ * 4. Los microchips se cargan primero; las mascotas llevan el microchip_id ya reconciliado
+ * 5. Commit; se asignan los IDs a las entidades y se invalidan las cachés por codigo
+ *
+ * IMPORTANTE: con innodb_autoinc_lock_mode = 2 (el valor por defecto de MySQL 8) los IDs de
+ * un LOAD DATA no son necesariamente consecutivos si hay inserciones concurrentes, así que no
+ * alcanza con LAST_INSERT_ID() + n. Sí son crecientes, y las filas de otras transacciones con
+ * IDs mayores al MAX(id) leído no son visibles en la vista consistente de esta (no habían
+ * confirmado al tomarla). Los codigos de los microchips reconciliados se verifican igual.
+ *
+ * LOAD DATA LOCAL convierte los errores de datos y los duplicados en warnings y sigue:
+ * si el servidor no carga todas las filas de un chunk, la carga falla (rollback) con el
+ * primer warning como mensaje, en lugar de quedar incompleta.
+ *
+ * Fallback: si LOAD DATA LOCAL no está habilitado (allowLoadLocalInfile=true en db.url y
+ * local_infile=ON en el servidor) la carga se hace con insertarBatchTx() de los DAOs y un
+ * UPDATE por lote para las filas eliminadas, con el mismo resultado. Se recuerda para las
+ * siguientes cargas.
+ *
+ * Las entidades pueden traer eliminado = true (datos históricos); version queda en 0.
+ */
+public final class BulkLoader {
+    /** Carga de microchips. El nombre de archivo no se usa: los datos llegan por setLocalInfileInputStream(). */
+    private static final String LOAD_MICROCHIPS_SQL = "LOAD DATA LOCAL INFILE 'microchips.tsv' INTO TABLE microchips " +
+            "CHARACTER SET utf8mb4 (codigo, fecha_implantacion, veterinaria, observaciones, eliminado)";
+
+    /** Carga de mascotas, con microchip_id ya resuelto. */
+    private static final String LOAD_MASCOTAS_SQL = "LOAD DATA LOCAL INFILE 'mascotas.tsv' INTO TABLE mascotas " +
+            "CHARACTER SET utf8mb4 (nombre, especie, raza, fecha_nacimiento, duenio, microchip_id, eliminado)";
+
+    private static final String MAX_MICROCHIP_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM microchips";
+    private static final String MAX_MASCOTA_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM mascotas";
+
+    /** Filas cargadas por esta transacción (ver javadoc de la clase), en orden de inserción. */
+    private static final String NEW_MICROCHIPS_SQL = "SELECT id, codigo FROM microchips WHERE id > ? ORDER BY id";
+    private static final String NEW_MASCOTAS_SQL = "SELECT id FROM mascotas WHERE id > ? ORDER BY id";
+
+    /** Fallback: marca de eliminado de las filas insertadas con insertarBatchTx(). */
+    private static final String MARK_MICROCHIP_DELETED_SQL = "UPDATE microchips SET eliminado = TRUE WHERE id = ?";
+    private static final String MARK_MASCOTA_DELETED_SQL = "UPDATE mascotas SET eliminado = TRUE WHERE id = ?";
+
+    /** Errores de MySQL cuando LOAD DATA LOCAL está deshabilitado en el cliente o el servidor. */
+    private static final int ER_NOT_ALLOWED_COMMAND = 1148;
+    private static final int ER_CLIENT_LOCAL_FILES_DISABLED = 3948;
+    private static final int ER_LOAD_INFILE_CAPABILITY_DISABLED = 3950;
+
+    static {
+        DaoMetrics.registerSqlConstants(BulkLoader.class);
+    }
+
+    private final MascotaDAO mascotaDAO;
+    private final MicrochipDAO microchipDAO;
+    private final AtomicBoolean localInfileDeshabilitado = new AtomicBoolean();
+
+    /**
+     * @param mascotaDAO DAO de mascotas (fallback e invalidación de su caché por codigo)
+     * @param microchipDAO DAO de microchips (el mismo que usa mascotaDAO)
+     * @throws IllegalArgumentException Si algún DAO es null
+     */
+    public BulkLoader(MascotaDAO mascotaDAO, MicrochipDAO microchipDAO) {
+        if (mascotaDAO == null || microchipDAO == null) {
+            throw new IllegalArgumentException("Los DAOs no pueden ser null");
+        }
+        this.mascotaDAO = mascotaDAO;
+        this.microchipDAO = microchipDAO;
+    }
+
+    /**
+     * Resultado de una carga.
+     *
+     * @param microchips Microchips insertados
+     * @param mascotas Mascotas insertadas
+     * @param localInfile true si se usó LOAD DATA LOCAL INFILE, false si el fallback por lotes
+     * @param elapsedMs Duración total
+     */
+    public record LoadStats(int microchips, int mascotas, boolean localInfile, long elapsedMs) {
+        @Override
+        public String toString() {
+            return String.format("%d microchips y %d mascotas cargados con %s en %.1f s", microchips, mascotas,
+                    localInfile ? "LOAD DATA LOCAL INFILE" : "inserts por lotes", elapsedMs / 1000.0);
+        }
+    }
+
+    /**
+     * Inserta las mascotas, sus microchips nuevos (id 0) y los microchips sueltos en una transacción.
+     * Los microchips con id &gt; 0 se consideran existentes y solo se referencian.
+     * Al terminar, todas las entidades insertadas tienen su ID; si falla, quedan con id 0.
+     *
+     * @param mascotas Mascotas a insertar (puede estar vacía)
+     * @param microchipsSueltos Microchips sin mascota a insertar (puede ser null)
+     * @return Estadísticas de la carga
+     * @throws SQLException Si falla la carga (no queda ninguna fila), o si la reconciliación
+     *         de IDs no coincide con lo cargado
+     */
+    public LoadStats cargar(List<Mascota> mascotas, List<Microchip> microchipsSueltos) throws SQLException {
+        long inicio = System.nanoTime();
+        List<Microchip> microchips = new ArrayList<>();
+        for (Mascota mascota : mascotas) {
+            if (mascota.getMicrochip() != null && mascota.getMicrochip().getId() == 0) {
+                microchips.add(mascota.getMicrochip());
+            }
+        }
+        if (microchipsSueltos != null) {
+            microchips.addAll(microchipsSueltos);
+        }
+        if (mascotas.isEmpty() && microchips.isEmpty()) {
+            return new LoadStats(0, 0, !localInfileDeshabilitado.get(), 0);
+        }
+
+        boolean localInfile = false;
+        try {
+            if (!localInfileDeshabilitado.get()) {
+                try {
+                    enTransaccion(conn -> cargarConLocalInfile(conn, mascotas, microchips));
+                    localInfile = true;
+                } catch (SQLException e) {
+                    if (!esLocalInfileDeshabilitado(e)) {
+                        throw e;
+                    }
+                    localInfileDeshabilitado.set(true);
+                    System.err.println("LOAD DATA LOCAL INFILE no disponible, carga con inserts por lotes: " + e.getMessage());
+                    reiniciarIds(mascotas, microchips);
+                }
+            }
+            if (!localInfile) {
+                enTransaccion(conn -> cargarPorLotes(conn, mascotas, microchips));
+            }
+        } catch (SQLException | RuntimeException e) {
+            reiniciarIds(mascotas, microchips);
+            throw e;
+        } finally {
+            for (Microchip microchip : microchips) {
+                microchipDAO.invalidateCodigo(microchip);
+                mascotaDAO.invalidateCodigo(microchip);
+            }
+        }
+        return new LoadStats(microchips.size(), mascotas.size(), localInfile, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Trabajo dentro de la transacción de una carga.
+     */
+    @FunctionalInterface
+    private interface Carga {
+        void ejecutar(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Ejecuta la carga en una transacción REPEATABLE READ (necesaria para la reconciliación de IDs)
+     * y deja la conexión con su nivel de aislamiento original.
+     *
+     * IMPORTANTE: TransactionManager.close() devuelve la conexión al pool, así que el rollback
+     * (si no hubo commit) y la restauración del aislamiento van dentro del try, antes de close().
+     * Un error al restaurar solo se informa: no debe ocultar el resultado de la carga.
+     */
+    private static void enTransaccion(Carga carga) throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        try (TransactionManager tx = new TransactionManager(conn)) {
+            int aislamiento = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                tx.startTransaction();
+                carga.ejecutar(conn);
+                tx.commit();
+            } finally {
+                tx.rollback();
+                try {
+                    conn.setTransactionIsolation(aislamiento);
+                } catch (SQLException e) {
+                    System.err.println("No se pudo restaurar el aislamiento de la conexión: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void cargarConLocalInfile(Connection conn, List<Mascota> mascotas, List<Microchip> microchips)
+            throws SQLException {
+        long maxMicrochip = queryLong(conn, MAX_MICROCHIP_ID_SQL);
+        long maxMascota = queryLong(conn, MAX_MASCOTA_ID_SQL);
+
+        loadData(conn, LOAD_MICROCHIPS_SQL, microchips, (out, microchip) -> escribirFila(out,
+                microchip.getCodigo(), fecha(microchip.getFechaImplantacion()), microchip.getVeterinaria(),
+                microchip.getObservaciones(), booleano(microchip.isEliminado())));
+        try (PreparedStatement stmt = conn.prepareStatement(NEW_MICROCHIPS_SQL)) {
+            stmt.setLong(1, maxMicrochip);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int i = 0;
+                while (rs.next()) {
+                    if (i >= microchips.size() || !microchips.get(i).getCodigo().equals(rs.getString("codigo"))) {
+                        throw new SQLException("La reconciliación de IDs de microchips no coincide con lo cargado "
+                                + "(fila " + (i + 1) + ")");
+                    }
+                    microchips.get(i++).setId(rs.getInt("id"));
+                }
+                verificarCantidad("microchips", i, microchips.size());
+            }
+        }
+
+        loadData(conn, LOAD_MASCOTAS_SQL, mascotas, (out, mascota) -> escribirFila(out,
+                mascota.getNombre(), mascota.getEspecie(), mascota.getRaza(), fecha(mascota.getFechaNacimiento()),
+                mascota.getDuenio(), mascota.getMicrochip() == null ? null : Integer.toString(mascota.getMicrochip().getId()),
+                booleano(mascota.isEliminado())));
+        try (PreparedStatement stmt = conn.prepareStatement(NEW_MASCOTAS_SQL)) {
+            stmt.setLong(1, maxMascota);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int i = 0;
+                while (rs.next()) {
+                    if (i >= mascotas.size()) {
+                        throw new SQLException("La reconciliación de IDs de mascotas encontró más filas que las cargadas");
+                    }
+                    mascotas.get(i++).setId(rs.getInt("id"));
+                }
+                verificarCantidad("mascotas", i, mascotas.size());
+            }
+        }
+    }
+
+    /**
+     * Envía las entidades en chunks de db.bulk.chunkRows con LOAD DATA LOCAL INFILE.
+     *
+     * @throws SQLException Si falla la sentencia o el servidor no cargó todas las filas de un chunk
+     */
+    private static <T> void loadData(Connection conn, String sql, List<T> entidades, Fila<T> fila) throws SQLException {
+        int chunkRows = DatabaseConnection.getBulkChunkRows();
+        try (Statement stmt = conn.createStatement()) {
+            JdbcStatement mysql = stmt.unwrap(JdbcStatement.class);
+            for (int desde = 0; desde < entidades.size(); desde += chunkRows) {
+                List<T> chunk = entidades.subList(desde, Math.min(desde + chunkRows, entidades.size()));
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(chunk.size() * 96);
+                try (Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+                    for (T entidad : chunk) {
+                        fila.accept(out, entidad);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                mysql.setLocalInfileInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+                int cargadas = stmt.executeUpdate(sql);
+                if (cargadas != chunk.size()) {
+                    SQLWarning warning = stmt.getWarnings();
+                    throw new SQLException("LOAD DATA cargó " + cargadas + " de " + chunk.size() + " filas"
+                            + (warning == null ? "" : ": " + warning.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Escritura de una entidad como línea de LOAD DATA.
+     */
+    @FunctionalInterface
+    private interface Fila<T> {
+        void accept(Writer out, T entidad) throws IOException;
+    }
+
+    private void cargarPorLotes(Connection conn, List<Mascota> mascotas, List<Microchip> microchips)
+            throws SQLException {
+        microchipDAO.insertarBatchTx(microchips, conn);
+        mascotaDAO.insertarBatchTx(mascotas, conn);
+        marcarEliminados(conn, MARK_MICROCHIP_DELETED_SQL, microchips);
+        marcarEliminados(conn, MARK_MASCOTA_DELETED_SQL, mascotas);
+    }
+
+    /**
+     * UPDATE por lotes de las entidades marcadas como eliminadas (insertarBatchTx() no escribe eliminado).
+     */
+    private static void marcarEliminados(Connection conn, String sql, List<? extends Base> entidades) throws SQLException {
+        int batchSize = DatabaseConnection.getBatchSize();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int pendientes = 0;
+            for (Base entidad : entidades) {
+                if (Boolean.TRUE.equals(entidad.isEliminado())) {
+                    stmt.setInt(1, entidad.getId());
+                    stmt.addBatch();
+                    if (++pendientes == batchSize) {
+                        stmt.executeBatch();
+                        pendientes = 0;
+                    }
+                }
+            }
+            if (pendientes > 0) {
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Escribe una línea en el formato por defecto de LOAD DATA: campos separados por tabulador,
+     * '\N' para NULL y '\' como escape de tabuladores, saltos de línea y '\'.
+     * También la usa DataGenerator para sus archivos.
+     *
+     * @param out Destino
+     * @param campos Valores en el orden de columnas de la sentencia (null = NULL)
+     * @throws IOException Si falla la escritura
+     */
+    public static void escribirFila(Writer out, String... campos) throws IOException {
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) {
+                out.write('\t');
+            }
+            String campo = campos[i];
+            if (campo == null) {
+                out.write("\\N");
+                continue;
+            }
+            for (int j = 0; j < campo.length(); j++) {
+                char c = campo.charAt(j);
+                switch (c) {
+                    case '\\' -> out.write("\\\\");
+                    case '\t' -> out.write("\\t");
+                    case '\n' -> out.write("\\n");
+                    case '\r' -> out.write("\\r");
+                    default -> out.write(c);
+                }
+            }
+        }
+        out.write('\n');
+    }
+
+    /**
+     * @return Fecha en formato ISO para LOAD DATA, o null
+     */
+    public static String fecha(LocalDate fecha) {
+        return fecha == null ? null : fecha.toString();
+    }
+
+    /**
+     * @return "1" o "0" para una columna BOOLEAN en LOAD DATA
+     */
+    public static String booleano(Boolean valor) {
+        return Boolean.TRUE.equals(valor) ? "1" : "0";
+    }
+
+    /**
+     * Error de LOAD DATA LOCAL deshabilitado en el cliente (allowLoadLocalInfile) o el servidor (local_infile).
+     */
+    static boolean esLocalInfileDeshabilitado(SQLException e) {
+        int codigo = e.getErrorCode();
+        if (codigo == ER_NOT_ALLOWED_COMMAND || codigo == ER_CLIENT_LOCAL_FILES_DISABLED
+                || codigo == ER_LOAD_INFILE_CAPABILITY_DISABLED) {
+            return true;
+        }
+        String mensaje = e.getMessage() == null ? "" : e.getMessage().toLowerCase(Locale.ROOT);
+        return mensaje.contains("local data is disabled") || mensaje.contains("local infile");
+    }
+
+    private static void verificarCantidad(String tabla, int reconciliadas, int cargadas) throws SQLException {
+        if (reconciliadas != cargadas) {
+            throw new SQLException("La reconciliación de IDs de " + tabla + " encontró " + reconciliadas
+                    + " filas de " + cargadas + " cargadas");
+        }
+    }
+
+    private static long queryLong(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Deja en 0 los IDs de las entidades de una carga fallida (insertarBatchTx() o la reconciliación
+     * pueden haberlos asignado antes del rollback).
+     */
+    private static void reiniciarIds(List<Mascota> mascotas, List<Microchip> microchips) {
+        for (Mascota mascota : mascotas) {
+            mascota.setId(0);
+        }
+        for (Microchip microchip : microchips) {
+            microchip.setId(0);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package Dao;
+
+import Config.DatabaseConnection;
+import Config.TransactionManager;
+import Models.Mascota;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Decorador de IMascotaDAO que cachea getById() en la EntityCache compartida.
+ * Los misses se leen del primario (DatabaseConnection.readFromPrimary): una fila atrasada
+ * de una réplica quedaría cacheada todo el TTL y provocaría conflictos de versión.
+ *
+ * Invalidación (write-through):
+ * - actualizar() / actualizarTx(): invalida la mascota (aunque el UPDATE falle, p. ej. por el trigger);
+ *   en actualizarTx(), después del commit (TransactionManager.afterCommit)
+ * - eliminar(): invalida la mascota (soft delete → getById debe devolver null)
+ * - Los cambios de microchips los invalida CachingMicrochipDAO sobre la misma caché
+ *
+ * Las demás operaciones (listados, búsquedas, inserts) se delegan sin caché.
+ * buscarPorCodigoMicrochip() se delega: MascotaDAO tiene su propia caché por codigo.
+ * getMaxId() y streamRange() (exportaciones) se delegan sin caché.
+ */
+public class CachingMascotaDAO extends ForwardingDAO<Mascota, IMascotaDAO> implements IMascotaDAO {
+    private final EntityCache cache;
+
+    /**
+     * @param delegate DAO real de mascotas
+     * @param cache Caché de entidades compartida con CachingMicrochipDAO
+     * @throws IllegalArgumentException si alguna dependencia es null
+     */
+    public CachingMascotaDAO(IMascotaDAO delegate, EntityCache cache) {
+        super(delegate);
+        if (cache == null) {
+            throw new IllegalArgumentException("EntityCache no puede ser null");
+        }
+        this.cache = cache;
+    }
+
+    @Override
+    public Mascota getById(int id) throws Exception {
+        return cache.get(Mascota.class, id, key -> DatabaseConnection.readFromPrimary(() -> delegate.getById(key)), Mascota::new);
+    }
+
+    @Override
+    public void actualizar(Mascota mascota) throws Exception {
+        try {
+            delegate.actualizar(mascota);
+        } finally {
+            cache.invalidate(Mascota.class, mascota.getId());
+        }
+    }
+
+    @Override
+    public void actualizarTx(Mascota mascota, Connection conn) throws Exception {
+        try {
+            delegate.actualizarTx(mascota, conn);
+        } finally {
+            int id = mascota.getId();
+            TransactionManager.afterCommit(conn, () -> cache.invalidate(Mascota.class, id));
+        }
+    }
+
+    @Override
+    public void eliminar(int id) throws Exception {
+        try {
+            delegate.eliminar(id);
+        } finally {
+            cache.invalidate(Mascota.class, id);
+        }
+    }
+
+    @Override
+    public List<Mascota> buscarPorNombreDuenio(String filtro) throws Exception {
+        return delegate.buscarPorNombreDuenio(filtro);
+    }
+
+    @Override
+    public List<Mascota> buscarPorNombreDuenio(String filtro, int offset, int limit) throws Exception {
+        return delegate.buscarPorNombreDuenio(filtro, offset, limit);
+    }
+
+    @Override
+    public Mascota buscarPorCodigoMicrochip(String codigo) throws Exception {
+        return delegate.buscarPorCodigoMicrochip(codigo);
+    }
+
+    @Override
+    public int getMaxId() throws Exception {
+        return delegate.getMaxId();
+    }
+
+    @Override
+    public Stream<Mascota> streamRange(int desdeId, int hastaId) throws Exception {
+        return delegate.streamRange(desdeId, hastaId);
+    }
+}
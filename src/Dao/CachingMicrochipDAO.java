@@ -0,0 +1,88 @@
+package Dao;
+
+import Config.DatabaseConnection;
+import Config.TransactionManager;
+import Models.Mascota;
+import Models.Microchip;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Decorador de IMicrochipDAO que cachea getById() en la EntityCache compartida.
+ * Los misses se leen del primario (DatabaseConnection.readFromPrimary): una fila atrasada
+ * de una réplica quedaría cacheada todo el TTL y provocaría conflictos de versión.
+ *
+ * Invalidación (write-through):
+ * - actualizar() / actualizarTx() / eliminar(): invalida el microchip y toda mascota cacheada
+ *   que lo contenga (MascotaDAO carga el microchip con LEFT JOIN); en actualizarTx(),
+ *   después del commit (TransactionManager.afterCommit)
+ *
+ * buscarPorCodigo() se delega: MicrochipDAO ya tiene su propia caché por codigo.
+ * buscarCodigosExistentes() se delega sin cachear (verificación masiva previa a inserts).
+ */
+public class CachingMicrochipDAO extends ForwardingDAO<Microchip, IMicrochipDAO> implements IMicrochipDAO {
+    private final EntityCache cache;
+
+    /**
+     * @param delegate DAO real de microchips
+     * @param cache Caché de entidades compartida con CachingMascotaDAO
+     * @throws IllegalArgumentException si alguna dependencia es null
+     */
+    public CachingMicrochipDAO(IMicrochipDAO delegate, EntityCache cache) {
+        super(delegate);
+        if (cache == null) {
+            throw new IllegalArgumentException("EntityCache no puede ser null");
+        }
+        this.cache = cache;
+    }
+
+    @Override
+    public Microchip getById(int id) throws Exception {
+        return cache.get(Microchip.class, id, key -> DatabaseConnection.readFromPrimary(() -> delegate.getById(key)), Microchip::new);
+    }
+
+    @Override
+    public void actualizar(Microchip microchip) throws Exception {
+        try {
+            delegate.actualizar(microchip);
+        } finally {
+            invalidate(microchip.getId());
+        }
+    }
+
+    @Override
+    public void actualizarTx(Microchip microchip, Connection conn) throws Exception {
+        try {
+            delegate.actualizarTx(microchip, conn);
+        } finally {
+            int id = microchip.getId();
+            TransactionManager.afterCommit(conn, () -> invalidate(id));
+        }
+    }
+
+    @Override
+    public void eliminar(int id) throws Exception {
+        try {
+            delegate.eliminar(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public Microchip buscarPorCodigo(String codigo) throws Exception {
+        return delegate.buscarPorCodigo(codigo);
+    }
+
+    @Override
+    public Set<String> buscarCodigosExistentes(Collection<String> codigos) throws Exception {
+        return delegate.buscarCodigosExistentes(codigos);
+    }
+
+    private void invalidate(int microchipId) {
+        cache.invalidate(Microchip.class, microchipId);
+        cache.invalidateIf(Mascota.class, (id, mascota) ->
+                mascota.getMicrochip() != null && mascota.getMicrochip().getId() == microchipId);
+    }
+}
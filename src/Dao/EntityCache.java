@@ -0,0 +1,84 @@
+package Dao;
+
+import Config.LocalCache;
+import Config.LocalCache.CacheStats;
+import Models.Base;
+import java.util.function.BiPredicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché de entidades de segundo nivel compartida por los DAOs, clave = (tipo, id).
+ * Usada por los decoradores CachingMascotaDAO y CachingMicrochipDAO para getById().
+ *
+ * Características:
+ * - Una sola caché para todos los tipos: permite invalidar entradas de un tipo
+ *   a partir de cambios en otro (p. ej. actualizar un microchip invalida la
+ *   mascota cacheada que lo contiene)
+ * - Devuelve siempre copias: el caller puede modificar la entidad (como hace
+ *   MenuHandler antes de actualizar) sin alterar la versión cacheada
+ *
+ * Configurable via system properties:
+ * - db.cache.entity.maxSize (10000, 0 = deshabilitada)
+ * - db.cache.entity.ttlMs (30000)
+ * - db.cache.entity.negativeTtlMs (0 = no cachea IDs inexistentes)
+ * - db.cache.entity.policy (LRU | FIFO)
+ */
+public final class EntityCache {
+
+    /**
+     * Clave de la caché: tipo de entidad + ID.
+     */
+    private record EntityKey(Class<?> type, int id) { }
+
+    private final LocalCache<EntityKey, Base> cache;
+
+    /**
+     * Crea la caché leyendo la configuración db.cache.entity.*.
+     */
+    public EntityCache() {
+        this.cache = LocalCache.fromProperties("db.cache.entity", 10_000, 30_000, 0);
+    }
+
+    /**
+     * Obtiene la entidad (tipo, id), cargándola con el loader ante un miss.
+     *
+     * @param type Clase de la entidad
+     * @param id ID de la entidad
+     * @param loader Carga la entidad desde el DAO real (puede devolver null)
+     * @param copier Crea una copia de la entidad (constructor de copia del modelo)
+     * @return Copia de la entidad, o null si no existe
+     * @throws Exception Si el loader falla
+     */
+    public <T extends Base> T get(Class<T> type, int id, LocalCache.Loader<Integer, T> loader,
+                                  UnaryOperator<T> copier) throws Exception {
+        Base cached = cache.get(new EntityKey(type, id), key -> loader.load(key.id()));
+        return cached != null ? copier.apply(type.cast(cached)) : null;
+    }
+
+    /**
+     * Invalida la entrada (tipo, id).
+     */
+    public void invalidate(Class<?> type, int id) {
+        cache.invalidate(new EntityKey(type, id));
+    }
+
+    /**
+     * Invalida todas las entradas del tipo que cumplan la condición.
+     *
+     * @param type Clase de las entidades a evaluar
+     * @param predicate Condición sobre la entidad cacheada
+     */
+    public <T extends Base> void invalidateIf(Class<T> type, BiPredicate<Integer, T> predicate) {
+        cache.invalidateIf((key, value) -> key.type() == type && value != null
+                && predicate.test(key.id(), type.cast(value)));
+    }
+
+    /**
+     * Métricas de la caché (hits, misses, desalojos).
+     *
+     * @return Instantánea de las métricas
+     */
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+}
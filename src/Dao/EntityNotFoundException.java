@@ -0,0 +1,38 @@
+package Dao;
+
+import java.sql.SQLException;
+
+/**
+ * La fila a actualizar o eliminar no existe (o ya está eliminada lógicamente).
+ * La lanzan MascotaDAO y MicrochipDAO en actualizar() y eliminar() cuando el
+ * UPDATE no afecta filas y no hay conflicto de versión.
+ *
+ * Permite a quien la recibe (p. ej. HttpApiServer → 404) distinguirla de un error de BD.
+ *
+ * Extiende SQLException para no cambiar las firmas de los DAOs.
+ */
+public class EntityNotFoundException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final String entidad;
+    private final int id;
+
+    /**
+     * @param mensaje Mensaje para el usuario
+     * @param entidad Nombre de la entidad ("mascota", "microchip")
+     * @param id ID buscado
+     */
+    public EntityNotFoundException(String mensaje, String entidad, int id) {
+        super(mensaje);
+        this.entidad = entidad;
+        this.id = id;
+    }
+
+    public String getEntidad() {
+        return entidad;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,88 @@
+package Dao;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Base para decoradores de GenericDAO: delega cada operación en el DAO envuelto.
+ * Las subclases sobrescriben solo las operaciones que necesitan interceptar
+ * (caché, métricas, etc.) y agregan las de su interfaz específica.
+ *
+ * Patrón: Decorator
+ *
+ * @param <T> Tipo de entidad
+ * @param <D> Tipo del DAO envuelto
+ */
+public abstract class ForwardingDAO<T, D extends GenericDAO<T>> implements GenericDAO<T> {
+    /**
+     * DAO envuelto (el real u otro decorador).
+     */
+    protected final D delegate;
+
+    /**
+     * @param delegate DAO a decorar
+     * @throws IllegalArgumentException si delegate es null
+     */
+    protected ForwardingDAO(D delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("El DAO decorado no puede ser null");
+        }
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void insertar(T entidad) throws Exception {
+        delegate.insertar(entidad);
+    }
+
+    @Override
+    public void insertTx(T entidad, Connection conn) throws Exception {
+        delegate.insertTx(entidad, conn);
+    }
+
+    @Override
+    public void insertarBatch(List<T> entidades) throws Exception {
+        delegate.insertarBatch(entidades);
+    }
+
+    @Override
+    public void insertarBatchTx(List<T> entidades, Connection conn) throws Exception {
+        delegate.insertarBatchTx(entidades, conn);
+    }
+
+    @Override
+    public void actualizar(T entidad) throws Exception {
+        delegate.actualizar(entidad);
+    }
+
+    @Override
+    public void actualizarTx(T entidad, Connection conn) throws Exception {
+        delegate.actualizarTx(entidad, conn);
+    }
+
+    @Override
+    public void eliminar(int id) throws Exception {
+        delegate.eliminar(id);
+    }
+
+    @Override
+    public T getById(int id) throws Exception {
+        return delegate.getById(id);
+    }
+
+    @Override
+    public List<T> getAll() throws Exception {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<T> getPage(int afterId, int limit) throws Exception {
+        return delegate.getPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<T> streamAll() throws Exception {
+        return delegate.streamAll();
+    }
+}
@@ -2,6 +2,7 @@ package Dao;
 
 import java.sql.Connection;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 public interface GenericDAO<T> {
@@ -10,10 +11,18 @@ public interface GenericDAO<T> {
 
     void insertar(T entidad) throws Exception;
     void insertTx(T entidad, Connection conn) throws Exception;
+    // Inserción por lote (addBatch/executeBatch en chunks) en una única transacción; asigna los IDs generados.
+    void insertarBatch(List<T> entidades) throws Exception;
+    void insertarBatchTx(List<T> entidades, Connection conn) throws Exception;
     void actualizar(T entidad)throws Exception;
+    void actualizarTx(T entidad, Connection conn) throws Exception;
     void eliminar(int id)throws Exception;
     T getById(int id)throws Exception;
     List<T> getAll()throws Exception; 
+    // Paginación keyset: hasta 'limit' entidades activas con id > afterId, ordenadas por id.
+    List<T> getPage(int afterId, int limit) throws Exception;
+    // Recorrido perezoso de todas las entidades activas; el Stream retiene la conexión hasta cerrarse.
+    Stream<T> streamAll() throws Exception;
     
 
 }
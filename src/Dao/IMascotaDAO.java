@@ -0,0 +1,17 @@
+package Dao;
+
+import Models.Mascota;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface IMascotaDAO extends GenericDAO<Mascota> {
+    List<Mascota> buscarPorNombreDuenio(String filtro) throws Exception;
+    // Búsqueda paginada (offset/limit); en modo FULLTEXT los resultados vienen ordenados por relevancia.
+    List<Mascota> buscarPorNombreDuenio(String filtro, int offset, int limit) throws Exception;
+    // Mascota activa cuyo microchip activo tiene ese codigo (lectura del escáner), o null.
+    Mascota buscarPorCodigoMicrochip(String codigo) throws Exception;
+    // Mayor id de mascota activa (0 si no hay): límite de los rangos de una exportación.
+    int getMaxId() throws Exception;
+    // Mascotas activas con desdeId <= id <= hastaId, ordenadas por id, en streaming (cerrar el Stream).
+    Stream<Mascota> streamRange(int desdeId, int hastaId) throws Exception;
+}
@@ -1,7 +1,11 @@
 package Dao;
 
 import Models.Microchip;
+import java.util.Collection;
+import java.util.Set;
 
 public interface IMicrochipDAO extends GenericDAO<Microchip> {
     Microchip buscarPorCodigo(String codigo) throws Exception;
+    // Codigos del conjunto que ya existen en la BD (incluye eliminados: la restricción UNIQUE también los cubre).
+    Set<String> buscarCodigosExistentes(Collection<String> codigos) throws Exception;
 }
@@ -0,0 +1,192 @@
+package Dao;
+
+import Config.DaoMetrics;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Base de los decoradores que registran en DaoMetrics cada operación de GenericDAO:
+ * cantidad, latencia, filas (entidades devueltas o escritas) y errores.
+ *
+ * Las operaciones se nombran "prefijo.método" (p. ej. "MascotaDAO.getById").
+ * Se mide lo que ve el servicio: si el DAO envuelto es un decorador de caché,
+ * los aciertos de caché cuentan como llamadas rápidas sin sentencia SQL.
+ *
+ * Filas por operación:
+ * - insertar/insertTx/actualizar/actualizarTx/eliminar: 1 si no hubo excepción
+ * - insertarBatch/insertarBatchTx: tamaño del lote
+ * - getById: 1 o 0 (null); listados y búsquedas: tamaño del resultado
+ * - streamAll/streamRange: se suman al cerrar el Stream (la latencia es solo la de abrirlo)
+ *
+ * Durante la llamada, la operación queda marcada en el hilo (DaoMetrics.enterOperation)
+ * para que las sentencias lentas que genere se atribuyan a ella.
+ *
+ * Patrón: Decorator (sobre ForwardingDAO)
+ *
+ * @param <T> Tipo de entidad
+ * @param <D> Tipo del DAO envuelto
+ */
+public abstract class InstrumentedDAO<T, D extends GenericDAO<T>> extends ForwardingDAO<T, D> {
+    /** Prefijo de los nombres de operación. */
+    private final String prefijo;
+
+    /**
+     * @param delegate DAO a medir
+     * @param prefijo Prefijo de los nombres de operación (p. ej. "MascotaDAO")
+     * @throws IllegalArgumentException si delegate es null o el prefijo está vacío
+     */
+    protected InstrumentedDAO(D delegate, String prefijo) {
+        super(delegate);
+        if (prefijo == null || prefijo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo de métricas no puede estar vacío");
+        }
+        this.prefijo = prefijo;
+    }
+
+    /**
+     * Llamada al DAO envuelto (puede lanzar la misma excepción que la operación).
+     */
+    @FunctionalInterface
+    protected interface DaoCall<R> {
+        R call() throws Exception;
+    }
+
+    /**
+     * Llamada sin resultado al DAO envuelto.
+     */
+    @FunctionalInterface
+    protected interface DaoAction {
+        void run() throws Exception;
+    }
+
+    /**
+     * Ejecuta una operación y registra su latencia, filas y errores.
+     *
+     * @param operacion Nombre del método
+     * @param call Llamada al DAO envuelto
+     * @param filas Cantidad de filas según el resultado
+     * @return Resultado de la llamada
+     * @throws Exception La misma excepción que la llamada (también cuenta como error)
+     */
+    protected <R> R medir(String operacion, DaoCall<R> call, ToLongFunction<R> filas) throws Exception {
+        String nombre = prefijo + "." + operacion;
+        String anterior = DaoMetrics.enterOperation(nombre);
+        long inicio = System.nanoTime();
+        R resultado;
+        try {
+            resultado = call.call();
+        } catch (Exception | Error e) {
+            DaoMetrics.recordOperation(nombre, System.nanoTime() - inicio, 0, true);
+            throw e;
+        } finally {
+            DaoMetrics.exitOperation(anterior);
+        }
+        DaoMetrics.recordOperation(nombre, System.nanoTime() - inicio, filas.applyAsLong(resultado), false);
+        return resultado;
+    }
+
+    /**
+     * Variante de medir() para operaciones void.
+     *
+     * @param operacion Nombre del método
+     * @param action Llamada al DAO envuelto
+     * @param filas Filas a registrar si no hubo excepción
+     * @throws Exception La misma excepción que la llamada
+     */
+    protected void medir(String operacion, DaoAction action, long filas) throws Exception {
+        medir(operacion, () -> {
+            action.run();
+            return null;
+        }, r -> filas);
+    }
+
+    /**
+     * Variante de medir() para recorridos en streaming: registra la apertura y suma
+     * las filas consumidas al cerrar el Stream.
+     *
+     * @param operacion Nombre del método
+     * @param call Llamada al DAO envuelto
+     * @return Stream que cuenta las filas que pasan por él
+     * @throws Exception La misma excepción que la llamada
+     */
+    protected <S> Stream<S> medirStream(String operacion, DaoCall<Stream<S>> call) throws Exception {
+        String nombre = prefijo + "." + operacion;
+        Stream<S> stream = medir(operacion, call, s -> 0);
+        LongAdder filas = new LongAdder();
+        return stream.peek(entidad -> filas.increment())
+                .onClose(() -> DaoMetrics.addOperationRows(nombre, filas.sum()));
+    }
+
+    /**
+     * @return 1 si hay entidad, 0 si es null
+     */
+    protected static long unaFila(Object entidad) {
+        return entidad == null ? 0 : 1;
+    }
+
+    /**
+     * @return Tamaño de la colección (0 si es null)
+     */
+    protected static long tamanio(Collection<?> coleccion) {
+        return coleccion == null ? 0 : coleccion.size();
+    }
+
+    @Override
+    public void insertar(T entidad) throws Exception {
+        medir("insertar", () -> delegate.insertar(entidad), 1);
+    }
+
+    @Override
+    public void insertTx(T entidad, Connection conn) throws Exception {
+        medir("insertTx", () -> delegate.insertTx(entidad, conn), 1);
+    }
+
+    @Override
+    public void insertarBatch(List<T> entidades) throws Exception {
+        medir("insertarBatch", () -> delegate.insertarBatch(entidades), tamanio(entidades));
+    }
+
+    @Override
+    public void insertarBatchTx(List<T> entidades, Connection conn) throws Exception {
+        medir("insertarBatchTx", () -> delegate.insertarBatchTx(entidades, conn), tamanio(entidades));
+    }
+
+    @Override
+    public void actualizar(T entidad) throws Exception {
+        medir("actualizar", () -> delegate.actualizar(entidad), 1);
+    }
+
+    @Override
+    public void actualizarTx(T entidad, Connection conn) throws Exception {
+        medir("actualizarTx", () -> delegate.actualizarTx(entidad, conn), 1);
+    }
+
+    @Override
+    public void eliminar(int id) throws Exception {
+        medir("eliminar", () -> delegate.eliminar(id), 1);
+    }
+
+    @Override
+    public T getById(int id) throws Exception {
+        return medir("getById", () -> delegate.getById(id), InstrumentedDAO::unaFila);
+    }
+
+    @Override
+    public List<T> getAll() throws Exception {
+        return medir("getAll", delegate::getAll, InstrumentedDAO::tamanio);
+    }
+
+    @Override
+    public List<T> getPage(int afterId, int limit) throws Exception {
+        return medir("getPage", () -> delegate.getPage(afterId, limit), InstrumentedDAO::tamanio);
+    }
+
+    @Override
+    public Stream<T> streamAll() throws Exception {
+        return medirStream("streamAll", delegate::streamAll);
+    }
+}
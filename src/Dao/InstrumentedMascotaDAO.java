@@ -0,0 +1,48 @@
+package Dao;
+
+import Models.Mascota;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Decorador de IMascotaDAO que registra cada operación en DaoMetrics ("MascotaDAO.getById", ...).
+ * Va por fuera de CachingMascotaDAO para medir lo que ve el servicio.
+ *
+ * @see InstrumentedDAO
+ */
+public class InstrumentedMascotaDAO extends InstrumentedDAO<Mascota, IMascotaDAO> implements IMascotaDAO {
+
+    /**
+     * @param delegate DAO de mascotas (real o decorado con caché)
+     * @throws IllegalArgumentException si delegate es null
+     */
+    public InstrumentedMascotaDAO(IMascotaDAO delegate) {
+        super(delegate, "MascotaDAO");
+    }
+
+    @Override
+    public List<Mascota> buscarPorNombreDuenio(String filtro) throws Exception {
+        return medir("buscarPorNombreDuenio", () -> delegate.buscarPorNombreDuenio(filtro), InstrumentedDAO::tamanio);
+    }
+
+    @Override
+    public List<Mascota> buscarPorNombreDuenio(String filtro, int offset, int limit) throws Exception {
+        return medir("buscarPorNombreDuenioPaginado", () -> delegate.buscarPorNombreDuenio(filtro, offset, limit),
+                InstrumentedDAO::tamanio);
+    }
+
+    @Override
+    public Mascota buscarPorCodigoMicrochip(String codigo) throws Exception {
+        return medir("buscarPorCodigoMicrochip", () -> delegate.buscarPorCodigoMicrochip(codigo), InstrumentedDAO::unaFila);
+    }
+
+    @Override
+    public int getMaxId() throws Exception {
+        return medir("getMaxId", delegate::getMaxId, id -> 1);
+    }
+
+    @Override
+    public Stream<Mascota> streamRange(int desdeId, int hastaId) throws Exception {
+        return medirStream("streamRange", () -> delegate.streamRange(desdeId, hastaId));
+    }
+}
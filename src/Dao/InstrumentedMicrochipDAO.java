@@ -0,0 +1,32 @@
+package Dao;
+
+import Models.Microchip;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Decorador de IMicrochipDAO que registra cada operación en DaoMetrics ("MicrochipDAO.buscarPorCodigo", ...).
+ * Va por fuera de CachingMicrochipDAO para medir lo que ve el servicio.
+ *
+ * @see InstrumentedDAO
+ */
+public class InstrumentedMicrochipDAO extends InstrumentedDAO<Microchip, IMicrochipDAO> implements IMicrochipDAO {
+
+    /**
+     * @param delegate DAO de microchips (real o decorado con caché)
+     * @throws IllegalArgumentException si delegate es null
+     */
+    public InstrumentedMicrochipDAO(IMicrochipDAO delegate) {
+        super(delegate, "MicrochipDAO");
+    }
+
+    @Override
+    public Microchip buscarPorCodigo(String codigo) throws Exception {
+        return medir("buscarPorCodigo", () -> delegate.buscarPorCodigo(codigo), InstrumentedDAO::unaFila);
+    }
+
+    @Override
+    public Set<String> buscarCodigosExistentes(Collection<String> codigos) throws Exception {
+        return medir("buscarCodigosExistentes", () -> delegate.buscarCodigosExistentes(codigos), InstrumentedDAO::tamanio);
+    }
+}
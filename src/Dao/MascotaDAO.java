@@ -1,6 +1,10 @@
 package Dao;
 
+import Config.DaoMetrics;
 import Config.DatabaseConnection;
+import Config.LocalCache;
+import Config.LocalCache.CacheStats;
+import Config.TransactionManager;
 import Models.Mascota;
 import Models.Microchip;
 import java.sql.Connection;
@@ -11,22 +15,25 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object para la entidad Mascota.
  * Gestiona todas las operaciones de persistencia de mascotas en la base de datos.
  *
  * Características:
- * - Implementa GenericDAO<Mascota> para operaciones CRUD estándar
+ * - Implementa IMascotaDAO para operaciones CRUD estándar
  * - Usa PreparedStatements en TODAS las consultas (protección contra SQL injection)
  * - Maneja LEFT JOIN con microchips para cargar la relación de forma eager
  * - Implementa soft delete (eliminado=TRUE, no DELETE físico)
  * - Proporciona búsquedas especializadas
  * - Soporta transacciones mediante insertTx() (recibe Connection externa)
+ * - Soporta inserciones masivas mediante insertarBatch() (JDBC batch por chunks)
+ * - Búsqueda inversa microchip → mascota con buscarPorCodigoMicrochip() (cacheada)
  *
  * Patrón: DAO con try-with-resources para manejo automático de recursos JDBC
  */
-public class MascotaDAO implements GenericDAO<Mascota> {
+public class MascotaDAO implements IMascotaDAO {
     /**
      * Query de inserción de mascota.
      * Inserta nombre, nombre, especie, raza, fecha de nacimiento, duenio y FK microchip_id por id.
@@ -35,18 +42,26 @@ public class MascotaDAO implements GenericDAO<Mascota> {
     private static final String INSERT_SQL = "INSERT INTO mascotas (nombre, especie, raza, fecha_nacimiento, duenio, microchip_id) VALUES (?, ?, ?, ?, ?, ?)";
  
     /**
-     * Query de actualización de mascota.
-     * Actualiza nombre, nombre, especie, raza, fecha de nacimiento, duenio y FK microchip_id por id.
+     * Query de actualización de mascota (compare-and-set sobre version).
+     * Actualiza nombre, nombre, especie, raza, fecha de nacimiento, duenio y FK microchip_id por id,
+     * solo si la fila sigue en la versión leída, e incrementa la versión.
      * NO actualiza el flag eliminado (solo se modifica en soft delete).
      */
-    private static final String UPDATE_SQL = "UPDATE mascotas SET nombre = ?, especie = ?, raza = ?, fecha_nacimiento = ?, duenio = ?, microchip_id = ? WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE mascotas SET nombre = ?, especie = ?, raza = ?, fecha_nacimiento = ?, duenio = ?, microchip_id = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    /**
+     * Versión actual de una mascota activa.
+     * Solo se consulta cuando UPDATE_SQL no afectó filas, para distinguir conflicto de inexistente.
+     */
+    private static final String SELECT_VERSION_SQL = "SELECT version FROM mascotas WHERE id = ? AND eliminado = FALSE";
 
      /**
      * Query de soft delete.
      * Marca eliminado=TRUE sin borrar físicamente la fila.
      * Preserva integridad referencial y datos históricos.
+     * Incrementa version para que una edición pendiente de la mascota no la reviva.
      */
-    private static final String DELETE_SQL = "UPDATE mascotas SET eliminado = TRUE WHERE id = ?";   
+    private static final String DELETE_SQL = "UPDATE mascotas SET eliminado = TRUE, version = version + 1 WHERE id = ?";   
     
      /**
      * Query para obtener mascota por ID.
@@ -54,11 +69,11 @@ public class MascotaDAO implements GenericDAO<Mascota> {
      * Solo retorna mascotas activas (eliminado=FALSE).
      *
      * Campos del ResultSet:
-     * - Mascota: id, nombre, especie, raza, fecha_nacimiento, duenio, microchip_id
-     * - Microchip (puede ser NULL): codigo, fecha_implantacion, veterinaria
+     * - Mascota: id, nombre, especie, raza, fecha_nacimiento, duenio, microchip_id, version
+     * - Microchip (puede ser NULL): codigo, fecha_implantacion, veterinaria, mc_version
      */
-    private static final String SELECT_BY_ID_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, " +
-            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones" +
+    private static final String SELECT_BY_ID_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, m.version, " +
+            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones, c.version AS mc_version" +
             " FROM mascotas m LEFT JOIN microchips c ON m.microchip_id = c.id " +
             "WHERE m.id = ? AND m.eliminado = FALSE";   
     
@@ -67,10 +82,33 @@ public class MascotaDAO implements GenericDAO<Mascota> {
      * LEFT JOIN con microchip para cargar relaciones.
      * Filtra por eliminado=FALSE (solo mascotas activas).
      */
-    private static final String SELECT_ALL_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, " +
-            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones" +
+    private static final String SELECT_ALL_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, m.version, " +
+            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones, c.version AS mc_version" +
             " FROM mascotas m LEFT JOIN microchips c ON m.microchip_id = c.id " +
             "WHERE m.eliminado = FALSE";
+
+    /**
+     * Query de paginación keyset (cursor por PK).
+     * Mismo JOIN que SELECT_ALL_SQL pero solo trae 'limit' filas con id > afterId.
+     * A diferencia de LIMIT/OFFSET, el costo no crece con el número de página:
+     * MySQL posiciona el índice de la PK directamente en afterId.
+     */
+    private static final String SELECT_PAGE_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, m.version, " +
+            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones, c.version AS mc_version" +
+            " FROM mascotas m LEFT JOIN microchips c ON m.microchip_id = c.id " +
+            "WHERE m.eliminado = FALSE AND m.id > ? ORDER BY m.id LIMIT ?";
+
+    /**
+     * Query de un rango de IDs para las exportaciones en paralelo (un rango por conexión).
+     * Mismo JOIN que SELECT_ALL_SQL, acotado a desdeId &lt;= id &lt;= hastaId y ordenado por la PK:
+     * concatenar los rangos en orden da el mismo orden que un recorrido completo por id.
+     */
+    private static final String SELECT_RANGE_SQL = SELECT_ALL_SQL + " AND m.id >= ? AND m.id <= ? ORDER BY m.id";
+
+    /**
+     * Mayor ID de mascota activa; con el índice (eliminado, id) se resuelve sin recorrer la tabla.
+     */
+    private static final String SELECT_MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM mascotas WHERE eliminado = FALSE";
  
     /**
      * Query de búsqueda por nombre o duenio con LIKE.
@@ -78,20 +116,165 @@ public class MascotaDAO implements GenericDAO<Mascota> {
      * Usa % antes y después del filtro: LIKE '%filtro%'
      * Solo mascotas activas (eliminado=FALSE).
      */
-    private static final String SEARCH_BY_NAME_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, " +
-            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones" +
+    private static final String SEARCH_BY_NAME_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, m.version, " +
+            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones, c.version AS mc_version" +
             " FROM mascotas m LEFT JOIN microchips c ON m.microchip_id = c.id " +
             "WHERE m.eliminado = FALSE AND (m.nombre LIKE ? OR m.duenio LIKE ?)";
+
+    /**
+     * Búsqueda LIKE paginada (modo LIKE).
+     * Orden por id para que las páginas sean estables.
+     */
+    private static final String SEARCH_BY_NAME_PAGE_SQL = SEARCH_BY_NAME_SQL + " ORDER BY m.id LIMIT ? OFFSET ?";
+
+    /**
+     * Búsqueda por nombre o duenio sobre el índice FULLTEXT ft_mascotas_nombre_duenio (modo FULLTEXT).
+     * El índice usa el parser ngram, por lo que la frase "juan" en BOOLEAN MODE
+     * equivale a buscar la subcadena (igual que LIKE '%juan%') sin escanear la tabla,
+     * SIEMPRE que el índice se haya creado sin stopwords (innodb_ft_enable_stopword=OFF,
+     * como hacen script_creacion.sql y V003): con la lista por defecto ngram descarta todo
+     * bigrama que contenga una stopword ("a", "de", "la"...) y "ana", "maria" o "de la"
+     * devolverían menos filas que LIKE. Ver verificarModoBusqueda().
+     * Resultados ordenados por relevancia (más coincidencias primero) y luego por id.
+     *
+     * Parámetros: 1 y 2 = la misma expresión de búsqueda, 3 = LIMIT, 4 = OFFSET
+     */
+    private static final String SEARCH_FULLTEXT_PAGE_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, m.version, " +
+            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones, c.version AS mc_version, " +
+            "MATCH(m.nombre, m.duenio) AGAINST (? IN BOOLEAN MODE) AS relevancia" +
+            " FROM mascotas m LEFT JOIN microchips c ON m.microchip_id = c.id " +
+            "WHERE m.eliminado = FALSE AND MATCH(m.nombre, m.duenio) AGAINST (? IN BOOLEAN MODE) " +
+            "ORDER BY relevancia DESC, m.id LIMIT ? OFFSET ?";
+
+    /**
+     * Query de búsqueda de la mascota dueña de un microchip, por codigo (lectura del escáner).
+     * Un único JOIN resuelto por índices UNIQUE: microchips.codigo (const) → mascotas.microchip_id (eq_ref).
+     * Mismas columnas que SELECT_BY_ID_SQL para reutilizar mapResultSetToMascota().
+     * Solo mascotas y microchips activos.
+     */
+    private static final String SELECT_BY_MICROCHIP_CODIGO_SQL = "SELECT m.id, m.nombre, m.especie, m.raza, m.fecha_nacimiento, m.duenio, m.microchip_id, m.version, " +
+            "c.id AS mc_id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones, c.version AS mc_version" +
+            " FROM microchips c JOIN mascotas m ON m.microchip_id = c.id " +
+            "WHERE c.codigo = ? AND c.eliminado = FALSE AND m.eliminado = FALSE";
+
+    /**
+     * Largo mínimo del filtro para usar FULLTEXT.
+     * Coincide con ngram_token_size por defecto de MySQL (2): filtros más cortos
+     * no generan tokens y se resuelven con LIKE.
+     */
+    private static final int MIN_FULLTEXT_LENGTH = 2;
+
+    /**
+     * Estrategia de búsqueda de buscarPorNombreDuenio().
+     * - LIKE: LIKE '%filtro%' (no requiere índice, escanea la tabla)
+     * - FULLTEXT: índice FULLTEXT con parser ngram (ver script_creacion.sql), con ranking
+     */
+    public enum SearchMode { LIKE, FULLTEXT }
+
+    /** Variables del servidor que deciden las stopwords de un índice FULLTEXT al crearlo. */
+    private static final String STOPWORDS_SQL =
+            "SELECT @@GLOBAL.innodb_ft_enable_stopword, @@GLOBAL.innodb_ft_server_stopword_table";
+
+    /**
+     * Modo de búsqueda. Configurable via -Ddb.search.mode=like|fulltext.
+     * Por defecto LIKE para funcionar en bases creadas antes del índice FULLTEXT.
+     */
+    private static final SearchMode SEARCH_MODE =
+            SearchMode.valueOf(System.getProperty("db.search.mode", "like").trim().toUpperCase());
+
+    /**
+     * @return Modo de búsqueda configurado (db.search.mode)
+     */
+    public static SearchMode getSearchMode() {
+        return SEARCH_MODE;
+    }
+
+    /**
+     * Verifica, en modo FULLTEXT, que el servidor no aplique stopwords a los índices FULLTEXT:
+     * innodb_ft_enable_stopword=OFF, o innodb_ft_server_stopword_table apuntando a una tabla vacía.
+     * Con stopwords, un índice creado o reconstruido (ALTER TABLE, OPTIMIZE) con la configuración
+     * por defecto pierde los bigramas que las contienen y la búsqueda devuelve menos que LIKE.
+     * En modo LIKE no consulta nada.
+     *
+     * Lo llama Main al iniciar, después de las migraciones.
+     *
+     * @param conn Conexión al servidor
+     * @throws IllegalStateException Si el modo es FULLTEXT y las stopwords están activas
+     * @throws SQLException Si hay error de BD
+     */
+    public static void verificarModoBusqueda(Connection conn) throws SQLException {
+        if (SEARCH_MODE != SearchMode.FULLTEXT) {
+            return;
+        }
+        boolean stopwords;
+        String tabla;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(STOPWORDS_SQL)) {
+            rs.next();
+            stopwords = rs.getBoolean(1);
+            tabla = rs.getString(2);
+        }
+        if (!stopwords) {
+            return;
+        }
+        if (tabla != null && !tabla.isBlank()) {
+            // Formato "base/tabla"
+            String[] partes = tabla.split("/", 2);
+            String nombre = partes.length == 2 ? "`" + partes[0] + "`.`" + partes[1] + "`" : "`" + tabla + "`";
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + nombre)) {
+                if (rs.next() && rs.getLong(1) == 0) {
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("db.search.mode=fulltext requiere innodb_ft_enable_stopword=OFF "
+                + "(o innodb_ft_server_stopword_table vacía) en el servidor: con stopwords la búsqueda "
+                + "FULLTEXT omite coincidencias que LIKE encuentra. Configurarlo y reconstruir el índice "
+                + "ft_mascotas_nombre_duenio, o usar -Ddb.search.mode=like");
+    }
+
+    // Nombra las sentencias en DaoMetrics ("MascotaDAO.SELECT_BY_ID_SQL")
+    static {
+        DaoMetrics.registerSqlConstants(MascotaDAO.class);
+    }
+
+    /**
+     * UPDATE parciales por conjunto de campos modificados (columnas en el orden de Mascota.Campo).
+     * Con todos los campos es UPDATE_SQL.
+     */
+    private static final PartialUpdates UPDATES = new PartialUpdates("mascotas",
+            new String[] { "nombre", "especie", "raza", "fecha_nacimiento", "duenio", "microchip_id" },
+            "MascotaDAO.UPDATE_SQL", UPDATE_SQL);
   
     /**
-     * DAO de microchips (actualmente no usado, pero disponible para operaciones futuras).
-     * Inyectado en el constructor por si se necesita coordinar operaciones.
+     * DAO de microchips.
+     * Se usa para suscribirse a sus cambios (ChangeListener) e invalidar codigoCache
+     * cuando un microchip se actualiza o elimina por fuera de este DAO.
      */
     private final MicrochipDAO microchipDAO;
 
+    /**
+     * Caché read-through de buscarPorCodigoMicrochip(), clave = codigoKey(codigo)
+     * (trim, sin acentos y en minúsculas, como compara la collation de microchips.codigo).
+     * Cachea también "sin mascota" (null) con un TTL corto: un chip recién asociado
+     * puede tardar hasta negativeTtlMs en verse si la asociación la hizo otro proceso.
+     *
+     * Configurable via system properties:
+     * - db.cache.mascotaPorCodigo.maxSize (10000, 0 = deshabilitada)
+     * - db.cache.mascotaPorCodigo.ttlMs (60000)
+     * - db.cache.mascotaPorCodigo.negativeTtlMs (1000)
+     * - db.cache.mascotaPorCodigo.policy (LRU | FIFO)
+     *
+     * Se invalida en insertar/insertTx/insertarBatch/actualizar/eliminar de este DAO
+     * y en actualizar/eliminar de MicrochipDAO (via ChangeListener).
+     */
+    private final LocalCache<String, Mascota> codigoCache =
+            LocalCache.fromProperties("db.cache.mascotaPorCodigo", 10_000, 60_000, 1_000);
+
     /**
      * Constructor con inyección de MicrochipDAO.
-     * Valida que la dependencia no sea null (fail-fast).
+     * Valida que la dependencia no sea null (fail-fast) y se suscribe a sus cambios.
      *
      * @param microchipDAO DAO de microchips
      * @throws IllegalArgumentException si microchipDAO es null
@@ -101,6 +284,7 @@ public class MascotaDAO implements GenericDAO<Mascota> {
             throw new IllegalArgumentException("MicrochipDAO no puede ser null");
         }
         this.microchipDAO = microchipDAO;
+        this.microchipDAO.addChangeListener(this::invalidateMicrochip);
     }
     
     /**
@@ -126,6 +310,8 @@ public class MascotaDAO implements GenericDAO<Mascota> {
             setMascotaParameters(stmt, mascota);
             stmt.executeUpdate();
             setGeneratedId(stmt, mascota);
+        } finally {
+            invalidateCodigo(mascota.getMicrochip());
         }
     }
     
@@ -148,35 +334,155 @@ public class MascotaDAO implements GenericDAO<Mascota> {
             setMascotaParameters(stmt, mascota);
             stmt.executeUpdate();
             setGeneratedId(stmt, mascota);
+        } finally {
+            Microchip microchip = mascota.getMicrochip();
+            TransactionManager.afterCommit(conn, () -> invalidateCodigo(microchip));
         }
     }
     
     /**
-     * Actualiza una mascota existente en la base de datos.
-     * Actualiza nombre, especie, raza, fecha_nacimiento, duenio y FK microchip_id.
+     * Inserta un lote de mascotas en una única transacción.
+     * Abre su propia conexión y delega en insertarBatchTx().
+     * Si falla cualquier chunk se hace rollback de todo el lote.
+     *
+     * Los microchips referenciados deben estar ya persistidos (id > 0),
+     * igual que en insertar().
+     *
+     * @param mascotas Mascotas a insertar (sus IDs se asignan al finalizar)
+     * @throws Exception Si falla alguna inserción (no queda ninguna fila del lote)
+     */
+    @Override
+    public void insertarBatch(List<Mascota> mascotas) throws Exception {
+        if (mascotas == null || mascotas.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DatabaseConnection.getConnection();
+             TransactionManager tx = new TransactionManager(conn)) {
+            tx.startTransaction();
+            insertarBatchTx(mascotas, conn);
+            tx.commit();
+        }
+    }
+
+    /**
+     * Inserta un lote de mascotas dentro de una transacción existente.
+     * NO crea ni cierra la conexión (responsabilidad del caller con TransactionManager).
+     *
+     * Flujo por chunk (tamaño DatabaseConnection.getBatchSize()):
+     * 1. addBatch() de cada mascota sobre un único PreparedStatement con RETURN_GENERATED_KEYS
+     * 2. executeBatch() (un round trip, o un INSERT multi-fila con rewriteBatchedStatements=true)
+     * 3. Asigna los IDs generados en el mismo orden de la lista
+     *
+     * @param mascotas Mascotas a insertar
+     * @param conn Conexión transaccional (NO se cierra en este método)
+     * @throws SQLException Si falla el lote o la cantidad de IDs generados no coincide
+     */
+    @Override
+    public void insertarBatchTx(List<Mascota> mascotas, Connection conn) throws SQLException {
+        int batchSize = DatabaseConnection.getBatchSize();
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int from = 0; from < mascotas.size(); from += batchSize) {
+                List<Mascota> chunk = mascotas.subList(from, Math.min(from + batchSize, mascotas.size()));
+                for (Mascota mascota : chunk) {
+                    setMascotaParameters(stmt, mascota);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                setGeneratedIds(stmt, chunk);
+            }
+        } finally {
+            List<Microchip> microchips = mascotas.stream().map(Mascota::getMicrochip).toList();
+            TransactionManager.afterCommit(conn, () -> microchips.forEach(this::invalidateCodigo));
+        }
+    }
+
+    /**
+     * Actualiza una mascota existente en la base de datos (concurrencia optimista).
+     * Escribe solo los campos modificados desde que se leyó (Mascota.isModificado), con la
+     * sentencia de UPDATES para ese conjunto, y solo si la fila sigue en mascota.getVersion();
+     * si lo logra, incrementa la versión del objeto y limpia sus cambios.
+     *
+     * Una mascota que no fue leída de la BD (construida a mano, p. ej. desde la API)
+     * escribe todos los campos (UPDATE_SQL).
      *
      * Validaciones:
-     * - Si rowsAffected == 0 → La mascota no existe o ya está eliminada
-     * @param mascota mascota con los datos actualizados (id debe ser > 0)
-     * @throws SQLException Si la mascota no existe o hay error de BD
+     * - Sin campos modificados → no hay round trip (ni control de versión ni invalidación de cachés)
+     * - Si rowsAffected == 0 y la mascota existe → otro usuario la actualizó antes
+     *   (OptimisticLockException, no se escribe nada)
+     * - Si rowsAffected == 0 y no existe → La mascota no existe o ya está eliminada
+     * @param mascota mascota con los datos actualizados (id debe ser > 0, version la leída)
+     * @throws OptimisticLockException Si la versión no coincide con la de la BD
+     * @throws EntityNotFoundException Si la mascota no existe o ya está eliminada
+     * @throws SQLException Si hay error de BD
      */
     @Override
     public void actualizar(Mascota mascota) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+        if (!mascota.tieneCambios()) {
+            return;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            actualizarTx(mascota, conn);
+        }
+    }
+
+    /**
+     * Igual que actualizar(), dentro de una transacción existente.
+     * NO crea ni cierra la conexión (responsabilidad del caller con TransactionManager).
+     *
+     * IMPORTANTE: la versión del objeto se incrementa y sus cambios se limpian al ejecutar
+     * el UPDATE, antes del commit; el caller guarda el estado con guardarEstado() y, si hace
+     * rollback, lo restaura con restaurarEstado() (si no, un reintento no escribiría nada).
+     *
+     * @param mascota mascota con los datos actualizados (id debe ser > 0, version la leída)
+     * @param conn Conexión transaccional (NO se cierra en este método)
+     * @throws OptimisticLockException Si la versión no coincide con la de la BD
+     * @throws EntityNotFoundException Si la mascota no existe o ya está eliminada
+     * @throws SQLException Si hay error de BD
+     */
+    @Override
+    public void actualizarTx(Mascota mascota, Connection conn) throws Exception {
+        if (!mascota.tieneCambios()) {
+            return;
+        }
+        long campos = camposModificados(mascota);
+        try (PreparedStatement stmt = conn.prepareStatement(UPDATES.sql(campos))) {
 
-            stmt.setString(1, mascota.getNombre());
-            stmt.setString(2, mascota.getEspecie());
-            stmt.setString(3, mascota.getRaza());
-            stmt.setObject(4, mascota.getFechaNacimiento() != null ? java.sql.Date.valueOf(mascota.getFechaNacimiento()) : null, java.sql.Types.DATE);
-            stmt.setString(5, mascota.getDuenio());
-            setMicrochipId(stmt, 6, mascota.getMicrochip());
-            stmt.setInt(7, mascota.getId());
+            int index = 1;
+            for (Mascota.Campo campo : Mascota.Campo.values()) {
+                if ((campos & (1L << campo.ordinal())) == 0) {
+                    continue;
+                }
+                switch (campo) {
+                    case NOMBRE -> stmt.setString(index, mascota.getNombre());
+                    case ESPECIE -> stmt.setString(index, mascota.getEspecie());
+                    case RAZA -> stmt.setString(index, mascota.getRaza());
+                    case FECHA_NACIMIENTO -> stmt.setObject(index, mascota.getFechaNacimiento() != null ? java.sql.Date.valueOf(mascota.getFechaNacimiento()) : null, java.sql.Types.DATE);
+                    case DUENIO -> stmt.setString(index, mascota.getDuenio());
+                    case MICROCHIP -> setMicrochipId(stmt, index, mascota.getMicrochip());
+                }
+                index++;
+            }
+            stmt.setInt(index++, mascota.getId());
+            stmt.setInt(index, mascota.getVersion());
 
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected == 0) {
-                throw new SQLException("No se pudo actualizar la mascota con ID: " + mascota.getId());
+                Integer actual = buscarVersion(conn, mascota.getId());
+                if (actual != null) {
+                    throw new OptimisticLockException("mascota", mascota.getId(), mascota.getVersion(), actual);
+                }
+                throw new EntityNotFoundException("No se pudo actualizar la mascota con ID: " + mascota.getId(), "mascota", mascota.getId());
             }
+            mascota.setVersion(mascota.getVersion() + 1);
+            mascota.limpiarCambios();
+        } finally {
+            // El microchip anterior no se conoce: se invalida por ID de mascota además del codigo nuevo
+            int id = mascota.getId();
+            Microchip microchip = mascota.getMicrochip();
+            TransactionManager.afterCommit(conn, () -> {
+                invalidateMascota(id);
+                invalidateCodigo(microchip);
+            });
         }
     }
     
@@ -190,7 +496,8 @@ public class MascotaDAO implements GenericDAO<Mascota> {
      * IMPORTANTE: NO elimina el microchip asociado.  
      *
      * @param id ID de la mascota a eliminar
-     * @throws SQLException Si la mascota no existe o hay error de BD
+     * @throws EntityNotFoundException Si la mascota no existe o ya está eliminada
+     * @throws SQLException Si hay error de BD
      */
     @Override
     public void eliminar(int id) throws Exception {
@@ -201,8 +508,10 @@ public class MascotaDAO implements GenericDAO<Mascota> {
             int rowsAffected = stmt.executeUpdate();
 
             if (rowsAffected == 0) {
-                throw new SQLException("No se encontró mascota con ID: " + id);
+                throw new EntityNotFoundException("No se encontró mascota con ID: " + id, "mascota", id);
             }
+        } finally {
+            invalidateMascota(id);
         }
     }
     
@@ -216,7 +525,7 @@ public class MascotaDAO implements GenericDAO<Mascota> {
      */
     @Override
     public Mascota getById(int id) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
@@ -245,7 +554,7 @@ public class MascotaDAO implements GenericDAO<Mascota> {
     public List<Mascota> getAll() throws Exception {
         List<Mascota> mascotas = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
@@ -259,11 +568,133 @@ public class MascotaDAO implements GenericDAO<Mascota> {
     }    
     
     /**
-     * Busca mascotas por nombre o duenio con búsqueda flexible (LIKE).
-     * Permite búsqueda parcial: "juan" encuentra "Juan", "María Juana", etc.
+     * Obtiene una página de mascotas activas usando paginación keyset.
+     * Incluye sus microchips mediante LEFT JOIN.
      *
-     * Patrón de búsqueda: LIKE '%filtro%' en nombre O apellido
-     * Búsqueda case-sensitive en MySQL (depende de la collation de la BD).
+     * Uso (recorrer todo sin materializar la tabla):
+     * <pre>
+     * int cursor = 0;
+     * List&lt;Mascota&gt; page;
+     * while (!(page = dao.getPage(cursor, 100)).isEmpty()) {
+     *     // procesar page
+     *     cursor = page.get(page.size() - 1).getId();
+     * }
+     * </pre>
+     *
+     * @param afterId Último ID de la página anterior (0 para la primera página)
+     * @param limit Cantidad máxima de mascotas a retornar
+     * @return Mascotas con id > afterId ordenadas por id (vacía si no hay más)
+     * @throws Exception Si hay error de BD
+     */
+    @Override
+    public List<Mascota> getPage(int afterId, int limit) throws Exception {
+        List<Mascota> mascotas = new ArrayList<>(limit);
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    mascotas.add(mapResultSetToMascota(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error al obtener página de mascotas: " + e.getMessage(), e);
+        }
+        return mascotas;
+    }
+
+    /**
+     * Recorre todas las mascotas activas sin cargarlas en memoria (exportaciones completas).
+     * Usa SELECT_ALL_SQL con un Statement forward-only / read-only y el fetch size
+     * de DatabaseConnection.getStreamFetchSize() para que MySQL envíe las filas en streaming.
+     * Cada fila se mapea con mapResultSetToMascota() recién cuando el Stream la consume.
+     *
+     * IMPORTANTE:
+     * - El Stream retiene la conexión hasta cerrarse: usar siempre try-with-resources
+     * - Mientras el Stream está abierto, esa conexión no admite otras queries
+     *
+     * <pre>
+     * try (Stream&lt;Mascota&gt; mascotas = dao.streamAll()) {
+     *     mascotas.forEach(exportador::escribir);
+     * }
+     * </pre>
+     *
+     * @return Stream perezoso de mascotas activas (cerrarlo libera la conexión)
+     * @throws Exception Si falla la apertura de la consulta
+     */
+    @Override
+    public Stream<Mascota> streamAll() throws Exception {
+        Connection conn = DatabaseConnection.getReadConnection();
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(DatabaseConnection.getStreamFetchSize());
+            rs = stmt.executeQuery(SELECT_ALL_SQL);
+            return ResultSetStreams.stream(conn, stmt, rs, this::mapResultSetToMascota, "mascotas");
+        } catch (SQLException e) {
+            ResultSetStreams.closeQuietly(conn, stmt, rs);
+            throw new Exception("Error al abrir el recorrido de mascotas: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Obtiene el mayor ID de las mascotas activas (límite superior de los rangos de exportación).
+     *
+     * @return Mayor ID activo, o 0 si no hay mascotas activas
+     * @throws Exception Si hay error de BD
+     */
+    @Override
+    public int getMaxId() throws Exception {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_MAX_ID_SQL)) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new Exception("Error al obtener el mayor ID de mascotas: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recorre en streaming las mascotas activas de un rango de IDs, ordenadas por id.
+     * Igual que streamAll() (SELECT_RANGE_SQL, forward-only, fetch size de streaming),
+     * pero cada llamada toma su propia conexión: varios rangos pueden leerse en paralelo.
+     *
+     * IMPORTANTE: el Stream retiene la conexión hasta cerrarse (try-with-resources).
+     *
+     * @param desdeId Primer ID del rango (inclusive)
+     * @param hastaId Último ID del rango (inclusive; el rango es vacío si es menor a desdeId)
+     * @return Stream perezoso de mascotas activas del rango (cerrarlo libera la conexión)
+     * @throws Exception Si falla la apertura de la consulta
+     */
+    @Override
+    public Stream<Mascota> streamRange(int desdeId, int hastaId) throws Exception {
+        Connection conn = DatabaseConnection.getReadConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(SELECT_RANGE_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(DatabaseConnection.getStreamFetchSize());
+            stmt.setInt(1, desdeId);
+            stmt.setInt(2, hastaId);
+            rs = stmt.executeQuery();
+            return ResultSetStreams.stream(conn, stmt, rs, this::mapResultSetToMascota, "mascotas");
+        } catch (SQLException e) {
+            ResultSetStreams.closeQuietly(conn, stmt, rs);
+            throw new Exception("Error al abrir el recorrido de mascotas [" + desdeId + ", " + hastaId + "]: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Busca mascotas por nombre o duenio con búsqueda flexible.
+     * Permite búsqueda parcial: "juan" encuentra "Juan", "María Juana", etc.
+     * Retorna todas las coincidencias (ver la versión paginada para listados grandes).
      *
      * Ejemplo:
      * - filtro = "garcia" → Encuentra mascotas con nombre o duenio que contengan "garcia"
@@ -273,20 +704,55 @@ public class MascotaDAO implements GenericDAO<Mascota> {
      * @throws IllegalArgumentException Si el filtro está vacío
      * @throws SQLException Si hay error de BD
      */
+    @Override
     public List<Mascota> buscarPorNombreDuenio(String filtro) throws SQLException {
+        return buscarPorNombreDuenio(filtro, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Busca mascotas por nombre o duenio, paginado.
+     *
+     * Estrategia según db.search.mode:
+     * - LIKE: LIKE '%filtro%' en nombre O duenio, ordenado por id
+     * - FULLTEXT: MATCH ... AGAINST sobre el índice ngram, ordenado por relevancia.
+     *   Filtros de menos de MIN_FULLTEXT_LENGTH caracteres caen a LIKE.
+     *
+     * Mayúsculas/acentos: ambos modos respetan la collation de la BD
+     * (utf8mb4_0900_ai_ci → insensible a mayúsculas y acentos).
+     *
+     * @param filtro Texto a buscar (no puede estar vacío)
+     * @param offset Cantidad de resultados a saltear (0 para la primera página)
+     * @param limit Cantidad máxima de resultados
+     * @return Página de mascotas que coinciden con el filtro (puede estar vacía)
+     * @throws IllegalArgumentException Si el filtro está vacío
+     * @throws SQLException Si hay error de BD
+     */
+    @Override
+    public List<Mascota> buscarPorNombreDuenio(String filtro, int offset, int limit) throws SQLException {
         if (filtro == null || filtro.trim().isEmpty()) {
             throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
         }
 
+        String termino = filtro.trim();
+        boolean fulltext = SEARCH_MODE == SearchMode.FULLTEXT && termino.length() >= MIN_FULLTEXT_LENGTH;
         List<Mascota> mascotas = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_NAME_SQL)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(fulltext ? SEARCH_FULLTEXT_PAGE_SQL : SEARCH_BY_NAME_PAGE_SQL)) {
 
-            // Construye el patrón LIKE: %filtro%
-            String searchPattern = "%" + filtro + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
+            if (fulltext) {
+                // Frase entre comillas: los n-gramas deben aparecer contiguos (semántica de subcadena)
+                String frase = "\"" + termino.replace("\"", " ") + "\"";
+                stmt.setString(1, frase);
+                stmt.setString(2, frase);
+            } else {
+                // Construye el patrón LIKE: %filtro%
+                String searchPattern = "%" + filtro + "%";
+                stmt.setString(1, searchPattern);
+                stmt.setString(2, searchPattern);
+            }
+            stmt.setInt(3, limit);
+            stmt.setInt(4, offset);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -296,7 +762,126 @@ public class MascotaDAO implements GenericDAO<Mascota> {
         }
         return mascotas;
     }
+
+    /**
+     * Busca la mascota activa que tiene implantado el microchip con ese codigo.
+     * Camino crítico de latencia (lectura de escáner en mostrador): read-through sobre
+     * codigoCache y, ante un miss, un único JOIN por índices UNIQUE (ver SELECT_BY_MICROCHIP_CODIGO_SQL).
+     *
+     * @param codigo Codigo del microchip (se aplica trim)
+     * @return Copia de la mascota con su microchip, o null si no hay mascota activa con ese chip
+     * @throws IllegalArgumentException Si el codigo está vacío
+     * @throws SQLException Si hay error de BD
+     */
+    @Override
+    public Mascota buscarPorCodigoMicrochip(String codigo) throws SQLException {
+        if (codigo == null || codigo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El codigo no puede estar vacío");
+        }
+
+        try {
+            Mascota mascota = codigoCache.get(codigoKey(codigo), this::buscarPorCodigoMicrochipEnBD);
+            return mascota != null ? new Mascota(mascota) : null;
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("Error al buscar mascota por codigo de microchip: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Métricas de la caché de buscarPorCodigoMicrochip() (hits, misses, desalojos).
+     *
+     * @return Instantánea de las métricas
+     */
+    public CacheStats getCodigoMicrochipCacheStats() {
+        return codigoCache.getStats();
+    }
+
+    /**
+     * Query real de buscarPorCodigoMicrochip() (loader de codigoCache).
+     * Lee del primario: el resultado queda cacheado hasta el TTL, y una réplica
+     * atrasada no debe fijarlo.
+     *
+     * @param codigo Codigo ya normalizado con codigoKey()
+     * @return Mascota encontrada, o null si no existe
+     * @throws SQLException Si hay error de BD
+     */
+    private Mascota buscarPorCodigoMicrochipEnBD(String codigo) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_MICROCHIP_CODIGO_SQL)) {
+
+            stmt.setString(1, codigo);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapResultSetToMascota(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Clave de codigoCache: la misma normalización que la caché de MicrochipDAO
+     * (sin mayúsculas ni acentos, como la collation de microchips.codigo).
+     */
+    private static String codigoKey(String codigo) {
+        return MicrochipDAO.codigoKey(codigo);
+    }
+
+    /**
+     * Invalida la entrada de codigoCache del microchip dado.
+     * También la usa BulkLoader después de una carga masiva.
+     */
+    void invalidateCodigo(Microchip microchip) {
+        if (microchip != null && microchip.getCodigo() != null) {
+            codigoCache.invalidate(codigoKey(microchip.getCodigo()));
+        }
+    }
+
+    /**
+     * Invalida toda entrada de codigoCache que apunte a la mascota con ese ID.
+     */
+    private void invalidateMascota(int id) {
+        codigoCache.invalidateIf((clave, cacheada) -> cacheada != null && cacheada.getId() == id);
+    }
+
+    /**
+     * ChangeListener de MicrochipDAO: invalida por ID de microchip y por el codigo nuevo.
+     */
+    private void invalidateMicrochip(int microchipId, String codigo) {
+        codigoCache.invalidateIf((clave, cacheada) ->
+                cacheada != null && cacheada.getMicrochip() != null && cacheada.getMicrochip().getId() == microchipId);
+        if (codigo != null) {
+            codigoCache.invalidate(codigoKey(codigo));
+        }
+    }
     
+    /**
+     * Máscara de los campos a escribir (bit = ordinal de Mascota.Campo).
+     */
+    private static long camposModificados(Mascota mascota) {
+        long campos = 0;
+        for (Mascota.Campo campo : Mascota.Campo.values()) {
+            if (mascota.isModificado(campo)) {
+                campos |= 1L << campo.ordinal();
+            }
+        }
+        return campos;
+    }
+
+    /**
+     * Versión actual de una mascota activa, sobre la misma conexión del UPDATE.
+     *
+     * @return Versión en la BD, o null si la mascota no existe o está eliminada
+     */
+    private Integer buscarVersion(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_VERSION_SQL)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
     /**
      * Setea los parámetros de mascota en un PreparedStatement.
      * Método auxiliar usado por insertar() e insertTx().
@@ -368,7 +953,26 @@ public class MascotaDAO implements GenericDAO<Mascota> {
         }
     }   
     
-        /**
+    /**
+     * Asigna los IDs autogenerados por un executeBatch() a las mascotas del chunk.
+     * El driver devuelve las claves en el mismo orden en que se agregaron al lote.
+     *
+     * @param stmt PreparedStatement que ejecutó el lote con RETURN_GENERATED_KEYS
+     * @param chunk Mascotas del lote, en el orden de addBatch()
+     * @throws SQLException Si la cantidad de IDs generados no coincide con el lote
+     */
+    private void setGeneratedIds(PreparedStatement stmt, List<Mascota> chunk) throws SQLException {
+        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            for (Mascota mascota : chunk) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("La inserción por lote de mascotas falló, faltan IDs generados");
+                }
+                mascota.setId(generatedKeys.getInt(1));
+            }
+        }
+    }
+
+    /**
      * Mapea un ResultSet a un objeto Mascota.
      * Reconstruye la relación con Microchip usando LEFT JOIN.
      *
@@ -380,12 +984,14 @@ public class MascotaDAO implements GenericDAO<Mascota> {
      * - raza → m.raza
      * - fecha_nacimiento → m.fecha_nacimiento
      * - duenio → m.duenio
+     * - version → m.version
      * 
      * Microchip (puede ser NULL si la mascota no tiene microchip):
      * - id → c.id AS mc_id
      * - codigo → c.codigo
      * - fecha_implantacion → c.fecha_implantacion
      * - veterinaria → c.veterinaria
+     * - version → c.version AS mc_version
      *
      * Lógica de NULL en LEFT JOIN:
      * - Si microchip_id es NULL → mascota.microchip = null (correcto)
@@ -404,6 +1010,7 @@ public class MascotaDAO implements GenericDAO<Mascota> {
         java.sql.Date fn = rs.getDate("fecha_nacimiento");
         mascota.setFechaNacimiento(fn != null ? fn.toLocalDate() : null);
          mascota.setDuenio(rs.getString("duenio"));
+        mascota.setVersion(rs.getInt("version"));
          
         // Manejo correcto de LEFT JOIN: verificar si microchip_id es NULL
         int microchipId = rs.getInt("microchip_id");
@@ -415,10 +1022,13 @@ public class MascotaDAO implements GenericDAO<Mascota> {
             microchip.setFechaImplantacion(fi != null ? fi.toLocalDate() : null);
             microchip.setVeterinaria(rs.getString("veterinaria"));
             microchip.setObservaciones(rs.getString("observaciones"));
+            microchip.setVersion(rs.getInt("mc_version"));
+            microchip.limpiarCambios();
             mascota.setMicrochip(microchip);
             
         }
 
+        mascota.limpiarCambios();
         return mascota;
     }
 }
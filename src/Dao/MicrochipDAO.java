@@ -1,14 +1,27 @@
 package Dao;
 
+import Config.DaoMetrics;
 import Config.DatabaseConnection;
+import Config.LocalCache;
+import Config.LocalCache.CacheStats;
+import Config.TransactionManager;
 import Models.Microchip;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object para la entidad Microchip.
@@ -20,6 +33,9 @@ import java.util.List;
  * - Implementa soft delete (eliminado=TRUE, no DELETE físico)
  * - NO maneja relaciones (Microchip es entidad independiente)
  * - Soporta transacciones mediante insertTx() (recibe Connection externa)
+ * - Soporta inserciones masivas mediante insertarBatch() (JDBC batch por chunks)
+ * - Cachea buscarPorCodigo() (read-through, LRU + TTL, incluye resultados negativos)
+ * - Verifica unicidad de muchos codigos con buscarCodigosExistentes() (IN por chunks)
  *
  * Diferencias con MascotaDAO:
  * - Más simple: NO tiene LEFT JOINs (Microchip no tiene relaciones cargadas)
@@ -39,36 +55,50 @@ public class MicrochipDAO implements IMicrochipDAO {
     private static final String INSERT_SQL = "INSERT INTO microchips (codigo, fecha_implantacion, veterinaria, observaciones) VALUES (?, ?, ?, ?)";
     
     /**
-     * Query de actualización de microchip.
-     * Actualiza codigo, fecha_implantacion, veterinaria y observaciones por id.
+     * Query de actualización de microchip (compare-and-set sobre version).
+     * Actualiza codigo, fecha_implantacion, veterinaria y observaciones por id,
+     * solo si la fila sigue en la versión leída, e incrementa la versión.
      * NO actualiza el flag eliminado (solo se modifica en soft delete).
      */
-    private static final String UPDATE_SQL = "UPDATE microchips SET codigo= ?, fecha_implantacion= ?, veterinaria= ?, observaciones= ? WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE microchips SET codigo = ?, fecha_implantacion = ?, veterinaria = ?, observaciones = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    /**
+     * Versión actual de un microchip activo.
+     * Solo se consulta cuando UPDATE_SQL no afectó filas, para distinguir conflicto de inexistente.
+     */
+    private static final String SELECT_VERSION_SQL = "SELECT version FROM microchips WHERE id = ? AND eliminado = FALSE";
  
     /**
      * Query de soft delete.
      * Marca eliminado=TRUE sin borrar físicamente la fila.
      * Preserva integridad referencial y datos históricos.
+     * Incrementa version para que una edición pendiente del microchip no lo reviva.
      *
      * ⚠️ PELIGRO: Este método NO verifica si hay mascotas asociadas.
      * Puede dejar FKs huérfanas (mascotas.microchip_id apuntando a microchip eliminado).
      * ALTERNATIVA SEGURA: MascotaServiceImpl.eliminarMicrochipDeMascota()
      */
-    private static final String DELETE_SQL = "UPDATE microchips SET eliminado = TRUE WHERE id = ?";    
+    private static final String DELETE_SQL = "UPDATE microchips SET eliminado = TRUE, version = version + 1 WHERE id = ?";    
     
     /**
      * Query para obtener microchip por ID.
      * Solo retorna microchips activos (eliminado=FALSE).
-     * SELECT * es aceptable aquí porque Microchip tiene solo 6 columnas.
+     * SELECT * es aceptable aquí porque Microchip tiene solo 7 columnas.
      */
     private static final String SELECT_BY_ID_SQL = "SELECT * FROM microchips WHERE id = ? AND eliminado = FALSE";
 
     /**
      * Query para obtener todos los microchips activos.
      * Filtra por eliminado=FALSE (solo microchips activos).
-     * SELECT * es aceptable aquí porque Microchip tiene solo 6 columnas.
+     * SELECT * es aceptable aquí porque Microchip tiene solo 7 columnas.
      */
     private static final String SELECT_ALL_SQL = "SELECT * FROM microchips WHERE eliminado = FALSE";
+
+    /**
+     * Query de paginación keyset (cursor por PK).
+     * Trae hasta 'limit' microchips activos con id > afterId, ordenados por id.
+     */
+    private static final String SELECT_PAGE_SQL = "SELECT * FROM microchips WHERE eliminado = FALSE AND id > ? ORDER BY id LIMIT ?";
    
     /**
      * Query de búsqueda exacta por codigo.
@@ -76,9 +106,80 @@ public class MicrochipDAO implements IMicrochipDAO {
      * Usado por MicrochiperviceImpl.validateCodigoUnique() para verificar unicidad.
      * Solo microchips activos (eliminado=FALSE).
      */
-    private static final String SEARCH_BY_CODIGO_SQL = "SELECT c.id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones " +            
+    private static final String SEARCH_BY_CODIGO_SQL = "SELECT c.id, c.codigo, c.fecha_implantacion, c.veterinaria, c.observaciones, c.version " +            
             "FROM microchips c " +
             "WHERE c.eliminado = FALSE AND c.codigo = ?";
+
+    /** Cantidad de codigos por query en buscarCodigosExistentes(). */
+    private static final int CODIGOS_CHUNK_SIZE = 500;
+
+    /**
+     * Query de existencia de un conjunto de codigos (usa el índice UNIQUE de codigo).
+     * Siempre con CODIGOS_CHUNK_SIZE placeholders: el último chunk se completa repitiendo
+     * un codigo, así la SQL es una sola y se reutiliza en la caché de sentencias del pool.
+     * NO filtra eliminado: la restricción UNIQUE incluye los microchips eliminados.
+     */
+    private static final String SELECT_CODIGOS_IN_SQL = "SELECT codigo FROM microchips WHERE codigo IN ("
+            + String.join(", ", Collections.nCopies(CODIGOS_CHUNK_SIZE, "?")) + ")";
+
+    /** Marcas combinantes (acentos) que quedan separadas tras Normalizer.Form.NFD; ver codigoKey(). */
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    // Nombra las sentencias en DaoMetrics ("MicrochipDAO.SEARCH_BY_CODIGO_SQL")
+    static {
+        DaoMetrics.registerSqlConstants(MicrochipDAO.class);
+    }
+
+    /**
+     * UPDATE parciales por conjunto de campos modificados (columnas en el orden de Microchip.Campo).
+     * Con todos los campos es UPDATE_SQL.
+     */
+    private static final PartialUpdates UPDATES = new PartialUpdates("microchips",
+            new String[] { "codigo", "fecha_implantacion", "veterinaria", "observaciones" },
+            "MicrochipDAO.UPDATE_SQL", UPDATE_SQL);
+
+    /**
+     * Caché read-through de buscarPorCodigo(), clave = codigoKey(codigo)
+     * (trim, sin acentos y en minúsculas, como compara la collation de microchips.codigo).
+     * Cachea también "no existe" (null) para acelerar validateCodigoUnique() en inserts.
+     *
+     * Configurable via system properties:
+     * - db.cache.codigo.maxSize (10000, 0 = deshabilitada)
+     * - db.cache.codigo.ttlMs (60000)
+     * - db.cache.codigo.negativeTtlMs (5000)
+     *
+     * Se invalida en insertar/insertTx/insertarBatch/actualizar/eliminar de este DAO.
+     * Cambios hechos por fuera de este DAO (otra instancia, SQL manual) se reflejan al vencer el TTL.
+     */
+    private final LocalCache<String, Microchip> codigoCache =
+            LocalCache.fromProperties("db.cache.codigo", 10_000, 60_000, 5_000);
+
+    /**
+     * Aviso de que un microchip existente cambió (actualizar) o se eliminó.
+     * Permite a otros DAOs invalidar sus propias cachés que contienen datos del microchip
+     * (p. ej. MascotaDAO.buscarPorCodigoMicrochip).
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        /**
+         * @param microchipId ID del microchip modificado
+         * @param codigo Codigo nuevo (actualizar) o null (eliminar)
+         */
+        void microchipChanged(int microchipId, String codigo);
+    }
+
+    /** Suscriptores a cambios de microchips (ver addChangeListener). */
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registra un suscriptor que se notifica después de cada actualizar()/eliminar(),
+     * haya tenido éxito o no (igual que la invalidación de codigoCache).
+     *
+     * @param listener Suscriptor a notificar
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
     /**
      * Inserta un microchip en la base de datos (versión sin transacción).
      * Crea su propia conexión y la cierra automáticamente.
@@ -107,6 +208,8 @@ public class MicrochipDAO implements IMicrochipDAO {
             stmt.executeUpdate();
 
             setGeneratedId(stmt, microchip);
+        } finally {
+            invalidateCodigo(microchip);
         }
     }
 
@@ -129,35 +232,150 @@ public class MicrochipDAO implements IMicrochipDAO {
             setMicrochipParameters(stmt, microchip);
             stmt.executeUpdate();
             setGeneratedId(stmt, microchip); 
+        } finally {
+            String codigo = microchip.getCodigo();
+            TransactionManager.afterCommit(conn, () -> invalidateCodigo(codigo));
         }
     }
     
     /**
-     * Actualiza un microchip existente en la base de datos.
-     * Actualiza codigo, fecha_implantacion, veterinaria, observaciones
+     * Inserta un lote de microchips en una única transacción.
+     * Abre su propia conexión y delega en insertarBatchTx().
+     * Si falla cualquier chunk (por ejemplo, codigo duplicado) se hace rollback de todo el lote.
+     *
+     * @param microchips Microchips a insertar (sus IDs se asignan al finalizar)
+     * @throws Exception Si falla alguna inserción (no queda ninguna fila del lote)
+     */
+    @Override
+    public void insertarBatch(List<Microchip> microchips) throws Exception {
+        if (microchips == null || microchips.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DatabaseConnection.getConnection();
+             TransactionManager tx = new TransactionManager(conn)) {
+            tx.startTransaction();
+            insertarBatchTx(microchips, conn);
+            tx.commit();
+        }
+    }
+
+    /**
+     * Inserta un lote de microchips dentro de una transacción existente.
+     * NO crea ni cierra la conexión (responsabilidad del caller con TransactionManager).
+     *
+     * Flujo por chunk (tamaño DatabaseConnection.getBatchSize()):
+     * 1. addBatch() de cada microchip sobre un único PreparedStatement con RETURN_GENERATED_KEYS
+     * 2. executeBatch() (un round trip, o un INSERT multi-fila con rewriteBatchedStatements=true)
+     * 3. Asigna los IDs generados en el mismo orden de la lista
+     *
+     * @param microchips Microchips a insertar
+     * @param conn Conexión transaccional (NO se cierra en este método)
+     * @throws SQLException Si falla el lote o la cantidad de IDs generados no coincide
+     */
+    @Override
+    public void insertarBatchTx(List<Microchip> microchips, Connection conn) throws SQLException {
+        int batchSize = DatabaseConnection.getBatchSize();
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int from = 0; from < microchips.size(); from += batchSize) {
+                List<Microchip> chunk = microchips.subList(from, Math.min(from + batchSize, microchips.size()));
+                for (Microchip microchip : chunk) {
+                    setMicrochipParameters(stmt, microchip);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                setGeneratedIds(stmt, chunk);
+            }
+        } finally {
+            List<String> codigos = microchips.stream().map(Microchip::getCodigo).toList();
+            TransactionManager.afterCommit(conn, () -> codigos.forEach(this::invalidateCodigo));
+        }
+    }
+
+    /**
+     * Actualiza un microchip existente en la base de datos (concurrencia optimista).
+     * Escribe solo los campos modificados desde que se leyó (Microchip.isModificado), y solo
+     * si la fila sigue en microchip.getVersion(); si lo logra, incrementa la versión del objeto
+     * y limpia sus cambios. Un microchip que no fue leído de la BD escribe todos los campos.
      *
      * Validaciones:
-     * - Si rowsAffected == 0 → El microchip no existe o ya está eliminado
+     * - Sin campos modificados → no hay round trip (ni control de versión ni invalidación de cachés)
+     * - Si rowsAffected == 0 y el microchip existe → otro usuario lo actualizó antes
+     *   (OptimisticLockException, no se escribe nada)
+     * - Si rowsAffected == 0 y no existe → El microchip no existe o ya está eliminado
      *
-     * @param microchip Microchip con los datos actualizados (id debe ser > 0)
-     * @throws SQLException Si el microchip no existe o hay error de BD
+     * @param microchip Microchip con los datos actualizados (id debe ser > 0, version la leída)
+     * @throws OptimisticLockException Si la versión no coincide con la de la BD
+     * @throws EntityNotFoundException Si el microchip no existe o ya está eliminado
+     * @throws SQLException Si hay error de BD
      */
     @Override
     public void actualizar(Microchip microchip) throws SQLException {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+        if (!microchip.tieneCambios()) {
+            return;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            actualizarTx(microchip, conn);
+        }
+    }
 
-            stmt.setString(1, microchip.getCodigo());
-            stmt.setObject(2, microchip.getFechaImplantacion() != null ? 
-                    java.sql.Date.valueOf(microchip.getFechaImplantacion()) : null, java.sql.Types.DATE);
-            stmt.setString(3, microchip.getVeterinaria());
-            stmt.setString(4, microchip.getObservaciones());
-            stmt.setInt(5, microchip.getId());
+    /**
+     * Igual que actualizar(), dentro de una transacción existente.
+     * NO crea ni cierra la conexión (responsabilidad del caller con TransactionManager).
+     *
+     * IMPORTANTE: la versión del objeto se incrementa y sus cambios se limpian al ejecutar
+     * el UPDATE, antes del commit; el caller guarda el estado con guardarEstado() y, si hace
+     * rollback, lo restaura con restaurarEstado() (si no, un reintento no escribiría nada).
+     *
+     * @param microchip Microchip con los datos actualizados (id debe ser > 0, version la leída)
+     * @param conn Conexión transaccional (NO se cierra en este método)
+     * @throws OptimisticLockException Si la versión no coincide con la de la BD
+     * @throws EntityNotFoundException Si el microchip no existe o ya está eliminado
+     * @throws SQLException Si hay error de BD
+     */
+    @Override
+    public void actualizarTx(Microchip microchip, Connection conn) throws SQLException {
+        if (!microchip.tieneCambios()) {
+            return;
+        }
+        long campos = camposModificados(microchip);
+        try (PreparedStatement stmt = conn.prepareStatement(UPDATES.sql(campos))) {
+
+            int index = 1;
+            for (Microchip.Campo campo : Microchip.Campo.values()) {
+                if ((campos & (1L << campo.ordinal())) == 0) {
+                    continue;
+                }
+                switch (campo) {
+                    case CODIGO -> stmt.setString(index, microchip.getCodigo());
+                    case FECHA_IMPLANTACION -> stmt.setObject(index, microchip.getFechaImplantacion() != null ?
+                            java.sql.Date.valueOf(microchip.getFechaImplantacion()) : null, java.sql.Types.DATE);
+                    case VETERINARIA -> stmt.setString(index, microchip.getVeterinaria());
+                    case OBSERVACIONES -> stmt.setString(index, microchip.getObservaciones());
+                }
+                index++;
+            }
+            stmt.setInt(index++, microchip.getId());
+            stmt.setInt(index, microchip.getVersion());
             
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected == 0) {
-                throw new SQLException("No se pudo actualizar el microchip con ID: " + microchip.getId());
+                Integer actual = buscarVersion(conn, microchip.getId());
+                if (actual != null) {
+                    throw new OptimisticLockException("microchip", microchip.getId(), microchip.getVersion(), actual);
+                }
+                throw new EntityNotFoundException("No se pudo actualizar el microchip con ID: " + microchip.getId(), "microchip", microchip.getId());
             }
+            microchip.setVersion(microchip.getVersion() + 1);
+            microchip.limpiarCambios();
+        } finally {
+            // El codigo anterior no se conoce: se invalida por ID además del codigo nuevo
+            int id = microchip.getId();
+            String codigo = microchip.getCodigo();
+            TransactionManager.afterCommit(conn, () -> {
+                invalidateById(id);
+                invalidateCodigo(codigo);
+                notifyChange(id, codigo);
+            });
         }
     }
 
@@ -186,7 +404,8 @@ public class MicrochipDAO implements IMicrochipDAO {
      * - Se quiere eliminar microchips en lote (administración)
      *
      * @param id ID del microchip a eliminar
-     * @throws SQLException Si el microchip no existe o hay error de BD
+     * @throws EntityNotFoundException Si el microchip no existe o ya está eliminado
+     * @throws SQLException Si hay error de BD
      */
     @Override
     public void eliminar(int id) throws SQLException {
@@ -197,8 +416,11 @@ public class MicrochipDAO implements IMicrochipDAO {
             int rowsAffected = stmt.executeUpdate();
 
             if (rowsAffected == 0) {
-                throw new SQLException("No se encontró microchip con ID: " + id);
+                throw new EntityNotFoundException("No se encontró microchip con ID: " + id, "microchip", id);
             }
+        } finally {
+            invalidateById(id);
+            notifyChange(id, null);
         }
     }
 
@@ -212,7 +434,7 @@ public class MicrochipDAO implements IMicrochipDAO {
      */
     @Override
     public Microchip getById(int id) throws SQLException {
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
@@ -241,7 +463,7 @@ public class MicrochipDAO implements IMicrochipDAO {
     public List<Microchip> getAll() throws SQLException {
         List<Microchip> microchips = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
@@ -253,6 +475,95 @@ public class MicrochipDAO implements IMicrochipDAO {
         return microchips;
     }
 
+    /**
+     * Obtiene una página de microchips activos usando paginación keyset.
+     *
+     * @param afterId Último ID de la página anterior (0 para la primera página)
+     * @param limit Cantidad máxima de microchips a retornar
+     * @return Microchips con id > afterId ordenados por id (vacía si no hay más)
+     * @throws SQLException Si hay error de BD
+     */
+    @Override
+    public List<Microchip> getPage(int afterId, int limit) throws SQLException {
+        List<Microchip> microchips = new ArrayList<>(limit);
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PAGE_SQL)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    microchips.add(mapResultSetToMicrochip(rs));
+                }
+            }
+        }
+        return microchips;
+    }
+
+    /**
+     * Recorre todos los microchips activos sin cargarlos en memoria (exportaciones completas).
+     * Usa SELECT_ALL_SQL con un Statement forward-only / read-only y el fetch size
+     * de DatabaseConnection.getStreamFetchSize() para que MySQL envíe las filas en streaming.
+     * Cada fila se mapea con mapResultSetToMicrochip() recién cuando el Stream la consume.
+     *
+     * IMPORTANTE:
+     * - El Stream retiene la conexión hasta cerrarse: usar siempre try-with-resources
+     * - Mientras el Stream está abierto, esa conexión no admite otras queries
+     *
+     * <pre>
+     * try (Stream&lt;Microchip&gt; microchips = dao.streamAll()) {
+     *     microchips.forEach(exportador::escribir);
+     * }
+     * </pre>
+     *
+     * @return Stream perezoso de microchips activos (cerrarlo libera la conexión)
+     * @throws SQLException Si falla la apertura de la consulta
+     */
+    @Override
+    public Stream<Microchip> streamAll() throws SQLException {
+        Connection conn = DatabaseConnection.getReadConnection();
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(DatabaseConnection.getStreamFetchSize());
+            rs = stmt.executeQuery(SELECT_ALL_SQL);
+            return ResultSetStreams.stream(conn, stmt, rs, this::mapResultSetToMicrochip, "microchips");
+        } catch (SQLException e) {
+            ResultSetStreams.closeQuietly(conn, stmt, rs);
+            throw e;
+        }
+    }
+
+    /**
+     * Máscara de los campos a escribir (bit = ordinal de Microchip.Campo).
+     */
+    private static long camposModificados(Microchip microchip) {
+        long campos = 0;
+        for (Microchip.Campo campo : Microchip.Campo.values()) {
+            if (microchip.isModificado(campo)) {
+                campos |= 1L << campo.ordinal();
+            }
+        }
+        return campos;
+    }
+
+    /**
+     * Versión actual de un microchip activo, sobre la misma conexión del UPDATE.
+     *
+     * @return Versión en la BD, o null si el microchip no existe o está eliminado
+     */
+    private Integer buscarVersion(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_VERSION_SQL)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
     /**
      * Setea los parámetros de microchip en un PreparedStatement.
      * Método auxiliar usado por insertar() e insertTx().
@@ -299,6 +610,26 @@ public class MicrochipDAO implements IMicrochipDAO {
             }
         }
     }
+
+    /**
+     * Asigna los IDs autogenerados por un executeBatch() a los microchips del chunk.
+     * El driver devuelve las claves en el mismo orden en que se agregaron al lote.
+     *
+     * @param stmt PreparedStatement que ejecutó el lote con RETURN_GENERATED_KEYS
+     * @param chunk Microchips del lote, en el orden de addBatch()
+     * @throws SQLException Si la cantidad de IDs generados no coincide con el lote
+     */
+    private void setGeneratedIds(PreparedStatement stmt, List<Microchip> chunk) throws SQLException {
+        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            for (Microchip microchip : chunk) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("La inserción por lote de microchips falló, faltan IDs generados");
+                }
+                microchip.setId(generatedKeys.getInt(1));
+            }
+        }
+    }
+
     /**
      * Mapea un ResultSet a un objeto Microchip.
      * Reconstruye el objeto usando el constructor completo.
@@ -309,6 +640,7 @@ public class MicrochipDAO implements IMicrochipDAO {
      * - fecha_implementacion → fecha_implementacion
      * - veterinaria - veterinaria
      * - observaciones - observaciones
+     * - version - version
      *
      * Nota: El campo eliminado NO se mapea porque las queries filtran por eliminado=FALSE,
      * garantizando que solo se retornan microchips activos.
@@ -319,25 +651,109 @@ public class MicrochipDAO implements IMicrochipDAO {
      */
     private Microchip mapResultSetToMicrochip(ResultSet rs) throws SQLException {
         java.sql.Date fi = rs.getDate("fecha_implantacion");
-        return new Microchip(
+        Microchip microchip = new Microchip(
             rs.getInt("id"),
             rs.getString("codigo"),
             fi != null ? fi.toLocalDate() : null,
             rs.getString("veterinaria"),
             rs.getString("observaciones")
         );
+        microchip.setVersion(rs.getInt("version"));
+        microchip.limpiarCambios();
+        return microchip;
     } 
     
     
+    /**
+     * Busca un microchip activo por codigo exacto.
+     * Read-through sobre codigoCache: solo consulta la BD ante un miss o entrada vencida.
+     *
+     * @param codigo Codigo a buscar (se aplica trim)
+     * @return Copia del microchip encontrado, o null si no existe o está eliminado
+     * @throws IllegalArgumentException Si el codigo está vacío
+     * @throws SQLException Si hay error de BD
+     */
+    @Override
     public Microchip buscarPorCodigo(String codigo) throws SQLException {
         if (codigo == null || codigo.trim().isEmpty()) {
             throw new IllegalArgumentException("El codigo no puede estar vacío");
         }
 
+        try {
+            Microchip microchip = codigoCache.get(codigoKey(codigo), this::buscarPorCodigoEnBD);
+            return microchip != null ? new Microchip(microchip) : null;
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("Error al buscar microchip por codigo: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Devuelve cuáles de los codigos dados ya existen en la BD.
+     * Reemplaza N llamadas a buscarPorCodigo() por ceil(N / 500) queries con IN.
+     *
+     * No usa codigoCache: en cargas masivas casi todos los codigos son nuevos
+     * y llenarían la caché de entradas negativas.
+     *
+     * @param codigos Codigos a verificar (se aplica trim; null y vacíos se ignoran)
+     * @return Codigos existentes tal como están guardados en la BD (puede diferir en mayúsculas
+     *         por la collation case-insensitive); vacío si no hay ninguno
+     * @throws SQLException Si hay error de BD
+     */
+    @Override
+    public Set<String> buscarCodigosExistentes(Collection<String> codigos) throws SQLException {
+        List<String> pendientes = new ArrayList<>();
+        for (String codigo : codigos) {
+            if (codigo != null && !codigo.trim().isEmpty()) {
+                pendientes.add(codigo.trim());
+            }
+        }
+        Set<String> existentes = new HashSet<>();
+        if (pendientes.isEmpty()) {
+            return existentes;
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_CODIGOS_IN_SQL)) {
+            for (int from = 0; from < pendientes.size(); from += CODIGOS_CHUNK_SIZE) {
+                List<String> chunk = pendientes.subList(from, Math.min(from + CODIGOS_CHUNK_SIZE, pendientes.size()));
+                for (int i = 0; i < CODIGOS_CHUNK_SIZE; i++) {
+                    stmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        existentes.add(rs.getString("codigo"));
+                    }
+                }
+            }
+        }
+        return existentes;
+    }
+
+    /**
+     * Métricas de la caché de buscarPorCodigo() (hits, misses, desalojos).
+     *
+     * @return Instantánea de las métricas
+     */
+    public CacheStats getCodigoCacheStats() {
+        return codigoCache.getStats();
+    }
+
+    /**
+     * Query real de buscarPorCodigo() (loader de codigoCache).
+     * Lee del primario: el resultado (también "no existe", que usa validateCodigoUnique())
+     * queda cacheado hasta el TTL, y una réplica atrasada no debe fijarlo.
+     *
+     * @param codigo Codigo ya normalizado con codigoKey()
+     * @return Microchip encontrado, o null si no existe o está eliminado
+     * @throws SQLException Si hay error de BD
+     */
+    private Microchip buscarPorCodigoEnBD(String codigo) throws SQLException {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_CODIGO_SQL)) {
 
-            stmt.setString(1, codigo.trim());
+            stmt.setString(1, codigo);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -347,4 +763,44 @@ public class MicrochipDAO implements IMicrochipDAO {
         }
         return null;
     }
+
+    /**
+     * Invalida la entrada de codigoCache del codigo del microchip (incluye resultados negativos).
+     * También la usa BulkLoader después de una carga masiva.
+     */
+    void invalidateCodigo(Microchip microchip) {
+        if (microchip != null) {
+            invalidateCodigo(microchip.getCodigo());
+        }
+    }
+
+    private void invalidateCodigo(String codigo) {
+        if (codigo != null) {
+            codigoCache.invalidate(codigoKey(codigo));
+        }
+    }
+
+    /**
+     * Invalida toda entrada de codigoCache que apunte al microchip con ese ID.
+     */
+    private void invalidateById(int id) {
+        codigoCache.invalidateIf((codigo, cacheado) -> cacheado != null && cacheado.getId() == id);
+    }
+
+    /**
+     * Clave de codigoCache: "ABC-1 ", "abc-1" y "ábc-1" son el mismo microchip para la BD
+     * (collation utf8mb4_0900_ai_ci: sin distinguir mayúsculas ni acentos).
+     * Descompone (NFD) y quita las marcas combinantes antes de pasar a minúsculas.
+     * También la usa MascotaDAO para su caché por codigo.
+     */
+    static String codigoKey(String codigo) {
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(codigo.trim(), Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    private void notifyChange(int id, String codigo) {
+        for (ChangeListener listener : changeListeners) {
+            listener.microchipChanged(id, codigo);
+        }
+    }
 }
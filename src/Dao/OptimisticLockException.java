@@ -0,0 +1,53 @@
+package Dao;
+
+import java.sql.SQLException;
+
+/**
+ * Conflicto de concurrencia optimista: la fila cambió desde que se leyó la entidad.
+ * La lanzan MascotaDAO.actualizar() y MicrochipDAO.actualizar() cuando el UPDATE
+ * con "WHERE id = ? AND version = ?" no afecta filas pero la fila sigue existiendo.
+ *
+ * Quien la recibe debe volver a leer la entidad y decidir: reaplicar el cambio
+ * (ver Service.OptimisticRetry) o informar al usuario que otro la modificó.
+ *
+ * Extiende SQLException para no cambiar las firmas de los DAOs.
+ */
+public class OptimisticLockException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final String entidad;
+    private final int id;
+    private final int versionEsperada;
+    private final int versionActual;
+
+    /**
+     * @param entidad Nombre de la entidad ("mascota", "microchip")
+     * @param id ID de la fila
+     * @param versionEsperada Versión que traía la entidad
+     * @param versionActual Versión encontrada en la BD
+     */
+    public OptimisticLockException(String entidad, int id, int versionEsperada, int versionActual) {
+        super("Conflicto de versión en " + entidad + " con ID " + id + " (versión " + versionEsperada
+                + ", actual " + versionActual + "): hubo otra modificación, vuelva a cargar los datos");
+        this.entidad = entidad;
+        this.id = id;
+        this.versionEsperada = versionEsperada;
+        this.versionActual = versionActual;
+    }
+
+    public String getEntidad() {
+        return entidad;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getVersionEsperada() {
+        return versionEsperada;
+    }
+
+    public int getVersionActual() {
+        return versionActual;
+    }
+}
@@ -0,0 +1,81 @@
+package Dao;
+
+import Config.DaoMetrics;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caché de sentencias UPDATE parciales de un DAO: una por cada conjunto de columnas modificadas.
+ *
+ * El conjunto se expresa como máscara de bits (bit i = columna i, en el orden del UPDATE completo).
+ * Cada sentencia se arma la primera vez que se pide y se reutiliza: el texto es siempre el mismo
+ * para el mismo conjunto, así también lo reutiliza la caché de sentencias preparadas del pool.
+ * Con todas las columnas, la sentencia es exactamente la constante UPDATE_SQL del DAO.
+ *
+ * Forma: "UPDATE tabla SET col = ?, ..., version = version + 1 WHERE id = ? AND version = ?"
+ */
+final class PartialUpdates {
+    private final String tabla;
+    private final String[] columnas;
+    private final String nombre;
+    private final AtomicReferenceArray<String> sentencias;
+
+    /**
+     * @param tabla Tabla a actualizar
+     * @param columnas Columnas en el orden del enum Campo de la entidad
+     * @param nombre Nombre base para DaoMetrics (p. ej. "MascotaDAO.UPDATE_SQL")
+     * @param updateCompleto UPDATE_SQL del DAO: debe coincidir con la sentencia de todas las columnas
+     * @throws IllegalStateException Si la sentencia completa generada no coincide con updateCompleto
+     */
+    PartialUpdates(String tabla, String[] columnas, String nombre, String updateCompleto) {
+        this.tabla = tabla;
+        this.columnas = columnas.clone();
+        this.nombre = nombre;
+        this.sentencias = new AtomicReferenceArray<>(1 << columnas.length);
+        if (!sql(todas()).equals(updateCompleto)) {
+            throw new IllegalStateException(nombre + " no coincide con la sentencia generada: " + sql(todas()));
+        }
+    }
+
+    /**
+     * @return Máscara con todas las columnas
+     */
+    long todas() {
+        return (1L << columnas.length) - 1;
+    }
+
+    /**
+     * Sentencia UPDATE para un conjunto de columnas.
+     *
+     * @param mascara Columnas a escribir (distinta de 0)
+     * @return Texto SQL; parámetros: columnas en orden, id, version
+     */
+    String sql(long mascara) {
+        int i = (int) mascara;
+        String sql = sentencias.get(i);
+        if (sql == null) {
+            sql = generar(i);
+            if (!sentencias.compareAndSet(i, null, sql)) {
+                sql = sentencias.get(i);
+            }
+        }
+        return sql;
+    }
+
+    private String generar(int mascara) {
+        if (mascara <= 0 || mascara >= sentencias.length()) {
+            throw new IllegalArgumentException("Conjunto de columnas inválido para " + tabla + ": " + mascara);
+        }
+        StringJoiner set = new StringJoiner(", ");
+        StringJoiner nombres = new StringJoiner(",", "(", ")");
+        for (int c = 0; c < columnas.length; c++) {
+            if ((mascara & (1 << c)) != 0) {
+                set.add(columnas[c] + " = ?");
+                nombres.add(columnas[c]);
+            }
+        }
+        String sql = "UPDATE " + tabla + " SET " + set + ", version = version + 1 WHERE id = ? AND version = ?";
+        DaoMetrics.registerSql(mascara == todas() ? nombre : nombre + nombres, sql);
+        return sql;
+    }
+}
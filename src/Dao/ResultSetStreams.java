@@ -0,0 +1,86 @@
+package Dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Utilidad para exponer un ResultSet abierto como Stream perezoso.
+ * Usada por los streamAll() de MascotaDAO y MicrochipDAO.
+ *
+ * Características:
+ * - Cada fila se mapea recién cuando el consumidor la pide (tryAdvance)
+ * - Al cerrar el Stream se cierran ResultSet, Statement y Connection (en ese orden)
+ * - Las SQLException durante el recorrido se relanzan como IllegalStateException
+ *   (los Streams no admiten checked exceptions)
+ *
+ * IMPORTANTE: El Stream DEBE cerrarse (try-with-resources), de lo contrario
+ * la conexión queda retenida.
+ */
+final class ResultSetStreams {
+
+    /**
+     * Mapeo de la fila actual de un ResultSet a una entidad.
+     * Equivalente a los métodos privados mapResultSetTo*() de los DAOs.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private ResultSetStreams() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Envuelve un ResultSet en un Stream secuencial, ordenado y no paralelizable.
+     *
+     * @param conn Conexión dueña del Statement (se cierra con el Stream)
+     * @param stmt Statement que produjo el ResultSet (se cierra con el Stream)
+     * @param rs ResultSet posicionado antes de la primera fila
+     * @param mapper Función de mapeo fila → entidad
+     * @param entidad Nombre de la entidad para los mensajes de error
+     * @return Stream perezoso de entidades
+     */
+    static <T> Stream<T> stream(Connection conn, Statement stmt, ResultSet rs, RowMapper<T> mapper, String entidad) {
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Error al recorrer " + entidad + ": " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> closeQuietly(conn, stmt, rs));
+    }
+
+    /**
+     * Cierra los recursos JDBC en orden inverso a su apertura.
+     * Los errores de cierre se reportan por System.err y no interrumpen el cierre del resto.
+     */
+    static void closeQuietly(Connection conn, Statement stmt, ResultSet rs) {
+        for (AutoCloseable resource : new AutoCloseable[] { rs, stmt, conn }) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Error al cerrar recurso JDBC: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package Main;
 
+import Config.DaoMetrics;
+import Config.DatabaseConnection;
+import Dao.CachingMascotaDAO;
+import Dao.CachingMicrochipDAO;
+import Dao.EntityCache;
+import Dao.IMascotaDAO;
+import Dao.IMicrochipDAO;
+import Dao.InstrumentedMascotaDAO;
+import Dao.InstrumentedMicrochipDAO;
 import Dao.MascotaDAO;
 import Dao.MicrochipDAO;
-import Models.Microchip;
 import Service.MascotaServiceImpl;
 import Service.MicrochipServiceImpl;
 import java.util.Scanner;
@@ -70,14 +78,13 @@ public class AppMenu {
     }
 
     /**
-     * Punto de entrada de la aplicación Java.
-     * Crea instancia de AppMenu y ejecuta el menú principal.
+     * Punto de entrada desde el IDE: delega en Main.main(), que aplica las migraciones
+     * pendientes antes de crear AppMenu y ejecutar el menú principal.
      *
-     * @param args Argumentos de línea de comandos (no usados)
+     * @param args Argumentos de línea de comandos (vacío para el menú; ver Main)
      */
     public static void main(String[] args) {
-        AppMenu app = new AppMenu();
-        app.run();
+        Main.main(args);
     }
 
     /**
@@ -90,7 +97,7 @@ public class AppMenu {
      *    c. Convierte a int (puede lanzar NumberFormatException)
      *    d. Procesa opción con processOption()
      * 2. Si el usuario ingresa texto no numérico: Muestra mensaje de error y continúa
-     * 3. Cuando running==false (opción 0): Sale del loop y cierra Scanner
+     * 3. Cuando running==false (opción 0): Sale del loop, cierra Scanner y el pool de conexiones
      *
      * Manejo de errores:
      * - NumberFormatException: Captura entrada no numérica (ej: "abc")
@@ -111,6 +118,7 @@ public class AppMenu {
             }
         }
         scanner.close();
+        DatabaseConnection.shutdown();
     }
 
     /**
@@ -169,8 +177,11 @@ public class AppMenu {
      * Orden de creación (bottom-up desde la capa más baja):
      * 1. MicrochipDAO: Sin dependencias, acceso directo a BD
      * 2. MascotaDAO: Depende de MicrochipDAO (inyectado en constructor)
-     * 3. MicrochipServiceImpl: Depende de MicrochipDAO
-     * 4. MascotaServiceImpl: Depende de MascotaDAO y MicrochipServiceImpl
+     * 3. EntityCache + decoradores CachingMicrochipDAO / CachingMascotaDAO:
+     *    cachean getById() con invalidación en actualizar/eliminar
+     *    (si DaoMetrics está activo, envueltos en InstrumentedMicrochipDAO / InstrumentedMascotaDAO)
+     * 4. MicrochipServiceImpl: Depende de IMicrochipDAO (decorado)
+     * 5. MascotaServiceImpl: Depende de IMascotaDAO (decorado) y MicrochipServiceImpl
      *
      * Arquitectura resultante (4 capas):
      * Main (AppMenu, MenuHandler)
@@ -189,14 +200,22 @@ public class AppMenu {
      * - Para eliminar microchips de forma segura (eliminarMicrochipDeMascota)
      *
      * Patrón: Factory Method para construcción de dependencias
+     * Estático y package-private para que Main reutilice el mismo ensamblado
+     * en los modos por línea de comandos (p. ej. importación CSV).
      *
      * @return MascotaServiceImpl completamente inicializado con todas sus dependencias
      */
-    private MascotaServiceImpl createMascotaService() {
+    static MascotaServiceImpl createMascotaService() {
         MicrochipDAO microchipDAO = new MicrochipDAO();
-        Microchip microchip = new Microchip();
         MascotaDAO mascotaDAO = new MascotaDAO(microchipDAO);
-        MicrochipServiceImpl microchipService = new MicrochipServiceImpl(microchipDAO);
-        return new MascotaServiceImpl(mascotaDAO, microchipService);
+        EntityCache entityCache = new EntityCache();
+        IMicrochipDAO cachedMicrochipDAO = new CachingMicrochipDAO(microchipDAO, entityCache);
+        IMascotaDAO cachedMascotaDAO = new CachingMascotaDAO(mascotaDAO, entityCache);
+        if (DaoMetrics.isEnabled()) {
+            cachedMicrochipDAO = new InstrumentedMicrochipDAO(cachedMicrochipDAO);
+            cachedMascotaDAO = new InstrumentedMascotaDAO(cachedMascotaDAO);
+        }
+        MicrochipServiceImpl microchipService = new MicrochipServiceImpl(cachedMicrochipDAO);
+        return new MascotaServiceImpl(cachedMascotaDAO, microchipService);
     }
 }
\ No newline at end of file
@@ -0,0 +1,419 @@
+package Main;
+
+import Models.Mascota;
+import Models.Microchip;
+import Service.MascotaServiceImpl;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Importación masiva de mascotas (con microchip opcional) desde un archivo CSV.
+ * Pensada para dar de alta un refugio completo sin pasar por el menú fila por fila.
+ *
+ * Formato (UTF-8, primera línea = encabezado, separador ','):
+ * nombre,especie,raza,fecha_nacimiento,duenio,codigo,fecha_implantacion,veterinaria,observaciones
+ * - Fechas en formato ISO (yyyy-MM-dd); vacías → NULL
+ * - Campos entre comillas dobles si contienen ',' ("" para una comilla literal)
+ * - Si todas las columnas del microchip están vacías, la mascota se importa sin microchip
+ *
+ * Flujo (productor / consumidor):
+ * 1. Un hilo productor lee el archivo, parsea cada línea y la valida con las mismas reglas
+ *    del menú (MascotaServiceImpl.validateMascota / MicrochipServiceImpl.validateMicrochip)
+ * 2. Las filas pasan por una cola acotada (el productor se frena si la BD va más lenta)
+ * 3. El hilo principal agrupa las filas válidas en lotes de import.batchSize y los escribe con
+ *    MascotaServiceImpl.insertarBatch() (una transacción por lote, JDBC batch en los DAOs)
+ * 4. Antes de cada lote, los codigos de microchip se verifican en bloque
+ *    (MicrochipServiceImpl.validateCodigosUnique) y se rechazan los existentes o repetidos
+ * 5. Si aun así un lote falla, se reintentan sus filas de a una con insertar()
+ *    para aislar las culpables; el resto del lote se importa igual
+ * 6. Las filas rechazadas se escriben en el archivo de rechazos (línea original + columna "error"),
+ *    que puede corregirse y volver a importarse
+ *
+ * Errores de conexión (SQLState 08, timeout del pool) abortan la importación:
+ * los lotes ya confirmados quedan en la BD.
+ *
+ * Uso: java Main.Main import mascotas.csv [rechazos.csv]
+ * - import.batchSize (1000): filas por transacción
+ */
+public final class CsvImporter {
+    /** Columnas esperadas en el encabezado, en orden. */
+    static final List<String> COLUMNAS = List.of("nombre", "especie", "raza", "fecha_nacimiento", "duenio",
+            "codigo", "fecha_implantacion", "veterinaria", "observaciones");
+
+    /** Período de los reportes de progreso por consola. */
+    private static final long PROGRESS_INTERVAL_MS = 5_000;
+
+    /** Marca de fin de archivo que el productor encola al terminar. */
+    private static final Fila FIN = new Fila(0, null, null, null);
+
+    private final MascotaServiceImpl mascotaService;
+    private final int batchSize;
+
+    /**
+     * @param mascotaService Servicio usado para validar e insertar
+     * @param batchSize Filas por transacción (mayor a 0)
+     * @throws IllegalArgumentException Si el servicio es null o batchSize no es positivo
+     */
+    public CsvImporter(MascotaServiceImpl mascotaService, int batchSize) {
+        if (mascotaService == null) {
+            throw new IllegalArgumentException("MascotaServiceImpl no puede ser null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0");
+        }
+        this.mascotaService = mascotaService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Punto de entrada del comando "import" (invocado desde Main).
+     *
+     * @param args ["import", archivo.csv, (opcional) rechazos.csv]
+     * @return Código de salida: 0 sin rechazos, 1 con rechazos, 2 si la importación falló
+     */
+    static int run(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: java Main.Main import <archivo.csv> [rechazos.csv]");
+            return 2;
+        }
+        Path csv = Path.of(args[1]);
+        Path rechazos = args.length > 2 ? Path.of(args[2]) : csv.resolveSibling(csv.getFileName() + ".rechazos.csv");
+        try {
+            CsvImporter importer = new CsvImporter(AppMenu.createMascotaService(),
+                    Integer.getInteger("import.batchSize", 1000));
+            ImportStats stats = importer.importar(csv, rechazos);
+            System.out.println(stats);
+            if (stats.rechazadas() > 0) {
+                System.out.println("Filas rechazadas en: " + rechazos);
+                return 1;
+            }
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Error en la importación: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Importa el archivo completo.
+     *
+     * @param csv Archivo CSV de entrada
+     * @param rechazos Archivo donde se escriben las filas rechazadas (se sobrescribe)
+     * @return Estadísticas de la importación
+     * @throws IllegalArgumentException Si el encabezado no coincide con COLUMNAS
+     * @throws IOException Si falla la lectura del CSV o la escritura de rechazos
+     * @throws Exception Si hay un error de conexión con la BD (se aborta)
+     */
+    public ImportStats importar(Path csv, Path rechazos) throws Exception {
+        long inicio = System.currentTimeMillis();
+        BlockingQueue<Fila> cola = new ArrayBlockingQueue<>(batchSize * 4);
+        AtomicReference<Exception> errorProductor = new AtomicReference<>();
+        Contadores contadores = new Contadores();
+
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(rechazos, StandardCharsets.UTF_8)) {
+
+            String encabezado = leerEncabezado(reader);
+            writer.write(encabezado + ",error");
+            writer.newLine();
+
+            Thread productor = new Thread(() -> producir(reader, cola, errorProductor), "csv-import-parser");
+            productor.setDaemon(true);
+            productor.start();
+
+            try {
+                List<Fila> lote = new ArrayList<>(batchSize);
+                long proximoReporte = inicio + PROGRESS_INTERVAL_MS;
+                Fila fila;
+                while ((fila = cola.take()) != FIN) {
+                    contadores.leidas++;
+                    if (fila.error != null) {
+                        rechazar(writer, fila, fila.error, contadores);
+                    } else {
+                        lote.add(fila);
+                        if (lote.size() >= batchSize) {
+                            escribirLote(lote, writer, contadores);
+                        }
+                    }
+                    if (System.currentTimeMillis() >= proximoReporte) {
+                        reportarProgreso(contadores, inicio);
+                        proximoReporte += PROGRESS_INTERVAL_MS;
+                    }
+                }
+                escribirLote(lote, writer, contadores);
+            } finally {
+                productor.interrupt();
+                productor.join();
+            }
+        }
+
+        if (errorProductor.get() != null) {
+            throw errorProductor.get();
+        }
+        return new ImportStats(contadores.leidas, contadores.importadas, contadores.rechazadas,
+                contadores.lotesFallidos, System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Lee y verifica el encabezado (ignora un BOM UTF-8 inicial).
+     *
+     * @return Encabezado tal como aparece en el archivo
+     */
+    private static String leerEncabezado(BufferedReader reader) throws IOException {
+        String encabezado = reader.readLine();
+        if (encabezado == null) {
+            throw new IllegalArgumentException("El archivo CSV está vacío");
+        }
+        if (encabezado.startsWith("\uFEFF")) {
+            encabezado = encabezado.substring(1);
+        }
+        List<String> columnas = parseLine(encabezado).stream().map(c -> c.trim().toLowerCase()).toList();
+        if (!columnas.equals(COLUMNAS)) {
+            throw new IllegalArgumentException("Encabezado inválido. Se esperaba: " + String.join(",", COLUMNAS));
+        }
+        return encabezado;
+    }
+
+    /**
+     * Cuerpo del hilo productor: parsea y valida cada línea y la encola.
+     * Siempre encola FIN al terminar (salvo interrupción por abandono del consumidor).
+     */
+    private void producir(BufferedReader reader, BlockingQueue<Fila> cola, AtomicReference<Exception> error) {
+        try {
+            String linea;
+            long numero = 1;
+            while ((linea = reader.readLine()) != null) {
+                numero++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                cola.put(parsearFila(numero, linea));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException e) {
+            error.set(e);
+        }
+        try {
+            cola.put(FIN);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Convierte una línea en Mascota y la valida.
+     *
+     * @return Fila válida, o fila con el motivo de rechazo
+     */
+    private Fila parsearFila(long numero, String linea) {
+        try {
+            List<String> campos = parseLine(linea);
+            if (campos.size() != COLUMNAS.size()) {
+                throw new IllegalArgumentException("Se esperaban " + COLUMNAS.size() + " columnas y hay " + campos.size());
+            }
+            Microchip microchip = null;
+            if (campos.subList(5, 9).stream().anyMatch(c -> !c.isBlank())) {
+                microchip = new Microchip(0, campos.get(5).trim(), fecha(campos.get(6), "fecha_implantacion"),
+                        vacioANull(campos.get(7)), vacioANull(campos.get(8)));
+                mascotaService.getMicrochipService().validateMicrochip(microchip);
+            }
+            Mascota mascota = new Mascota(0, campos.get(0).trim(), campos.get(1).trim(), vacioANull(campos.get(2)),
+                    fecha(campos.get(3), "fecha_nacimiento"), campos.get(4).trim(), microchip);
+            mascotaService.validateMascota(mascota);
+            return new Fila(numero, linea, mascota, null);
+        } catch (IllegalArgumentException e) {
+            return new Fila(numero, linea, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe un lote en una transacción; si falla, reintenta sus filas de a una.
+     * Antes de escribir rechaza las filas cuyo codigo ya existe o se repite en el lote
+     * (MicrochipServiceImpl.validateCodigosUnique: una query IN en lugar de un SELECT por fila),
+     * así un duplicado no obliga a reintentar el lote completo.
+     * Vacía la lista al terminar.
+     */
+    private void escribirLote(List<Fila> lote, BufferedWriter writer, Contadores contadores) throws Exception {
+        rechazarCodigosDuplicados(lote, writer, contadores);
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            mascotaService.insertarBatch(lote.stream().map(f -> f.mascota).toList());
+            contadores.importadas += lote.size();
+        } catch (Exception e) {
+            abortarSiEsConexion(e);
+            contadores.lotesFallidos++;
+            for (Fila fila : lote) {
+                try {
+                    mascotaService.insertar(fila.mascota);
+                    contadores.importadas++;
+                } catch (Exception filaError) {
+                    abortarSiEsConexion(filaError);
+                    rechazar(writer, fila, filaError.getMessage(), contadores);
+                }
+            }
+        }
+        lote.clear();
+    }
+
+    /**
+     * Quita del lote (y escribe como rechazadas) las filas con codigo de microchip en conflicto.
+     */
+    private void rechazarCodigosDuplicados(List<Fila> lote, BufferedWriter writer, Contadores contadores) throws Exception {
+        List<Fila> conMicrochip = lote.stream().filter(f -> f.mascota.getMicrochip() != null).toList();
+        if (conMicrochip.isEmpty()) {
+            return;
+        }
+        List<String> motivos = mascotaService.getMicrochipService().validateCodigosUnique(
+                conMicrochip.stream().map(f -> f.mascota.getMicrochip().getCodigo()).toList());
+        for (int i = 0; i < conMicrochip.size(); i++) {
+            if (motivos.get(i) != null) {
+                lote.remove(conMicrochip.get(i));
+                rechazar(writer, conMicrochip.get(i), motivos.get(i), contadores);
+            }
+        }
+    }
+
+    /**
+     * Relanza los errores de conexión: reintentar fila por fila no tiene sentido sin BD.
+     */
+    private static void abortarSiEsConexion(Exception e) throws Exception {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTimeoutException
+                    || (t instanceof SQLException sqle && sqle.getSQLState() != null && sqle.getSQLState().startsWith("08"))) {
+                throw e;
+            }
+        }
+    }
+
+    private static void rechazar(BufferedWriter writer, Fila fila, String motivo, Contadores contadores) throws IOException {
+        contadores.rechazadas++;
+        writer.write(fila.texto + "," + quote("línea " + fila.numero + ": " + motivo));
+        writer.newLine();
+    }
+
+    private static void reportarProgreso(Contadores contadores, long inicio) {
+        double segundos = (System.currentTimeMillis() - inicio) / 1000.0;
+        System.out.printf("[IMPORT] %d filas leídas, %d importadas, %d rechazadas (%.0f filas/s)%n",
+                contadores.leidas, contadores.importadas, contadores.rechazadas, contadores.leidas / segundos);
+    }
+
+    /**
+     * Separa una línea CSV en campos (RFC 4180, sin saltos de línea dentro de comillas).
+     *
+     * @param linea Línea del archivo
+     * @return Campos en orden (las comillas envolventes se quitan y "" se convierte en ")
+     * @throws IllegalArgumentException Si hay comillas sin cerrar
+     */
+    static List<String> parseLine(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private static String quote(String valor) {
+        return "\"" + String.valueOf(valor).replace("\"", "\"\"") + "\"";
+    }
+
+    private static String vacioANull(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    private static LocalDate fecha(String valor, String columna) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(valor.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida en " + columna + ": " + valor.trim() + " (formato yyyy-MM-dd)");
+        }
+    }
+
+    /**
+     * Línea leída del CSV: válida (mascota != null) o rechazada (error != null).
+     */
+    private static final class Fila {
+        private final long numero;
+        private final String texto;
+        private final Mascota mascota;
+        private final String error;
+
+        private Fila(long numero, String texto, Mascota mascota, String error) {
+            this.numero = numero;
+            this.texto = texto;
+            this.mascota = mascota;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Contadores de progreso (solo los modifica el hilo consumidor).
+     */
+    private static final class Contadores {
+        private long leidas;
+        private long importadas;
+        private long rechazadas;
+        private long lotesFallidos;
+    }
+
+    /**
+     * Resultado de una importación.
+     */
+    public record ImportStats(long leidas, long importadas, long rechazadas, long lotesFallidos, long elapsedMs) {
+        /**
+         * @return Filas leídas por segundo
+         */
+        public double filasPorSegundo() {
+            return elapsedMs == 0 ? 0.0 : leidas * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Importación finalizada: %d filas leídas, %d importadas, %d rechazadas, "
+                    + "%d lotes reintentados fila por fila, %.1f s (%.0f filas/s)",
+                    leidas, importadas, rechazadas, lotesFallidos, elapsedMs / 1000.0, filasPorSegundo());
+        }
+    }
+}
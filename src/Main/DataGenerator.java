@@ -0,0 +1,538 @@
+package Main;
+
+import Dao.BulkLoader;
+import Dao.MascotaDAO;
+import Dao.MicrochipDAO;
+import Models.Mascota;
+import Models.Microchip;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generador de datos sintéticos para pruebas de carga y planes de ejecución a escala
+ * (script_datos_test.sql tiene 15 filas por tabla).
+ *
+ * Determinista: la misma semilla, cantidad y configuración producen exactamente las mismas
+ * filas, en el mismo orden, tanto en la BD como en archivos. Las fechas se calculan hacia
+ * atrás desde generate.referenceDate (fija) y no desde la fecha actual.
+ *
+ * Distribuciones (por mascota):
+ * - especie: perros y gatos ~90%, luego conejos, aves, hámsters, hurones y tortugas
+ * - raza: según la especie, con "Mestizo"/"Común Europeo" dominantes; ~8% sin raza
+ * - nombre: ~80 nombres frecuentes con distribución de Zipf (pocos nombres muy repetidos)
+ * - duenio: cada duenio tiene una cantidad geométrica de mascotas (media 1.6), registradas
+ *   de forma consecutiva; nombres y apellidos también Zipf, así que hay homónimos
+ * - fecha_nacimiento: edad con cola exponencial (media ~5 años, máximo 20); ~2% NULL
+ * - microchip (generate.chipRatio): implantado entre 2 y 8 meses después del nacimiento,
+ *   en una veterinaria elegida con Zipf; ~25% con observaciones
+ * - eliminada (generate.deletedRatio): la mascota y su microchip quedan con eliminado = TRUE,
+ *   como en script_datos_test.sql
+ * - microchips libres (generate.freeChipRatio por mascota): stock sin implantar, sin fecha
+ *   ni veterinaria
+ * Los codigos siguen el formato ISO 11784 de 15 dígitos ("985" + 12 dígitos); son únicos
+ * dentro de una generación y cambian con la semilla.
+ *
+ * Salidas:
+ * - BD: BulkLoader.cargar() por lotes de generate.batchSize (LOAD DATA LOCAL INFILE, o inserts
+ *   por lotes si el cliente o el servidor no lo permiten)
+ * - Archivos: microchips.tsv, mascotas.tsv y cargar.sql con LOAD DATA LOCAL INFILE
+ *   (formato por defecto de LOAD DATA: tabulador, '\N' = NULL). Los IDs de los archivos son
+ *   relativos: cargar.sql les suma el MAX(id) actual, así que pueden cargarse en tablas con datos
+ *
+ * Uso: java Main.Main generate &lt;cantidad&gt; [directorio]
+ * - cantidad: mascotas a generar; admite sufijos k y m (500k, 2m)
+ * - directorio: si se indica, escribe los archivos ahí en lugar de insertar en la BD
+ * - generate.seed (42), generate.chipRatio (0.7), generate.deletedRatio (0.08),
+ *   generate.freeChipRatio (0.05), generate.batchSize (50000), generate.referenceDate (2025-12-31)
+ */
+public final class DataGenerator {
+
+    /** Período de los reportes de progreso por consola. */
+    private static final long PROGRESS_INTERVAL_MS = 5_000;
+
+    /**
+     * Multiplicador impar y no divisible por 5: permuta los números de 12 dígitos (codigos únicos).
+     * Menor a 2^32 para que secuencia * multiplicador no desborde un long (secuencia &lt; 2^31).
+     */
+    private static final long CODIGO_MULTIPLICADOR = 3_141_592_653L;
+    private static final long CODIGO_MODULO = 1_000_000_000_000L;
+
+    private static final Distribucion ESPECIES = Distribucion.pesos(
+            new String[] { "Perro", "Gato", "Conejo", "Ave", "Hámster", "Hurón", "Tortuga" },
+            new double[] { 52, 38, 3, 3, 2, 1, 1 });
+
+    private static final Distribucion[] RAZAS = {
+            Distribucion.zipf("Mestizo", "Caniche", "Labrador", "Ovejero Alemán", "Golden Retriever", "Bulldog Francés",
+                    "Beagle", "Boxer", "Dogo Argentino", "Border Collie", "Pitbull", "Yorkshire", "Chihuahua",
+                    "Shih Tzu", "Dálmata", "Doberman", "Rottweiler", "Salchicha", "Pug", "Galgo"),
+            Distribucion.zipf("Común Europeo", "Siames", "Persa", "Angora", "Maine Coon", "Bengalí", "Siberiano",
+                    "British Shorthair", "Ragdoll", "Sphynx"),
+            Distribucion.zipf("Enano", "Cabeza de León", "Belier", "Rex"),
+            Distribucion.zipf("Canario", "Periquito", "Cotorra", "Ninfa", "Agapornis"),
+            Distribucion.zipf("Sirio", "Ruso", "Roborovski"),
+            Distribucion.zipf("Hurón"),
+            Distribucion.zipf("Tortuga de tierra", "Tortuga de agua"),
+    };
+
+    private static final Distribucion NOMBRES_MASCOTA = Distribucion.zipf(
+            "Luna", "Simba", "Rocky", "Milo", "Nala", "Toby", "Kira", "Max", "Coco", "Bobby", "Lola", "Felix",
+            "Thor", "Mora", "Bruno", "Lucas", "Mia", "Olivia", "Frida", "Pancho", "Chispa", "Negro", "Manchita",
+            "Pelusa", "Oreo", "Tango", "Canela", "Jack", "Zeus", "Sasha", "Mimi", "Tom", "Duque", "Princesa",
+            "Bella", "Lupe", "Rufo", "Moro", "Kiara", "Tita", "Greta", "Ramón", "Pipo", "Lucky", "Reina",
+            "Copito", "Tobías", "Homero", "Fiona", "Odín", "Maya", "Tina", "Chester", "Ringo", "Pepa",
+            "Nina", "Bambi", "Rita", "Panchito", "Blanca", "Cielo", "Arya", "Sol", "Loki", "Nube", "Tuti",
+            "Gordo", "Flaca", "Ciro", "Vito", "Uma", "Salem", "Pirata", "Chocolate", "Mostaza", "Pimienta",
+            "Athenea", "Kaiser", "Lola Mora", "Benito");
+
+    private static final Distribucion NOMBRES_PERSONA = Distribucion.zipf(
+            "María", "Juan", "Carlos", "Ana", "Lucía", "José", "Sofía", "Martín", "Laura", "Diego", "Valentina",
+            "Federico", "Carolina", "Javier", "Natalia", "Mariano", "Gabriela", "Alejandro", "Patricia",
+            "Gabriel", "Rocío", "Pablo", "Florencia", "Nicolás", "Camila", "Sebastián", "Paula", "Matías",
+            "Julieta", "Facundo", "Agustina", "Gonzalo", "Micaela", "Santiago", "Romina", "Emiliano",
+            "Daniela", "Tomás", "Silvia", "Ricardo");
+
+    private static final Distribucion APELLIDOS = Distribucion.zipf(
+            "González", "Rodríguez", "Gómez", "Fernández", "López", "Díaz", "Martínez", "Pérez", "García",
+            "Sánchez", "Romero", "Sosa", "Torres", "Álvarez", "Ruiz", "Ramírez", "Flores", "Benítez",
+            "Acosta", "Medina", "Herrera", "Suárez", "Aguirre", "Giménez", "Gutiérrez", "Pereyra", "Rojas",
+            "Molina", "Castro", "Ortiz", "Silva", "Núñez", "Luna", "Juárez", "Cabrera", "Ríos", "Morales",
+            "Godoy", "Moreno", "Ferreyra", "Domínguez", "Carrizo", "Peralta", "Castillo", "Ledesma",
+            "Quiroga", "Vega", "Vera", "Muñoz", "Ojeda", "Ponce", "Villalba", "Cardozo", "Navarro",
+            "Coronel", "Vázquez", "Ramos", "Arias", "Figueroa", "Rivas");
+
+    private static final Distribucion VETERINARIAS = Distribucion.zipf(
+            "Vet Central", "Vet Los Pinos", "Vet Norte", "Vet San Roque", "Vet del Parque", "Vet San Martín",
+            "Clínica Belgrano", "Vet Palermo", "Hospital Escuela UBA", "Vet Caballito", "Vet Almagro",
+            "Vet Flores", "Vet Lanús", "Vet Quilmes", "Vet Morón", "Vet Rosario Centro", "Vet Córdoba Sur",
+            "Vet Mendoza", "Vet La Plata", "Vet Mar del Plata", "Vet Tandil", "Vet Salta", "Vet Neuquén",
+            "Vet Bahía Blanca", "Vet Tucumán", "Clínica Animal Sur", "Vet Patitas", "Vet Huellitas",
+            "Centro Veterinario Oeste", "Vet Villa Urquiza");
+
+    private static final Distribucion OBSERVACIONES = Distribucion.zipf(
+            "Implantado sin complicaciones", "Paciente tranquilo", "Chequeo al día", "Implantación exitosa",
+            "Requirió sedación leve", "Vacunas al día", "Control en 30 días", "Adopción de refugio",
+            "Leve inflamación en la zona", "Reimplante por falla de lectura");
+
+    /**
+     * Parámetros de la generación.
+     *
+     * @param seed Semilla del generador pseudoaleatorio
+     * @param chipRatio Fracción de mascotas con microchip (0 a 1)
+     * @param deletedRatio Fracción de mascotas eliminadas (0 a 1)
+     * @param freeChipRatio Microchips libres por mascota (0 a 1)
+     * @param referenceDate Fecha desde la que se calculan edades e implantaciones
+     */
+    public record Config(long seed, double chipRatio, double deletedRatio, double freeChipRatio, LocalDate referenceDate) {
+        /**
+         * @throws IllegalArgumentException Si alguna proporción está fuera de [0, 1] o falta la fecha
+         */
+        public Config {
+            validarProporcion("generate.chipRatio", chipRatio);
+            validarProporcion("generate.deletedRatio", deletedRatio);
+            validarProporcion("generate.freeChipRatio", freeChipRatio);
+            if (referenceDate == null) {
+                throw new IllegalArgumentException("La fecha de referencia no puede ser null");
+            }
+        }
+
+        /**
+         * Configuración a partir de las system properties generate.*.
+         */
+        static Config fromProperties() {
+            return new Config(
+                    Long.getLong("generate.seed", 42),
+                    Double.parseDouble(System.getProperty("generate.chipRatio", "0.7")),
+                    Double.parseDouble(System.getProperty("generate.deletedRatio", "0.08")),
+                    Double.parseDouble(System.getProperty("generate.freeChipRatio", "0.05")),
+                    LocalDate.parse(System.getProperty("generate.referenceDate", "2025-12-31")));
+        }
+
+        private static void validarProporcion(String nombre, double valor) {
+            if (!(valor >= 0 && valor <= 1)) {
+                throw new IllegalArgumentException(nombre + " debe estar entre 0 y 1: " + valor);
+            }
+        }
+    }
+
+    /**
+     * Una mascota generada (con su microchip, si tiene) y el microchip libre generado a
+     * continuación, si hubo. Las eliminadas llegan con isEliminado() = true, igual que su microchip.
+     */
+    public record Fila(Mascota mascota, Microchip libre) { }
+
+    private final Config config;
+    private final SplittableRandom random;
+    private long codigos;
+    private String duenio;
+
+    /**
+     * @param config Parámetros de la generación
+     * @throws IllegalArgumentException Si config es null
+     */
+    public DataGenerator(Config config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config no puede ser null");
+        }
+        this.config = config;
+        this.random = new SplittableRandom(config.seed());
+    }
+
+    /**
+     * Punto de entrada del comando "generate" (invocado desde Main).
+     *
+     * @param args ["generate", cantidad, (opcional) directorio]
+     * @return Código de salida: 0 si terminó, 2 si falló
+     */
+    static int run(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: java Main.Main generate <cantidad> [directorio]");
+            return 2;
+        }
+        try {
+            long cantidad = parseCantidad(args[1]);
+            Config config = Config.fromProperties();
+            DataGenerator generator = new DataGenerator(config);
+            GenerateStats stats;
+            if (args.length > 2) {
+                stats = generator.generarArchivos(cantidad, Path.of(args[2]));
+                System.out.println(stats);
+                System.out.println("Cargar con: mysql --local-infile=1 mascotas_microchips < "
+                        + Path.of(args[2]).resolve("cargar.sql"));
+            } else {
+                MicrochipDAO microchipDAO = new MicrochipDAO();
+                stats = generator.generarEnBd(cantidad, new BulkLoader(new MascotaDAO(microchipDAO), microchipDAO),
+                        Integer.getInteger("generate.batchSize", 50_000));
+                System.out.println(stats);
+            }
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Error en la generación: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Interpreta la cantidad de mascotas: entero con sufijo opcional k (miles) o m (millones).
+     *
+     * @throws IllegalArgumentException Si no es un número positivo
+     */
+    static long parseCantidad(String texto) {
+        String t = texto.trim().toLowerCase(Locale.ROOT).replace("_", "");
+        long factor = 1;
+        if (t.endsWith("k")) {
+            factor = 1_000;
+            t = t.substring(0, t.length() - 1);
+        } else if (t.endsWith("m")) {
+            factor = 1_000_000;
+            t = t.substring(0, t.length() - 1);
+        }
+        try {
+            long cantidad = Math.round(Double.parseDouble(t) * factor);
+            if (cantidad <= 0 || cantidad > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("La cantidad debe estar entre 1 y " + Integer.MAX_VALUE + ": " + texto);
+            }
+            return cantidad;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cantidad inválida: " + texto);
+        }
+    }
+
+    /**
+     * Genera la siguiente mascota (y un microchip libre, según generate.freeChipRatio).
+     *
+     * @return Fila generada; las entidades tienen id 0
+     */
+    public Fila siguiente() {
+        if (duenio == null || random.nextDouble() >= 0.375) {
+            // Nuevo duenio: cantidad de mascotas geométrica con media 1 / (1 - 0.375) = 1.6
+            duenio = NOMBRES_PERSONA.elegir(random) + " " + APELLIDOS.elegir(random);
+        }
+        int especie = ESPECIES.indice(random);
+        String raza = random.nextDouble() < 0.08 ? null : RAZAS[especie].elegir(random);
+        LocalDate nacimiento = random.nextDouble() < 0.02 ? null
+                : config.referenceDate().minusDays(Math.min(20 * 365, (long) (-Math.log(1 - random.nextDouble()) * 5 * 365)));
+
+        Microchip microchip = null;
+        if (random.nextDouble() < config.chipRatio()) {
+            LocalDate implantacion = nacimiento == null
+                    ? config.referenceDate().minusDays(random.nextInt(3650))
+                    : nacimiento.plusDays(60 + random.nextInt(181));
+            if (implantacion.isAfter(config.referenceDate())) {
+                implantacion = config.referenceDate();
+            }
+            microchip = new Microchip(0, siguienteCodigo(), implantacion, VETERINARIAS.elegir(random),
+                    random.nextDouble() < 0.25 ? OBSERVACIONES.elegir(random) : null);
+        }
+        Mascota mascota = new Mascota(0, NOMBRES_MASCOTA.elegir(random), ESPECIES.valor(especie), raza,
+                nacimiento, duenio, microchip);
+        if (random.nextDouble() < config.deletedRatio()) {
+            mascota.setEliminado(true);
+            if (microchip != null) {
+                microchip.setEliminado(true);
+            }
+        }
+
+        Microchip libre = null;
+        if (random.nextDouble() < config.freeChipRatio()) {
+            libre = new Microchip(0, siguienteCodigo(), null, null, null);
+        }
+        return new Fila(mascota, libre);
+    }
+
+    /**
+     * Codigo ISO 11784 ("985" + 12 dígitos): permutación del número de secuencia desplazada por la semilla.
+     */
+    private String siguienteCodigo() {
+        long n = Math.floorMod(codigos++ * CODIGO_MULTIPLICADOR % CODIGO_MODULO + config.seed(), CODIGO_MODULO);
+        return String.format("985%012d", n);
+    }
+
+    /**
+     * Inserta las mascotas generadas en la BD por lotes.
+     *
+     * Flujo por lote:
+     * 1. Genera batchSize mascotas (con sus microchips y los libres)
+     * 2. BulkLoader.cargar() de las mascotas y los microchips libres, en una transacción
+     *    (las eliminadas se insertan directamente con eliminado = TRUE)
+     * Cada lote se confirma por separado: si la generación se interrumpe, los anteriores quedan.
+     *
+     * IMPORTANTE: los codigos dependen solo de la semilla, así que repetir la generación con la
+     * misma semilla sobre la misma BD falla por la restricción UNIQUE de codigo.
+     *
+     * @param cantidad Mascotas a generar
+     * @param loader Cargador masivo
+     * @param batchSize Mascotas por lote (mayor a 0)
+     * @return Estadísticas de la generación
+     * @throws IllegalArgumentException Si batchSize no es positivo o loader es null
+     * @throws Exception Si falla alguna escritura
+     */
+    public GenerateStats generarEnBd(long cantidad, BulkLoader loader, int batchSize) throws Exception {
+        if (loader == null) {
+            throw new IllegalArgumentException("BulkLoader no puede ser null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0");
+        }
+        Contadores contadores = new Contadores(System.currentTimeMillis());
+        List<Mascota> mascotas = new ArrayList<>(batchSize);
+        List<Microchip> libres = new ArrayList<>();
+        for (long generadas = 0; generadas < cantidad; ) {
+            mascotas.clear();
+            libres.clear();
+            for (int i = 0; i < batchSize && generadas < cantidad; i++, generadas++) {
+                Fila fila = siguiente();
+                contadores.contar(fila);
+                mascotas.add(fila.mascota());
+                if (fila.libre() != null) {
+                    libres.add(fila.libre());
+                }
+            }
+            loader.cargar(mascotas, libres);
+            contadores.reportar();
+        }
+        return contadores.stats();
+    }
+
+    /**
+     * Escribe las mascotas generadas como archivos para LOAD DATA.
+     *
+     * Archivos (se sobrescriben):
+     * - microchips.tsv: id, codigo, fecha_implantacion, veterinaria, observaciones, eliminado
+     * - mascotas.tsv: id, nombre, especie, raza, fecha_nacimiento, duenio, microchip_id, eliminado
+     * - cargar.sql: LOAD DATA LOCAL INFILE de ambos (rutas absolutas), con los IDs desplazados
+     *   por el MAX(id) de cada tabla; carga microchips antes que mascotas con las FK activas
+     *   (UNIQUE_CHECKS queda activo: un codigo ya existente en la BD no se carga; con LOCAL
+     *   la fila se omite con un warning, que el script muestra con SHOW WARNINGS)
+     * Los IDs de los archivos empiezan en 1 y siguen el orden de generación.
+     *
+     * @param cantidad Mascotas a generar
+     * @param dir Directorio de salida (se crea si no existe)
+     * @return Estadísticas de la generación
+     * @throws IOException Si falla la escritura
+     */
+    public GenerateStats generarArchivos(long cantidad, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path archivoMicrochips = dir.resolve("microchips.tsv");
+        Path archivoMascotas = dir.resolve("mascotas.tsv");
+        Contadores contadores = new Contadores(System.currentTimeMillis());
+        try (BufferedWriter microchips = Files.newBufferedWriter(archivoMicrochips, StandardCharsets.UTF_8);
+             BufferedWriter mascotas = Files.newBufferedWriter(archivoMascotas, StandardCharsets.UTF_8)) {
+            int microchipId = 0;
+            for (long id = 1; id <= cantidad; id++) {
+                Fila fila = siguiente();
+                contadores.contar(fila);
+                Mascota mascota = fila.mascota();
+                Microchip microchip = mascota.getMicrochip();
+                if (microchip != null) {
+                    escribirMicrochip(microchips, ++microchipId, microchip);
+                }
+                BulkLoader.escribirFila(mascotas, Long.toString(id), mascota.getNombre(), mascota.getEspecie(), mascota.getRaza(),
+                        BulkLoader.fecha(mascota.getFechaNacimiento()), mascota.getDuenio(),
+                        microchip == null ? null : Integer.toString(microchipId), BulkLoader.booleano(mascota.isEliminado()));
+                if (fila.libre() != null) {
+                    escribirMicrochip(microchips, ++microchipId, fila.libre());
+                }
+                if (id % 10_000 == 0) {
+                    contadores.reportar();
+                }
+            }
+        }
+        Files.writeString(dir.resolve("cargar.sql"), scriptDeCarga(archivoMicrochips, archivoMascotas), StandardCharsets.UTF_8);
+        return contadores.stats();
+    }
+
+    private static void escribirMicrochip(Writer out, int id, Microchip microchip) throws IOException {
+        BulkLoader.escribirFila(out, Integer.toString(id), microchip.getCodigo(), BulkLoader.fecha(microchip.getFechaImplantacion()),
+                microchip.getVeterinaria(), microchip.getObservaciones(), BulkLoader.booleano(microchip.isEliminado()));
+    }
+
+    /**
+     * Script de carga de los archivos generados. Las rutas van entre comillas simples
+     * (una comilla en la ruta se duplica).
+     */
+    private static String scriptDeCarga(Path microchips, Path mascotas) {
+        return """
+                -- Generado por DataGenerator. Ejecutar con: mysql --local-infile=1 mascotas_microchips < cargar.sql
+                -- Los IDs de los archivos se desplazan por el MAX(id) actual de cada tabla.
+                SET @base_microchip = (SELECT COALESCE(MAX(id), 0) FROM microchips);
+                SET @base_mascota = (SELECT COALESCE(MAX(id), 0) FROM mascotas);
+
+                LOAD DATA LOCAL INFILE %s INTO TABLE microchips CHARACTER SET utf8mb4
+                  (@id, codigo, fecha_implantacion, veterinaria, observaciones, eliminado)
+                  SET id = @id + @base_microchip;
+                -- UNIQUE_CHECKS sigue activo: un codigo ya existente se omite con un warning
+                SHOW WARNINGS;
+
+                -- FOREIGN_KEY_CHECKS sigue activo: una mascota cuyo microchip se omitió arriba
+                -- se omite también (warning) en lugar de quedar apuntando a un ID inexistente
+                LOAD DATA LOCAL INFILE %s INTO TABLE mascotas CHARACTER SET utf8mb4
+                  (@id, nombre, especie, raza, fecha_nacimiento, duenio, @microchip_id, eliminado)
+                  SET id = @id + @base_mascota, microchip_id = @microchip_id + @base_microchip;
+                SHOW WARNINGS;
+
+                ANALYZE TABLE microchips, mascotas;
+                """.formatted(literal(microchips), literal(mascotas));
+    }
+
+    private static String literal(Path archivo) {
+        return "'" + archivo.toAbsolutePath().toString().replace("\\", "/").replace("'", "''") + "'";
+    }
+
+    /**
+     * Contadores y progreso de una generación (un solo hilo).
+     */
+    private static final class Contadores {
+        private final long inicio;
+        private long proximoReporte;
+        private long mascotas;
+        private long conMicrochip;
+        private long eliminadas;
+        private long libres;
+
+        private Contadores(long inicio) {
+            this.inicio = inicio;
+            this.proximoReporte = inicio + PROGRESS_INTERVAL_MS;
+        }
+
+        private void contar(Fila fila) {
+            mascotas++;
+            if (fila.mascota().getMicrochip() != null) {
+                conMicrochip++;
+            }
+            if (Boolean.TRUE.equals(fila.mascota().isEliminado())) {
+                eliminadas++;
+            }
+            if (fila.libre() != null) {
+                libres++;
+            }
+        }
+
+        private void reportar() {
+            long ahora = System.currentTimeMillis();
+            if (ahora >= proximoReporte) {
+                System.out.printf("[GENERATE] %d mascotas (%.0f mascotas/s)%n", mascotas, mascotas * 1000.0 / (ahora - inicio));
+                proximoReporte = ahora + PROGRESS_INTERVAL_MS;
+            }
+        }
+
+        private GenerateStats stats() {
+            return new GenerateStats(mascotas, conMicrochip, eliminadas, libres, System.currentTimeMillis() - inicio);
+        }
+    }
+
+    /**
+     * Resultado de una generación.
+     */
+    public record GenerateStats(long mascotas, long conMicrochip, long eliminadas, long microchipsLibres, long elapsedMs) {
+        /**
+         * @return Mascotas generadas por segundo
+         */
+        public double mascotasPorSegundo() {
+            return elapsedMs == 0 ? 0.0 : mascotas * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Generación finalizada: %d mascotas (%d con microchip, %d eliminadas), "
+                    + "%d microchips libres, %.1f s (%.0f mascotas/s)",
+                    mascotas, conMicrochip, eliminadas, microchipsLibres, elapsedMs / 1000.0, mascotasPorSegundo());
+        }
+    }
+
+    /**
+     * Distribución discreta sobre una lista de valores (búsqueda binaria sobre pesos acumulados).
+     */
+    private static final class Distribucion {
+        private final String[] valores;
+        private final double[] acumulados;
+
+        private Distribucion(String[] valores, double[] pesos) {
+            this.valores = valores;
+            this.acumulados = new double[pesos.length];
+            double total = 0;
+            for (int i = 0; i < pesos.length; i++) {
+                total += pesos[i];
+                acumulados[i] = total;
+            }
+        }
+
+        private static Distribucion pesos(String[] valores, double[] pesos) {
+            return new Distribucion(valores, pesos);
+        }
+
+        /**
+         * Ley de Zipf (s = 1): el valor de la posición k tiene peso 1/k.
+         */
+        private static Distribucion zipf(String... valores) {
+            double[] pesos = new double[valores.length];
+            for (int i = 0; i < valores.length; i++) {
+                pesos[i] = 1.0 / (i + 1);
+            }
+            return new Distribucion(valores, pesos);
+        }
+
+        private int indice(SplittableRandom random) {
+            double x = random.nextDouble() * acumulados[acumulados.length - 1];
+            int i = Arrays.binarySearch(acumulados, x);
+            return i >= 0 ? Math.min(i + 1, valores.length - 1) : -i - 1;
+        }
+
+        private String valor(int indice) {
+            return valores[indice];
+        }
+
+        private String elegir(SplittableRandom random) {
+            return valores[indice(random)];
+        }
+    }
+}
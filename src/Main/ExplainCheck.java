@@ -0,0 +1,259 @@
+package Main;
+
+import Config.DaoMetrics;
+import Config.DatabaseConnection;
+import Dao.MascotaDAO;
+import Dao.MicrochipDAO;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Revisión de los planes de ejecución (EXPLAIN) de las consultas de los DAOs.
+ * Sirve para confirmar que los índices de script_creacion.sql / migrations se usan
+ * después de un cambio de esquema o de SQL.
+ *
+ * Flujo:
+ * 1. Toma las constantes *_SQL de MascotaDAO y MicrochipDAO (DaoMetrics.sqlConstants)
+ *    que son SELECT
+ * 2. Liga valores de ejemplo según el contexto de cada '?' (ver valorDeEjemplo())
+ * 3. Ejecuta EXPLAIN y marca como problema:
+ *    - type ALL (escaneo completo de la tabla) o index (recorrido completo de un índice)
+ *    - Extra "Using filesort" o "Using temporary"
+ * 4. Los problemas previstos en ESCANEOS_ESPERADOS (tipo y tabla) se informan pero no cuentan
+ *    como falla; cualquier otro problema de esas consultas sí (p. ej. un escaneo del JOIN)
+ *
+ * IMPORTANTE: el plan depende de las estadísticas de la tabla. Con pocas filas
+ * (script_datos_test.sql) MySQL prefiere escanear; correrlo contra un volumen realista.
+ *
+ * Uso: java Main.Main explain
+ * Código de salida: 0 sin problemas inesperados, 1 con problemas, 2 si falló la conexión
+ */
+public final class ExplainCheck {
+    /**
+     * Consultas que recorren la tabla por diseño: qué problemas se esperan, en qué tabla
+     * (como figura en EXPLAIN: alias o nombre) y por qué.
+     */
+    static final Map<String, Esperado> ESCANEOS_ESPERADOS = Map.of(
+            "MascotaDAO.SELECT_ALL_SQL", new Esperado("listado/exportación completa", "m",
+                    Tipo.ESCANEO_COMPLETO, Tipo.INDICE_COMPLETO),
+            "MicrochipDAO.SELECT_ALL_SQL", new Esperado("listado/exportación completa", "microchips",
+                    Tipo.ESCANEO_COMPLETO, Tipo.INDICE_COMPLETO),
+            "MascotaDAO.SEARCH_BY_NAME_SQL", new Esperado("LIKE '%x%' no puede usar índices (db.search.mode=fulltext)", "m",
+                    Tipo.ESCANEO_COMPLETO, Tipo.INDICE_COMPLETO),
+            "MascotaDAO.SEARCH_BY_NAME_PAGE_SQL", new Esperado("LIKE '%x%' no puede usar índices (db.search.mode=fulltext)", "m",
+                    Tipo.ESCANEO_COMPLETO, Tipo.INDICE_COMPLETO),
+            "MascotaDAO.SEARCH_FULLTEXT_PAGE_SQL", new Esperado("orden por relevancia: filesort sobre las coincidencias", "m",
+                    Tipo.FILESORT));
+
+    private static final Pattern LIMIT_OFFSET = Pattern.compile("(?is).*\\b(LIMIT|OFFSET)\\s*$");
+    private static final Pattern COLUMNA_ENTERA = Pattern.compile("(?is).*\\b(id|microchip_id|version)\\s*(=|>|<|>=|<=)\\s*$");
+    private static final Pattern LIKE = Pattern.compile("(?is).*\\bLIKE\\s*$");
+    private static final Pattern AGAINST = Pattern.compile("(?is).*\\bAGAINST\\s*\\(\\s*$");
+
+    private ExplainCheck() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Una fila de la salida de EXPLAIN.
+     */
+    public record PlanRow(String tabla, String tipo, String indice, long filas, double filtrado, String extra) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s type=%s key=%s rows=%d filtered=%.0f%% %s",
+                    tabla, tipo, indice == null ? "-" : indice, filas, filtrado, extra == null ? "" : extra).trim();
+        }
+    }
+
+    /**
+     * Clase de problema detectado en un plan.
+     */
+    public enum Tipo { ESCANEO_COMPLETO, INDICE_COMPLETO, FILESORT, TEMPORAL }
+
+    /**
+     * Un problema de una fila del plan.
+     *
+     * @param tipo Clase de problema
+     * @param tabla Tabla de la fila de EXPLAIN (alias o nombre)
+     * @param descripcion Texto para el reporte
+     */
+    public record Problema(Tipo tipo, String tabla, String descripcion) {
+        @Override
+        public String toString() {
+            return descripcion;
+        }
+    }
+
+    /**
+     * Problemas previstos de una consulta de ESCANEOS_ESPERADOS.
+     *
+     * @param motivo Por qué la consulta los tiene
+     * @param tabla Única tabla en la que se aceptan
+     * @param tipos Clases de problema aceptadas en esa tabla
+     */
+    public record Esperado(String motivo, String tabla, Set<Tipo> tipos) {
+        public Esperado(String motivo, String tabla, Tipo... tipos) {
+            this(motivo, tabla, Set.of(tipos));
+        }
+
+        /**
+         * @return true si el problema es uno de los previstos
+         */
+        public boolean cubre(Problema problema) {
+            return tipos.contains(problema.tipo()) && tabla.equals(problema.tabla());
+        }
+    }
+
+    /**
+     * Plan de una constante SQL y lo que se encontró en él.
+     *
+     * @param sentencia Nombre "Clase.CONSTANTE"
+     * @param plan Filas de EXPLAIN
+     * @param problemas Escaneos, filesort o tablas temporales detectados
+     * @param esperado Problemas previstos si la consulta está en ESCANEOS_ESPERADOS, o null
+     */
+    public record Resultado(String sentencia, List<PlanRow> plan, List<Problema> problemas, Esperado esperado) {
+        /**
+         * @return true si el problema está previsto para esta consulta
+         */
+        public boolean esperado(Problema problema) {
+            return esperado != null && esperado.cubre(problema);
+        }
+
+        /**
+         * @return true si no hay problemas o todos son los previstos
+         */
+        public boolean ok() {
+            return problemas.stream().allMatch(this::esperado);
+        }
+    }
+
+    /**
+     * Punto de entrada del comando "explain" (invocado desde Main).
+     *
+     * @param args ["explain"]
+     * @return Código de salida (ver javadoc de la clase)
+     */
+    static int run(String[] args) {
+        List<Resultado> resultados;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            resultados = check(conn, MascotaDAO.class, MicrochipDAO.class);
+        } catch (SQLException e) {
+            System.err.println("Error al ejecutar EXPLAIN: " + e.getMessage());
+            return 2;
+        }
+        int fallas = 0;
+        for (Resultado r : resultados) {
+            String estado = r.problemas().isEmpty() ? "OK" : r.ok() ? "ESPERADO" : "REVISAR";
+            System.out.println("[" + estado + "] " + r.sentencia()
+                    + (r.esperado() != null && !r.problemas().isEmpty() ? " (" + r.esperado().motivo() + ")" : ""));
+            for (PlanRow fila : r.plan()) {
+                System.out.println("    " + fila);
+            }
+            for (Problema problema : r.problemas()) {
+                System.out.println("    - " + problema + (r.esperado(problema) ? " (esperado)" : ""));
+            }
+            if (!r.ok()) {
+                fallas++;
+            }
+        }
+        System.out.println(resultados.size() + " consultas, " + fallas + " para revisar");
+        return fallas == 0 ? 0 : 1;
+    }
+
+    /**
+     * Ejecuta EXPLAIN sobre las constantes SELECT de los DAOs dados.
+     *
+     * @param conn Conexión al esquema a revisar
+     * @param daos Clases de DAO con constantes *_SQL
+     * @return Un resultado por constante SELECT, en orden de declaración
+     * @throws SQLException Si falla algún EXPLAIN (p. ej. falta una columna o índice FULLTEXT)
+     */
+    public static List<Resultado> check(Connection conn, Class<?>... daos) throws SQLException {
+        List<Resultado> resultados = new ArrayList<>();
+        for (Class<?> dao : daos) {
+            for (Map.Entry<String, String> constante : DaoMetrics.sqlConstants(dao).entrySet()) {
+                String sql = constante.getValue();
+                if (!sql.trim().toUpperCase(Locale.ROOT).startsWith("SELECT")) {
+                    continue;
+                }
+                String nombre = dao.getSimpleName() + "." + constante.getKey();
+                List<PlanRow> plan = explain(conn, sql);
+                resultados.add(new Resultado(nombre, plan, problemas(plan), ESCANEOS_ESPERADOS.get(nombre)));
+            }
+        }
+        return resultados;
+    }
+
+    private static List<PlanRow> explain(Connection conn, String sql) throws SQLException {
+        List<PlanRow> plan = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            int parametro = 1;
+            for (int i = 0; i < sql.length(); i++) {
+                if (sql.charAt(i) == '?') {
+                    stmt.setObject(parametro++, valorDeEjemplo(sql.substring(0, i)));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(new PlanRow(rs.getString("table"), rs.getString("type"), rs.getString("key"),
+                            rs.getLong("rows"), rs.getDouble("filtered"), rs.getString("Extra")));
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Valor de ejemplo para un parámetro según el texto que lo precede:
+     * LIMIT/OFFSET y columnas enteras (id, microchip_id, version) → entero;
+     * LIKE → '%ar%'; AGAINST( → "ar"; el resto (codigo, nombre, ...) → texto.
+     * Ligar un texto a una columna entera (o al revés) cambiaría el plan por la conversión de tipos.
+     */
+    static Object valorDeEjemplo(String antes) {
+        String contexto = antes.length() > 60 ? antes.substring(antes.length() - 60) : antes;
+        if (LIMIT_OFFSET.matcher(contexto).matches()) {
+            return contexto.trim().toUpperCase(Locale.ROOT).endsWith("OFFSET") ? 0 : 20;
+        }
+        if (COLUMNA_ENTERA.matcher(contexto).matches()) {
+            return 1;
+        }
+        if (LIKE.matcher(contexto).matches()) {
+            return "%ar%";
+        }
+        if (AGAINST.matcher(contexto).matches()) {
+            return "\"ar\"";
+        }
+        return "MC-0001";
+    }
+
+    private static List<Problema> problemas(List<PlanRow> plan) {
+        List<Problema> problemas = new ArrayList<>();
+        for (PlanRow fila : plan) {
+            if ("ALL".equals(fila.tipo())) {
+                problemas.add(new Problema(Tipo.ESCANEO_COMPLETO, fila.tabla(),
+                        "escaneo completo de " + fila.tabla() + " (~" + fila.filas() + " filas)"));
+            } else if ("index".equals(fila.tipo())) {
+                problemas.add(new Problema(Tipo.INDICE_COMPLETO, fila.tabla(),
+                        "recorrido completo del índice " + fila.indice() + " de " + fila.tabla()));
+            }
+            String extra = fila.extra() == null ? "" : fila.extra();
+            if (extra.contains("Using filesort")) {
+                problemas.add(new Problema(Tipo.FILESORT, fila.tabla(),
+                        "ordenamiento en memoria/disco (filesort) en " + fila.tabla()));
+            }
+            if (extra.contains("Using temporary")) {
+                problemas.add(new Problema(Tipo.TEMPORAL, fila.tabla(), "tabla temporal en " + fila.tabla()));
+            }
+        }
+        return problemas;
+    }
+}
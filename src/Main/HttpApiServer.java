@@ -0,0 +1,635 @@
+package Main;
+
+import Config.DaoMetrics;
+import Config.DatabaseConnection;
+import Config.LatencyHistogram;
+import Dao.EntityNotFoundException;
+import Dao.OptimisticLockException;
+import Models.Mascota;
+import Models.Microchip;
+import Service.MascotaServiceImpl;
+import Service.MicrochipServiceImpl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * API HTTP/JSON embebida (com.sun.net.httpserver) sobre MascotaServiceImpl y MicrochipServiceImpl.
+ * Pensada para que los lectores de microchips de las clínicas consulten por codigo en paralelo.
+ *
+ * Rutas:
+ * - GET    /api/mascotas?afterId=0&amp;limit=20        página (keyset por id)
+ * - GET    /api/mascotas?q=texto&amp;offset=0&amp;limit=20  búsqueda por nombre o duenio
+ * - GET    /api/mascotas?codigoMicrochip=XYZ     mascota dueña del microchip (lectura del escáner)
+ * - GET    /api/mascotas/{id}
+ * - POST   /api/mascotas                         alta (con microchip opcional)
+ * - PUT    /api/mascotas/{id}                    ver "PUT de mascotas" abajo
+ * - DELETE /api/mascotas/{id}
+ * - GET    /api/microchips?codigo=XYZ            búsqueda por codigo
+ * - GET    /api/microchips?afterId=0&amp;limit=20
+ * - GET    /api/microchips/{id}
+ * - POST   /api/microchips, PUT /api/microchips/{id}, DELETE /api/microchips/{id}
+ * - GET    /metrics                              latencias por ruta y métricas de DaoMetrics (texto Prometheus)
+ * - GET    /health
+ *
+ * Respuestas: JSON; errores como {"error": "mensaje"} con
+ * 400 (IllegalArgumentException / JSON inválido o con más de Json.MAX_DEPTH niveles),
+ * 404 (no existe), 405 (método), 409 (conflicto de versión), 413 (cuerpo mayor a
+ * http.maxBodyBytes) o 500 (BD; el detalle solo va al log, no a la respuesta).
+ *
+ * Concurrencia optimista: las entidades se devuelven con "version" y los PUT deben
+ * enviar la versión leída (la del microchip dentro de la mascota, si se actualiza).
+ * Si otro cliente la modificó antes, el PUT responde 409 y no escribe nada.
+ *
+ * PUT de mascotas, según la clave "microchip" del cuerpo:
+ * - ausente: se escriben los demás campos y la FK microchip_id queda como está
+ * - null: desasocia el microchip
+ * - {"id": N}: asocia el microchip existente N (400 si no existe)
+ * - {"id": N, "codigo": ..., "version": V, ...}: además actualiza los datos del microchip N
+ *   en la misma transacción (MascotaServiceImpl.actualizarConMicrochip)
+ * - id 0 (microchip nuevo): 400; se crea con POST /api/microchips y se asocia por id
+ *
+ * Modelo de ejecución (http.workers):
+ * - "virtual" (por defecto): un hilo virtual por request; la concurrencia real contra la BD
+ *   la acota el pool de conexiones (db.pool.maxSize / acquireTimeoutMs)
+ * - un número N: pool fijo de N hilos de plataforma (el resto de requests espera en cola)
+ *
+ * Las métricas se etiquetan por método y ruta; los métodos fuera de METODOS se agrupan
+ * como "OTHER" para que un cliente no pueda crear histogramas arbitrarios.
+ *
+ * System properties: http.port (8080), http.backlog (0 = default del SO), http.workers (virtual),
+ * http.maxBodyBytes (1048576)
+ */
+public final class HttpApiServer implements AutoCloseable {
+    /** Tamaño de página por defecto de los listados. */
+    private static final int DEFAULT_LIMIT = 20;
+
+    /** Métodos HTTP que se etiquetan por nombre en las métricas; el resto cuenta como "OTHER". */
+    private static final Set<String> METODOS = Set.of("GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "PATCH");
+
+    /** Tamaño máximo del cuerpo de un request (http.maxBodyBytes). */
+    private static final int MAX_BODY_BYTES = Integer.getInteger("http.maxBodyBytes", 1024 * 1024);
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final MascotaServiceImpl mascotaService;
+    private final MicrochipServiceImpl microchipService;
+
+    /** Métricas por ruta ("GET /api/mascotas/{id}"), ordenadas para /metrics. */
+    private final Map<String, RouteMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Crea el servidor (no lo inicia).
+     *
+     * @param mascotaService Servicio de mascotas (de él se obtiene también el de microchips)
+     * @param port Puerto TCP (0 = uno libre)
+     * @param backlog Cola de conexiones pendientes del socket (0 = default del SO)
+     * @param workerModel "virtual" o la cantidad de hilos de plataforma
+     * @throws IOException Si no se puede abrir el puerto
+     * @throws IllegalArgumentException Si el modelo de workers es inválido
+     */
+    public HttpApiServer(MascotaServiceImpl mascotaService, int port, int backlog, String workerModel) throws IOException {
+        if (mascotaService == null) {
+            throw new IllegalArgumentException("MascotaServiceImpl no puede ser null");
+        }
+        this.mascotaService = mascotaService;
+        this.microchipService = mascotaService.getMicrochipService();
+        this.workers = createWorkers(workerModel);
+        this.server = HttpServer.create(new InetSocketAddress(port), backlog);
+        server.setExecutor(workers);
+        server.createContext("/api/mascotas", ex -> handle(ex, this::mascotas));
+        server.createContext("/api/microchips", ex -> handle(ex, this::microchips));
+        server.createContext("/metrics", ex -> handle(ex, this::metricsEndpoint));
+        server.createContext("/health", ex -> handle(ex, (e, id) -> new Respuesta("GET /health", 200, Map.of("status", "ok"))));
+    }
+
+    /**
+     * Punto de entrada del comando "serve" (invocado desde Main).
+     * Bloquea hasta que el proceso recibe SIGINT/SIGTERM; entonces detiene el servidor y el pool.
+     *
+     * @param args ["serve"]
+     * @return Código de salida (0 si terminó normalmente, 2 si no pudo iniciar)
+     */
+    static int run(String[] args) {
+        try {
+            HttpApiServer api = new HttpApiServer(AppMenu.createMascotaService(),
+                    Integer.getInteger("http.port", 8080),
+                    Integer.getInteger("http.backlog", 0),
+                    System.getProperty("http.workers", "virtual"));
+            CountDownLatch detenido = new CountDownLatch(1);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                api.close();
+                DatabaseConnection.shutdown();
+                detenido.countDown();
+            }, "http-shutdown"));
+            api.start();
+            System.out.println("API HTTP escuchando en el puerto " + api.getPort());
+            detenido.await();
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("No se pudo iniciar la API HTTP: " + e.getMessage());
+            return 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    /**
+     * Inicia la atención de requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return Puerto en el que escucha el servidor
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Detiene el servidor (espera hasta 1 s a que terminen los requests en curso) y los workers.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        workers.shutdown();
+    }
+
+    /**
+     * Instantáneas de latencia por ruta.
+     *
+     * @return Mapa ruta → snapshot, ordenado por ruta
+     */
+    public Map<String, LatencyHistogram.Snapshot> getLatencySnapshots() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        metrics.forEach((ruta, m) -> snapshots.put(ruta, m.latency.snapshot()));
+        return snapshots;
+    }
+
+    private static ExecutorService createWorkers(String workerModel) {
+        if (workerModel == null || workerModel.isBlank() || workerModel.trim().equalsIgnoreCase("virtual")) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        try {
+            int threads = Integer.parseInt(workerModel.trim());
+            if (threads <= 0) {
+                throw new IllegalArgumentException("http.workers debe ser 'virtual' o un número mayor a 0");
+            }
+            return Executors.newFixedThreadPool(threads);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("http.workers debe ser 'virtual' o un número mayor a 0");
+        }
+    }
+
+    // -------------------------
+    // Despacho y manejo de errores
+    // -------------------------
+
+    /**
+     * Resuelve el request con la ruta dada, traduce excepciones a códigos HTTP,
+     * escribe la respuesta y registra la latencia en la ruta correspondiente.
+     */
+    private void handle(HttpExchange ex, Route route) throws IOException {
+        long inicio = System.nanoTime();
+        Respuesta respuesta;
+        String base = ex.getHttpContext().getPath();
+        String ruta = metodo(ex) + " " + base;
+        try {
+            respuesta = route.handle(ex, idFromPath(ex, base));
+        } catch (IllegalArgumentException e) {
+            respuesta = new Respuesta(ruta, 400, error(e.getMessage()));
+        } catch (EntityNotFoundException e) {
+            respuesta = new Respuesta(ruta, 404, error(e.getMessage()));
+        } catch (OptimisticLockException e) {
+            respuesta = new Respuesta(ruta, 409, error(e.getMessage()));
+        } catch (BodyTooLargeException e) {
+            respuesta = new Respuesta(ruta, 413, error(e.getMessage()));
+        } catch (Exception e) {
+            // El detalle (SQL, nombres de tablas, hosts) solo va al log
+            System.err.println("Error en " + metodo(ex) + " " + ex.getRequestURI() + ": " + e);
+            respuesta = new Respuesta(ruta, 500, error("Error interno"));
+        }
+
+        try {
+            send(ex, respuesta);
+        } finally {
+            RouteMetrics m = metrics.computeIfAbsent(respuesta.ruta(), r -> new RouteMetrics());
+            m.latency.record(System.nanoTime() - inicio);
+            if (respuesta.status() >= 500) {
+                m.serverErrors.increment();
+            } else if (respuesta.status() >= 400) {
+                m.clientErrors.increment();
+            }
+        }
+    }
+
+    private static void send(HttpExchange ex, Respuesta respuesta) throws IOException {
+        try (ex) {
+            if (respuesta.body() == null) {
+                ex.sendResponseHeaders(respuesta.status(), -1);
+                return;
+            }
+            byte[] bytes = (respuesta.body() instanceof String texto ? texto : Json.write(respuesta.body()))
+                    .getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", respuesta.body() instanceof String
+                    ? "text/plain; version=0.0.4; charset=utf-8" : "application/json; charset=utf-8");
+            ex.sendResponseHeaders(respuesta.status(), bytes.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * ID del path (/api/mascotas/{id}); null si el path es la colección.
+     *
+     * @throws IllegalArgumentException Si el segmento no es un entero positivo o hay segmentos extra
+     */
+    private static Integer idFromPath(HttpExchange ex, String base) {
+        String resto = ex.getRequestURI().getPath().substring(base.length());
+        if (resto.isEmpty() || resto.equals("/")) {
+            return null;
+        }
+        String segmento = resto.substring(1);
+        try {
+            int id = Integer.parseInt(segmento);
+            if (id > 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // cae al error de abajo
+        }
+        throw new IllegalArgumentException("ID inválido en la ruta: " + segmento);
+    }
+
+    // -------------------------
+    // Rutas
+    // -------------------------
+
+    private Respuesta mascotas(HttpExchange ex, Integer id) throws Exception {
+        String metodo = metodo(ex);
+        String ruta = metodo + (id == null ? " /api/mascotas" : " /api/mascotas/{id}");
+        Map<String, String> query = query(ex);
+
+        switch (metodo) {
+            case "GET" -> {
+                if (id != null) {
+                    Mascota mascota = mascotaService.getById(id);
+                    return mascota == null ? notFound(ruta, "Mascota no encontrada con ID: " + id)
+                            : new Respuesta(ruta, 200, toJson(mascota));
+                }
+                if (query.containsKey("codigoMicrochip")) {
+                    String rutaCodigo = ruta + "?codigoMicrochip";
+                    Mascota mascota = mascotaService.buscarPorCodigoMicrochip(query.get("codigoMicrochip"));
+                    return mascota == null ? notFound(rutaCodigo, "Mascota no encontrada con microchip: " + query.get("codigoMicrochip"))
+                            : new Respuesta(rutaCodigo, 200, toJson(mascota));
+                }
+                List<Mascota> mascotas = query.containsKey("q")
+                        ? mascotaService.buscarPorNombreDuenio(query.get("q"), intParam(query, "offset", 0), intParam(query, "limit", DEFAULT_LIMIT))
+                        : mascotaService.getPage(intParam(query, "afterId", 0), intParam(query, "limit", DEFAULT_LIMIT));
+                return new Respuesta(ruta + (query.containsKey("q") ? "?q" : ""), 200, mascotas.stream().map(HttpApiServer::toJson).toList());
+            }
+            case "POST" -> {
+                if (id != null) {
+                    return methodNotAllowed(ruta);
+                }
+                Mascota mascota = mascotaFromJson(asObject(Json.parse(body(ex))), 0);
+                mascotaService.insertar(mascota);
+                return new Respuesta(ruta, 201, toJson(mascota));
+            }
+            case "PUT" -> {
+                if (id == null) {
+                    return methodNotAllowed(ruta);
+                }
+                Map<String, Object> json = asObject(Json.parse(body(ex)));
+                Mascota mascota = mascotaFromJson(json, id);
+                Microchip microchip = mascota.getMicrochip();
+                if (!json.containsKey("microchip")) {
+                    // Sin "microchip": la FK no se escribe; el actual solo se usa para la respuesta
+                    Mascota actual = mascotaService.getById(id);
+                    if (actual == null) {
+                        return notFound(ruta, "Mascota no encontrada con ID: " + id);
+                    }
+                    mascota.setMicrochip(actual.getMicrochip());
+                    mascota.conservarMicrochip();
+                    mascotaService.actualizar(mascota);
+                } else if (microchip == null) {
+                    mascotaService.actualizar(mascota);
+                } else if (microchip.getId() == 0) {
+                    throw new IllegalArgumentException("Para asociar un microchip nuevo, créelo con POST /api/microchips y envíe su id");
+                } else if (asObject(json.get("microchip")).containsKey("codigo")) {
+                    mascotaService.actualizarConMicrochip(mascota);
+                } else {
+                    Microchip existente = microchipService.getById(microchip.getId());
+                    if (existente == null) {
+                        throw new IllegalArgumentException("Microchip no encontrado con ID: " + microchip.getId());
+                    }
+                    mascota.setMicrochip(existente);
+                    mascotaService.actualizar(mascota);
+                }
+                return new Respuesta(ruta, 200, toJson(mascota));
+            }
+            case "DELETE" -> {
+                if (id == null) {
+                    return methodNotAllowed(ruta);
+                }
+                mascotaService.eliminar(id);
+                return new Respuesta(ruta, 204, null);
+            }
+            default -> {
+                return methodNotAllowed(ruta);
+            }
+        }
+    }
+
+    private Respuesta microchips(HttpExchange ex, Integer id) throws Exception {
+        String metodo = metodo(ex);
+        String ruta = metodo + (id == null ? " /api/microchips" : " /api/microchips/{id}");
+        Map<String, String> query = query(ex);
+
+        switch (metodo) {
+            case "GET" -> {
+                if (id != null) {
+                    Microchip microchip = microchipService.getById(id);
+                    return microchip == null ? notFound(ruta, "Microchip no encontrado con ID: " + id)
+                            : new Respuesta(ruta, 200, toJson(microchip));
+                }
+                if (query.containsKey("codigo")) {
+                    String rutaCodigo = ruta + "?codigo";
+                    Microchip microchip = microchipService.buscarPorCodigo(query.get("codigo"));
+                    return microchip == null ? notFound(rutaCodigo, "Microchip no encontrado con codigo: " + query.get("codigo"))
+                            : new Respuesta(rutaCodigo, 200, toJson(microchip));
+                }
+                List<Microchip> microchips = microchipService.getPage(intParam(query, "afterId", 0), intParam(query, "limit", DEFAULT_LIMIT));
+                return new Respuesta(ruta, 200, microchips.stream().map(HttpApiServer::toJson).toList());
+            }
+            case "POST" -> {
+                if (id != null) {
+                    return methodNotAllowed(ruta);
+                }
+                Microchip microchip = microchipFromJson(asObject(Json.parse(body(ex))), 0);
+                microchipService.insertar(microchip);
+                return new Respuesta(ruta, 201, toJson(microchip));
+            }
+            case "PUT" -> {
+                if (id == null) {
+                    return methodNotAllowed(ruta);
+                }
+                Microchip microchip = microchipFromJson(asObject(Json.parse(body(ex))), id);
+                microchipService.actualizar(microchip);
+                return new Respuesta(ruta, 200, toJson(microchip));
+            }
+            case "DELETE" -> {
+                if (id == null) {
+                    return methodNotAllowed(ruta);
+                }
+                microchipService.eliminar(id);
+                return new Respuesta(ruta, 204, null);
+            }
+            default -> {
+                return methodNotAllowed(ruta);
+            }
+        }
+    }
+
+    /**
+     * Latencias por ruta en formato de texto Prometheus (summary con cuantiles, en segundos).
+     */
+    private Respuesta metricsEndpoint(HttpExchange ex, Integer id) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP http_request_duration_seconds Latencia de requests por ruta\n");
+        sb.append("# TYPE http_request_duration_seconds summary\n");
+        Map<String, RouteMetrics> ordenadas = new TreeMap<>(metrics);
+        ordenadas.forEach((ruta, m) ->
+                m.latency.snapshot().appendPrometheus(sb, "http_request_duration_seconds", DaoMetrics.prometheusLabel("route", ruta)));
+        sb.append("# HELP http_request_errors_total Respuestas con error por ruta y clase\n");
+        sb.append("# TYPE http_request_errors_total counter\n");
+        ordenadas.forEach((ruta, m) -> {
+            String label = DaoMetrics.prometheusLabel("route", ruta);
+            sb.append("http_request_errors_total{").append(label).append(",class=\"4xx\"} ").append(m.clientErrors.sum()).append('\n');
+            sb.append("http_request_errors_total{").append(label).append(",class=\"5xx\"} ").append(m.serverErrors.sum()).append('\n');
+        });
+        if (DaoMetrics.isEnabled()) {
+            sb.append(DaoMetrics.toPrometheus());
+        }
+        return new Respuesta("GET /metrics", 200, sb.toString());
+    }
+
+    // -------------------------
+    // Conversión JSON ↔ modelos
+    // -------------------------
+
+    static Map<String, Object> toJson(Mascota mascota) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", mascota.getId());
+        json.put("nombre", mascota.getNombre());
+        json.put("especie", mascota.getEspecie());
+        json.put("raza", mascota.getRaza());
+        json.put("fechaNacimiento", mascota.getFechaNacimiento());
+        json.put("duenio", mascota.getDuenio());
+        json.put("microchip", mascota.getMicrochip() != null ? toJson(mascota.getMicrochip()) : null);
+        json.put("version", mascota.getVersion());
+        return json;
+    }
+
+    static Map<String, Object> toJson(Microchip microchip) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", microchip.getId());
+        json.put("codigo", microchip.getCodigo());
+        json.put("fechaImplantacion", microchip.getFechaImplantacion());
+        json.put("veterinaria", microchip.getVeterinaria());
+        json.put("observaciones", microchip.getObservaciones());
+        json.put("version", microchip.getVersion());
+        return json;
+    }
+
+    /**
+     * Construye una Mascota (sin seguimiento: todos los campos cuentan como modificados)
+     * desde el cuerpo JSON. Si "microchip" trae id > 0 se trata como microchip existente;
+     * si no, como nuevo.
+     */
+    private static Mascota mascotaFromJson(Map<String, Object> json, int id) {
+        Microchip microchip = json.get("microchip") == null ? null
+                : microchipFromJson(asObject(json.get("microchip")), intField(json.get("microchip"), "id"));
+        Mascota mascota = new Mascota(id, stringField(json, "nombre"), stringField(json, "especie"), stringField(json, "raza"),
+                dateField(json, "fechaNacimiento"), stringField(json, "duenio"), microchip);
+        mascota.setVersion(intField(json, "version"));
+        return mascota;
+    }
+
+    private static Microchip microchipFromJson(Map<String, Object> json, int id) {
+        Microchip microchip = new Microchip(id, stringField(json, "codigo"), dateField(json, "fechaImplantacion"),
+                stringField(json, "veterinaria"), stringField(json, "observaciones"));
+        microchip.setVersion(intField(json, "version"));
+        return microchip;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value) {
+        if (value instanceof Map<?, ?>) {
+            return (Map<String, Object>) value;
+        }
+        throw new IllegalArgumentException("Se esperaba un objeto JSON");
+    }
+
+    private static String stringField(Map<String, Object> json, String campo) {
+        Object value = json.get(campo);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("El campo '" + campo + "' debe ser texto");
+        }
+        return (String) value;
+    }
+
+    private static int intField(Object object, String campo) {
+        Object value = asObject(object).get(campo);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Long l && l >= 0 && l <= Integer.MAX_VALUE) {
+            return l.intValue();
+        }
+        throw new IllegalArgumentException("El campo '" + campo + "' debe ser un entero no negativo");
+    }
+
+    private static LocalDate dateField(Map<String, Object> json, String campo) {
+        String value = stringField(json, campo);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida en '" + campo + "' (formato yyyy-MM-dd): " + value);
+        }
+    }
+
+    // -------------------------
+    // Utilidades HTTP
+    // -------------------------
+
+    /**
+     * Lee el cuerpo completo, hasta MAX_BODY_BYTES.
+     *
+     * @throws BodyTooLargeException Si el cuerpo (o su Content-Length) supera el máximo
+     */
+    private static String body(HttpExchange ex) throws IOException {
+        String declarado = ex.getRequestHeaders().getFirst("Content-Length");
+        if (declarado != null) {
+            try {
+                if (Long.parseLong(declarado.trim()) > MAX_BODY_BYTES) {
+                    throw new BodyTooLargeException();
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Content-Length inválido");
+            }
+        }
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new BodyTooLargeException();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Método del request para rutas y métricas: los de METODOS tal cual, el resto "OTHER".
+     */
+    private static String metodo(HttpExchange ex) {
+        String metodo = ex.getRequestMethod();
+        return METODOS.contains(metodo) ? metodo : "OTHER";
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> params = new LinkedHashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String par : raw.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = URLDecoder.decode(igual < 0 ? par : par.substring(0, igual), StandardCharsets.UTF_8);
+            String valor = igual < 0 ? "" : URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+            params.putIfAbsent(clave, valor);
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> query, String nombre, int defaultValue) {
+        String value = query.get(nombre);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro '" + nombre + "' debe ser un número entero");
+        }
+    }
+
+    private static Map<String, Object> error(String mensaje) {
+        return Map.of("error", mensaje == null ? "Error desconocido" : mensaje);
+    }
+
+    private static Respuesta notFound(String ruta, String mensaje) {
+        return new Respuesta(ruta, 404, error(mensaje));
+    }
+
+    private static Respuesta methodNotAllowed(String ruta) {
+        return new Respuesta(ruta, 405, error("Método no permitido"));
+    }
+
+    /**
+     * Manejador de una familia de rutas (colección + /{id}).
+     */
+    @FunctionalInterface
+    private interface Route {
+        Respuesta handle(HttpExchange ex, Integer id) throws Exception;
+    }
+
+    /**
+     * Resultado de una ruta: etiqueta para métricas, código HTTP y cuerpo
+     * (objeto serializable a JSON, String como texto plano, o null sin cuerpo).
+     */
+    private record Respuesta(String ruta, int status, Object body) {}
+
+    /**
+     * Cuerpo del request mayor a MAX_BODY_BYTES (→ 413).
+     */
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private BodyTooLargeException() {
+            super("El cuerpo del request supera " + MAX_BODY_BYTES + " bytes");
+        }
+    }
+
+    /**
+     * Métricas acumuladas de una ruta.
+     */
+    private static final class RouteMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+    }
+}
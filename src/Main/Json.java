@@ -0,0 +1,284 @@
+package Main;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serialización y parseo JSON mínimos para HttpApiServer (el proyecto no tiene dependencias externas).
+ *
+ * write(): Map, List, String, Number, Boolean, LocalDate (como "yyyy-MM-dd") y null.
+ * parse(): objetos → LinkedHashMap, arrays → ArrayList, números → Long o BigDecimal,
+ *          strings, true/false y null; hasta MAX_DEPTH niveles de anidamiento.
+ *
+ * Patrón: Utility class (solo métodos estáticos, no instanciable)
+ */
+final class Json {
+
+    /** Anidamiento máximo de objetos/arrays en parse() (el parser es recursivo). */
+    static final int MAX_DEPTH = 32;
+
+    private Json() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Serializa un valor a JSON.
+     *
+     * @param value Valor a serializar
+     * @return Texto JSON
+     * @throws IllegalArgumentException Si el valor contiene un tipo no soportado
+     */
+    static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(sb, value);
+        return sb.toString();
+    }
+
+    private static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String || value instanceof LocalDate) {
+            writeString(sb, value.toString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean primero = true;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (!primero) {
+                    sb.append(',');
+                }
+                primero = false;
+                writeString(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                write(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof List<?> list) {
+            sb.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                write(sb, list.get(i));
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("Tipo no serializable a JSON: " + value.getClass().getName());
+        }
+    }
+
+    private static void writeString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Parsea un documento JSON.
+     *
+     * @param text Texto JSON
+     * @return Valor parseado
+     * @throws IllegalArgumentException Si el JSON es inválido o supera MAX_DEPTH niveles
+     */
+    static Object parse(String text) {
+        Parser parser = new Parser(text);
+        Object value = parser.value();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error("Contenido extra al final");
+        }
+        return value;
+    }
+
+    /**
+     * Parser descendente recursivo sobre el texto completo.
+     */
+    private static final class Parser {
+        private final String text;
+        private int pos;
+        private int depth;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error("Fin inesperado");
+            }
+            char c = text.charAt(pos);
+            return switch (c) {
+                case '{', '[' -> anidado(c);
+                case '"' -> string();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> number();
+            };
+        }
+
+        private Object anidado(char c) {
+            if (++depth > MAX_DEPTH) {
+                throw error("Anidamiento mayor a " + MAX_DEPTH + " niveles");
+            }
+            Object value = c == '{' ? object() : array();
+            depth--;
+            return value;
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek('}')) {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                if (!peek('"')) {
+                    throw error("Se esperaba una clave");
+                }
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                map.put(key, value());
+                skipWhitespace();
+                if (peek(',')) {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek(']')) {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipWhitespace();
+                if (peek(',')) {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() {
+            pos++;
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char e = text.charAt(pos++);
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw error("Escape unicode incompleto");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("Escape unicode inválido");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("Escape inválido: \\" + e);
+                }
+            }
+            throw error("String sin cerrar");
+        }
+
+        private Object number() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String n = text.substring(start, pos);
+            try {
+                BigDecimal value = new BigDecimal(n);
+                if (value.scale() <= 0) {
+                    return value.longValueExact();
+                }
+                return value;
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw error("Valor inválido: " + (n.isEmpty() ? text.charAt(start) : n));
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!text.startsWith(word, pos)) {
+                throw error("Literal inválido");
+            }
+            pos += word.length();
+            return value;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean peek(char c) {
+            return pos < text.length() && text.charAt(pos) == c;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) {
+                throw error("Se esperaba '" + c + "'");
+            }
+            pos++;
+        }
+
+        private IllegalArgumentException error(String mensaje) {
+            return new IllegalArgumentException("JSON inválido en posición " + pos + ": " + mensaje);
+        }
+    }
+}
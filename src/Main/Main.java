@@ -1,51 +1,140 @@
 package Main;
 
+import Config.DaoMetrics;
+import Config.DatabaseConnection;
+import Config.SchemaMigrator;
+import Dao.MascotaDAO;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
 
 /**
- * Punto de entrada alternativo de la aplicación.
- * Clase simple que delega inmediatamente a AppMenu.
+ * Punto de entrada de la aplicación.
  *
  * Responsabilidad:
- * - Proporcionar un punto de entrada main() estándar
- * - Delegar la ejecución a AppMenu
+ * - Aplicar las migraciones pendientes del esquema antes de cualquier modo
+ * - Despachar a los comandos de línea de comandos o, sin argumentos, al menú de AppMenu
  *
- * Diferencia con AppMenu.main():
- * - AppMenu.main(): Punto de entrada primario (más usado)
- * - Main.main(): Punto de entrada alternativo (mismo comportamiento)
+ * AppMenu.main() delega en Main.main(): los dos puntos de entrada se comportan igual
+ * (migraciones incluidas). Se mantiene AppMenu.main() porque es la clase que se ejecuta
+ * desde el IDE (ver README); Main sigue la convención de nombre que buscan algunas herramientas.
  *
- * Ambos métodos hacen exactamente lo mismo:
- * 1. Crean instancia de AppMenu
- * 2. Llaman a app.run() para iniciar el menú
+ * Comandos por línea de comandos (sin menú):
+ * - import archivo.csv [rechazos.csv]: importación masiva con CsvImporter
+ * - serve: API HTTP/JSON con HttpApiServer (hasta Ctrl+C)
+ * - explain: planes de ejecución de las consultas de los DAOs con ExplainCheck
+ * - generate cantidad [directorio]: datos sintéticos con DataGenerator (BD o archivos para LOAD DATA)
+ * - export archivo [csv|jsonl]: exportación completa en paralelo con ParallelExporter
+ * - migrate: solo aplica las migraciones pendientes (SchemaMigrator)
  *
- * ¿Por qué existen dos puntos de entrada?
- * - Flexibilidad: Algunos IDEs buscan clase Main por convención
- * - AppMenu es más semántico como nombre de clase principal
- * - Mantener Main por compatibilidad/convención
- *
- * Uso recomendado:
- * - Para ejecutar desde IDE: Usar AppMenu.main() o Main.main() (indistinto)
- * - Para ejecutar desde JAR: Especificar AppMenu o Main en manifest
+ * Antes de cualquier modo se aplican las migraciones pendientes de db.migrations.dir
+ * (desactivable con -Ddb.migrations.onStartup=false). Si fallan, la aplicación no arranca.
+ * Tampoco arranca con db.search.mode=fulltext si el servidor usa stopwords FULLTEXT.
  */
 public class Main {
     /**
-     * Punto de entrada alternativo de la aplicación Java.
-     * Crea AppMenu y ejecuta el menú principal.
+     * Punto de entrada de la aplicación Java (también invocado por AppMenu.main()).
+     * Sin argumentos, crea AppMenu y ejecuta el menú principal.
      *
      * Flujo:
-     * 1. Crea instancia de AppMenu (inicializa toda la aplicación)
-     * 2. Llama a app.run() que ejecuta el loop del menú
-     * 3. Cuando el usuario sale (opción 0), run() termina y la aplicación finaliza
+     * 1. Aplica las migraciones pendientes del esquema (SchemaMigrator)
+     * 2. Crea instancia de AppMenu (inicializa toda la aplicación)
+     * 3. Llama a app.run() que ejecuta el loop del menú
+     * 4. Cuando el usuario sale (opción 0), run() termina y la aplicación finaliza
+     *
+     * Si el primer argumento es "import", "serve", "generate", "export" o "explain", ejecuta CsvImporter,
+     * HttpApiServer, DataGenerator, ParallelExporter o ExplainCheck en lugar del menú y termina con
+     * su código de salida;
+     * "migrate" termina después del paso 1 (0 si el esquema quedó al día, 1 si falló).
      *
-     * @param args Argumentos de línea de comandos (no usados)
+     * @param args Argumentos de línea de comandos (vacío para el menú)
      */
     public static void main(String[] args) {
          try {
         System.setOut(new PrintStream(System.out, true, StandardCharsets.UTF_8));
         System.setErr(new PrintStream(System.err, true, StandardCharsets.UTF_8));
     } catch (Exception ignored) {}
+        // Métricas de acceso a datos visibles por JMX (jconsole) en todos los modos
+        DaoMetrics.registerMBean();
+        if (args.length > 0 && args[0].equalsIgnoreCase("migrate")) {
+            boolean ok = migrar();
+            DatabaseConnection.shutdown();
+            System.exit(ok ? 0 : 1);
+        }
+        if (SchemaMigrator.isStartupEnabled()) {
+            if (!Files.isDirectory(SchemaMigrator.getDirectory())) {
+                System.err.println("Sin carpeta de migraciones (" + SchemaMigrator.getDirectory().toAbsolutePath()
+                        + "), no se verifica el esquema. Ver -Ddb.migrations.dir");
+            } else if (!migrar()) {
+                DatabaseConnection.shutdown();
+                System.exit(1);
+            }
+        }
+        if (!verificarBusqueda()) {
+            DatabaseConnection.shutdown();
+            System.exit(1);
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("import")) {
+            int codigo = CsvImporter.run(args);
+            DatabaseConnection.shutdown();
+            System.exit(codigo);
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("serve")) {
+            System.exit(HttpApiServer.run(args));
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("generate")) {
+            int codigo = DataGenerator.run(args);
+            DatabaseConnection.shutdown();
+            System.exit(codigo);
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("export")) {
+            int codigo = ParallelExporter.run(args);
+            DatabaseConnection.shutdown();
+            System.exit(codigo);
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("explain")) {
+            int codigo = ExplainCheck.run(args);
+            DatabaseConnection.shutdown();
+            System.exit(codigo);
+        }
         AppMenu app = new AppMenu();
         app.run();
     }
+
+    /**
+     * Con db.search.mode=fulltext, verifica que el servidor no use stopwords
+     * (MascotaDAO.verificarModoBusqueda), informando el error si no es así.
+     *
+     * @return true si el modo de búsqueda puede usarse
+     */
+    private static boolean verificarBusqueda() {
+        if (MascotaDAO.getSearchMode() != MascotaDAO.SearchMode.FULLTEXT) {
+            return true;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            MascotaDAO.verificarModoBusqueda(conn);
+            return true;
+        } catch (SQLException | IllegalStateException e) {
+            System.err.println("Error en el modo de búsqueda: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Aplica las migraciones pendientes informando el error si falla.
+     *
+     * @return true si el esquema quedó al día
+     */
+    private static boolean migrar() {
+        try {
+            SchemaMigrator.migrate();
+            return true;
+        } catch (IOException | SQLException e) {
+            System.err.println("Error al migrar el esquema: " + e.getMessage());
+            return false;
+        }
+    }
 }
@@ -24,6 +24,11 @@ import java.util.Scanner;
  * Todas las validaciones de negocio están en la capa Service.
  */
 public class MenuHandler {
+    /**
+     * Cantidad de registros por página en los listados (opciones 2 y 6).
+     */
+    private static final int PAGE_SIZE = 20;
+
     /**
      * Scanner compartido para leer entrada del usuario.
      * Inyectado desde AppMenu para evitar múltiples Scanners de System.in.
@@ -115,8 +120,8 @@ public class MenuHandler {
      * Opción 2: Listar mascotas (todas o filtradas por nombre/duenio).
      *
      * Submenú:
-     * 1. Listar todas las mascotas activas (getAll)
-     * 2. Buscar por nombre o duenio con LIKE (buscarPorNombreDuenio)
+     * 1. Listar todas las mascotas activas, de a PAGE_SIZE por página (getPage)
+     * 2. Buscar por nombre o duenio (buscarPorNombreDuenio), de a PAGE_SIZE resultados
      *
      * Muestra:
      * - ID, Nombre, Especie, Raza, fechaNacimiento, Duenio
@@ -126,8 +131,14 @@ public class MenuHandler {
      * - Si no hay mascotas: Muestra "No se encontraron mascotas"
      * - Si la mascota no tiene microchip: Solo muestra datos de mascota
      *
+     * Paginación (opción 1):
+     * - Usa paginación keyset: cada página pide las mascotas con id > último ID mostrado
+     * - Nunca se carga la tabla completa en memoria
+     * - Después de cada página completa pregunta si se desea continuar
+     *
      * Búsqueda por nombre/duenio:
      * - Usa MascotaDAO.buscarPorNombreDuenio() que hace LIKE '%filtro%'
+     *   o, con -Ddb.search.mode=fulltext, MATCH sobre el índice ngram (resultados por relevancia)
      * - Insensible a mayúsculas en MySQL (depende de collation)
      * - Busca en nombre O duenio
      */
@@ -136,33 +147,46 @@ public class MenuHandler {
             System.out.print("¿Desea (1) listar todos o (2) buscar por nombre/duenio? Ingrese opcion: ");
             int subopcion = Integer.parseInt(scanner.nextLine());
 
-            List<Mascota> mascotas;
             if (subopcion == 1) {
-                mascotas = mascotaService.getAll();
-            } else if (subopcion == 2) {
-                System.out.print("Ingrese texto a buscar: ");
-                String filtro = scanner.nextLine().trim();
-                mascotas = mascotaService.buscarPorNombreDuenio(filtro);
-            } else {
-                System.out.println("Opcion invalida.");
+                int cursor = 0;
+                int mostradas = 0;
+                List<Mascota> pagina;
+                do {
+                    pagina = mascotaService.getPage(cursor, PAGE_SIZE);
+                    for (Mascota m : pagina) {
+                        imprimirMascota(m);
+                    }
+                    mostradas += pagina.size();
+                    if (!pagina.isEmpty()) {
+                        cursor = pagina.get(pagina.size() - 1).getId();
+                    }
+                } while (pagina.size() == PAGE_SIZE && pedirSiguientePagina());
+
+                if (mostradas == 0) {
+                    System.out.println("No se encontraron mascotas.");
+                }
                 return;
             }
 
-            if (mascotas.isEmpty()) {
-                System.out.println("No se encontraron mascotas.");
+            if (subopcion != 2) {
+                System.out.println("Opcion invalida.");
                 return;
             }
 
-            for (Mascota m : mascotas) {
-                System.out.println("ID: " + m.getId() + ", Nombre: " + m.getNombre() +
-                        ", Especie: " + m.getEspecie() + ", Raza: " + m.getRaza() +
-                        ", Fecha de Nacimiento: " + m.getFechaNacimiento() + ", Duenio: " + m.getDuenio());
-                if (m.getMicrochip() != null) {
-                    System.out.println("   Microchip: " + m.getMicrochip().getCodigo() +
-                            ", Veterinaria: " + m.getMicrochip().getVeterinaria() +
-                            ", Fecha de Implantacion: " + m.getMicrochip().getFechaImplantacion() +
-                            ", Observaciones: " + m.getMicrochip().getObservaciones());
+            System.out.print("Ingrese texto a buscar: ");
+            String filtro = scanner.nextLine().trim();
+            int offset = 0;
+            List<Mascota> pagina;
+            do {
+                pagina = mascotaService.buscarPorNombreDuenio(filtro, offset, PAGE_SIZE);
+                for (Mascota m : pagina) {
+                    imprimirMascota(m);
                 }
+                offset += pagina.size();
+            } while (pagina.size() == PAGE_SIZE && pedirSiguientePagina());
+
+            if (offset == 0) {
+                System.out.println("No se encontraron mascotas.");
             }
         } catch (Exception e) {
             System.err.println("Error al listar mascotas: " + e.getMessage());
@@ -303,7 +327,7 @@ public class MenuHandler {
     }
 
     /**
-     * Opción 6: Listar todos los microchips activos.
+     * Opción 6: Listar todos los microchips activos, de a PAGE_SIZE por página.
      *
      * Muestra: codigo, fecha_implantacion, veterinaria
      *
@@ -312,19 +336,29 @@ public class MenuHandler {
      * - Consultar ID de microchip para actualizar (opción 9) o eliminar (opción 8)
      *
      * Nota: Solo muestra microchips con eliminado=FALSE (soft delete).
+     * Usa paginación keyset (getPage) igual que listarMascotas().
      */
     public void listarMicrochips() {
         try {
-            List<Microchip> microchips = mascotaService.getMicrochipService().getAll();
-            if (microchips.isEmpty()) {
+            int cursor = 0;
+            int mostrados = 0;
+            List<Microchip> pagina;
+            do {
+                pagina = mascotaService.getMicrochipService().getPage(cursor, PAGE_SIZE);
+                for (Microchip m : pagina) {
+                    System.out.println("ID: " + m.getId() + ", codigo:" + m.getCodigo() +
+                            ", fecha de implantacion: " + m.getFechaImplantacion() + 
+                            ", veterinaria: " + m.getVeterinaria() +
+                            ", observaciones: " + m.getObservaciones());
+                }
+                mostrados += pagina.size();
+                if (!pagina.isEmpty()) {
+                    cursor = pagina.get(pagina.size() - 1).getId();
+                }
+            } while (pagina.size() == PAGE_SIZE && pedirSiguientePagina());
+
+            if (mostrados == 0) {
                 System.out.println("No se encontraron microchips.");
-                return;
-            }
-            for (Microchip m : microchips) {
-                System.out.println("ID: " + m.getId() + ", codigo:" + m.getCodigo() +
-                        ", fecha de implantacion: " + m.getFechaImplantacion() + 
-                        ", veterinaria: " + m.getVeterinaria() +
-                        ", observaciones: " + m.getObservaciones());
             }
         } catch (Exception e) {
             System.err.println("Error al listar microchips: " + e.getMessage());
@@ -665,6 +699,34 @@ public class MenuHandler {
         }
     }
 
+    /**
+     * Método auxiliar privado: Muestra una mascota (y su microchip si tiene) en una o dos líneas.
+     * Usado por listarMascotas() tanto en el listado paginado como en la búsqueda.
+     *
+     * @param m Mascota a mostrar
+     */
+    private void imprimirMascota(Mascota m) {
+        System.out.println("ID: " + m.getId() + ", Nombre: " + m.getNombre() +
+                ", Especie: " + m.getEspecie() + ", Raza: " + m.getRaza() +
+                ", Fecha de Nacimiento: " + m.getFechaNacimiento() + ", Duenio: " + m.getDuenio());
+        if (m.getMicrochip() != null) {
+            System.out.println("   Microchip: " + m.getMicrochip().getCodigo() +
+                    ", Veterinaria: " + m.getMicrochip().getVeterinaria() +
+                    ", Fecha de Implantacion: " + m.getMicrochip().getFechaImplantacion() +
+                    ", Observaciones: " + m.getMicrochip().getObservaciones());
+        }
+    }
+
+    /**
+     * Método auxiliar privado: Pregunta si se desea ver la página siguiente de un listado.
+     *
+     * @return true si el usuario presiona Enter, false si ingresa cualquier otro texto
+     */
+    private boolean pedirSiguientePagina() {
+        System.out.print("-- Enter para ver más, 'q' para terminar: ");
+        return scanner.nextLine().trim().isEmpty();
+    }
+
         private String pedirObligatorio(String prompt) {
         String s;
         do {
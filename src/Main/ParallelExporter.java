@@ -0,0 +1,487 @@
+package Main;
+
+import Config.DatabaseConnection;
+import Dao.IMascotaDAO;
+import Dao.MascotaDAO;
+import Dao.MicrochipDAO;
+import Models.Mascota;
+import Models.Microchip;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación completa de las mascotas activas (con su microchip) a CSV o JSON Lines,
+ * leyendo en paralelo sobre varias conexiones. Pensada para el envío nocturno del registro
+ * a la base de datos nacional.
+ *
+ * Flujo:
+ * 1. Divide el espacio de IDs (1 .. IMascotaDAO.getMaxId()) en export.ranges rangos de igual ancho
+ * 2. export.threads hilos leen cada rango con IMascotaDAO.streamRange() (mismo JOIN que
+ *    SELECT_ALL_SQL, ordenado por id, en streaming) y lo escriben en un archivo parcial
+ *    junto al destino, a través de un FileChannel con buffer propio (opcionalmente gzip)
+ * 3. El hilo principal concatena los parciales en orden de rango (FileChannel.transferTo)
+ *    a medida que terminan, e informa el progreso cada 5 segundos
+ * 4. Al terminar, renombra el resultado al destino; si falla, borra parciales y temporal
+ *    (un destino anterior queda intacto)
+ *
+ * Orden determinista: los rangos son disjuntos y crecientes y cada uno viene ordenado por id,
+ * así que el resultado es el mismo que un recorrido completo ORDER BY id, con cualquier cantidad
+ * de hilos o rangos. Con gzip cada parcial es un miembro gzip independiente (se comprime en
+ * paralelo) y el archivo es la concatenación: gzip/zcat y GZIPInputStream lo leen como uno solo,
+ * con el mismo contenido descomprimido.
+ *
+ * IMPORTANTE: cada rango se lee en su propia conexión y transacción, así que el archivo no es
+ * una foto de un único instante: una mascota modificada durante la exportación puede salir con
+ * el valor anterior o el nuevo. Las mascotas insertadas después de leer getMaxId() no se exportan.
+ *
+ * Uso: java Main.Main export &lt;archivo&gt; [csv|jsonl]
+ * - El formato se toma del argumento o de la extensión (.csv, .jsonl); ".gz" al final comprime
+ * - export.threads (4, acotado por db.async.maxConcurrency), export.ranges (hilos * 8),
+ *   export.bufferKb (256)
+ */
+public final class ParallelExporter {
+
+    /** Período de los reportes de progreso por consola. */
+    private static final long PROGRESS_INTERVAL_MS = 5_000;
+
+    /** Espera máxima a que los hilos terminen después de una falla, antes de borrar los parciales. */
+    private static final long CANCEL_WAIT_SECONDS = 30;
+
+    /** Columnas del CSV: id y las del formato de importación (CsvImporter.COLUMNAS). */
+    static final List<String> COLUMNAS_CSV;
+
+    static {
+        List<String> columnas = new ArrayList<>();
+        columnas.add("id");
+        columnas.addAll(CsvImporter.COLUMNAS);
+        COLUMNAS_CSV = List.copyOf(columnas);
+    }
+
+    /**
+     * Formato de salida: una línea por mascota.
+     */
+    public enum Formato {
+        /** Columnas de COLUMNAS_CSV, con encabezado; re-importable con "import" (ignorando id). */
+        CSV,
+        /** Un objeto JSON por línea, con la misma forma que la API HTTP. */
+        JSONL;
+
+        /**
+         * @return Primera línea del archivo, o null si el formato no tiene encabezado
+         */
+        String encabezado() {
+            return this == CSV ? String.join(",", COLUMNAS_CSV) + "\n" : null;
+        }
+
+        /**
+         * @return La mascota como una línea terminada en '\n'
+         */
+        String linea(Mascota mascota) {
+            return this == CSV ? lineaCsv(mascota) : Json.write(HttpApiServer.toJson(mascota)) + "\n";
+        }
+    }
+
+    /**
+     * Rango de IDs [desde, hasta] (inclusive) y su posición en el archivo final.
+     */
+    record Rango(int indice, int desde, int hasta) { }
+
+    private final IMascotaDAO mascotaDAO;
+    private final int hilos;
+    private final int cantidadRangos;
+    private final int bufferBytes;
+
+    /**
+     * @param mascotaDAO DAO de mascotas
+     * @param hilos Lecturas en paralelo (una conexión cada una)
+     * @param cantidadRangos Rangos en que se divide el espacio de IDs (al menos hilos, para repartir la carga)
+     * @param bufferBytes Tamaño del buffer de escritura de cada parcial
+     * @throws IllegalArgumentException Si mascotaDAO es null o algún tamaño no es positivo
+     */
+    public ParallelExporter(IMascotaDAO mascotaDAO, int hilos, int cantidadRangos, int bufferBytes) {
+        if (mascotaDAO == null) {
+            throw new IllegalArgumentException("MascotaDAO no puede ser null");
+        }
+        if (hilos <= 0 || cantidadRangos <= 0 || bufferBytes <= 0) {
+            throw new IllegalArgumentException("Hilos, rangos y buffer deben ser mayores a 0");
+        }
+        this.mascotaDAO = mascotaDAO;
+        this.hilos = hilos;
+        this.cantidadRangos = cantidadRangos;
+        this.bufferBytes = bufferBytes;
+    }
+
+    /**
+     * Punto de entrada del comando "export" (invocado desde Main).
+     *
+     * @param args ["export", archivo, (opcional) formato]
+     * @return Código de salida: 0 si terminó, 2 si falló
+     */
+    static int run(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: java Main.Main export <archivo> [csv|jsonl]");
+            return 2;
+        }
+        try {
+            Path destino = Path.of(args[1]);
+            Formato formato = args.length > 2 ? Formato.valueOf(args[2].toUpperCase(Locale.ROOT)) : formatoDe(destino);
+            int hilos = Integer.getInteger("export.threads", Math.min(4, DatabaseConnection.getAsyncMaxConcurrency()));
+            ParallelExporter exporter = new ParallelExporter(new MascotaDAO(new MicrochipDAO()), hilos,
+                    Integer.getInteger("export.ranges", hilos * 8), Integer.getInteger("export.bufferKb", 256) * 1024);
+            System.out.println(exporter.exportar(destino, formato, esGzip(destino)));
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Error en la exportación: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Formato según la extensión del archivo, sin contar ".gz".
+     *
+     * @throws IllegalArgumentException Si la extensión no es .csv ni .jsonl
+     */
+    static Formato formatoDe(Path archivo) {
+        String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (nombre.endsWith(".gz")) {
+            nombre = nombre.substring(0, nombre.length() - 3);
+        }
+        if (nombre.endsWith(".csv")) {
+            return Formato.CSV;
+        }
+        if (nombre.endsWith(".jsonl")) {
+            return Formato.JSONL;
+        }
+        throw new IllegalArgumentException("No se reconoce el formato de " + archivo + " (usar .csv o .jsonl, o indicarlo)");
+    }
+
+    static boolean esGzip(Path archivo) {
+        return archivo.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Divide [1, maxId] en rangos contiguos de igual ancho (el último puede ser más corto).
+     * Devuelve al menos un rango, aunque no haya mascotas (vacío: [1, 0]), para que el archivo
+     * tenga encabezado.
+     *
+     * @param maxId Mayor ID a incluir
+     * @param cantidad Rangos deseados (menos si hay menos IDs)
+     * @return Rangos en orden creciente
+     */
+    static List<Rango> particionar(int maxId, int cantidad) {
+        List<Rango> rangos = new ArrayList<>();
+        long ancho = Math.max(1, (maxId + (long) cantidad - 1) / cantidad);
+        for (long desde = 1; desde <= maxId; desde += ancho) {
+            rangos.add(new Rango(rangos.size(), (int) desde, (int) Math.min(desde + ancho - 1, maxId)));
+        }
+        if (rangos.isEmpty()) {
+            rangos.add(new Rango(0, 1, 0));
+        }
+        return rangos;
+    }
+
+    /**
+     * Exporta todas las mascotas activas al archivo dado.
+     *
+     * @param destino Archivo final (se reemplaza al terminar; los parciales se escriben en su carpeta)
+     * @param formato CSV o JSONL
+     * @param gzip true para comprimir
+     * @return Estadísticas de la exportación
+     * @throws Exception Si falla alguna lectura o escritura (no queda ningún archivo parcial)
+     */
+    public ExportStats exportar(Path destino, Formato formato, boolean gzip) throws Exception {
+        long inicio = System.currentTimeMillis();
+        List<Rango> rangos = particionar(mascotaDAO.getMaxId(), cantidadRangos);
+        Path dir = destino.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        String nombre = destino.getFileName().toString();
+        Path temporal = dir.resolve(nombre + ".tmp");
+
+        LongAdder filas = new LongAdder();
+        Progreso progreso = new Progreso(inicio, filas, rangos.size());
+        AtomicInteger numeroHilo = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(hilos, rangos.size()), r -> {
+            Thread t = new Thread(r, "export-" + numeroHilo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<Path> partes = new ArrayList<>();
+        List<Future<?>> tareas = new ArrayList<>();
+        boolean ok = false;
+        long bytes;
+        try {
+            for (Rango rango : rangos) {
+                Path parte = dir.resolve(String.format("%s.parte%04d", nombre, rango.indice()));
+                partes.add(parte);
+                tareas.add(pool.submit(() -> {
+                    exportarRango(rango, parte, formato, gzip, filas);
+                    return null;
+                }));
+            }
+            try (FileChannel salida = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < tareas.size(); i++) {
+                    esperar(tareas.get(i), progreso);
+                    anexar(partes.get(i), salida);
+                    progreso.rangoTerminado();
+                }
+                bytes = salida.size();
+            }
+            mover(temporal, destino);
+            ok = true;
+        } finally {
+            pool.shutdownNow();
+            if (!ok) {
+                pool.awaitTermination(CANCEL_WAIT_SECONDS, TimeUnit.SECONDS);
+                for (Path parte : partes) {
+                    Files.deleteIfExists(parte);
+                }
+                Files.deleteIfExists(temporal);
+            }
+        }
+        return new ExportStats(filas.sum(), rangos.size(), Math.min(hilos, rangos.size()), bytes,
+                System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Escribe un rango en su archivo parcial (el rango 0 lleva el encabezado del formato).
+     */
+    private void exportarRango(Rango rango, Path parte, Formato formato, boolean gzip, LongAdder filas) throws Exception {
+        try (CanalBuffereado salida = new CanalBuffereado(parte, gzip, bufferBytes);
+             Stream<Mascota> mascotas = mascotaDAO.streamRange(rango.desde(), rango.hasta())) {
+            if (rango.indice() == 0 && formato.encabezado() != null) {
+                salida.escribir(formato.encabezado());
+            }
+            Iterator<Mascota> it = mascotas.iterator();
+            while (it.hasNext()) {
+                salida.escribir(formato.linea(it.next()));
+                filas.increment();
+            }
+        }
+    }
+
+    /**
+     * Espera una tarea informando el progreso mientras tanto.
+     *
+     * @throws Exception La excepción de la tarea, si falló
+     */
+    private static void esperar(Future<?> tarea, Progreso progreso) throws Exception {
+        while (true) {
+            try {
+                tarea.get(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                progreso.reportar();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception causa) {
+                    throw causa;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Agrega el parcial al final del archivo de salida y lo borra.
+     */
+    private static void anexar(Path parte, FileChannel salida) throws IOException {
+        try (FileChannel entrada = FileChannel.open(parte, StandardOpenOption.READ)) {
+            long tamanio = entrada.size();
+            for (long posicion = 0; posicion < tamanio; ) {
+                posicion += entrada.transferTo(posicion, tamanio - posicion, salida);
+            }
+        }
+        Files.delete(parte);
+    }
+
+    private static void mover(Path origen, Path destino) throws IOException {
+        try {
+            Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Línea CSV: campos vacíos para NULL; entre comillas solo si contienen coma, comillas o saltos de línea.
+     */
+    static String lineaCsv(Mascota mascota) {
+        Microchip microchip = mascota.getMicrochip();
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(mascota.getId());
+        campoCsv(sb, mascota.getNombre());
+        campoCsv(sb, mascota.getEspecie());
+        campoCsv(sb, mascota.getRaza());
+        campoCsv(sb, fecha(mascota.getFechaNacimiento()));
+        campoCsv(sb, mascota.getDuenio());
+        campoCsv(sb, microchip == null ? null : microchip.getCodigo());
+        campoCsv(sb, microchip == null ? null : fecha(microchip.getFechaImplantacion()));
+        campoCsv(sb, microchip == null ? null : microchip.getVeterinaria());
+        campoCsv(sb, microchip == null ? null : microchip.getObservaciones());
+        return sb.append('\n').toString();
+    }
+
+    private static void campoCsv(StringBuilder sb, String valor) {
+        sb.append(',');
+        if (valor == null) {
+            return;
+        }
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (comillas) {
+            sb.append('"').append(valor.replace("\"", "\"\"")).append('"');
+        } else {
+            sb.append(valor);
+        }
+    }
+
+    private static String fecha(LocalDate fecha) {
+        return fecha == null ? null : fecha.toString();
+    }
+
+    /**
+     * Escritura de texto UTF-8 sobre un FileChannel con un ByteBuffer propio: las líneas se
+     * codifican directamente en el buffer (sin byte[] intermedios) y se escriben al llenarse.
+     * Con gzip el canal escribe en un GZIPOutputStream sobre el mismo FileChannel.
+     */
+    private static final class CanalBuffereado implements AutoCloseable {
+        private final FileChannel archivo;
+        private final GZIPOutputStream gzip;
+        private final WritableByteChannel canal;
+        private final ByteBuffer buffer;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        private CanalBuffereado(Path path, boolean comprimir, int bufferBytes) throws IOException {
+            this.archivo = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            if (comprimir) {
+                this.gzip = new GZIPOutputStream(Channels.newOutputStream(archivo), bufferBytes);
+                this.canal = Channels.newChannel(gzip);
+                this.buffer = ByteBuffer.allocate(bufferBytes);
+            } else {
+                this.gzip = null;
+                this.canal = archivo;
+                this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+            }
+        }
+
+        private void escribir(String texto) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(texto);
+            while (true) {
+                CoderResult resultado = encoder.encode(chars, buffer, true);
+                if (resultado.isOverflow()) {
+                    vaciar();
+                } else if (resultado.isError()) {
+                    resultado.throwException();
+                } else {
+                    break;
+                }
+            }
+            encoder.reset();
+        }
+
+        private void vaciar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vaciar();
+                if (gzip != null) {
+                    gzip.finish();
+                }
+            } finally {
+                if (gzip != null) {
+                    gzip.close();
+                }
+                archivo.close();
+            }
+        }
+    }
+
+    /**
+     * Progreso de una exportación: filas escritas por los hilos y rangos ya anexados.
+     */
+    private static final class Progreso {
+        private final long inicio;
+        private final LongAdder filas;
+        private final int rangos;
+        private int terminados;
+        private long proximoReporte;
+
+        private Progreso(long inicio, LongAdder filas, int rangos) {
+            this.inicio = inicio;
+            this.filas = filas;
+            this.rangos = rangos;
+            this.proximoReporte = inicio + PROGRESS_INTERVAL_MS;
+        }
+
+        private void rangoTerminado() {
+            terminados++;
+            if (System.currentTimeMillis() >= proximoReporte) {
+                reportar();
+            }
+        }
+
+        private void reportar() {
+            long ahora = System.currentTimeMillis();
+            long total = filas.sum();
+            System.out.printf("[EXPORT] %d mascotas, %d/%d rangos (%.0f mascotas/s)%n", total, terminados, rangos,
+                    total * 1000.0 / Math.max(1, ahora - inicio));
+            proximoReporte = ahora + PROGRESS_INTERVAL_MS;
+        }
+    }
+
+    /**
+     * Resultado de una exportación.
+     */
+    public record ExportStats(long mascotas, int rangos, int hilos, long bytes, long elapsedMs) {
+        /**
+         * @return Mascotas exportadas por segundo
+         */
+        public double mascotasPorSegundo() {
+            return elapsedMs == 0 ? 0.0 : mascotas * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Exportación finalizada: %d mascotas, %d rangos en %d hilos, %.1f MB, %.1f s (%.0f mascotas/s)",
+                    mascotas, rangos, hilos, bytes / (1024.0 * 1024.0), elapsedMs / 1000.0, mascotasPorSegundo());
+        }
+    }
+}
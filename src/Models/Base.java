@@ -1,8 +1,23 @@
 package Models;
 
+import java.util.Objects;
+
+/**
+ * Base de las entidades: id, eliminado, version y seguimiento de campos modificados.
+ *
+ * Seguimiento de cambios (dirty tracking):
+ * - Una entidad recién construida no tiene seguimiento: todos sus campos cuentan como modificados
+ * - El DAO llama a limpiarCambios() al leerla de la BD o al actualizarla; desde ahí
+ *   cada setter que cambia el valor marca su campo (un setter con el mismo valor no marca)
+ * - MascotaDAO/MicrochipDAO.actualizar() escriben solo los campos marcados
+ *   y no van a la BD si no hay ninguno
+ */
 public abstract class Base {
     private int id; //Identificador unico
     private Boolean eliminado; // Marca en la BD si el elemento esta eliminado
+    private int version; // Versión leída de la BD (concurrencia optimista, 0 = nueva)
+    private long modificados; // Bits (ordinal del campo) modificados desde limpiarCambios()
+    private boolean seguimiento; // false = no refleja una fila leída: todo cuenta como modificado
     
     public Base(int id, Boolean eliminado) {
     this.id = id;
@@ -12,6 +27,15 @@ public abstract class Base {
     public Base() {    
     this.eliminado = false;
     }
+
+    /** Constructor de copia (id, eliminado y version), para los constructores de copia de las entidades. */
+    protected Base(Base otra) {
+    this.id = otra.id;
+    this.eliminado = otra.eliminado;
+    this.version = otra.version;
+    this.modificados = otra.modificados;
+    this.seguimiento = otra.seguimiento;
+    }
     public int getId() {
         return id;
     }
@@ -27,5 +51,83 @@ public abstract class Base {
     public void setEliminado(boolean eliminado) {
         this.eliminado = eliminado;
     }
+
+    /**
+     * Versión de la fila al momento de leerla.
+     * actualizar() solo escribe si la fila sigue en esta versión y luego la incrementa.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Marca el estado actual como igual al de la BD e inicia el seguimiento de cambios.
+     * Lo llaman los DAOs al mapear una fila y después de un actualizar() exitoso.
+     */
+    public void limpiarCambios() {
+        this.modificados = 0;
+        this.seguimiento = true;
+    }
+
+    /**
+     * Versión y cambios pendientes de la entidad en un momento dado (ver guardarEstado()).
+     */
+    public record Estado(int version, long modificados, boolean seguimiento) {}
+
+    /**
+     * Guarda la versión y los campos modificados antes de un actualizarTx(): el DAO los
+     * actualiza al ejecutar el UPDATE, antes de que el caller confirme la transacción.
+     *
+     * @return Estado a pasar a restaurarEstado() si la transacción hace rollback
+     */
+    public Estado guardarEstado() {
+        return new Estado(version, modificados, seguimiento);
+    }
+
+    /**
+     * Vuelve a la versión y los campos modificados guardados, para que un reintento
+     * después de un rollback escriba los mismos cambios con la versión leída.
+     *
+     * @param estado Estado devuelto por guardarEstado()
+     */
+    public void restaurarEstado(Estado estado) {
+        this.version = estado.version();
+        this.modificados = estado.modificados();
+        this.seguimiento = estado.seguimiento();
+    }
+
+    /**
+     * @return true si hay algún campo modificado (siempre true sin seguimiento)
+     */
+    public boolean tieneCambios() {
+        return !seguimiento || modificados != 0;
+    }
+
+    /**
+     * Marca un campo como modificado si el valor cambia.
+     */
+    protected final void marcarModificado(Enum<?> campo, Object anterior, Object nuevo) {
+        if (!Objects.equals(anterior, nuevo)) {
+            marcarModificado(campo);
+        }
+    }
+
+    /**
+     * Marca un campo como modificado.
+     */
+    protected final void marcarModificado(Enum<?> campo) {
+        modificados |= 1L << campo.ordinal();
+    }
+
+    /**
+     * @return true si el campo fue modificado (siempre true sin seguimiento)
+     */
+    protected final boolean campoModificado(Enum<?> campo) {
+        return !seguimiento || (modificados & (1L << campo.ordinal())) != 0;
+    }
     
 }
@@ -19,8 +19,15 @@ import java.time.LocalDate;
  * - fecha_nacimiento: DATE NULL,
  * - duenio: VARCHAR(120) NOT NULL,
  * - microchip_id: BIGINT UNSIGNED NULL UNIQUE,
+ * - version: INT UNSIGNED NOT NULL DEFAULT 0, (heredado de Base)
  */
 public class Mascota extends Base {
+    /**
+     * Campos persistidos que MascotaDAO.actualizar() puede escribir por separado.
+     * El orden es el de las columnas en UPDATE_SQL.
+     */
+    public enum Campo { NOMBRE, ESPECIE, RAZA, FECHA_NACIMIENTO, DUENIO, MICROCHIP }
+
      // Atributos principales
     private String nombre;           // NOT NULL, máx. 60
     private String especie;          // NOT NULL, máx. 30
@@ -50,6 +57,20 @@ public class Mascota extends Base {
         this.duenio = duenio;
         this.microchip = microchip;
     }
+
+    /**
+     * Constructor de copia (copia también el microchip asociado).
+     * Usado por la caché de entidades para no exponer la instancia cacheada.
+     */
+    public Mascota(Mascota otra) {
+        super(otra);
+        this.nombre = otra.nombre;
+        this.especie = otra.especie;
+        this.raza = otra.raza;
+        this.fechaNacimiento = otra.fechaNacimiento;
+        this.duenio = otra.duenio;
+        this.microchip = otra.microchip != null ? new Microchip(otra.microchip) : null;
+    }
     
     // -------------------------
     // Getters y Setters
@@ -64,6 +85,7 @@ public class Mascota extends Base {
      * Validación: MascotaServiceImpl verifica que no esté vacío.
      */
     public void setNombre(String nombre) {
+        marcarModificado(Campo.NOMBRE, this.nombre, nombre);
         this.nombre = nombre;
     }
 
@@ -75,6 +97,7 @@ public class Mascota extends Base {
      * Validación: MascotaServiceImpl verifica que no esté vacío.
      */
     public void setEspecie(String especie) {
+        marcarModificado(Campo.ESPECIE, this.especie, especie);
         this.especie = especie;
     }
 
@@ -87,6 +110,7 @@ public class Mascota extends Base {
      * Validación: MascotaServiceImpl verifica que no este vacio.
      */
     public void setRaza(String raza) {
+        marcarModificado(Campo.RAZA, this.raza, raza);
         this.raza = raza;
     }
 
@@ -99,6 +123,7 @@ public class Mascota extends Base {
      * Validación: MascotaServiceImpl verifica que no esté vacío.
      */
     public void setFechaNacimiento(LocalDate fechaNacimiento) {
+        marcarModificado(Campo.FECHA_NACIMIENTO, this.fechaNacimiento, fechaNacimiento);
         this.fechaNacimiento = fechaNacimiento;
     }
 
@@ -111,6 +136,7 @@ public class Mascota extends Base {
      * Validación: MascotaServiceImpl verifica que no esté vacío.
      */
     public void setDuenio(String duenio) {
+        marcarModificado(Campo.DUENIO, this.duenio, duenio);
         this.duenio = duenio;
     }
 
@@ -121,16 +147,46 @@ public class Mascota extends Base {
     /**
      * Asocia o desasocia un microchip  a la mascota.
      * Si microchip es null, la FK microchip_id será NULL en la BD.
+     * Marca MICROCHIP si cambia el ID de la FK, o si el microchip es nuevo (id 0):
+     * su ID se asigna al insertarlo, antes de actualizar la mascota.
      */
     public void setMicrochip(Microchip microchip) {
+        int anterior = this.microchip != null ? this.microchip.getId() : 0;
+        int nuevo = microchip != null ? microchip.getId() : 0;
+        if (anterior != nuevo || (microchip != null && nuevo == 0)) {
+            marcarModificado(Campo.MICROCHIP);
+        }
         this.microchip = microchip;
     }
+
+    /**
+     * Marca como modificados todos los campos salvo MICROCHIP: actualizar() escribe
+     * todo lo demás y deja intacta la FK microchip_id de la BD.
+     * Lo usa el PUT de la API cuando el cuerpo no trae "microchip".
+     */
+    public void conservarMicrochip() {
+        limpiarCambios();
+        for (Campo campo : Campo.values()) {
+            if (campo != Campo.MICROCHIP) {
+                marcarModificado(campo);
+            }
+        }
+    }
+
+    /**
+     * @param campo Campo a consultar
+     * @return true si el campo cambió desde la lectura (o la mascota no fue leída de la BD)
+     */
+    public boolean isModificado(Campo campo) {
+        return campoModificado(campo);
+    }
     
     @Override
     public String toString() {
         return "Mascota {" +
                "id=" + getId() +
                ", eliminado=" + isEliminado() +
+               ", version=" + getVersion() +
                ", nombre='" + nombre + '\'' +
                ", especie='" + especie + '\'' +
                ", raza='" + raza + '\'' +
@@ -19,9 +19,15 @@ import java.time.LocalDate;
  * - fecha_implantacion: DATE NULL,
  * - veterinaria: VARCHAR(120) NULL,
  * - observaciones: VARCHAR(255) NULL,
+ * - version: INT UNSIGNED NOT NULL DEFAULT 0, (heredado de Base)
  */
 
 public class Microchip extends Base {
+    /**
+     * Campos persistidos que MicrochipDAO.actualizar() puede escribir por separado.
+     * El orden es el de las columnas en UPDATE_SQL.
+     */
+    public enum Campo { CODIGO, FECHA_IMPLANTACION, VETERINARIA, OBSERVACIONES }
 
     private String codigo;           // NOT NULL, UNIQUE, máx. 25
     private LocalDate fechaImplantacion;
@@ -49,6 +55,19 @@ public class Microchip extends Base {
         this.observaciones = observaciones;
     }
 
+    /**
+     * Constructor de copia.
+     * Usado por las cachés de los DAOs para no exponer la instancia cacheada
+     * (el caller puede modificar la copia sin alterar la caché).
+     */
+    public Microchip(Microchip otro) {
+        super(otro);
+        this.codigo = otro.codigo;
+        this.fechaImplantacion = otro.fechaImplantacion;
+        this.veterinaria = otro.veterinaria;
+        this.observaciones = otro.observaciones;
+    }
+
 
     public String getCodigo() {
         return codigo;
@@ -58,6 +77,7 @@ public class Microchip extends Base {
      * Validación: MicrochipServiceImpl verifica que no esté vacío.
      */
     public void setCodigo(String codigo) {
+        marcarModificado(Campo.CODIGO, this.codigo, codigo);
         this.codigo = codigo;
     }
 
@@ -68,6 +88,7 @@ public class Microchip extends Base {
      * Establece la fecha de implantacion.
     */
     public void setFechaImplantacion(LocalDate fechaImplantacion) {
+        marcarModificado(Campo.FECHA_IMPLANTACION, this.fechaImplantacion, fechaImplantacion);
         this.fechaImplantacion = fechaImplantacion;
     }
 
@@ -78,6 +99,7 @@ public class Microchip extends Base {
      * Establece la veterinaria.
     */
     public void setVeterinaria(String veterinaria) {
+        marcarModificado(Campo.VETERINARIA, this.veterinaria, veterinaria);
         this.veterinaria = veterinaria;
     }
 
@@ -88,14 +110,24 @@ public class Microchip extends Base {
      * Establece las observaciones.
     */
     public void setObservaciones(String observaciones) {
+        marcarModificado(Campo.OBSERVACIONES, this.observaciones, observaciones);
         this.observaciones = observaciones;
     }
 
+    /**
+     * @param campo Campo a consultar
+     * @return true si el campo cambió desde la lectura (o el microchip no fue leído de la BD)
+     */
+    public boolean isModificado(Campo campo) {
+        return campoModificado(campo);
+    }
+
     @Override
     public String toString() {
         return "Microchip{" +
                 "id=" + getId() +
                 ", eliminado=" + isEliminado() +
+                ", version=" + getVersion() +
                 ", codigo='" + codigo + '\'' +
                 ", fechaImplantacion=" + fechaImplantacion +
                 ", veterinaria='" + veterinaria + '\'' +
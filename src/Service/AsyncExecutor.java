@@ -0,0 +1,112 @@
+package Service;
+
+import Config.DatabaseConnection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Ejecutor de operaciones de servicio en hilos virtuales con concurrencia acotada hacia la BD.
+ * Base de AsyncMascotaService y AsyncMicrochipService.
+ *
+ * Funcionamiento:
+ * - Cada tarea corre en su propio hilo virtual (Executors.newVirtualThreadPerTaskExecutor):
+ *   miles de tareas pendientes cuestan poco memoria y ningún hilo de plataforma bloqueado
+ * - Antes de ejecutar, la tarea toma un permiso de un Semaphore (maxConcurrency);
+ *   las que no lo obtienen esperan sin ocupar conexión ni consumir el timeout del pool
+ * - El resultado (o la excepción, sin envolver) completa el CompletableFuture devuelto
+ *
+ * IMPORTANTE: Cancelar el CompletableFuture no interrumpe la operación en curso.
+ *
+ * Patrón: Bulkhead (semáforo) sobre executor de hilos virtuales
+ */
+public final class AsyncExecutor implements AutoCloseable {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    /**
+     * Crea el ejecutor con la concurrencia configurada en db.async.maxConcurrency.
+     */
+    public AsyncExecutor() {
+        this(DatabaseConnection.getAsyncMaxConcurrency());
+    }
+
+    /**
+     * @param maxConcurrency Máximo de tareas ejecutándose a la vez (mayor a 0)
+     * @throws IllegalArgumentException Si maxConcurrency no es positivo
+     */
+    public AsyncExecutor(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("La concurrencia máxima debe ser mayor a 0");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Ejecuta una tarea en un hilo virtual, respetando el límite de concurrencia.
+     *
+     * @param task Operación bloqueante (normalmente una llamada a un servicio)
+     * @return Future completado con el resultado o con la excepción lanzada por la tarea;
+     *         si el ejecutor está cerrado, un future fallido con RejectedExecutionException
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> future) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return;
+        }
+        try {
+            future.complete(task.call());
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return Tareas ejecutándose en este momento
+     */
+    public int getActive() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * @return Tareas esperando un permiso (aproximado)
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * @return Límite de tareas simultáneas
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Deja de aceptar tareas y espera a que terminen las pendientes.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
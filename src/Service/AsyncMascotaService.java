@@ -0,0 +1,104 @@
+package Service;
+
+import Models.Mascota;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fachada asíncrona de MascotaServiceImpl.
+ * Cada método delega en el método bloqueante homónimo dentro de un AsyncExecutor,
+ * así que aplica exactamente las mismas validaciones y transacciones.
+ *
+ * Uso típico (capa de integración, muchas consultas en paralelo):
+ * <pre>
+ * List&lt;CompletableFuture&lt;Mascota&gt;&gt; futuros = ids.stream().map(async::getById).toList();
+ * CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).join();
+ * </pre>
+ *
+ * Errores: el future se completa con la misma excepción que lanzaría el servicio
+ * (IllegalArgumentException, SQLException, ...); join() la envuelve en CompletionException.
+ */
+public class AsyncMascotaService {
+    private final MascotaServiceImpl mascotaService;
+    private final AsyncExecutor executor;
+
+    /**
+     * @param mascotaService Servicio bloqueante al que se delega
+     * @param executor Ejecutor compartido (el límite de concurrencia es común a todas las fachadas que lo usen)
+     * @throws IllegalArgumentException si alguna dependencia es null
+     */
+    public AsyncMascotaService(MascotaServiceImpl mascotaService, AsyncExecutor executor) {
+        if (mascotaService == null) {
+            throw new IllegalArgumentException("MascotaServiceImpl no puede ser null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("AsyncExecutor no puede ser null");
+        }
+        this.mascotaService = mascotaService;
+        this.executor = executor;
+    }
+
+    /**
+     * Versión asíncrona de MascotaServiceImpl.insertar().
+     *
+     * @param mascota Mascota a insertar (al completar, tiene su ID asignado)
+     * @return Future completado al hacer commit
+     */
+    public CompletableFuture<Void> insertar(Mascota mascota) {
+        return executor.submit(() -> {
+            mascotaService.insertar(mascota);
+            return null;
+        });
+    }
+
+    /**
+     * Versión asíncrona de MascotaServiceImpl.getById().
+     *
+     * @param id ID de la mascota
+     * @return Future con la mascota, o con null si no existe
+     */
+    public CompletableFuture<Mascota> getById(int id) {
+        return executor.submit(() -> mascotaService.getById(id));
+    }
+
+    /**
+     * Versión asíncrona de MascotaServiceImpl.getAll().
+     *
+     * @return Future con las mascotas activas
+     */
+    public CompletableFuture<List<Mascota>> getAll() {
+        return executor.submit(mascotaService::getAll);
+    }
+
+    /**
+     * Versión asíncrona de MascotaServiceImpl.buscarPorNombreDuenio(String).
+     *
+     * @param filtro Texto a buscar
+     * @return Future con las mascotas que coinciden
+     */
+    public CompletableFuture<List<Mascota>> buscarPorNombreDuenio(String filtro) {
+        return executor.submit(() -> mascotaService.buscarPorNombreDuenio(filtro));
+    }
+
+    /**
+     * Versión asíncrona de MascotaServiceImpl.buscarPorNombreDuenio(String, int, int).
+     *
+     * @param filtro Texto a buscar
+     * @param offset Resultados a saltear
+     * @param limit Tamaño de página
+     * @return Future con la página de mascotas que coinciden
+     */
+    public CompletableFuture<List<Mascota>> buscarPorNombreDuenio(String filtro, int offset, int limit) {
+        return executor.submit(() -> mascotaService.buscarPorNombreDuenio(filtro, offset, limit));
+    }
+
+    /**
+     * Versión asíncrona de MascotaServiceImpl.buscarPorCodigoMicrochip().
+     *
+     * @param codigo Codigo del microchip
+     * @return Future con la mascota, o con null si ninguna tiene ese chip
+     */
+    public CompletableFuture<Mascota> buscarPorCodigoMicrochip(String codigo) {
+        return executor.submit(() -> mascotaService.buscarPorCodigoMicrochip(codigo));
+    }
+}
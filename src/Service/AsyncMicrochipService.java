@@ -0,0 +1,62 @@
+package Service;
+
+import Models.Microchip;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fachada asíncrona de MicrochipServiceImpl.
+ * Igual que AsyncMascotaService: delega en los métodos bloqueantes dentro de un AsyncExecutor.
+ */
+public class AsyncMicrochipService {
+    private final MicrochipServiceImpl microchipService;
+    private final AsyncExecutor executor;
+
+    /**
+     * @param microchipService Servicio bloqueante al que se delega
+     * @param executor Ejecutor compartido
+     * @throws IllegalArgumentException si alguna dependencia es null
+     */
+    public AsyncMicrochipService(MicrochipServiceImpl microchipService, AsyncExecutor executor) {
+        if (microchipService == null) {
+            throw new IllegalArgumentException("MicrochipServiceImpl no puede ser null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("AsyncExecutor no puede ser null");
+        }
+        this.microchipService = microchipService;
+        this.executor = executor;
+    }
+
+    /**
+     * Versión asíncrona de MicrochipServiceImpl.insertar().
+     *
+     * @param microchip Microchip a insertar (al completar, tiene su ID asignado)
+     * @return Future completado al insertar
+     */
+    public CompletableFuture<Void> insertar(Microchip microchip) {
+        return executor.submit(() -> {
+            microchipService.insertar(microchip);
+            return null;
+        });
+    }
+
+    /**
+     * Versión asíncrona de MicrochipServiceImpl.getById().
+     *
+     * @param id ID del microchip
+     * @return Future con el microchip, o con null si no existe
+     */
+    public CompletableFuture<Microchip> getById(int id) {
+        return executor.submit(() -> microchipService.getById(id));
+    }
+
+    /**
+     * Versión asíncrona de MicrochipServiceImpl.getAll().
+     *
+     * @return Future con los microchips activos
+     */
+    public CompletableFuture<List<Microchip>> getAll() {
+        return executor.submit(microchipService::getAll);
+    }
+}
@@ -8,4 +8,5 @@ public interface GenericService<T> {
     void eliminar(int id) throws Exception;
     T getById(int id) throws Exception;
     List<T> getAll() throws Exception;
+    List<T> getPage(int afterId, int limit) throws Exception;
 }
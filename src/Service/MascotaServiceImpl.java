@@ -3,9 +3,12 @@ package Service;
 import Config.DatabaseConnection;
 import Config.TransactionManager;
 import java.sql.Connection;
-import Dao.MascotaDAO;
+import Dao.IMascotaDAO;
 import Models.Mascota;
+import Models.Microchip;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Implementación del servicio de negocio para la entidad Mascota.
@@ -20,11 +23,14 @@ import java.util.List;
  * Patrón: Service Layer con inyección de dependencias y coordinación de servicios
  */
 public class MascotaServiceImpl implements GenericService<Mascota>{
+    /** Tamaño máximo de página aceptado por getPage(). */
+    public static final int MAX_PAGE_SIZE = 1000;
+
         /**
      * DAO para acceso a datos de mascotas.
      * Inyectado en el constructor (Dependency Injection).
      */
-    private final MascotaDAO mascotaDAO;
+    private final IMascotaDAO mascotaDAO;
 
     /**
      * Servicio de microchips para coordinar operaciones transaccionales.
@@ -39,11 +45,11 @@ public class MascotaServiceImpl implements GenericService<Mascota>{
      * Constructor con inyección de dependencias.
      * Valida que ambas dependencias no sean null (fail-fast).
      *
-     * @param mascotaDAO DAO de mascotas (normalmente MascotaDAO)
+     * @param mascotaDAO DAO de mascotas (MascotaDAO o un decorador como CachingMascotaDAO)
      * @param microchipServiceImpl Servicio de microchips para operaciones coordinadas
      * @throws IllegalArgumentException si alguna dependencia es null
      */
-    public MascotaServiceImpl(MascotaDAO mascotaDAO, MicrochipServiceImpl microchipServiceImpl) {
+    public MascotaServiceImpl(IMascotaDAO mascotaDAO, MicrochipServiceImpl microchipServiceImpl) {
         if (mascotaDAO == null) {
             throw new IllegalArgumentException("MascotaDAO no puede ser null");
         }
@@ -57,36 +63,113 @@ public class MascotaServiceImpl implements GenericService<Mascota>{
     /**
      * Inserta una nueva mascota en la base de datos.
      *
-     * Flujo transaccional complejo:
-     * 1. Valida que los datos de la mascota sean correctos (nombre, especie, raza, fecha_nacimiento, duenio)
-     * 3. Si la mascota tiene microchip asociado:
-     *    a. Si microchip.id == 0 → Es nuevo, lo inserta en la BD
-     *    b. Si microchip.id > 0 → Ya existe, lo actualiza
-     * 4. Inserta la mascota con la FK microchip_id correcta
+     * Flujo transaccional (una sola conexión, atómico):
+     * 1. Valida que los datos de la mascota sean correctos (nombre, especie, duenio)
+     * 2. Abre UNA conexión con TransactionManager y dentro de la misma transacción:
+     *    a. Si el microchip es nuevo (id == 0) → lo inserta (obtiene ID autogenerado para la FK)
+     *    b. Si el microchip ya existe (id > 0) → actualiza sus datos (control de versión)
+     *    c. Inserta la mascota con la FK microchip_id correcta
+     * 3. Commit; ante cualquier error, rollback (no queda microchip huérfano ni modificado)
+     *
+     * Unicidad del codigo: la garantiza la restricción UNIQUE dentro de la transacción
+     * (MicrochipServiceImpl.insertarTx traduce el duplicado a IllegalArgumentException),
+     * evitando el SELECT previo de validateCodigoUnique().
+     *
+     * Antes: 2 conexiones, 3 round trips (SELECT codigo + 2 INSERT) y sin atomicidad.
+     * Ahora: 1 conexión, 2 INSERT + commit.
      *
-     * IMPORTANTE: La coordinación con MicrochipService permite que el microchip
-     * obtenga su ID autogenerado ANTES de insertar la mascota (necesario para la FK).
+     * Si la transacción falla, los IDs asignados durante la misma vuelven a 0 y el microchip
+     * existente vuelve a su versión leída y sus campos modificados (Base.restaurarEstado).
      *
      * @param mascota Mascota a insertar (id será ignorado y regenerado)
-     * @throws Exception Si la validación falla
+     * @throws IllegalArgumentException Si la validación falla o el codigo del microchip ya existe
+     * @throws Exception Si hay error de BD (se hace rollback de todo)
      */
     @Override
     public void insertar(Mascota mascota) throws Exception {
-        validateMascota(mascota);        
+        validateMascota(mascota);
+        Microchip microchip = mascota.getMicrochip();
+        boolean microchipNuevo = microchip != null && microchip.getId() == 0;
+        Microchip.Estado estadoMicrochip = microchip != null ? microchip.guardarEstado() : null;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             TransactionManager tx = new TransactionManager(conn)) {
 
-        // Coordinación con MicrochipService (transaccional)
-        if (mascota.getMicrochip() != null) {
-            if (mascota.getMicrochip().getId() == 0) {
+            tx.startTransaction();
+            if (microchipNuevo) {
                 // Microchip nuevo: insertar primero para obtener ID autogenerado
-                microchipServiceImpl.insertar(mascota.getMicrochip());
-            } else {
-                // Microchip existente: actualizar datos
-                microchipServiceImpl.actualizar(mascota.getMicrochip());
+                microchipServiceImpl.insertarTx(microchip, conn);
+            } else if (microchip != null) {
+                // Microchip existente: actualizar datos en la misma transacción
+                microchipServiceImpl.actualizarTx(microchip, conn);
+            }
+            mascotaDAO.insertTx(mascota, conn);
+            tx.commit();
+        } catch (Exception e) {
+            // Rollback: los IDs generados dentro de la transacción ya no existen
+            mascota.setId(0);
+            if (microchipNuevo) {
+                microchip.setId(0);
+            } else if (microchip != null) {
+                microchip.restaurarEstado(estadoMicrochip);
             }
+            throw e;
         }
+    }
+
+    /**
+     * Inserta un lote de mascotas nuevas, con sus microchips nuevos, en UNA transacción.
+     *
+     * Flujo:
+     * 1. Valida todas las mascotas (y sus microchips en insertarBatchTx)
+     * 2. Abre una conexión con TransactionManager
+     * 3. Inserta todos los microchips con MicrochipServiceImpl.insertarBatchTx (obtiene sus IDs)
+     * 4. Inserta todas las mascotas con IMascotaDAO.insertarBatchTx (FK microchip_id ya asignada)
+     * 5. Commit; ante cualquier error, rollback del lote completo
+     *
+     * Si el lote falla, los IDs de mascotas y microchips vuelven a 0, de modo que
+     * el caller puede reintentar las filas de a una con insertar() para aislar la culpable.
+     *
+     * @param mascotas Mascotas a insertar; sus microchips (si tienen) deben ser nuevos (id == 0)
+     * @throws IllegalArgumentException Si alguna mascota o microchip es inválido, o hay codigos duplicados
+     * @throws Exception Si hay error de BD (no queda ninguna fila del lote)
+     */
+    public void insertarBatch(List<Mascota> mascotas) throws Exception {
+        if (mascotas == null || mascotas.isEmpty()) {
+            return;
+        }
+        List<Microchip> microchips = new ArrayList<>();
+        for (Mascota mascota : mascotas) {
+            validateMascota(mascota);
+            Microchip microchip = mascota.getMicrochip();
+            if (microchip != null) {
+                if (microchip.getId() != 0) {
+                    throw new IllegalArgumentException("insertarBatch solo admite microchips nuevos (id = 0)");
+                }
+                microchips.add(microchip);
+            }
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             TransactionManager tx = new TransactionManager(conn)) {
 
-        mascotaDAO.insertar(mascota);
+            tx.startTransaction();
+            if (!microchips.isEmpty()) {
+                microchipServiceImpl.insertarBatchTx(microchips, conn);
+            }
+            mascotaDAO.insertarBatchTx(mascotas, conn);
+            tx.commit();
+        } catch (Exception e) {
+            for (Mascota mascota : mascotas) {
+                mascota.setId(0);
+            }
+            for (Microchip microchip : microchips) {
+                microchip.setId(0);
+            }
+            throw e;
+        }
     }
+
     /**
      * Actualiza una mascota existente en la base de datos.
      *
@@ -99,7 +182,10 @@ public class MascotaServiceImpl implements GenericService<Mascota>{
      * - Asignar nuevo microchip: opción 6 (crea nuevo) o 7 (usa existente)
      * - Actualizar microchip: opción 9 (modifica microchip actual)
      *
+     * Concurrencia: solo escribe si la mascota sigue en mascota.getVersion() (la leída).
+     *
      * @param mascota Mascota con los datos actualizados
+     * @throws Dao.OptimisticLockException Si otro usuario la modificó desde que se leyó
      * @throws Exception Si la validación falla o la mascota no existe
      */
     @Override
@@ -110,6 +196,72 @@ public class MascotaServiceImpl implements GenericService<Mascota>{
         }      
         mascotaDAO.actualizar(mascota);
     }
+
+    /**
+     * Actualiza una mascota y los datos de su microchip existente en UNA transacción.
+     *
+     * Flujo:
+     * 1. Valida la mascota y que su microchip sea existente (id > 0)
+     * 2. Actualiza el microchip (MicrochipServiceImpl.actualizarTx, control de su versión)
+     * 3. Actualiza la mascota (control de su versión; la FK apunta al mismo microchip)
+     * 4. Commit; ante cualquier error, rollback de ambos; versiones y campos
+     *    modificados vuelven a los leídos (Base.restaurarEstado), así un reintento escribe lo mismo
+     *
+     * Para asociar un microchip nuevo, primero se inserta (MicrochipServiceImpl.insertar)
+     * y luego se asocia por id con actualizar().
+     *
+     * @param mascota Mascota con los datos actualizados y su microchip modificado
+     * @throws Dao.OptimisticLockException Si la mascota o el microchip cambiaron desde que se leyeron
+     * @throws IllegalArgumentException Si la validación falla o el codigo del microchip ya existe
+     * @throws Exception Si alguna no existe o hay error de BD (se hace rollback de todo)
+     */
+    public void actualizarConMicrochip(Mascota mascota) throws Exception {
+        validateMascota(mascota);
+        if (mascota.getId() <= 0) {
+            throw new IllegalArgumentException("El ID de la mascota debe ser mayor a 0 para actualizar");
+        }
+        Microchip microchip = mascota.getMicrochip();
+        if (microchip == null || microchip.getId() <= 0) {
+            throw new IllegalArgumentException("La mascota debe tener un microchip existente para actualizarlo");
+        }
+        Mascota.Estado estadoMascota = mascota.guardarEstado();
+        Microchip.Estado estadoMicrochip = microchip.guardarEstado();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             TransactionManager tx = new TransactionManager(conn)) {
+
+            tx.startTransaction();
+            microchipServiceImpl.actualizarTx(microchip, conn);
+            mascotaDAO.actualizarTx(mascota, conn);
+            tx.commit();
+        } catch (Exception e) {
+            mascota.restaurarEstado(estadoMascota);
+            microchip.restaurarEstado(estadoMicrochip);
+            throw e;
+        }
+    }
+
+    /**
+     * Aplica un cambio a la versión más reciente de una mascota, reintentando ante conflictos.
+     * Ver OptimisticRetry (hasta db.update.maxAttempts intentos).
+     *
+     * <pre>
+     * mascotaService.actualizarConReintentos(id, m -&gt; m.setDuenio("Ana Pérez"));
+     * </pre>
+     *
+     * @param id ID de la mascota
+     * @param cambios Modificación a aplicar sobre la mascota leída (puede ejecutarse más de una vez)
+     * @return Mascota guardada, con su nueva versión
+     * @throws IllegalArgumentException Si la mascota no existe o queda inválida
+     * @throws Dao.OptimisticLockException Si todos los intentos tuvieron conflicto
+     * @throws Exception Si hay error de BD
+     */
+    public Mascota actualizarConReintentos(int id, Consumer<? super Mascota> cambios) throws Exception {
+        if (cambios == null) {
+            throw new IllegalArgumentException("Los cambios no pueden ser null");
+        }
+        return OptimisticRetry.actualizar(id, this::getById, cambios, this::actualizar);
+    }
     
     /**
      * Elimina lógicamente una mascota (soft delete).
@@ -157,6 +309,27 @@ public class MascotaServiceImpl implements GenericService<Mascota>{
         return mascotaDAO.getAll();
     }
     
+    /**
+     * Obtiene una página de mascotas activas (paginación keyset por ID).
+     * Incluye sus microchips mediante LEFT JOIN (MascotaDAO).
+     *
+     * @param afterId Último ID de la página anterior (0 para la primera)
+     * @param limit Tamaño de página (1 a MAX_PAGE_SIZE)
+     * @return Mascotas con id > afterId ordenadas por id (vacía si no hay más)
+     * @throws IllegalArgumentException Si afterId es negativo o limit está fuera de rango
+     * @throws Exception Si hay error de BD
+     */
+    @Override
+    public List<Mascota> getPage(int afterId, int limit) throws Exception {
+        if (afterId < 0) {
+            throw new IllegalArgumentException("El cursor de paginación no puede ser negativo");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return mascotaDAO.getPage(afterId, limit);
+    }
+
     /**
      * Expone el servicio de microchips para que MenuHandler pueda usarlo.
      * Necesario para operaciones de menú que trabajan directamente con microchips.
@@ -168,10 +341,10 @@ public class MascotaServiceImpl implements GenericService<Mascota>{
     }
     
     /**
-     * Busca mascotas por nombre o duenio (búsqueda flexible con LIKE).
+     * Busca mascotas por nombre o duenio (búsqueda flexible).
      * Usa MascotaDAO.buscarPorNombreDuenio() que realiza:
-     * - LIKE %filtro% en nombre O duenio
-     * - Insensible a mayúsculas/minúsculas (LOWER())
+     * - LIKE %filtro% en nombre O duenio, o MATCH sobre el índice FULLTEXT (db.search.mode)
+     * - Insensible a mayúsculas/minúsculas (según collation)
      * - Solo mascotas activas (eliminado=FALSE)
      *
      * Uso típico: El usuario ingresa "juan" y encuentra "Juan Pérez", "María Juana", etc.
@@ -188,6 +361,47 @@ public class MascotaServiceImpl implements GenericService<Mascota>{
         return mascotaDAO.buscarPorNombreDuenio(filtro);
     }
 
+    /**
+     * Busca mascotas por nombre o duenio, de a una página.
+     * Con -Ddb.search.mode=fulltext usa el índice FULLTEXT (ngram) y ordena por relevancia;
+     * en modo LIKE ordena por id.
+     *
+     * @param filtro Texto a buscar (no puede estar vacío)
+     * @param offset Resultados a saltear (0 para la primera página)
+     * @param limit Tamaño de página (1 a MAX_PAGE_SIZE)
+     * @return Página de mascotas que coinciden con el filtro (puede estar vacía)
+     * @throws IllegalArgumentException Si el filtro está vacío o la paginación es inválida
+     * @throws Exception Si hay error de BD
+     */
+    public List<Mascota> buscarPorNombreDuenio(String filtro, int offset, int limit) throws Exception {
+        if (filtro == null || filtro.trim().isEmpty()) {
+            throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("El offset de paginación no puede ser negativo");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return mascotaDAO.buscarPorNombreDuenio(filtro, offset, limit);
+    }
+
+    /**
+     * Busca la mascota que tiene implantado un microchip, por el codigo leído con el escáner.
+     * Usa la caché por codigo de MascotaDAO (un JOIN indexado solo ante un miss).
+     *
+     * @param codigo Codigo del microchip (no puede estar vacío)
+     * @return Mascota con su microchip, o null si ninguna mascota activa tiene ese chip
+     * @throws IllegalArgumentException Si el codigo está vacío
+     * @throws Exception Si hay error de BD
+     */
+    public Mascota buscarPorCodigoMicrochip(String codigo) throws Exception {
+        if (codigo == null || codigo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El codigo no puede estar vacío");
+        }
+        return mascotaDAO.buscarPorCodigoMicrochip(codigo);
+    }
+
     /**
      * Elimina un microchip de forma SEGURA actualizando primero la FK de la mascota.
      * Este es el método RECOMENDADO para eliminar microchips.
@@ -231,14 +445,16 @@ public class MascotaServiceImpl implements GenericService<Mascota>{
     }
     
     /**
-     * Valida que una mascota tenga datos correctos.
+     * Valida que una mascota tenga datos correctos (no valida el microchip).
+     * Público para que las cargas masivas (CsvImporter) rechacen filas
+     * con las mismas reglas antes de escribir.
      *
      * Reglas de negocio aplicadas:
      *
      * @param mascota Mascota a validar
      * @throws IllegalArgumentException Si alguna validación falla
      */
-    private void validateMascota(Mascota mascota) {
+    public void validateMascota(Mascota mascota) {
         if (mascota == null) {
             throw new IllegalArgumentException("La mascota no puede ser null");
         }
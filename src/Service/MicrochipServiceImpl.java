@@ -1,9 +1,19 @@
 package Service;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import Dao.IMicrochipDAO;
 import Models.Microchip;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Implementación del servicio de negocio para la entidad Microchip.
@@ -18,7 +28,12 @@ import java.util.List;
  * Patrón: Service Layer con inyección de dependencias
  */
 public class MicrochipServiceImpl implements GenericService<Microchip>{
-    
+    /** Tamaño máximo de página aceptado por getPage(). */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /** Código de error MySQL para clave duplicada (UNIQUE violada). */
+    private static final int ER_DUP_ENTRY = 1062;
+
     /**
      * DAO para acceso a datos de microchip.
      * Inyectado en el constructor (Dependency Injection).   
@@ -63,7 +78,10 @@ public class MicrochipServiceImpl implements GenericService<Microchip>{
      * - El microchip debe tener datos válidos
      * - El ID debe ser > 0 (debe ser un microchip ya persistido)
      *
+     * Concurrencia: solo escribe si el microchip sigue en microchip.getVersion() (la leída).
+     *
      * @param microchip Microchip con los datos actualizados
+     * @throws Dao.OptimisticLockException Si otro usuario lo modificó desde que se leyó
      * @throws Exception Si la validación falla o el microchip no existe
      */
     @Override
@@ -75,6 +93,24 @@ public class MicrochipServiceImpl implements GenericService<Microchip>{
         validateCodigoUnique(microchip.getCodigo(), microchip.getId());
         microchipDAO.actualizar(microchip);
     }
+
+    /**
+     * Aplica un cambio a la versión más reciente de un microchip, reintentando ante conflictos.
+     * Ver OptimisticRetry (hasta db.update.maxAttempts intentos).
+     *
+     * @param id ID del microchip
+     * @param cambios Modificación a aplicar sobre el microchip leído (puede ejecutarse más de una vez)
+     * @return Microchip guardado, con su nueva versión
+     * @throws IllegalArgumentException Si el microchip no existe o queda inválido
+     * @throws Dao.OptimisticLockException Si todos los intentos tuvieron conflicto
+     * @throws Exception Si hay error de BD
+     */
+    public Microchip actualizarConReintentos(int id, Consumer<? super Microchip> cambios) throws Exception {
+        if (cambios == null) {
+            throw new IllegalArgumentException("Los cambios no pueden ser null");
+        }
+        return OptimisticRetry.actualizar(id, this::getById, cambios, this::actualizar);
+    }
  
     /**
      * Elimina lógicamente un microchip (soft delete).
@@ -121,17 +157,55 @@ public class MicrochipServiceImpl implements GenericService<Microchip>{
     @Override
     public List<Microchip> getAll() throws Exception {
         return microchipDAO.getAll();
-    }    
+    }
+
+    /**
+     * Obtiene una página de microchips activos (paginación keyset por ID).
+     *
+     * @param afterId Último ID de la página anterior (0 para la primera)
+     * @param limit Tamaño de página (1 a MAX_PAGE_SIZE)
+     * @return Microchips con id > afterId ordenados por id (vacía si no hay más)
+     * @throws IllegalArgumentException Si afterId es negativo o limit está fuera de rango
+     * @throws Exception Si hay error de BD
+     */
+    @Override
+    public List<Microchip> getPage(int afterId, int limit) throws Exception {
+        if (afterId < 0) {
+            throw new IllegalArgumentException("El cursor de paginación no puede ser negativo");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return microchipDAO.getPage(afterId, limit);
+    }
     
+    /**
+     * Busca un microchip activo por su codigo (lectura del escáner en la clínica).
+     * Usa la caché por codigo de MicrochipDAO.
+     *
+     * @param codigo Codigo a buscar (no puede estar vacío)
+     * @return Microchip encontrado, o null si no existe o está eliminado
+     * @throws IllegalArgumentException Si el codigo está vacío
+     * @throws Exception Si hay error de BD
+     */
+    public Microchip buscarPorCodigo(String codigo) throws Exception {
+        if (codigo == null || codigo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El codigo no puede estar vacío");
+        }
+        return microchipDAO.buscarPorCodigo(codigo);
+    }
+
     /**
      * Valida que un microchip tenga datos correctos.
+     * Público para que las cargas masivas (CsvImporter) rechacen filas
+     * con las mismas reglas antes de escribir.
      *
      * Reglas de negocio aplicadas:
      *
      * @param microchip Microchip a validar
      * @throws IllegalArgumentException Si alguna validación falla
      */
-    private void validateMicrochip(Microchip microchip) {
+    public void validateMicrochip(Microchip microchip) {
         if (microchip == null) {
             throw new IllegalArgumentException("El microchip no puede ser null");
         }
@@ -168,10 +242,144 @@ public class MicrochipServiceImpl implements GenericService<Microchip>{
         }
     }    
     
-        public void insertarTx(Microchip microchip, Connection conn) throws Exception {
+    /**
+     * Valida la unicidad de muchos codigos a la vez (cargas masivas).
+     * Equivale a llamar validateCodigoUnique() por cada uno, pero con una query
+     * IN por cada 500 codigos (IMicrochipDAO.buscarCodigosExistentes) en lugar de N SELECT.
+     *
+     * Detecta dos tipos de conflicto:
+     * - El codigo ya existe en la BD (también si el microchip está eliminado: lo cubre la UNIQUE)
+     * - El codigo se repite dentro del mismo lote: la primera aparición es válida,
+     *   las siguientes se marcan como repetidas
+     *
+     * La comparación ignora mayúsculas/minúsculas, igual que la collation de la BD.
+     * Los codigos null o vacíos no se marcan (los rechaza validateMicrochip()).
+     *
+     * @param codigos Codigos a insertar, en el orden del lote
+     * @return Lista paralela a codigos: null si el codigo es válido, o el motivo del rechazo
+     * @throws Exception Si hay error de BD
+     */
+    public List<String> validateCodigosUnique(List<String> codigos) throws Exception {
+        if (codigos == null || codigos.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> existentes = new HashSet<>();
+        for (String codigo : microchipDAO.buscarCodigosExistentes(codigos)) {
+            existentes.add(normalizarCodigo(codigo));
+        }
+
+        List<String> motivos = new ArrayList<>(codigos.size());
+        Map<String, Integer> primeraPosicion = new HashMap<>();
+        for (int i = 0; i < codigos.size(); i++) {
+            String codigo = codigos.get(i);
+            if (codigo == null || codigo.trim().isEmpty()) {
+                motivos.add(null);
+                continue;
+            }
+            String clave = normalizarCodigo(codigo);
+            Integer anterior = primeraPosicion.putIfAbsent(clave, i);
+            if (existentes.contains(clave)) {
+                motivos.add("Ya existe un Microchip con el codigo: " + codigo.trim());
+            } else if (anterior != null) {
+                motivos.add("Codigo repetido en el lote: " + codigo.trim() + " (posición " + anterior + ")");
+            } else {
+                motivos.add(null);
+            }
+        }
+        return motivos;
+    }
+
+    /**
+     * Clave de comparación de codigos (trim + minúsculas, como la collation _ci de la BD).
+     */
+    private static String normalizarCodigo(String codigo) {
+        return codigo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Inserta un microchip dentro de una transacción existente.
+     * NO crea ni cierra la conexión (responsabilidad del caller con TransactionManager).
+     *
+     * A diferencia de insertar(), NO hace el SELECT de validateCodigoUnique():
+     * la unicidad la garantiza la restricción UNIQUE de microchips.codigo dentro
+     * de la misma transacción, y el duplicado se traduce al mismo mensaje de negocio.
+     * Así el alta transaccional ahorra un round trip.
+     *
+     * Usado por MascotaServiceImpl.insertar() e insertarConTransaccionDemoSinValidar().
+     *
+     * @param microchip Microchip a insertar
+     * @param conn Conexión transaccional (NO se cierra en este método)
+     * @throws IllegalArgumentException Si el microchip es inválido o el codigo ya existe
+     * @throws Exception Si hay otro error de BD
+     */
+    public void insertarTx(Microchip microchip, Connection conn) throws Exception {
         validateMicrochip(microchip);
-        validateCodigoUnique(microchip.getCodigo(), microchip.getId());
-        microchipDAO.insertTx(microchip, conn); // usa el INSERT transaccional del DAO
+        try {
+            microchipDAO.insertTx(microchip, conn); // usa el INSERT transaccional del DAO
+        } catch (SQLIntegrityConstraintViolationException e) {
+            if (e.getErrorCode() == ER_DUP_ENTRY) {
+                throw new IllegalArgumentException("Ya existe un Microchip con el codigo: " + microchip.getCodigo(), e);
+            }
+            throw e;
+        }
     }
-}    
 
+    /**
+     * Actualiza un microchip dentro de una transacción existente.
+     * NO crea ni cierra la conexión (responsabilidad del caller con TransactionManager).
+     *
+     * Igual que insertarTx(): la unicidad del codigo la garantiza la restricción UNIQUE
+     * dentro de la transacción (sin el SELECT de validateCodigoUnique()).
+     *
+     * Usado por MascotaServiceImpl.insertar() cuando la mascota trae un microchip existente.
+     *
+     * @param microchip Microchip con los datos actualizados (id > 0, version la leída)
+     * @param conn Conexión transaccional (NO se cierra en este método)
+     * @throws Dao.OptimisticLockException Si otro usuario lo modificó desde que se leyó
+     * @throws IllegalArgumentException Si el microchip es inválido o el codigo ya existe
+     * @throws Exception Si el microchip no existe o hay otro error de BD
+     */
+    public void actualizarTx(Microchip microchip, Connection conn) throws Exception {
+        validateMicrochip(microchip);
+        if (microchip.getId() <= 0) {
+            throw new IllegalArgumentException("El ID del microchip debe ser mayor a 0 para actualizar");
+        }
+        try {
+            microchipDAO.actualizarTx(microchip, conn);
+        } catch (SQLIntegrityConstraintViolationException e) {
+            if (e.getErrorCode() == ER_DUP_ENTRY) {
+                throw new IllegalArgumentException("Ya existe un Microchip con el codigo: " + microchip.getCodigo(), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Inserta un lote de microchips dentro de una transacción existente.
+     * NO crea ni cierra la conexión (responsabilidad del caller con TransactionManager).
+     *
+     * Igual que insertarTx(): valida cada microchip y delega la unicidad del codigo
+     * en la restricción UNIQUE; un duplicado (en la BD o dentro del lote) hace fallar
+     * todo el lote con IllegalArgumentException.
+     *
+     * Usado por MascotaServiceImpl.insertarBatch().
+     *
+     * @param microchips Microchips nuevos a insertar (sus IDs se asignan al finalizar)
+     * @param conn Conexión transaccional (NO se cierra en este método)
+     * @throws IllegalArgumentException Si algún microchip es inválido o algún codigo ya existe
+     * @throws Exception Si hay otro error de BD
+     */
+    public void insertarBatchTx(List<Microchip> microchips, Connection conn) throws Exception {
+        for (Microchip microchip : microchips) {
+            validateMicrochip(microchip);
+        }
+        try {
+            microchipDAO.insertarBatchTx(microchips, conn);
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_DUP_ENTRY) {
+                throw new IllegalArgumentException("Codigo de microchip duplicado en el lote: " + e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package Service;
+
+import Config.DatabaseConnection;
+import Dao.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Reintento de actualizaciones ante conflictos de concurrencia optimista.
+ * Base de MascotaServiceImpl.actualizarConReintentos() y MicrochipServiceImpl.actualizarConReintentos().
+ *
+ * Flujo por intento:
+ * 1. Lee la entidad fresca (con su versión actual)
+ * 2. Aplica el cambio pedido sobre esa copia
+ * 3. Intenta guardarla; si otro usuario la modificó en el medio (OptimisticLockException),
+ *    espera un tiempo aleatorio creciente y vuelve a 1
+ *
+ * Tras un conflicto, la relectura no ve datos viejos: actualizar() invalida la caché de la
+ * entidad y deja las lecturas del hilo en el primario (db.read.stickyMs).
+ *
+ * IMPORTANTE: el cambio se reaplica sobre datos nuevos en cada intento, por lo que debe
+ * expresarse sobre la entidad recibida ("agregar una observación", "cambiar el duenio"),
+ * no copiar campos de una entidad leída antes. Para ediciones del usuario (menú, PUT de la API)
+ * no corresponde reintentar: el conflicto se informa para que vuelva a cargar los datos.
+ *
+ * Patrón: Utility class
+ */
+public final class OptimisticRetry {
+    /** Espera base entre intentos; se duplica en cada conflicto (con jitter). */
+    private static final long BACKOFF_BASE_MS = 5;
+
+    private OptimisticRetry() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Lectura de la entidad a modificar.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(int id) throws Exception;
+    }
+
+    /**
+     * Escritura con compare-and-set (actualizar() del servicio o del DAO).
+     */
+    @FunctionalInterface
+    public interface Updater<T> {
+        void update(T entidad) throws Exception;
+    }
+
+    /**
+     * Ejecuta leer → modificar → guardar hasta db.update.maxAttempts veces.
+     *
+     * @param id ID de la entidad
+     * @param cargar Lectura de la entidad (null = no existe)
+     * @param cambios Modificación a aplicar sobre la entidad leída
+     * @param guardar Actualización con control de versión
+     * @return La entidad guardada (con su nueva versión)
+     * @throws IllegalArgumentException Si la entidad no existe
+     * @throws OptimisticLockException Si el último intento también tuvo conflicto
+     * @throws Exception Cualquier otro error de la lectura o la escritura (no se reintenta)
+     */
+    public static <T> T actualizar(int id, Loader<T> cargar, Consumer<? super T> cambios, Updater<T> guardar) throws Exception {
+        int maxIntentos = DatabaseConnection.getUpdateMaxAttempts();
+        for (int intento = 1; ; intento++) {
+            T entidad = cargar.load(id);
+            if (entidad == null) {
+                throw new IllegalArgumentException("No existe la entidad con ID: " + id);
+            }
+            cambios.accept(entidad);
+            try {
+                guardar.update(entidad);
+                return entidad;
+            } catch (OptimisticLockException e) {
+                if (intento >= maxIntentos) {
+                    throw e;
+                }
+                esperar(intento);
+            }
+        }
+    }
+
+    /**
+     * Backoff exponencial con jitter completo: entre 0 y BACKOFF_BASE_MS * 2^(intento-1).
+     * Evita que dos editores en conflicto vuelvan a chocar en el mismo instante.
+     */
+    private static void esperar(int intento) throws InterruptedException {
+        long max = BACKOFF_BASE_MS << Math.min(intento - 1, 10);
+        Thread.sleep(ThreadLocalRandom.current().nextLong(max + 1));
+    }
+}